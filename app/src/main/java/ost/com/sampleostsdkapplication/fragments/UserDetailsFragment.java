@@ -12,10 +12,14 @@ package ost.com.sampleostsdkapplication.fragments;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.v4.app.Fragment;
 import android.util.Log;
+import android.util.Pair;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -24,7 +28,12 @@ import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.Impls.OstModelFactory;
 import com.ost.walletsdk.models.entities.OstDevice;
 import com.ost.walletsdk.models.entities.OstUser;
 import com.ost.walletsdk.network.OstApiError;
@@ -37,6 +46,7 @@ import com.ost.walletsdk.workflows.interfaces.OstDeviceRegisteredInterface;
 import org.json.JSONObject;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import ost.com.sampleostsdkapplication.R;
 import ost.com.sampleostsdkapplication.UsersListActivity;
@@ -47,6 +57,14 @@ import ost.com.sampleostsdkapplication.WorkFlowHelper;
  */
 public class UserDetailsFragment extends Fragment {
     private static String TAG = "UserDetailsFragment";
+    private static final Executor MAIN_THREAD_EXECUTOR = new Executor() {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            mHandler.post(runnable);
+        }
+    };
 
     private String mUserId;
     private String mTokenId;
@@ -229,13 +247,47 @@ public class UserDetailsFragment extends Fragment {
 
     /**
      * Populate Data in the fragment view.
+     * User and device are read off the main thread, views are updated on the main thread once
+     * they are loaded.
      */
     private void populateData() {
-        OstUser user = OstSdk.getUser(mUserId);
-        OstDevice device = user.getCurrentDevice();
+        ListenableFuture<Pair<OstUser, OstDevice>> userDetailsFuture = Futures.transform(
+                OstModelFactory.getUserModel().getEntityByIdAsync(mUserId),
+                new Function<OstUser, Pair<OstUser, OstDevice>>() {
+                    @Override
+                    public Pair<OstUser, OstDevice> apply(OstUser user) {
+                        //Current device is looked up in the key store, hence not on the main thread either.
+                        return new Pair<>(user, null == user ? null : user.getCurrentDevice());
+                    }
+                }, AsyncTask.THREAD_POOL_EXECUTOR);
+
+        Futures.addCallback(userDetailsFuture, new FutureCallback<Pair<OstUser, OstDevice>>() {
+            @Override
+            public void onSuccess(Pair<OstUser, OstDevice> userDetails) {
+                if (isAdded()) {
+                    showData(userDetails.first, userDetails.second);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                Log.e(TAG, "Failed to load user details", t);
+                if (isAdded()) {
+                    showData(null, null);
+                }
+            }
+        }, MAIN_THREAD_EXECUTOR);
+    }
+
+    private void showData(OstUser user, OstDevice device) {
         mUserIdEdit.setText(mUserId);
-        mUserStatusEdit.setText(user.getStatus());
         mTokenIdEdit.setText(mTokenId);
+        if (null == user) {
+            //User is not stored before it is set up on this device.
+            Log.w(TAG, String.format("User %s not found", mUserId));
+            return;
+        }
+        mUserStatusEdit.setText(user.getStatus());
         mUserTHEdit.setText(user.getTokenHolderAddress());
         mUserDMEdit.setText(user.getDeviceManagerAddress());
         mUserRecoveryOwnerAddressEdit.setText(user.getRecoveryOwnerAddress());
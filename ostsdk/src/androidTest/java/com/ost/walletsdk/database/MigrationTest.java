@@ -10,12 +10,19 @@
 
 package com.ost.walletsdk.database;
 
+import android.arch.persistence.db.SupportSQLiteDatabase;
 import android.arch.persistence.db.framework.FrameworkSQLiteOpenHelperFactory;
 import android.arch.persistence.room.testing.MigrationTestHelper;
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.support.test.InstrumentationRegistry;
 import android.support.test.runner.AndroidJUnit4;
 
+import com.ost.walletsdk.database.migrations.Migration_1_2;
+import com.ost.walletsdk.database.migrations.Migration_2_3;
+import com.ost.walletsdk.database.migrations.Migration_4_5;
 import com.ost.walletsdk.models.OstUserModel;
 
 import org.junit.BeforeClass;
@@ -25,9 +32,13 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
+
 @RunWith(AndroidJUnit4.class)
 public class MigrationTest {
 
+    private static final String TEST_DB = "migration_test_db";
+
     @Rule
     public MigrationTestHelper testHelper =
             new MigrationTestHelper(
@@ -56,4 +67,75 @@ public class MigrationTest {
 //        db = testHelper.runMigrationsAndValidate("ostsdk_db", 1, true, new MigrationSample(1, 1));
 
     }
+
+    @Test
+    public void testMigration1To2AddsParentStatusIndex() throws IOException {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB, 1);
+        ContentValues cv = new ContentValues();
+        cv.put("id", "0x1");
+        cv.put("parent_id", "1");
+        cv.put("data", "{}");
+        cv.put("status", "AUTHORIZED");
+        cv.put("uts", 123);
+        db.insert("session", SQLiteDatabase.CONFLICT_REPLACE, cv);
+        db.close();
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB, 2, true, new Migration_1_2(1, 2));
+
+        Cursor cursor = db.query("SELECT name FROM sqlite_master WHERE type = 'index' AND name = 'index_session_parent_id_status'");
+        assertEquals(1, cursor.getCount());
+        cursor.close();
+
+        cursor = db.query("SELECT id FROM session WHERE parent_id = '1' AND status IN ('authorized', 'AUTHORIZED')");
+        assertEquals(1, cursor.getCount());
+        cursor.close();
+    }
+
+    @Test
+    public void testMigration2To3BackfillsTypedColumns() throws IOException {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB, 2);
+        ContentValues cv = new ContentValues();
+        cv.put("id", "0x1");
+        cv.put("parent_id", "1");
+        cv.put("data", "{\"address\":\"0x1\",\"user_id\":\"1\",\"status\":\"AUTHORIZED\",\"nonce\":7,"
+                + "\"spending_limit\":\"1000\",\"approx_expiration_timestamp\":\"1560000000\"}");
+        cv.put("uts", 123);
+        db.insert("session", SQLiteDatabase.CONFLICT_REPLACE, cv);
+        db.close();
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB, 3, true, new Migration_2_3(2, 3));
+
+        Cursor cursor = db.query("SELECT nonce, spending_limit, expiration_timestamp, status FROM session WHERE id = '0x1'");
+        assertEquals(true, cursor.moveToFirst());
+        assertEquals(7, cursor.getInt(0));
+        assertEquals("1000", cursor.getString(1));
+        assertEquals("1560000000", cursor.getString(2));
+        assertEquals("AUTHORIZED", cursor.getString(3));
+        cursor.close();
+    }
+
+    @Test
+    public void testMigration4To5AddsPendingOperationTable() throws IOException {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB, 4);
+        db.close();
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB, 5, true, new Migration_4_5(4, 5));
+
+        ContentValues cv = new ContentValues();
+        cv.put("id", "transaction:1");
+        cv.put("user_id", "1");
+        cv.put("entity_type", "transaction");
+        cv.put("entity_id", "1");
+        cv.put("success_status", "SUCCESS");
+        cv.put("failed_status", "FAILED");
+        cv.put("deadline", 2000);
+        cv.put("created_at", 1000);
+        db.insert("pending_operation", SQLiteDatabase.CONFLICT_REPLACE, cv);
+
+        Cursor cursor = db.query("SELECT entity_type, deadline FROM pending_operation WHERE user_id = '1'");
+        assertEquals(true, cursor.moveToFirst());
+        assertEquals("transaction", cursor.getString(0));
+        assertEquals(2000, cursor.getLong(1));
+        cursor.close();
+    }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.ost.walletsdk.OstConstants;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares ingesting list responses the way they were ingested before, reading the body as a
+ * String, parsing it and then decoding the entities, with decoding the entities while streaming.
+ * Every payload under the fixtures assets is checked, so recorded platform responses dropped
+ * there are covered without code changes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OstJsonStreamReaderBenchmark {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String FIXTURES = "fixtures";
+
+    private static final String TAG = "OstJsonStreamReaderBenchmark";
+
+    private static final int WARM_UP_ITERATIONS = 10;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    public void testSameResponseAsStringParsing() throws Exception {
+        for (String fixture : listFixtures()) {
+            byte[] body = readFixture(fixture);
+            OstApiHelper.EntityCollector streamedEntities = new OstApiHelper.EntityCollector();
+            JSONObject streamed = parseStream(body, streamedEntities);
+            JSONObject parsed = parseString(body);
+            OstApiHelper.EntityCollector parsedEntities =
+                    OstApiHelper.collectEntities(parsed.getJSONObject(OstConstants.RESPONSE_DATA));
+
+            assertEquals(fixture, parsed.toString(), streamed.toString());
+            assertEquals(fixture, ids(parsedEntities), ids(streamedEntities));
+            assertFalse(fixture, ids(streamedEntities).isEmpty());
+        }
+    }
+
+    @Test
+    public void testValueTypes() throws Exception {
+        String json = "{'int':1,'long':12345678901,'double':1.5,'big':123456789012345678901234," +
+                "'bool':true,'null':null,'str':'a','arr':[1,{'a':[]}]}";
+        JSONObject streamed = OstJsonStreamReader.read(new StringReader(json));
+        JSONObject parsed = new JSONObject(json);
+
+        assertTrue(streamed.get("int") instanceof Integer);
+        assertTrue(streamed.get("long") instanceof Long);
+        assertTrue(streamed.get("double") instanceof Double);
+        assertEquals(parsed.get("big").getClass(), streamed.get("big").getClass());
+        assertEquals(JSONObject.NULL, streamed.get("null"));
+        assertTrue(streamed.get("arr") instanceof JSONArray);
+        assertEquals(parsed.toString(), streamed.toString());
+    }
+
+    @Test(expected = JSONException.class)
+    public void testNotAnObject() throws Exception {
+        OstJsonStreamReader.read(new StringReader("[]"));
+    }
+
+    /**
+     * Streaming never holds the body as a String, so the heap held while a response is
+     * ingested must be below the String path. Latency depends on the device, it is logged only.
+     */
+    @Test
+    public void testIngestionBounds() throws Exception {
+        for (String fixture : listFixtures()) {
+            byte[] body = readFixture(fixture);
+            for (int cnt = 0; cnt < WARM_UP_ITERATIONS; cnt++) {
+                ingestString(body);
+                ingestStream(body);
+            }
+
+            Runtime runtime = Runtime.getRuntime();
+            long stringNanos = 0;
+            long streamNanos = 0;
+            long stringBytes = 0;
+            long streamBytes = 0;
+            for (int cnt = 0; cnt < ITERATIONS; cnt++) {
+                runtime.gc();
+                long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+                long startNanos = System.nanoTime();
+                Object[] stringResult = ingestString(body);
+                stringNanos += System.nanoTime() - startNanos;
+                stringBytes += runtime.totalMemory() - runtime.freeMemory() - usedBefore;
+                assertEquals(3, stringResult.length);
+                stringResult = null;
+
+                runtime.gc();
+                usedBefore = runtime.totalMemory() - runtime.freeMemory();
+                startNanos = System.nanoTime();
+                Object[] streamResult = ingestStream(body);
+                streamNanos += System.nanoTime() - startNanos;
+                streamBytes += runtime.totalMemory() - runtime.freeMemory() - usedBefore;
+                assertEquals(2, streamResult.length);
+                streamResult = null;
+            }
+
+            String results = String.format(Locale.US,
+                    "%s, %d bytes: string %.2f ms %d KB held, stream %.2f ms %d KB held",
+                    fixture, body.length,
+                    stringNanos / 1e6 / ITERATIONS, stringBytes / 1024 / ITERATIONS,
+                    streamNanos / 1e6 / ITERATIONS, streamBytes / 1024 / ITERATIONS);
+            Log.i(TAG, results);
+            assertTrue(results, streamBytes < stringBytes);
+        }
+    }
+
+    /**
+     * String path holds the body till the entities are decoded, keep everything alive while measuring.
+     */
+    private static Object[] ingestString(byte[] body) throws JSONException {
+        String responseBody = new String(body, UTF_8);
+        JSONObject jsonResponse = new JSONObject(responseBody);
+        OstApiHelper.EntityCollector entities =
+                OstApiHelper.collectEntities(jsonResponse.getJSONObject(OstConstants.RESPONSE_DATA));
+        return new Object[]{responseBody, jsonResponse, entities};
+    }
+
+    private static Object[] ingestStream(byte[] body) throws IOException, JSONException {
+        OstApiHelper.EntityCollector entities = new OstApiHelper.EntityCollector();
+        JSONObject jsonResponse = parseStream(body, entities);
+        return new Object[]{jsonResponse, entities};
+    }
+
+    private static List<String> ids(OstApiHelper.EntityCollector entityCollector) {
+        List<String> ids = new ArrayList<>();
+        for (OstBaseEntity[] entities : entityCollector.getEntities().values()) {
+            for (OstBaseEntity entity : entities) {
+                ids.add(entity.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static JSONObject parseString(byte[] body) throws JSONException {
+        return new JSONObject(new String(body, UTF_8));
+    }
+
+    /**
+     * String path holds the body till the response is parsed, keep both alive while measuring.
+     */
+    private static JSONObject parseStream(byte[] body, OstJsonStreamReader.EntityListener entityListener)
+            throws IOException, JSONException {
+        return OstJsonStreamReader.read(new InputStreamReader(new ByteArrayInputStream(body), UTF_8),
+                entityListener);
+    }
+
+    private static String[] listFixtures() throws IOException {
+        String[] fixtures = InstrumentationRegistry.getContext().getAssets().list(FIXTURES);
+        assertTrue(fixtures.length > 0);
+        return fixtures;
+    }
+
+    private static byte[] readFixture(String name) throws IOException {
+        InputStream inputStream = InstrumentationRegistry.getContext().getAssets()
+                .open(FIXTURES + "/" + name);
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while (-1 != (read = inputStream.read(buffer))) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
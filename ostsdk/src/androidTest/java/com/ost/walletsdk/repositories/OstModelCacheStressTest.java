@@ -0,0 +1,234 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.repositories;
+
+import android.arch.persistence.db.framework.FrameworkSQLiteOpenHelperFactory;
+import android.arch.persistence.room.testing.MigrationTestHelper;
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.database.OstSdkDatabase;
+import com.ost.walletsdk.models.Impls.OstModelFactory;
+import com.ost.walletsdk.models.OstBaseModel;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstDeviceManager;
+import com.ost.walletsdk.models.entities.OstDeviceManagerOperation;
+import com.ost.walletsdk.models.entities.OstRule;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstTokenHolder;
+import com.ost.walletsdk.models.entities.OstTransaction;
+import com.ost.walletsdk.models.entities.OstUser;
+import com.ost.walletsdk.utils.AsyncStatus;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.web3j.crypto.Keys;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs many threads against every repository of OstModelFactory and checks
+ * that no entity written is lost and every writer can read its own write.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OstModelCacheStressTest {
+
+    private static final int THREAD_COUNT = 16;
+    private static final int ITERATIONS = 200;
+    private static final int ID_COUNT = 40;
+
+    @ClassRule
+    public static MigrationTestHelper testHelper =
+            new MigrationTestHelper(
+                    InstrumentationRegistry.getInstrumentation(),
+                    OstSdkDatabase.class.getCanonicalName(),
+                    new FrameworkSQLiteOpenHelperFactory());
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        Context appContext = InstrumentationRegistry.getTargetContext();
+        testHelper.createDatabase("ostsdk_db", 1);
+        OstSdk.initialize(appContext.getApplicationContext(), "");
+    }
+
+    interface EntityBuilder {
+        OstBaseEntity build(String id, JSONObject data) throws JSONException;
+    }
+
+    @Test
+    public void testUserModel() throws Exception {
+        stress(OstModelFactory.getUserModel(), OstUser.ID, false, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstUser(id, "", data, "", 0);
+            }
+        });
+    }
+
+    @Test
+    public void testTokenModel() throws Exception {
+        stress(OstModelFactory.getTokenModel(), OstToken.ID, false, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstToken(id, "", data, "", 0);
+            }
+        });
+    }
+
+    @Test
+    public void testTransactionModel() throws Exception {
+        stress(OstModelFactory.getTransactionModel(), OstTransaction.ID, false, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstTransaction(id, "", data, "", 0);
+            }
+        });
+    }
+
+    @Test
+    public void testDeviceManagerOperationModel() throws Exception {
+        stress(OstModelFactory.getDeviceManagerOperationModel(), OstDeviceManagerOperation.ID, false, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstDeviceManagerOperation(id, "", data, "", 0);
+            }
+        });
+    }
+
+    @Test
+    public void testSessionModel() throws Exception {
+        stress(OstModelFactory.getSessionModel(), OstSession.ADDRESS, true, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstSession(id, "", data, "", 0);
+            }
+        });
+    }
+
+    @Test
+    public void testDeviceModel() throws Exception {
+        stress(OstModelFactory.getDeviceModel(), OstDevice.ADDRESS, true, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstDevice(id, "", data, "", 0);
+            }
+        });
+    }
+
+    @Test
+    public void testDeviceManagerModel() throws Exception {
+        stress(OstModelFactory.getDeviceManagerModel(), OstDeviceManager.ADDRESS, true, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstDeviceManager(id, "", data, "", 0);
+            }
+        });
+    }
+
+    @Test
+    public void testTokenHolderModel() throws Exception {
+        stress(OstModelFactory.getTokenHolderModel(), OstTokenHolder.ADDRESS, true, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstTokenHolder(id, "", data, "", 0);
+            }
+        });
+    }
+
+    @Test
+    public void testRuleModel() throws Exception {
+        stress(OstModelFactory.getRuleModel(), OstRule.ADDRESS, true, new EntityBuilder() {
+            @Override
+            public OstBaseEntity build(String id, JSONObject data) {
+                return new OstRule(id, "", data, "", 0);
+            }
+        });
+    }
+
+    private void stress(final OstBaseModel model, final String idKey, boolean isAddress,
+                        final EntityBuilder entityBuilder) throws Exception {
+        model.deleteAllEntities().get(10, TimeUnit.SECONDS);
+
+        final String[] ids = new String[ID_COUNT];
+        for (int cnt = 0; cnt < ID_COUNT; cnt++) {
+            ids[cnt] = isAddress ? Keys.toChecksumAddress(String.format("0x%040x", cnt + 1)) : String.valueOf(cnt + 1);
+        }
+
+        final AtomicInteger missedReads = new AtomicInteger(0);
+        final List<Future<AsyncStatus>> writes = Collections.synchronizedList(new ArrayList<Future<AsyncStatus>>());
+        final CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+
+        for (int thread = 0; thread < THREAD_COUNT; thread++) {
+            final int writer = thread;
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startGate.await();
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            String id = ids[(writer + i) % ID_COUNT];
+                            if (0 == i % 3) {
+                                JSONObject data = new JSONObject();
+                                data.put(idKey, id);
+                                data.put("writer", writer);
+                                writes.add(model.insertOrUpdateEntity(entityBuilder.build(id, data)));
+                                if (null == model.getEntityById(id)) {
+                                    missedReads.incrementAndGet();
+                                }
+                            } else {
+                                model.getEntityById(id);
+                            }
+                        }
+                    } catch (Exception e) {
+                        missedReads.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        startGate.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(60, TimeUnit.SECONDS));
+
+        for (Future<AsyncStatus> write : writes) {
+            assertTrue(write.get(10, TimeUnit.SECONDS).isSuccess());
+        }
+
+        assertEquals(0, missedReads.get());
+        for (String id : ids) {
+            OstBaseEntity entity = model.getEntityById(id);
+            assertNotNull(entity);
+            assertEquals(id, entity.getId());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+
+package com.ost.walletsdk.repositories;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.database.OstSdkDatabase;
+import com.ost.walletsdk.database.daos.OstSessionDao;
+import com.ost.walletsdk.models.entities.OstSession;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class OstSessionModelTest {
+
+    private static final String USER_ID = "1";
+    private static final long NOW = 1560000000L;
+
+    private OstSessionDao mOstSessionDao;
+
+    @Before
+    public void setUp() {
+        Context appContext = InstrumentationRegistry.getTargetContext();
+        OstSdk.initialize(appContext.getApplicationContext(), "");
+        mOstSessionDao = OstSdkDatabase.getDatabase().tokenHolderSessionDao();
+        mOstSessionDao.deleteAll();
+    }
+
+    @Test
+    public void testActiveIdsUseTypedColumns() throws JSONException {
+        mOstSessionDao.insert(session("0x1", "AUTHORIZED", "1000", NOW + 60));
+        mOstSessionDao.insert(session("0x2", "AUTHORIZED", "1000", NOW - 60));
+        mOstSessionDao.insert(session("0x3", "AUTHORIZED", "999", NOW + 60));
+        mOstSessionDao.insert(session("0x4", "REVOKED", "1000", NOW + 60));
+        mOstSessionDao.insert(session("0x5", "authorized", "10000", NOW + 60));
+
+        List<String> ids = Arrays.asList(mOstSessionDao.getActiveIds(USER_ID, NOW, "1000",
+                "authorized", "AUTHORIZED"));
+        assertEquals(2, ids.size());
+        assertTrue(ids.contains("0x1"));
+        assertTrue(ids.contains("0x5"));
+    }
+
+    @Test
+    public void testActiveIdsCompareLimitsOfDifferentLength() throws JSONException {
+        mOstSessionDao.insert(session("0x1", "AUTHORIZED", "900000000000000000000", NOW + 60));
+        mOstSessionDao.insert(session("0x2", "AUTHORIZED", "9", NOW + 60));
+
+        String[] ids = mOstSessionDao.getActiveIds(USER_ID, NOW, "10", "AUTHORIZED");
+        assertEquals(1, ids.length);
+        assertEquals("0x1", ids[0]);
+    }
+
+    private OstSession session(String address, String status, String spendingLimit, long expiration)
+            throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(OstSession.ADDRESS, address);
+        jsonObject.put(OstSession.USER_ID, USER_ID);
+        jsonObject.put(OstSession.STATUS, status);
+        jsonObject.put(OstSession.SPENDING_LIMIT, spendingLimit);
+        jsonObject.put(OstSession.EXPIRATION_HEIGHT, "1000");
+        jsonObject.put(OstSession.APPROX_EXPIRATION_TIMESTAMP, String.valueOf(expiration));
+        jsonObject.put(OstSession.NONCE, 0);
+        return new OstSession(jsonObject);
+    }
+}
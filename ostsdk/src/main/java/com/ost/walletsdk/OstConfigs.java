@@ -16,6 +16,7 @@ import android.text.TextUtils;
 import com.ost.walletsdk.workflows.errors.OstError;
 import com.ost.walletsdk.workflows.errors.OstErrors.ErrorCode;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.InputStream;
@@ -40,6 +41,9 @@ public class OstConfigs {
     public final long REQUEST_TIMEOUT_DURATION;
     public final long SESSION_BUFFER_TIME;
     public final boolean USE_SEED_PASSWORD;
+    public final boolean DB_STRICT_MODE;
+    private final JSONObject mEntityCacheSize;
+    private final JSONArray mBinaryRowEncoding;
 
 
     private OstConfigs(final Context context) {
@@ -75,6 +79,40 @@ public class OstConfigs {
         }
 
         USE_SEED_PASSWORD = config.optBoolean("USE_SEED_PASSWORD", false);
+
+        DB_STRICT_MODE = config.optBoolean("DB_STRICT_MODE", false);
+
+        JSONObject entityCacheSize = config.optJSONObject("ENTITY_CACHE_SIZE");
+        mEntityCacheSize = null == entityCacheSize ? new JSONObject() : entityCacheSize;
+
+        JSONArray binaryRowEncoding = config.optJSONArray("BINARY_ROW_ENCODING");
+        mBinaryRowEncoding = null == binaryRowEncoding ? new JSONArray() : binaryRowEncoding;
+    }
+
+    /**
+     * @param entityType  entity type as in OstSdk entity type constants, eg: OstSdk.SESSION
+     * @param defaultSize size to use if not configured
+     * @return in-memory cache size configured for the entity type
+     */
+    public int getEntityCacheSize(String entityType, int defaultSize) {
+        int cacheSize = mEntityCacheSize.optInt(entityType, defaultSize);
+        if (cacheSize < 1) {
+            return defaultSize;
+        }
+        return cacheSize;
+    }
+
+    /**
+     * @param entityType entity type as in OstSdk entity type constants, eg: OstSdk.TRANSACTION
+     * @return true if rows of the entity type are stored in the binary row format
+     */
+    public boolean isBinaryRowEncodingEnabled(String entityType) {
+        for (int cnt = 0; cnt < mBinaryRowEncoding.length(); cnt++) {
+            if (entityType.equals(mBinaryRowEncoding.optString(cnt))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private JSONObject readConfig(final Context context) {
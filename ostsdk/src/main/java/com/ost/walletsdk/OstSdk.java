@@ -15,6 +15,7 @@ import android.graphics.Bitmap;
 import android.util.Log;
 
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.ost.walletsdk.database.OstDbStrictMode;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.OstSdkKeyDatabase;
 import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
@@ -22,6 +23,7 @@ import com.ost.walletsdk.models.Impls.OstModelFactory;
 import com.ost.walletsdk.models.entities.OstDevice;
 import com.ost.walletsdk.models.entities.OstToken;
 import com.ost.walletsdk.models.entities.OstUser;
+import com.ost.walletsdk.network.OstConnectivity;
 import com.ost.walletsdk.utils.QRCode;
 import com.ost.walletsdk.workflows.OstAbortDeviceRecovery;
 import com.ost.walletsdk.workflows.OstActivateUser;
@@ -37,6 +39,7 @@ import com.ost.walletsdk.workflows.OstResetPin;
 import com.ost.walletsdk.workflows.errors.OstError;
 import com.ost.walletsdk.workflows.errors.OstErrors;
 import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+import com.ost.walletsdk.workflows.services.OstPendingOperations;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -73,6 +76,7 @@ public class OstSdk {
     public static final String RULES = "rules";
     public static final String DEVICES = "devices";
     public static final String SESSIONS = "sessions";
+    public static final String TRANSACTIONS = "transactions";
     // endregion
 
 
@@ -116,6 +120,7 @@ public class OstSdk {
         mApplicationContext = context.getApplicationContext();
         OstSdkDatabase.initDatabase(mApplicationContext);
         OstSdkKeyDatabase.initDatabase(mApplicationContext);
+        OstConnectivity.initialize(mApplicationContext);
         BASE_URL = validateSdkUrl(baseUrl);
     }
 
@@ -139,8 +144,13 @@ public class OstSdk {
                 if (INSTANCE == null) {
                     //Create Config.
                     OstConfigs.init(context);
+                    if (OstConfigs.getInstance().DB_STRICT_MODE) {
+                        OstDbStrictMode.setEnabled(true);
+                    }
                     //Create instance.
                     INSTANCE = new OstSdk(context, baseUrl);
+                    //Pick up operations a previous process was waiting on.
+                    OstPendingOperations.getInstance().resume();
                 }
             }
         }
@@ -12,21 +12,16 @@ package com.ost.walletsdk.database;
 
 import android.arch.persistence.room.TypeConverter;
 
-import org.json.JSONObject;
+import com.ost.walletsdk.models.entities.OstJsonPayload;
 
 public class Converters {
     @TypeConverter
-    public static JSONObject fromString(String string) {
-        try {
-            return new JSONObject(string);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return new JSONObject();
+    public static OstJsonPayload toPayload(byte[] bytes) {
+        return OstJsonPayload.fromBytes(bytes);
     }
 
     @TypeConverter
-    public static String jsonToString(JSONObject jsonObject) {
-        return jsonObject.toString();
+    public static byte[] payloadToBytes(OstJsonPayload payload) {
+        return payload.toBytes();
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database;
+
+import android.os.Looper;
+import android.os.StrictMode;
+import android.util.Log;
+
+/**
+ * Flags DB access from the main thread.
+ * Off by default, apps enable it with DB_STRICT_MODE in ost-mobilesdk.json or with
+ * {@link #setEnabled(boolean)}, typically on their debug builds. A violation is logged with its
+ * stack trace and reported as a custom slow call, so it also shows up with
+ * StrictMode.ThreadPolicy.Builder#detectCustomSlowCalls.
+ * Cache hits never reach the DB and are not flagged.
+ */
+public final class OstDbStrictMode {
+    private static final String TAG = "OstDbStrictMode";
+
+    private static volatile boolean sEnabled = false;
+    private static volatile boolean sPenaltyDeath = false;
+
+    private OstDbStrictMode() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * @param penaltyDeath throw IllegalStateException on violation instead of logging it
+     */
+    public static void setPenaltyDeath(boolean penaltyDeath) {
+        sPenaltyDeath = penaltyDeath;
+    }
+
+    /**
+     * Call before a DB read or write.
+     *
+     * @param source object accessing the DB, used in the violation message
+     */
+    public static void onDbAccess(Object source) {
+        if (!sEnabled) {
+            return;
+        }
+        Looper mainLooper = Looper.getMainLooper();
+        if (null == mainLooper || mainLooper.getThread() != Thread.currentThread()) {
+            return;
+        }
+        String message = String.format("DB access on main thread from %s", source.getClass().getSimpleName());
+        if (sPenaltyDeath) {
+            throw new IllegalStateException(message);
+        }
+        Log.w(TAG, message, new Throwable(message));
+        StrictMode.noteSlowCall(message);
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+/**
+ * Encoding of the entity data column.
+ * A row is either json text, or a binary row:
+ * <pre>
+ * row    := 0x01 schemaId:varint object
+ * value  := type:byte payload
+ * object := count:varint (key value)*
+ * array  := count:varint value*
+ * key    := fieldId:varint | 0 length:varint utf8
+ * string := length:varint utf8
+ * </pre>
+ * Integers are zig-zag varints and doubles are 8 bytes. Json text always starts with '{',
+ * so both forms are told apart by the first byte and can live in the same table.
+ */
+public final class OstRowCodec {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte BINARY_ROW = 0x01;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_FALSE = 1;
+    private static final byte TYPE_TRUE = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_STRING = 5;
+    private static final byte TYPE_OBJECT = 6;
+    private static final byte TYPE_ARRAY = 7;
+    private static final byte TYPE_NUMBER_TEXT = 8;
+
+    private OstRowCodec() {
+    }
+
+    public static boolean isBinary(byte[] row) {
+        return null != row && row.length > 0 && BINARY_ROW == row[0];
+    }
+
+    public static byte[] encodeJson(JSONObject jsonObject) {
+        return jsonObject.toString().getBytes(UTF_8);
+    }
+
+    public static byte[] encode(JSONObject jsonObject, OstRowSchema schema) {
+        Writer writer = new Writer();
+        writer.write(BINARY_ROW);
+        writer.writeVarint(schema.getSchemaId());
+        writer.writeObject(jsonObject, schema);
+        return writer.toByteArray();
+    }
+
+    public static JSONObject decode(byte[] row) throws JSONException {
+        if (!isBinary(row)) {
+            return new JSONObject(new String(row, UTF_8));
+        }
+        Reader reader = new Reader(row);
+        reader.readByte();
+        int schemaId = (int) reader.readVarint();
+        OstRowSchema schema = OstRowSchema.forId(schemaId);
+        if (null == schema) {
+            throw new JSONException("Unknown row schema " + schemaId);
+        }
+        return reader.readObject(schema);
+    }
+
+    private static class Writer extends ByteArrayOutputStream {
+
+        Writer() {
+            super(256);
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeObject(JSONObject jsonObject, OstRowSchema schema) {
+            writeVarint(jsonObject.length());
+            Iterator<String> keys = jsonObject.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                int fieldId = schema.getFieldId(key);
+                writeVarint(fieldId);
+                if (0 == fieldId) {
+                    writeString(key);
+                }
+                writeValue(jsonObject.opt(key), schema);
+            }
+        }
+
+        void writeArray(JSONArray jsonArray, OstRowSchema schema) {
+            writeVarint(jsonArray.length());
+            for (int cnt = 0; cnt < jsonArray.length(); cnt++) {
+                writeValue(jsonArray.opt(cnt), schema);
+            }
+        }
+
+        void writeValue(Object value, OstRowSchema schema) {
+            if (null == value || JSONObject.NULL.equals(value)) {
+                write(TYPE_NULL);
+            } else if (value instanceof Boolean) {
+                write((Boolean) value ? TYPE_TRUE : TYPE_FALSE);
+            } else if (value instanceof Integer || value instanceof Long) {
+                write(TYPE_LONG);
+                long longValue = ((Number) value).longValue();
+                writeVarint((longValue << 1) ^ (longValue >> 63));
+            } else if (value instanceof Double) {
+                write(TYPE_DOUBLE);
+                long bits = Double.doubleToLongBits((Double) value);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    write((int) (bits >>> shift));
+                }
+            } else if (value instanceof Number) {
+                write(TYPE_NUMBER_TEXT);
+                writeString(value.toString());
+            } else if (value instanceof JSONObject) {
+                write(TYPE_OBJECT);
+                writeObject((JSONObject) value, schema);
+            } else if (value instanceof JSONArray) {
+                write(TYPE_ARRAY);
+                writeArray((JSONArray) value, schema);
+            } else {
+                write(TYPE_STRING);
+                writeString(value.toString());
+            }
+        }
+    }
+
+    private static class Reader {
+        private final byte[] mRow;
+        private int mPosition;
+
+        Reader(byte[] row) {
+            mRow = row;
+        }
+
+        byte readByte() throws JSONException {
+            if (mPosition >= mRow.length) {
+                throw new JSONException("Truncated row");
+            }
+            return mRow[mPosition++];
+        }
+
+        long readVarint() throws JSONException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new JSONException("Malformed varint");
+        }
+
+        String readString() throws JSONException {
+            int length = (int) readVarint();
+            if (length < 0 || mPosition + length > mRow.length) {
+                throw new JSONException("Truncated row");
+            }
+            String value = new String(mRow, mPosition, length, UTF_8);
+            mPosition += length;
+            return value;
+        }
+
+        JSONObject readObject(OstRowSchema schema) throws JSONException {
+            int count = (int) readVarint();
+            JSONObject jsonObject = new JSONObject();
+            for (int cnt = 0; cnt < count; cnt++) {
+                int fieldId = (int) readVarint();
+                String key = 0 == fieldId ? readString() : schema.getFieldName(fieldId);
+                if (null == key) {
+                    throw new JSONException("Unknown field " + fieldId);
+                }
+                jsonObject.put(key, readValue(schema));
+            }
+            return jsonObject;
+        }
+
+        JSONArray readArray(OstRowSchema schema) throws JSONException {
+            int count = (int) readVarint();
+            JSONArray jsonArray = new JSONArray();
+            for (int cnt = 0; cnt < count; cnt++) {
+                jsonArray.put(readValue(schema));
+            }
+            return jsonArray;
+        }
+
+        Object readValue(OstRowSchema schema) throws JSONException {
+            byte type = readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    return JSONObject.NULL;
+                case TYPE_FALSE:
+                    return Boolean.FALSE;
+                case TYPE_TRUE:
+                    return Boolean.TRUE;
+                case TYPE_LONG:
+                    long zigZag = readVarint();
+                    long longValue = (zigZag >>> 1) ^ -(zigZag & 1);
+                    if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                        return (int) longValue;
+                    }
+                    return longValue;
+                case TYPE_DOUBLE:
+                    long bits = 0;
+                    for (int cnt = 0; cnt < 8; cnt++) {
+                        bits = (bits << 8) | (readByte() & 0xFF);
+                    }
+                    return Double.longBitsToDouble(bits);
+                case TYPE_STRING:
+                    return readString();
+                case TYPE_OBJECT:
+                    return readObject(schema);
+                case TYPE_ARRAY:
+                    return readArray(schema);
+                case TYPE_NUMBER_TEXT:
+                    return new JSONTokener(readString()).nextValue();
+                default:
+                    throw new JSONException("Unknown value type " + type);
+            }
+        }
+    }
+}
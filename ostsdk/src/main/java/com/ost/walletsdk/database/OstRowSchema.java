@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database;
+
+import com.ost.walletsdk.OstConfigs;
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstDeviceManager;
+import com.ost.walletsdk.models.entities.OstDeviceManagerOperation;
+import com.ost.walletsdk.models.entities.OstRule;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstTokenHolder;
+import com.ost.walletsdk.models.entities.OstTransaction;
+import com.ost.walletsdk.models.entities.OstUser;
+
+import java.util.HashMap;
+
+/**
+ * Field dictionary of an entity for {@link OstRowCodec}.
+ * Every known json key gets a small numeric id which is written instead of the key name, keys
+ * missing in the dictionary are written inline. Rows carry the schema id, so schema ids and the
+ * order of fields must never change: new fields are only appended.
+ */
+public final class OstRowSchema {
+
+    private static final String[] COMMON_FIELDS = {OstBaseEntity.ID, OstBaseEntity.STATUS,
+            OstBaseEntity.UPDATED_TIMESTAMP};
+
+    private static final HashMap<Integer, OstRowSchema> SCHEMAS_BY_ID = new HashMap<>();
+    private static final HashMap<Class, OstRowSchema> SCHEMAS_BY_ENTITY = new HashMap<>();
+    private static final HashMap<String, OstRowSchema> SCHEMAS_BY_TABLE = new HashMap<>();
+
+    static {
+        register(new OstRowSchema(1, OstSdk.USER, "user", OstUser.class,
+                OstUser.TOKEN_ID, OstUser.TOKEN_HOLDER_ADDRESS, OstUser.DEVICE_MANAGER_ADDRESS,
+                OstUser.RECOVERY_ADDRESS, OstUser.RECOVERY_OWNER_ADDRESS, OstUser.TYPE));
+        register(new OstRowSchema(2, OstSdk.TOKEN, "token", OstToken.class,
+                OstToken.NAME, OstToken.SYMBOL, OstToken.CONVERSION_FACTOR, OstToken.TOTAL_SUPPLY,
+                OstToken.ORIGIN_CHAIN, OstToken.AUXILIARY_CHAINS,
+                "chain_id", "organization", "contract_address", "organization_address",
+                "stake_currency_contract_address", "utility_branded_token", "company_token_holders",
+                "company_uuids", "rules", "decimals"));
+        register(new OstRowSchema(3, OstSdk.RULE, "rule", OstRule.class,
+                OstRule.TOKEN_ID, OstRule.NAME, OstRule.ADDRESS, OstRule.ABI, OstRule.CALL_PREFIX));
+        register(new OstRowSchema(4, OstSdk.TRANSACTION, "transaction", OstTransaction.class,
+                OstTransaction.TRANSACTION_HASH, OstTransaction.GAS_PRICE, OstTransaction.GAS_USED,
+                OstTransaction.TRANSACTION_FEE, OstTransaction.BLOCK_TIMESTAMP,
+                OstTransaction.BLOCK_NUMBER, OstTransaction.RULE_NAME, OstTransaction.TRANSFERS,
+                "from", "from_user_id", "to", "to_user_id", "amount", "kind",
+                "meta_property", "name", "type", "details", "token_id", "rule_address"));
+        register(new OstRowSchema(5, OstSdk.DEVICE_OPERATION, "device_operation", OstDeviceManagerOperation.class,
+                OstDeviceManagerOperation.USER_ID, OstDeviceManagerOperation.DEVICE_MANAGER_ID,
+                OstDeviceManagerOperation.DEVICE_MANAGER_ADDRESS, OstDeviceManagerOperation.KIND,
+                OstDeviceManagerOperation.OPERATION, OstDeviceManagerOperation.SAFE_TXN_GAS,
+                OstDeviceManagerOperation.CALL_DATA, OstDeviceManagerOperation.RAW_CALL_DATA,
+                OstDeviceManagerOperation.SIGNATURES));
+        register(new OstRowSchema(6, OstSdk.TOKEN_HOLDER, "token_holder", OstTokenHolder.class,
+                OstTokenHolder.USER_ID, OstTokenHolder.ADDRESS));
+        register(new OstRowSchema(7, OstSdk.SESSION, "session", OstSession.class,
+                OstSession.ADDRESS, OstSession.TOKEN_HOLDER_ADDRESS, OstSession.USER_ID,
+                OstSession.EXPIRATION_HEIGHT, OstSession.APPROX_EXPIRATION_TIMESTAMP,
+                OstSession.SPENDING_LIMIT, OstSession.NONCE));
+        register(new OstRowSchema(8, OstSdk.DEVICE, "device", OstDevice.class,
+                OstDevice.USER_ID, OstDevice.ADDRESS, OstDevice.DEVICE_MANAGER_ADDRESS,
+                OstDevice.LINKED_ADDRESS, OstDevice.API_SIGNER_ADDRESS));
+        register(new OstRowSchema(9, OstSdk.DEVICE_MANAGER, "device_manager", OstDeviceManager.class,
+                OstDeviceManager.USER_ID, OstDeviceManager.ADDRESS, OstDeviceManager.REQUIREMENT,
+                OstDeviceManager.NONCE));
+    }
+
+    private static void register(OstRowSchema schema) {
+        SCHEMAS_BY_ID.put(schema.mSchemaId, schema);
+        SCHEMAS_BY_ENTITY.put(schema.mEntityClass, schema);
+        SCHEMAS_BY_TABLE.put(schema.mTableName, schema);
+    }
+
+    public static OstRowSchema forId(int schemaId) {
+        return SCHEMAS_BY_ID.get(schemaId);
+    }
+
+    public static OstRowSchema forEntity(Class entityClass) {
+        return SCHEMAS_BY_ENTITY.get(entityClass);
+    }
+
+    public static OstRowSchema forTable(String tableName) {
+        return SCHEMAS_BY_TABLE.get(tableName);
+    }
+
+    private final int mSchemaId;
+    private final String mEntityType;
+    private final String mTableName;
+    private final Class mEntityClass;
+    private final String[] mFieldNames;
+    private final HashMap<String, Integer> mFieldIds = new HashMap<>();
+
+    private OstRowSchema(int schemaId, String entityType, String tableName, Class entityClass,
+                         String... entityFields) {
+        mSchemaId = schemaId;
+        mEntityType = entityType;
+        mTableName = tableName;
+        mEntityClass = entityClass;
+
+        mFieldNames = new String[COMMON_FIELDS.length + entityFields.length];
+        System.arraycopy(COMMON_FIELDS, 0, mFieldNames, 0, COMMON_FIELDS.length);
+        System.arraycopy(entityFields, 0, mFieldNames, COMMON_FIELDS.length, entityFields.length);
+        for (int cnt = 0; cnt < mFieldNames.length; cnt++) {
+            if (!mFieldIds.containsKey(mFieldNames[cnt])) {
+                mFieldIds.put(mFieldNames[cnt], cnt + 1);
+            }
+        }
+    }
+
+    public int getSchemaId() {
+        return mSchemaId;
+    }
+
+    public String getEntityType() {
+        return mEntityType;
+    }
+
+    public String getTableName() {
+        return mTableName;
+    }
+
+    /**
+     * @return true if binary rows are configured for the entity type, see OstConfigs.
+     */
+    public boolean isEnabled() {
+        OstConfigs ostConfigs = OstConfigs.getInstance();
+        return null != ostConfigs && ostConfigs.isBinaryRowEncodingEnabled(mEntityType);
+    }
+
+    /**
+     * @return field id of the key, 0 if the key is not part of the schema.
+     */
+    int getFieldId(String fieldName) {
+        Integer fieldId = mFieldIds.get(fieldName);
+        return null == fieldId ? 0 : fieldId;
+    }
+
+    String getFieldName(int fieldId) {
+        if (fieldId < 1 || fieldId > mFieldNames.length) {
+            return null;
+        }
+        return mFieldNames[fieldId - 1];
+    }
+}
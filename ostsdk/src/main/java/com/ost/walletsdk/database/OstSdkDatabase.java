@@ -19,6 +19,7 @@ import android.content.Context;
 import com.ost.walletsdk.database.daos.OstDeviceDao;
 import com.ost.walletsdk.database.daos.OstDeviceManagerDao;
 import com.ost.walletsdk.database.daos.OstDeviceOperationDao;
+import com.ost.walletsdk.database.daos.OstPendingOperationDao;
 import com.ost.walletsdk.database.daos.OstRuleDao;
 import com.ost.walletsdk.database.daos.OstSessionDao;
 import com.ost.walletsdk.database.daos.OstSessionKeyDao;
@@ -26,9 +27,14 @@ import com.ost.walletsdk.database.daos.OstTokenDao;
 import com.ost.walletsdk.database.daos.OstTokenHolderDao;
 import com.ost.walletsdk.database.daos.OstTransactionDao;
 import com.ost.walletsdk.database.daos.OstUserDao;
+import com.ost.walletsdk.database.migrations.Migration_1_2;
+import com.ost.walletsdk.database.migrations.Migration_2_3;
+import com.ost.walletsdk.database.migrations.Migration_3_4;
+import com.ost.walletsdk.database.migrations.Migration_4_5;
 import com.ost.walletsdk.models.entities.OstDevice;
 import com.ost.walletsdk.models.entities.OstDeviceManager;
 import com.ost.walletsdk.models.entities.OstDeviceManagerOperation;
+import com.ost.walletsdk.models.entities.OstPendingOperation;
 import com.ost.walletsdk.models.entities.OstRule;
 import com.ost.walletsdk.models.entities.OstSession;
 import com.ost.walletsdk.models.entities.OstSessionKey;
@@ -39,7 +45,7 @@ import com.ost.walletsdk.models.entities.OstUser;
 
 @Database(entities = {OstUser.class, OstRule.class, OstToken.class, OstTransaction.class,
         OstDeviceManagerOperation.class, OstTokenHolder.class, OstSession.class,
-        OstDevice.class, OstDeviceManager.class, OstSessionKey.class}, version = 1)
+        OstDevice.class, OstDeviceManager.class, OstSessionKey.class, OstPendingOperation.class}, version = 5)
 @TypeConverters({Converters.class})
 public abstract class OstSdkDatabase extends RoomDatabase {
 
@@ -65,6 +71,8 @@ public abstract class OstSdkDatabase extends RoomDatabase {
 
     public abstract OstSessionKeyDao sessionKeyDao();
 
+    public abstract OstPendingOperationDao pendingOperationDao();
+
 
     private static volatile OstSdkDatabase INSTANCE;
 
@@ -76,10 +84,15 @@ public abstract class OstSdkDatabase extends RoomDatabase {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                             OstSdkDatabase.class, databasePath)
                             .allowMainThreadQueries()
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
                             .addMigrations(
                                     /*Add your migration class object here
                                      * eg: new Migration_1_2(1,2)
                                      * */
+                                    new Migration_1_2(1, 2),
+                                    new Migration_2_3(2, 3),
+                                    new Migration_3_4(3, 4),
+                                    new Migration_4_5(4, 5)
                             )
                             .build();
                 }
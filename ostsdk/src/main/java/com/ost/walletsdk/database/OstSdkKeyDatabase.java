@@ -35,6 +35,7 @@ public abstract class OstSdkKeyDatabase extends RoomDatabase {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                             OstSdkKeyDatabase.class, databasePath)
                             .allowMainThreadQueries()
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
                             .addMigrations(
                                     /*Add your migration class object here
                                      * eg: new Migration_1_2(1,2)
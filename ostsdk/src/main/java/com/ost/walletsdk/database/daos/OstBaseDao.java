@@ -26,4 +26,6 @@ public interface OstBaseDao {
     void deleteAll();
 
     OstBaseEntity[] getByParentId(String id);
+
+    String[] getIdsByParentId(String id);
 }
\ No newline at end of file
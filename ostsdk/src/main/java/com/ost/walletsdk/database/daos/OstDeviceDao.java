@@ -53,4 +53,13 @@ public abstract class OstDeviceDao implements OstBaseDao {
 
     @Query("SELECT * FROM device WHERE parent_id=:id")
     public abstract OstDevice[] getByParentId(String id);
+
+    @Query("SELECT id FROM device WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
+
+    @Query("SELECT * FROM device WHERE parent_id=:parentId AND status IN (:statuses)")
+    public abstract OstDevice[] getByParentIdAndStatus(String parentId, String... statuses);
+
+    @Query("SELECT id FROM device WHERE parent_id=:parentId AND status IN (:statuses)")
+    public abstract String[] getIdsByParentIdAndStatus(String parentId, String... statuses);
 }
\ No newline at end of file
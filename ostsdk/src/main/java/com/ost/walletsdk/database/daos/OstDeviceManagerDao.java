@@ -49,4 +49,7 @@ public abstract class OstDeviceManagerDao implements OstBaseDao {
 
     @Query("SELECT * FROM device_manager WHERE parent_id=:id")
     public abstract OstDeviceManager[] getByParentId(String id);
+
+    @Query("SELECT id FROM device_manager WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
 }
\ No newline at end of file
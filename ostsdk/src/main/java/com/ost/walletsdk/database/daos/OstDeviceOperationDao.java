@@ -35,18 +35,21 @@ public abstract class OstDeviceOperationDao implements OstBaseDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     public abstract void insertAll(OstDeviceManagerOperation... ostDeviceManagerOperation);
 
-    @Query("DELETE FROM device_manager WHERE id=:id")
+    @Query("DELETE FROM device_operation WHERE id=:id")
     public abstract void delete(String id);
 
-    @Query("SELECT * FROM device_manager WHERE id IN (:ids)")
+    @Query("SELECT * FROM device_operation WHERE id IN (:ids)")
     public abstract OstDeviceManagerOperation[] getByIds(String[] ids);
 
-    @Query("SELECT * FROM device_manager WHERE id=:id")
+    @Query("SELECT * FROM device_operation WHERE id=:id")
     public abstract OstDeviceManagerOperation getById(String id);
 
-    @Query("DELETE FROM device_manager")
+    @Query("DELETE FROM device_operation")
     public abstract void deleteAll();
 
-    @Query("SELECT * FROM device_manager WHERE parent_id=:id")
+    @Query("SELECT * FROM device_operation WHERE parent_id=:id")
     public abstract OstDeviceManagerOperation[] getByParentId(String id);
+
+    @Query("SELECT id FROM device_operation WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
 }
\ No newline at end of file
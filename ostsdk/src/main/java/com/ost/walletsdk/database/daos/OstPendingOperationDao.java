@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database.daos;
+
+import android.arch.persistence.room.Dao;
+import android.arch.persistence.room.Insert;
+import android.arch.persistence.room.OnConflictStrategy;
+import android.arch.persistence.room.Query;
+
+import com.ost.walletsdk.models.entities.OstPendingOperation;
+
+@Dao
+public interface OstPendingOperationDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(OstPendingOperation ostPendingOperation);
+
+    @Query("DELETE FROM pending_operation WHERE id=:id")
+    void delete(String id);
+
+    @Query("SELECT * FROM pending_operation ORDER BY created_at")
+    OstPendingOperation[] getAll();
+
+    @Query("SELECT * FROM pending_operation WHERE user_id=:userId ORDER BY created_at")
+    OstPendingOperation[] getByUserId(String userId);
+}
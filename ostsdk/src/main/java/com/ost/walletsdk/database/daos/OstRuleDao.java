@@ -49,4 +49,7 @@ public abstract class OstRuleDao implements OstBaseDao {
 
     @Query("SELECT * FROM rule WHERE parent_id=:id")
     public abstract OstRule[] getByParentId(String id);
+
+    @Query("SELECT id FROM rule WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
 }
@@ -49,4 +49,28 @@ public abstract class OstSessionDao implements OstBaseDao {
 
     @Query("SELECT * FROM session WHERE parent_id=:id")
     public abstract OstSession[] getByParentId(String id);
+
+    @Query("SELECT id FROM session WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
+
+    @Query("SELECT * FROM session WHERE parent_id=:parentId AND status IN (:statuses)")
+    public abstract OstSession[] getByParentIdAndStatus(String parentId, String... statuses);
+
+    @Query("SELECT id FROM session WHERE parent_id=:parentId AND status IN (:statuses)")
+    public abstract String[] getIdsByParentIdAndStatus(String parentId, String... statuses);
+
+    /**
+     * Ids of sessions of the parent that are not expired and can spend the given amount.
+     * Spending limit is stored as decimal text without leading zeros, hence a longer value is
+     * the bigger one and values of the same length compare as text.
+     *
+     * @param expiresAfter      epoch seconds the session must outlive
+     * @param minSpendingLimit  amount in wei the session must allow
+     */
+    @Query("SELECT id FROM session WHERE parent_id=:parentId AND status IN (:statuses)"
+            + " AND CAST(expiration_timestamp AS INTEGER) > :expiresAfter"
+            + " AND (length(spending_limit) > length(:minSpendingLimit)"
+            + " OR (length(spending_limit) = length(:minSpendingLimit) AND spending_limit >= :minSpendingLimit))")
+    public abstract String[] getActiveIds(String parentId, long expiresAfter, String minSpendingLimit,
+                                          String... statuses);
 }
@@ -49,4 +49,7 @@ public abstract class OstTokenDao implements OstBaseDao {
 
     @Query("SELECT * FROM token WHERE parent_id=:id")
     public abstract OstToken[] getByParentId(String id);
+
+    @Query("SELECT id FROM token WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
 }
\ No newline at end of file
@@ -49,4 +49,7 @@ public abstract class OstTokenHolderDao implements OstBaseDao {
 
     @Query("SELECT * FROM token_holder WHERE parent_id=:id")
     public abstract OstTokenHolder[] getByParentId(String id);
+
+    @Query("SELECT id FROM token_holder WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
 }
\ No newline at end of file
@@ -49,4 +49,13 @@ public abstract class OstTransactionDao implements OstBaseDao {
 
     @Query("SELECT * FROM `transaction` WHERE parent_id=:id")
     public abstract OstTransaction[] getByParentId(String id);
+
+    @Query("SELECT id FROM `transaction` WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
+
+    @Query("SELECT * FROM `transaction` WHERE parent_id=:parentId AND status IN (:statuses)")
+    public abstract OstTransaction[] getByParentIdAndStatus(String parentId, String... statuses);
+
+    @Query("SELECT id FROM `transaction` WHERE parent_id=:parentId AND status IN (:statuses)")
+    public abstract String[] getIdsByParentIdAndStatus(String parentId, String... statuses);
 }
\ No newline at end of file
@@ -49,4 +49,7 @@ public abstract class OstUserDao implements OstBaseDao {
 
     @Query("SELECT * FROM user WHERE parent_id=:id")
     public abstract OstUser[] getByParentId(String id);
+
+    @Query("SELECT id FROM user WHERE parent_id=:id")
+    public abstract String[] getIdsByParentId(String id);
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database.migrations;
+
+import android.arch.persistence.db.SupportSQLiteDatabase;
+import android.arch.persistence.room.migration.Migration;
+import android.support.annotation.NonNull;
+
+/**
+ * Adds (parent_id, status) index to entity tables.
+ * Index names follow Room's default naming so that schema validation passes after migration.
+ */
+public class Migration_1_2 extends Migration {
+
+    private static final String[] ENTITY_TABLES = {"user", "rule", "token", "transaction",
+            "device_operation", "token_holder", "session", "device", "device_manager"};
+
+    /**
+     * Creates a new migration between {@code startVersion} and {@code endVersion}.
+     *
+     * @param startVersion The start version of the database.
+     * @param endVersion   The end version of the database after this migration is applied.
+     */
+    public Migration_1_2(int startVersion, int endVersion) {
+        super(startVersion, endVersion);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+        for (String table : ENTITY_TABLES) {
+            database.execSQL(String.format(
+                    "CREATE INDEX IF NOT EXISTS `index_%s_parent_id_status` ON `%s` (`parent_id`, `status`)",
+                    table, table));
+        }
+    }
+}
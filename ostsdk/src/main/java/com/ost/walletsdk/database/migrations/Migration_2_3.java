@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database.migrations;
+
+import android.arch.persistence.db.SupportSQLiteDatabase;
+import android.arch.persistence.room.migration.Migration;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.web3j.crypto.Keys;
+
+/**
+ * Adds typed columns for the fields read on hot paths and backfills them from the json blob:
+ * session nonce, spending limit and expiration timestamp, device linked address and
+ * device manager nonce. Status column is backfilled for every entity table where it is missing.
+ */
+public class Migration_2_3 extends Migration {
+    private static final String TAG = "OstMigration_2_3";
+
+    private static final String[] ENTITY_TABLES = {"user", "rule", "token", "transaction",
+            "device_operation", "token_holder", "session", "device", "device_manager"};
+
+    /**
+     * Creates a new migration between {@code startVersion} and {@code endVersion}.
+     *
+     * @param startVersion The start version of the database.
+     * @param endVersion   The end version of the database after this migration is applied.
+     */
+    public Migration_2_3(int startVersion, int endVersion) {
+        super(startVersion, endVersion);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+        database.execSQL("ALTER TABLE `session` ADD COLUMN `nonce` INTEGER NOT NULL DEFAULT -1");
+        database.execSQL("ALTER TABLE `session` ADD COLUMN `spending_limit` TEXT");
+        database.execSQL("ALTER TABLE `session` ADD COLUMN `expiration_timestamp` TEXT");
+        database.execSQL("ALTER TABLE `device` ADD COLUMN `linked_address` TEXT");
+        database.execSQL("ALTER TABLE `device_manager` ADD COLUMN `nonce` INTEGER NOT NULL DEFAULT -1");
+
+        for (String table : ENTITY_TABLES) {
+            backfill(database, table);
+        }
+    }
+
+    private void backfill(SupportSQLiteDatabase database, String table) {
+        Cursor cursor = database.query(String.format("SELECT `id`, `data`, `status` FROM `%s`", table));
+        try {
+            while (cursor.moveToNext()) {
+                String id = cursor.getString(0);
+                JSONObject data;
+                try {
+                    data = new JSONObject(cursor.getString(1));
+                } catch (JSONException | NullPointerException e) {
+                    Log.e(TAG, String.format("Skipping unreadable row of %s", table));
+                    continue;
+                }
+
+                ContentValues contentValues = new ContentValues();
+                if (cursor.isNull(2) && !data.isNull("status")) {
+                    contentValues.put("status", data.optString("status"));
+                }
+                if ("session".equals(table)) {
+                    contentValues.put("nonce", data.optInt("nonce", -1));
+                    contentValues.put("spending_limit", optString(data, "spending_limit"));
+                    contentValues.put("expiration_timestamp", optString(data, "approx_expiration_timestamp"));
+                } else if ("device".equals(table)) {
+                    String linkedAddress = optString(data, "linked_address");
+                    contentValues.put("linked_address",
+                            null == linkedAddress ? null : Keys.toChecksumAddress(linkedAddress));
+                } else if ("device_manager".equals(table)) {
+                    contentValues.put("nonce", data.optInt("nonce", -1));
+                }
+
+                if (contentValues.size() > 0) {
+                    database.update(table, SQLiteDatabase.CONFLICT_REPLACE, contentValues,
+                            "id = ?", new Object[]{id});
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String optString(JSONObject data, String key) {
+        return data.isNull(key) ? null : data.optString(key, null);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database.migrations;
+
+import android.arch.persistence.db.SupportSQLiteDatabase;
+import android.arch.persistence.room.migration.Migration;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.ost.walletsdk.database.OstRowCodec;
+import com.ost.walletsdk.database.OstRowSchema;
+
+import org.json.JSONObject;
+
+/**
+ * Changes the data column of entity tables to BLOB, see {@link OstRowCodec}.
+ * The column type is part of the Room schema, hence every table is rebuilt whatever is configured.
+ * Existing json text is kept as utf-8 bytes, rows of entity types configured for binary rows
+ * are converted to the binary row format.
+ */
+public class Migration_3_4 extends Migration {
+    private static final String TAG = "OstMigration_3_4";
+
+    private static final String BASE_COLUMNS =
+            "`id` TEXT NOT NULL, `parent_id` TEXT, `data` BLOB, `status` TEXT, `uts` REAL NOT NULL";
+
+    /**
+     * Table name, typed column definitions and typed column names of each entity table.
+     */
+    private static final String[][] ENTITY_TABLES = {
+            {"user", "", ""},
+            {"rule", "", ""},
+            {"token", "", ""},
+            {"transaction", "", ""},
+            {"device_operation", "", ""},
+            {"token_holder", "", ""},
+            {"session", ", `nonce` INTEGER NOT NULL, `spending_limit` TEXT, `expiration_timestamp` TEXT",
+                    ", `nonce`, `spending_limit`, `expiration_timestamp`"},
+            {"device", ", `linked_address` TEXT", ", `linked_address`"},
+            {"device_manager", ", `nonce` INTEGER NOT NULL", ", `nonce`"}
+    };
+
+    /**
+     * Creates a new migration between {@code startVersion} and {@code endVersion}.
+     *
+     * @param startVersion The start version of the database.
+     * @param endVersion   The end version of the database after this migration is applied.
+     */
+    public Migration_3_4(int startVersion, int endVersion) {
+        super(startVersion, endVersion);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+        for (String[] entityTable : ENTITY_TABLES) {
+            String table = entityTable[0];
+            rebuild(database, table, entityTable[1], entityTable[2]);
+
+            OstRowSchema schema = OstRowSchema.forTable(table);
+            if (null != schema && schema.isEnabled()) {
+                encodeRows(database, schema);
+            }
+        }
+    }
+
+    private void rebuild(SupportSQLiteDatabase database, String table, String typedColumns,
+                         String typedColumnNames) {
+        String newTable = table + "_new";
+        database.execSQL(String.format("CREATE TABLE `%s` (%s%s, PRIMARY KEY(`id`))",
+                newTable, BASE_COLUMNS, typedColumns));
+        database.execSQL(String.format("INSERT INTO `%s` (`id`, `parent_id`, `data`, `status`, `uts`%s) "
+                        + "SELECT `id`, `parent_id`, CAST(`data` AS BLOB), `status`, `uts`%s FROM `%s`",
+                newTable, typedColumnNames, typedColumnNames, table));
+        database.execSQL(String.format("DROP TABLE `%s`", table));
+        database.execSQL(String.format("ALTER TABLE `%s` RENAME TO `%s`", newTable, table));
+        database.execSQL(String.format(
+                "CREATE INDEX IF NOT EXISTS `index_%s_parent_id_status` ON `%s` (`parent_id`, `status`)",
+                table, table));
+    }
+
+    private void encodeRows(SupportSQLiteDatabase database, OstRowSchema schema) {
+        String table = schema.getTableName();
+        Cursor cursor = database.query(String.format("SELECT `id`, `data` FROM `%s`", table));
+        try {
+            while (cursor.moveToNext()) {
+                byte[] row = cursor.getBlob(1);
+                if (null == row || OstRowCodec.isBinary(row)) {
+                    continue;
+                }
+                JSONObject data;
+                try {
+                    data = OstRowCodec.decode(row);
+                } catch (Exception e) {
+                    Log.e(TAG, String.format("Skipping unreadable row of %s", table));
+                    continue;
+                }
+                ContentValues contentValues = new ContentValues();
+                contentValues.put("data", OstRowCodec.encode(data, schema));
+                database.update(table, SQLiteDatabase.CONFLICT_REPLACE, contentValues,
+                        "id = ?", new Object[]{cursor.getString(0)});
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+}
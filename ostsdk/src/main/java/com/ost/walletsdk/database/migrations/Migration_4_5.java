@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database.migrations;
+
+import android.arch.persistence.db.SupportSQLiteDatabase;
+import android.arch.persistence.room.migration.Migration;
+import android.support.annotation.NonNull;
+
+/**
+ * Adds the pending_operation table of {@link com.ost.walletsdk.models.entities.OstPendingOperation}.
+ */
+public class Migration_4_5 extends Migration {
+
+    /**
+     * Creates a new migration between {@code startVersion} and {@code endVersion}.
+     *
+     * @param startVersion The start version of the database.
+     * @param endVersion   The end version of the database after this migration is applied.
+     */
+    public Migration_4_5(int startVersion, int endVersion) {
+        super(startVersion, endVersion);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TABLE IF NOT EXISTS `pending_operation` (`id` TEXT NOT NULL, "
+                + "`user_id` TEXT NOT NULL, `entity_type` TEXT NOT NULL, `entity_id` TEXT NOT NULL, "
+                + "`success_status` TEXT NOT NULL, `failed_status` TEXT NOT NULL, "
+                + "`deadline` INTEGER NOT NULL, `created_at` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_operation_user_id` "
+                + "ON `pending_operation` (`user_id`)");
+    }
+}
@@ -276,12 +276,13 @@ public class OstRecoveryManager {
                 throw new OstError("km_rs_gads_2", ErrorCode.RECOVERY_PASSPHRASE_OWNER_NOT_SET);
             }
 
-            OstDevice recoveringDevice = OstDevice.getById(recoveringAddress);
-            if (!recoveringDevice.isRecovering()) {
+            OstDevice[] devices = OstDevice.getByIds(recoveringAddress, revokingAddress);
+            OstDevice recoveringDevice = devices[0];
+            if (null == recoveringDevice || !recoveringDevice.isRecovering()) {
                 throw new OstError("km_rs_gads_3", ErrorCode.INSUFFICIENT_DATA);
             }
 
-            OstDevice deviceToRevoke = OstDevice.getById(revokingAddress);
+            OstDevice deviceToRevoke = devices[1];
             if (null == deviceToRevoke) {
                 throw new OstError("km_rs_gads_4", ErrorCode.INSUFFICIENT_DATA);
             }
@@ -10,176 +10,280 @@
 
 package com.ost.walletsdk.models.Impls;
 
-import android.util.LruCache;
-
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstConfigs;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.utils.AsyncStatus;
-import com.ost.walletsdk.utils.DispatchAsync;
 
+import org.web3j.crypto.Keys;
+
+import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
 abstract class OstBaseModelCacheRepository extends OstBaseModelRepository {
 
-    private LruCache<String, OstBaseEntity> mLruCache;
-    private HashMap<String, OstBaseEntity> mInMemoryMap;
-
-
-    OstBaseModelCacheRepository(int lruSize) {
-        this.mLruCache = new LruCache<>(lruSize);
-        this.mInMemoryMap = new HashMap<>();
+    private final OstEntityCache mEntityCache;
+
+    /**
+     * @param entityType       entity type used to look up configured cache size
+     * @param defaultCacheSize cache size to use when none is configured
+     */
+    OstBaseModelCacheRepository(String entityType, int defaultCacheSize) {
+        int cacheSize = defaultCacheSize;
+        OstConfigs ostConfigs = OstConfigs.getInstance();
+        if (null != ostConfigs) {
+            cacheSize = ostConfigs.getEntityCacheSize(entityType, defaultCacheSize);
+        }
+        this.mEntityCache = new OstEntityCache(cacheSize);
     }
 
     public void insert(final OstBaseEntity ostBaseEntity) {
 
-        insertInCacheAndMemory(ostBaseEntity);
+        mEntityCache.putPending(ostBaseEntity);
 
         super.insert(ostBaseEntity);
 
-        removeInMemory(ostBaseEntity);
+        mEntityCache.clearPending(ostBaseEntity);
     }
 
     public void insertAll(final OstBaseEntity[] baseEntities) {
 
-        insertInCacheAndMemory(baseEntities);
+        for (OstBaseEntity baseEntity : baseEntities) {
+            mEntityCache.putPending(baseEntity);
+        }
 
         super.insertAll(baseEntities);
 
-        removeInMemory(baseEntities);
+        for (OstBaseEntity baseEntity : baseEntities) {
+            mEntityCache.clearPending(baseEntity);
+        }
     }
 
     public OstBaseEntity getById(String id) {
-        if (null != mLruCache.get(id)) {
-            return mLruCache.get(id);
+        return mEntityCache.getOrLoad(id, new OstEntityCache.Loader() {
+            @Override
+            public OstBaseEntity load(String id) {
+                if (OstWriteBehindQueue.getInstance().isDeletePending(OstBaseModelCacheRepository.this, id)) {
+                    return null;
+                }
+                return OstBaseModelCacheRepository.super.getById(id);
+            }
+        });
+    }
+
+    public OstBaseEntity[] getByIds(String[] ids) {
+        return getByIds(ids, new OstBaseEntity[ids.length]);
+    }
+
+    /**
+     * Batch lookup through the cache. Cache hits are served in memory, the remaining ids are
+     * de-duplicated and read from DB in one chunked pass.
+     *
+     * @param ids    entity ids
+     * @param result array of ids.length to fill
+     * @return result, with entities in the order of ids and null for ids which are not found.
+     */
+    <T extends OstBaseEntity> T[] getByIds(String[] ids, T[] result) {
+        LinkedHashSet<String> missedIds = new LinkedHashSet<>();
+        for (int cnt = 0; cnt < ids.length; cnt++) {
+            OstBaseEntity cacheEntity = mEntityCache.get(ids[cnt]);
+            if (null != cacheEntity) {
+                result[cnt] = cast(cacheEntity);
+            } else if (null != ids[cnt]) {
+                missedIds.add(ids[cnt]);
+            }
+        }
+        if (missedIds.isEmpty()) {
+            return result;
         }
-        if (null != mInMemoryMap.get(id)) {
-            return mInMemoryMap.get(id);
+
+        OstBaseEntity[] baseEntities = super.getByIds(missedIds.toArray(new String[missedIds.size()]));
+        HashMap<String, OstBaseEntity> baseEntityHashMap = new HashMap<>(baseEntities.length * 2);
+        OstWriteBehindQueue writeBehindQueue = OstWriteBehindQueue.getInstance();
+        for (OstBaseEntity baseEntity : baseEntities) {
+            if (!writeBehindQueue.isDeletePending(this, baseEntity.getId())) {
+                baseEntityHashMap.put(baseEntity.getId(), mEntityCache.putIfAbsent(baseEntity));
+            }
         }
-        OstBaseEntity ostBaseEntity = super.getById(id);
-        if (null != ostBaseEntity) {
-            mLruCache.put(ostBaseEntity.getId(), ostBaseEntity);
+        for (int cnt = 0; cnt < ids.length; cnt++) {
+            if (null == result[cnt] && null != ids[cnt]) {
+                result[cnt] = cast(baseEntityHashMap.get(ids[cnt]));
+            }
         }
-        return ostBaseEntity;
+        return result;
     }
 
-    public OstBaseEntity[] getByIds(String[] ids) {
-        String[] failedCacheIdsList = getIdsNotInCache(ids);
-        OstBaseEntity[] baseEntities = super.getByIds(failedCacheIdsList);
-        return buildResultSet(ids, baseEntities);
+    /**
+     * Resolves child ids of the parent with a light weight query and loads them through
+     * {@link #getByIds(String[], OstBaseEntity[])}, so cached children are not parsed again.
+     */
+    <T extends OstBaseEntity> T[] getByParentId(String parentId, T[] emptyArray) {
+        String[] ids = getIdsByParentId(parentId);
+        T[] entities = getByIds(ids, Arrays.copyOf(emptyArray, ids.length));
+        List<T> resultSet = new ArrayList<>(entities.length);
+        for (T entity : entities) {
+            if (null != entity) {
+                resultSet.add(entity);
+            }
+        }
+        return resultSet.toArray(emptyArray);
+    }
+
+    /**
+     * Cache hits complete immediately on the calling thread, misses are read on the reader pool.
+     */
+    <T extends OstBaseEntity> ListenableFuture<T> getByIdAsync(final String id) {
+        OstBaseEntity cacheEntity = mEntityCache.get(id);
+        if (null != cacheEntity) {
+            return Futures.immediateFuture(OstBaseModelCacheRepository.<T>cast(cacheEntity));
+        }
+        return OstDbExecutors.getReaders().submit(new Callable<T>() {
+            @Override
+            public T call() {
+                return cast(getById(id));
+            }
+        });
+    }
+
+    <T extends OstBaseEntity> ListenableFuture<T[]> getByParentIdAsync(final String parentId,
+                                                                     final T[] emptyArray) {
+        return OstDbExecutors.getReaders().submit(new Callable<T[]>() {
+            @Override
+            public T[] call() {
+                return getByParentId(parentId, emptyArray);
+            }
+        });
     }
 
     public void delete(final String id) {
         super.delete(id);
-        removeFromCache(id);
+        mEntityCache.remove(id);
     }
 
     public void deleteAll() {
         super.deleteAll();
-        mLruCache.evictAll();
-        mInMemoryMap = new HashMap<>();
+        mEntityCache.clear();
     }
 
-    private OstBaseEntity[] buildResultSet(String[] ids, OstBaseEntity[] baseEntities) {
-        HashMap<String, OstBaseEntity> baseEntityHashMap = new HashMap<>();
-        for (OstBaseEntity baseEntity : baseEntities) {
-            baseEntityHashMap.put(baseEntity.getId(), baseEntity);
-        }
-        List<OstBaseEntity> resultSet = new ArrayList<>();
-        for (String id : ids) {
-            OstBaseEntity cacheEntity = mLruCache.get(id);
-            if (null == cacheEntity) {
-                cacheEntity = mInMemoryMap.get(id);
+    /**
+     * Loads children of the parent having one of the statuses.
+     * The DB only holds persisted snapshots, hence entities still pending in the write behind
+     * queue are merged in and the status is checked again on the entity being returned.
+     *
+     * @param parentId parent id
+     * @param dbIds    ids matched by the DB query, see {@link #expandStatuses(String[])}
+     * @param statuses statuses to match, case insensitive
+     */
+    <T extends OstBaseEntity> T[] getByParentIdAndStatus(String parentId, String[] dbIds,
+                                                         String[] statuses, T[] emptyArray) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>(Arrays.asList(dbIds));
+        for (OstBaseEntity pendingEntity : mEntityCache.getPending()) {
+            if (parentId.equals(pendingEntity.getParentId())) {
+                ids.add(pendingEntity.getId());
             }
-            if (null == cacheEntity) {
-                if (null != baseEntityHashMap.get(id)) {
-                    resultSet.add(baseEntityHashMap.get(id));
-                } else {
-                    resultSet.add(null);
-                }
-            } else {
-                resultSet.add(cacheEntity);
+        }
+        T[] entities = getByIds(ids.toArray(new String[ids.size()]), Arrays.copyOf(emptyArray, ids.size()));
+        List<T> resultSet = new ArrayList<>(entities.length);
+        for (T entity : entities) {
+            if (null != entity && hasStatus(entity, statuses)) {
+                resultSet.add(entity);
             }
         }
-        return (OstBaseEntity[]) resultSet.toArray();
+        return resultSet.toArray(emptyArray);
+    }
+
+    /**
+     * Status is stored as received, platform sends upper case while locally created entities
+     * use lower case. Both forms are bound so that the (parent_id, status) index stays usable.
+     */
+    static String[] expandStatuses(String[] statuses) {
+        String[] expandedStatuses = new String[statuses.length * 2];
+        for (int cnt = 0; cnt < statuses.length; cnt++) {
+            expandedStatuses[2 * cnt] = statuses[cnt].toLowerCase(Locale.ROOT);
+            expandedStatuses[2 * cnt + 1] = statuses[cnt].toUpperCase(Locale.ROOT);
+        }
+        return expandedStatuses;
     }
 
-    private String[] getIdsNotInCache(String[] ids) {
-        ArrayList<String> idsList = new ArrayList<>();
-        for (String id : ids) {
-            if (null == mLruCache.get(id) && null == mInMemoryMap.get(id)) {
-                idsList.add(id);
+    private static boolean hasStatus(OstBaseEntity entity, String[] statuses) {
+        for (String status : statuses) {
+            if (status.equalsIgnoreCase(entity.getStatus())) {
+                return true;
             }
         }
+        return false;
+    }
 
-        return (String[]) idsList.toArray();
+    static String[] toChecksumAddresses(String[] ids) {
+        String[] addresses = new String[ids.length];
+        for (int cnt = 0; cnt < ids.length; cnt++) {
+            addresses[cnt] = null == ids[cnt] ? null : Keys.toChecksumAddress(ids[cnt]);
+        }
+        return addresses;
     }
 
-    private void insertInCacheAndMemory(OstBaseEntity baseEntity) {
-        this.mLruCache.put(baseEntity.getId(), baseEntity);
-        this.mInMemoryMap.put(baseEntity.getId(), baseEntity);
+    @SuppressWarnings("unchecked")
+    private static <T extends OstBaseEntity> T cast(OstBaseEntity baseEntity) {
+        return (T) baseEntity;
     }
 
-    private void removeInMemory(OstBaseEntity baseEntity) {
-        this.mInMemoryMap.remove(baseEntity.getId());
+    /**
+     * Writes entities of this repository. Called on the write behind thread.
+     */
+    void persistAll(Collection<OstBaseEntity> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        //Dao casts to its entity array type, hence build an array of the concrete entity class.
+        OstBaseEntity[] baseEntities = (OstBaseEntity[]) Array.newInstance(
+                entities.iterator().next().getClass(), entities.size());
+        super.insertAll(entities.toArray(baseEntities));
     }
 
-    private void removeFromCache(String id) {
-        this.mLruCache.remove(id);
+    /**
+     * Deletes from DB only, the cache is already cleared when the delete was queued.
+     */
+    void deletePersisted(String id) {
+        super.delete(id);
     }
 
-    private void removeFromCache(String[] ids) {
-        for (String id : ids) {
-            this.mLruCache.remove(id);
-        }
+    void deleteAllPersisted() {
+        super.deleteAll();
     }
 
-    private void insertInCacheAndMemory(OstBaseEntity[] baseEntities) {
-        for (OstBaseEntity baseEntity : baseEntities) {
-            this.mLruCache.put(baseEntity.getId(), baseEntity);
-            this.mInMemoryMap.put(baseEntity.getId(), baseEntity);
+    void onPersisted(Collection<OstBaseEntity> entities) {
+        for (OstBaseEntity baseEntity : entities) {
+            mEntityCache.clearPending(baseEntity);
         }
     }
 
-    private void removeInMemory(OstBaseEntity[] baseEntities) {
-        for (OstBaseEntity baseEntity : baseEntities) {
-            this.mInMemoryMap.remove(baseEntity.getId());
+    void putPending(OstBaseEntity[] entities) {
+        for (OstBaseEntity baseEntity : entities) {
+            mEntityCache.putPending(baseEntity);
         }
     }
 
     public Future<AsyncStatus> insertOrUpdateEntity(OstBaseEntity ostBaseEntity) {
-        insertInCacheAndMemory(ostBaseEntity);
-        return DispatchAsync.dispatch(new DispatchAsync.Executor() {
-            @Override
-            public AsyncStatus call() {
-                OstBaseModelCacheRepository.this.insert(ostBaseEntity);
-                removeInMemory(ostBaseEntity);
-                return new AsyncStatus(true);
-            }
-        });
+        mEntityCache.putPending(ostBaseEntity);
+        return OstWriteBehindQueue.getInstance().enqueue(this, ostBaseEntity);
     }
 
     public Future<AsyncStatus> deleteEntity(String id) {
-        return DispatchAsync.dispatch(new DispatchAsync.Executor() {
-            @Override
-            public AsyncStatus call() {
-                OstBaseModelCacheRepository.this.delete(id);
-                removeFromCache(id);
-                return new AsyncStatus(true);
-            }
-        });
+        mEntityCache.remove(id);
+        return OstWriteBehindQueue.getInstance().enqueueDelete(this, id);
     }
 
     public Future<AsyncStatus> deleteAllEntities() {
-        return DispatchAsync.dispatch(new DispatchAsync.Executor() {
-            @Override
-            public AsyncStatus call() {
-                OstBaseModelCacheRepository.this.deleteAll();
-                mLruCache.evictAll();
-                mInMemoryMap = new HashMap<>();
-                return new AsyncStatus(true);
-            }
-        });
+        mEntityCache.clear();
+        return OstWriteBehindQueue.getInstance().enqueueDeleteAll(this);
     }
 }
\ No newline at end of file
@@ -10,70 +10,84 @@
 
 package com.ost.walletsdk.models.Impls;
 
-import android.util.Log;
-
+import com.ost.walletsdk.database.OstDbStrictMode;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.utils.AsyncStatus;
 import com.ost.walletsdk.utils.DispatchAsync;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Future;
 
 abstract class OstBaseModelRepository {
 
-    private static final String TAG = "OstBaseModelRepository";
+    //SQLite limits bind parameters of a statement to 999.
+    static final int MAX_IDS_PER_QUERY = 900;
 
     OstBaseModelRepository() {
     }
 
     public void insert(final OstBaseEntity baseEntity) {
-        getModel().insert(baseEntity);
+        dao().insert(baseEntity);
     }
 
     public void insertAll(final OstBaseEntity[] baseEntities) {
-        getModel().insertAll(baseEntities);
+        dao().insertAll(baseEntities);
     }
 
     public void delete(final String id) {
-        getModel().delete(id);
+        dao().delete(id);
     }
 
+    /**
+     * Reads entities in chunks of {@link #MAX_IDS_PER_QUERY} ids.
+     *
+     * @param ids entity ids
+     * @return entities found, in no particular order.
+     */
     public OstBaseEntity[] getByIds(String[] ids) {
-        return processEntity(getModel().getByIds(ids));
+        if (ids.length <= MAX_IDS_PER_QUERY) {
+            return dao().getByIds(ids);
+        }
+        List<OstBaseEntity> baseEntities = new ArrayList<>(ids.length);
+        for (int start = 0; start < ids.length; start += MAX_IDS_PER_QUERY) {
+            String[] chunk = Arrays.copyOfRange(ids, start, Math.min(ids.length, start + MAX_IDS_PER_QUERY));
+            baseEntities.addAll(Arrays.asList(dao().getByIds(chunk)));
+        }
+        return baseEntities.toArray(new OstBaseEntity[baseEntities.size()]);
     }
 
 
+    /**
+     * Entities read from DB keep their raw payload, it is parsed on first access.
+     */
     public OstBaseEntity getById(String id) {
-        OstBaseEntity baseEntity = getModel().getById(id);
-        if (null != baseEntity) {
-            try {
-                baseEntity.processJson(baseEntity.getData());
-            } catch (Exception exception) {
-                Log.e(TAG, "Exception in OstBaseModelRepository::getById for parsing data");
-            }
-        }
-        return baseEntity;
+        return dao().getById(id);
     }
 
     public void deleteAll() {
-        getModel().deleteAll();
+        dao().deleteAll();
     }
 
     abstract OstBaseDao getModel();
 
+    void checkDbAccess() {
+        OstDbStrictMode.onDbAccess(this);
+    }
+
+    private OstBaseDao dao() {
+        checkDbAccess();
+        return getModel();
+    }
+
     protected OstBaseEntity[] getByParentId(String id) {
-        return processEntity(getModel().getByParentId(id));
+        return dao().getByParentId(id);
     }
 
-    private OstBaseEntity[] processEntity(OstBaseEntity[] baseEntities) {
-        for (OstBaseEntity baseEntity : baseEntities) {
-            try {
-                baseEntity.processJson(baseEntity.getData());
-            } catch (Exception exception) {
-                Log.e(TAG, "Exception in OstBaseModelRepository:: processEntity for parsing data");
-            }
-        }
-        return baseEntities;
+    protected String[] getIdsByParentId(String id) {
+        return dao().getIdsByParentId(id);
     }
 
     public Future<AsyncStatus> insertOrUpdateEntity(OstBaseEntity ostBaseEntity) {
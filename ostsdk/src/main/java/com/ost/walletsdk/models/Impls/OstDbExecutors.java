@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.Impls;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads used for DB access.
+ * All writes go through one writer thread. With write ahead logging readers do not block on the
+ * writer, so reads are served by a small pool.
+ */
+final class OstDbExecutors {
+    private static final int READER_POOL_SIZE = 4;
+
+    private static final ScheduledExecutorService WRITER =
+            Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ost-db-writer"));
+
+    private static final ListeningExecutorService READERS = MoreExecutors.listeningDecorator(
+            Executors.newFixedThreadPool(READER_POOL_SIZE, new NamedThreadFactory("ost-db-reader")));
+
+    private OstDbExecutors() {
+    }
+
+    static ScheduledExecutorService getWriter() {
+        return WRITER;
+    }
+
+    static ListeningExecutorService getReaders() {
+        return READERS;
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String mName;
+        private final AtomicInteger mCount = new AtomicInteger(0);
+
+        NamedThreadFactory(String name) {
+            mName = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, String.format("%s-%d", mName, mCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
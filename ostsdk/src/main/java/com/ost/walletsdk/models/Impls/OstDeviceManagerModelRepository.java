@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstDeviceManagerDao;
@@ -24,7 +26,7 @@ class OstDeviceManagerModelRepository extends OstBaseModelCacheRepository implem
     private OstDeviceManagerDao mOstDeviceManagerDao;
 
     OstDeviceManagerModelRepository() {
-        super(LRU_CACHE_SIZE);
+        super(OstSdk.DEVICE_MANAGER, LRU_CACHE_SIZE);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mOstDeviceManagerDao = db.multiSigDao();
     }
@@ -41,6 +43,21 @@ class OstDeviceManagerModelRepository extends OstBaseModelCacheRepository implem
 
     @Override
     public OstDeviceManager[] getEntitiesByParentId(String id) {
-        return (OstDeviceManager[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstDeviceManager[0]);
+    }
+
+    @Override
+    public OstDeviceManager[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(toChecksumAddresses(ids), new OstDeviceManager[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstDeviceManager> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(Keys.toChecksumAddress(id));
+    }
+
+    @Override
+    public ListenableFuture<OstDeviceManager[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstDeviceManager[0]);
     }
 }
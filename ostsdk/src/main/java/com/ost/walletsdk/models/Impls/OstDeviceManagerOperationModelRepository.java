@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstDeviceOperationDao;
@@ -22,7 +24,7 @@ class OstDeviceManagerOperationModelRepository extends OstBaseModelCacheReposito
     private OstDeviceOperationDao mMultiSigOperation;
 
     OstDeviceManagerOperationModelRepository() {
-        super(LRU_CACHE_SIZE);
+        super(OstSdk.DEVICE_OPERATION, LRU_CACHE_SIZE);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mMultiSigOperation = db.multiSigOperationDao();
     }
@@ -41,6 +43,21 @@ class OstDeviceManagerOperationModelRepository extends OstBaseModelCacheReposito
 
     @Override
     public OstDeviceManagerOperation[] getEntitiesByParentId(String id) {
-        return (OstDeviceManagerOperation[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstDeviceManagerOperation[0]);
+    }
+
+    @Override
+    public OstDeviceManagerOperation[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(ids, new OstDeviceManagerOperation[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstDeviceManagerOperation> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(id);
+    }
+
+    @Override
+    public ListenableFuture<OstDeviceManagerOperation[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstDeviceManagerOperation[0]);
     }
 }
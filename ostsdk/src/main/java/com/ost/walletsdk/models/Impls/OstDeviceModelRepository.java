@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstDeviceDao;
@@ -24,7 +26,7 @@ class OstDeviceModelRepository extends OstBaseModelCacheRepository implements Os
     private OstDeviceDao mOstDeviceDao;
 
     OstDeviceModelRepository() {
-        super(LRU_CACHE_SIZE);
+        super(OstSdk.DEVICE, LRU_CACHE_SIZE);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mOstDeviceDao = db.multiSigWalletDao();
     }
@@ -42,6 +44,28 @@ class OstDeviceModelRepository extends OstBaseModelCacheRepository implements Os
 
     @Override
     public OstDevice[] getEntitiesByParentId(String id) {
-        return (OstDevice[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstDevice[0]);
+    }
+
+    @Override
+    public OstDevice[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(toChecksumAddresses(ids), new OstDevice[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstDevice> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(Keys.toChecksumAddress(id));
+    }
+
+    @Override
+    public ListenableFuture<OstDevice[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstDevice[0]);
+    }
+
+    @Override
+    public OstDevice[] getEntitiesByParentIdAndStatus(String parentId, String... statuses) {
+        checkDbAccess();
+        String[] dbIds = mOstDeviceDao.getIdsByParentIdAndStatus(parentId, expandStatuses(statuses));
+        return super.getByParentIdAndStatus(parentId, dbIds, statuses, new OstDevice[0]);
     }
 }
\ No newline at end of file
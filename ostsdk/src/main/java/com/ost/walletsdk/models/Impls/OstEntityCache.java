@@ -0,0 +1,275 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.Impls;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread safe LRU cache of entities with lock striping.
+ * Ids are spread over a fixed number of stripes, each stripe guards its own LRU map, its own map
+ * of entities that are still being persisted and its own map of loads in flight.
+ */
+class OstEntityCache {
+
+    private static final int MAX_STRIPE_COUNT = 16;
+
+    interface Loader {
+        OstBaseEntity load(String id);
+    }
+
+    private final Stripe[] mStripes;
+    private final int mStripeMask;
+
+    OstEntityCache(int capacity) {
+        int totalCapacity = Math.max(1, capacity);
+        int stripeCount = 1;
+        while (stripeCount < MAX_STRIPE_COUNT && (stripeCount << 1) <= totalCapacity) {
+            stripeCount = stripeCount << 1;
+        }
+        int stripeCapacity = (totalCapacity + stripeCount - 1) / stripeCount;
+
+        mStripes = new Stripe[stripeCount];
+        for (int cnt = 0; cnt < stripeCount; cnt++) {
+            mStripes[cnt] = new Stripe(stripeCapacity);
+        }
+        mStripeMask = stripeCount - 1;
+    }
+
+    /**
+     * @param id entity id
+     * @return cached or still-persisting entity, null if not present. Never hits the DB.
+     */
+    OstBaseEntity get(String id) {
+        if (null == id) {
+            return null;
+        }
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            return stripe.lookup(id);
+        }
+    }
+
+    /**
+     * Returns the cached entity or loads it with the given loader.
+     * The load runs outside the stripe lock, concurrent misses for the same id wait for the one
+     * load in flight, so they result in a single DB read. Other ids are not blocked.
+     *
+     * @param id     entity id
+     * @param loader loader used on cache miss
+     * @return entity or null if loader could not find it.
+     */
+    OstBaseEntity getOrLoad(String id, Loader loader) {
+        if (null == id) {
+            return null;
+        }
+        Stripe stripe = stripeFor(id);
+        SettableFuture<OstBaseEntity> load;
+        boolean isOwner = false;
+        synchronized (stripe) {
+            OstBaseEntity entity = stripe.lookup(id);
+            if (null != entity) {
+                return entity;
+            }
+            load = stripe.loading.get(id);
+            if (null == load) {
+                load = SettableFuture.create();
+                stripe.loading.put(id, load);
+                isOwner = true;
+            }
+        }
+        if (!isOwner) {
+            return Futures.getUnchecked(load);
+        }
+
+        OstBaseEntity entity;
+        try {
+            entity = loader.load(id);
+        } catch (RuntimeException e) {
+            synchronized (stripe) {
+                stripe.finishLoad(id, load);
+            }
+            load.setException(e);
+            throw e;
+        }
+        synchronized (stripe) {
+            //An entity put meanwhile is newer than the read, a removal makes the read stale.
+            boolean isCurrent = stripe.finishLoad(id, load);
+            OstBaseEntity cachedEntity = stripe.lookup(id);
+            if (null != cachedEntity) {
+                entity = cachedEntity;
+            } else if (isCurrent && null != entity) {
+                stripe.lru.put(id, entity);
+            }
+        }
+        load.set(entity);
+        return entity;
+    }
+
+    void put(OstBaseEntity entity) {
+        String id = entity.getId();
+        if (null == id) {
+            return;
+        }
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            stripe.lru.put(id, entity);
+        }
+    }
+
+    /**
+     * Caches an entity read from DB unless the id is already cached.
+     * A cached entity is preferred as it may carry a write which is not persisted yet.
+     *
+     * @return entity held by the cache for the id.
+     */
+    OstBaseEntity putIfAbsent(OstBaseEntity entity) {
+        String id = entity.getId();
+        if (null == id) {
+            return entity;
+        }
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            OstBaseEntity cachedEntity = stripe.lookup(id);
+            if (null != cachedEntity) {
+                return cachedEntity;
+            }
+            stripe.lru.put(id, entity);
+            return entity;
+        }
+    }
+
+    /**
+     * Caches an entity which is about to be persisted.
+     * The entity stays readable until {@link #clearPending(OstBaseEntity)} is called,
+     * even if the LRU evicts it in the mean time.
+     */
+    void putPending(OstBaseEntity entity) {
+        String id = entity.getId();
+        if (null == id) {
+            return;
+        }
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            stripe.lru.put(id, entity);
+            stripe.pending.put(id, entity);
+        }
+    }
+
+    /**
+     * Marks the entity as persisted. A newer snapshot of the same id which is still
+     * pending is left untouched.
+     */
+    void clearPending(OstBaseEntity entity) {
+        String id = entity.getId();
+        if (null == id) {
+            return;
+        }
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            if (stripe.pending.get(id) == entity) {
+                stripe.pending.remove(id);
+            }
+        }
+    }
+
+    /**
+     * @return snapshot of entities which are not persisted yet.
+     */
+    List<OstBaseEntity> getPending() {
+        List<OstBaseEntity> pendingEntities = new ArrayList<>();
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                pendingEntities.addAll(stripe.pending.values());
+            }
+        }
+        return pendingEntities;
+    }
+
+    void remove(String id) {
+        if (null == id) {
+            return;
+        }
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            stripe.lru.remove(id);
+            stripe.pending.remove(id);
+            stripe.loading.remove(id);
+        }
+    }
+
+    void clear() {
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                stripe.lru.clear();
+                stripe.pending.clear();
+                stripe.loading.clear();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                size += stripe.lru.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String id) {
+        int hash = id.hashCode();
+        hash ^= (hash >>> 16);
+        return mStripes[hash & mStripeMask];
+    }
+
+    private static class Stripe {
+        final LinkedHashMap<String, OstBaseEntity> lru;
+        final HashMap<String, OstBaseEntity> pending = new HashMap<>();
+        final HashMap<String, SettableFuture<OstBaseEntity>> loading = new HashMap<>();
+
+        Stripe(final int capacity) {
+            lru = new LinkedHashMap<String, OstBaseEntity>(capacity + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, OstBaseEntity> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        OstBaseEntity lookup(String id) {
+            OstBaseEntity entity = lru.get(id);
+            if (null == entity) {
+                entity = pending.get(id);
+            }
+            return entity;
+        }
+
+        /**
+         * @return true if the load was still in flight, false if the id was removed meanwhile.
+         */
+        boolean finishLoad(String id, SettableFuture<OstBaseEntity> load) {
+            if (loading.get(id) == load) {
+                loading.remove(id);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.ost.walletsdk.models.OstBaseModel;
 import com.ost.walletsdk.models.OstDeviceManagerModel;
 import com.ost.walletsdk.models.OstDeviceManagerOperationModel;
 import com.ost.walletsdk.models.OstDeviceModel;
@@ -19,6 +20,21 @@ import com.ost.walletsdk.models.OstTokenHolderModel;
 import com.ost.walletsdk.models.OstTokenModel;
 import com.ost.walletsdk.models.OstTransactionModel;
 import com.ost.walletsdk.models.OstUserModel;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstDeviceManager;
+import com.ost.walletsdk.models.entities.OstDeviceManagerOperation;
+import com.ost.walletsdk.models.entities.OstRule;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstTokenHolder;
+import com.ost.walletsdk.models.entities.OstTransaction;
+import com.ost.walletsdk.models.entities.OstUser;
+import com.ost.walletsdk.utils.AsyncStatus;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 public class OstModelFactory {
 
@@ -136,4 +152,58 @@ public class OstModelFactory {
         return DEVICE_MANAGER_OPERATION_MODEL_INSTANCE;
     }
 
+    /**
+     * @param entityClass entity class
+     * @return model persisting entities of the class.
+     * @throws IllegalArgumentException if the class has no model.
+     */
+    public static OstBaseModel getModel(Class<? extends OstBaseEntity> entityClass) {
+        if (OstUser.class == entityClass) {
+            return getUserModel();
+        } else if (OstTransaction.class == entityClass) {
+            return getTransactionModel();
+        } else if (OstTokenHolder.class == entityClass) {
+            return getTokenHolderModel();
+        } else if (OstToken.class == entityClass) {
+            return getTokenModel();
+        } else if (OstSession.class == entityClass) {
+            return getSessionModel();
+        } else if (OstRule.class == entityClass) {
+            return getRuleModel();
+        } else if (OstDeviceManagerOperation.class == entityClass) {
+            return getDeviceManagerOperationModel();
+        } else if (OstDeviceManager.class == entityClass) {
+            return getDeviceManagerModel();
+        } else if (OstDevice.class == entityClass) {
+            return getDeviceModel();
+        }
+        throw new IllegalArgumentException("No model for " + entityClass.getSimpleName());
+    }
+
+    /**
+     * Queues entities of several models to be persisted in one Room transaction, each model
+     * writing its entities with a single insertAll.
+     *
+     * @param entities entities to insert or update, by the model they belong to
+     * @return Future which completes once the entities are persisted.
+     */
+    public static Future<AsyncStatus> insertOrUpdateEntities(Map<OstBaseModel, OstBaseEntity[]> entities) {
+        LinkedHashMap<OstBaseModelCacheRepository, OstBaseEntity[]> repositoryEntities = new LinkedHashMap<>();
+        for (Map.Entry<OstBaseModel, OstBaseEntity[]> entry : entities.entrySet()) {
+            OstBaseModelCacheRepository repository = (OstBaseModelCacheRepository) entry.getKey();
+            //Readers see the entities right away, as with insertOrUpdateEntity.
+            repository.putPending(entry.getValue());
+            repositoryEntities.put(repository, entry.getValue());
+        }
+        return OstWriteBehindQueue.getInstance().enqueueAll(repositoryEntities);
+    }
+
+    /**
+     * Barrier for entity updates which are queued but not yet written to DB.
+     *
+     * @return Future which completes once all entity updates queued so far are persisted.
+     */
+    public static Future<AsyncStatus> flushPendingWrites() {
+        return OstWriteBehindQueue.getInstance().flush();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.Impls;
+
+import com.ost.walletsdk.database.OstSdkDatabase;
+import com.ost.walletsdk.database.daos.OstPendingOperationDao;
+import com.ost.walletsdk.models.OstPendingOperationModel;
+import com.ost.walletsdk.models.entities.OstPendingOperation;
+
+public class OstPendingOperationModelRepository implements OstPendingOperationModel {
+
+    private OstPendingOperationDao mOstPendingOperationDao;
+
+    public OstPendingOperationModelRepository() {
+        super();
+        OstSdkDatabase db = OstSdkDatabase.getDatabase();
+        mOstPendingOperationDao = db.pendingOperationDao();
+    }
+
+    private OstPendingOperationDao getModel() {
+        return mOstPendingOperationDao;
+    }
+
+    @Override
+    public void insertPendingOperation(OstPendingOperation ostPendingOperation) {
+        getModel().insert(ostPendingOperation);
+    }
+
+    @Override
+    public void deletePendingOperation(String id) {
+        getModel().delete(id);
+    }
+
+    @Override
+    public OstPendingOperation[] getAllPendingOperations() {
+        return getModel().getAll();
+    }
+
+    @Override
+    public OstPendingOperation[] getPendingOperationsOfUser(String userId) {
+        return getModel().getByUserId(userId);
+    }
+}
@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstRuleDao;
@@ -24,7 +26,7 @@ class OstRuleModelRepository extends OstBaseModelCacheRepository implements OstR
     private OstRuleDao mOstRuleDao;
 
     OstRuleModelRepository() {
-        super(LRU_CACHE_SIZE);
+        super(OstSdk.RULE, LRU_CACHE_SIZE);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mOstRuleDao = db.ruleDao();
     }
@@ -41,6 +43,21 @@ class OstRuleModelRepository extends OstBaseModelCacheRepository implements OstR
 
     @Override
     public OstRule[] getEntitiesByParentId(String id) {
-        return (OstRule[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstRule[0]);
+    }
+
+    @Override
+    public OstRule[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(toChecksumAddresses(ids), new OstRule[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstRule> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(Keys.toChecksumAddress(id));
+    }
+
+    @Override
+    public ListenableFuture<OstRule[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstRule[0]);
     }
 }
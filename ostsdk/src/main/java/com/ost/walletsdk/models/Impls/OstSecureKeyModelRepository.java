@@ -10,13 +10,14 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.ost.walletsdk.database.OstDbStrictMode;
 import com.ost.walletsdk.database.OstSdkKeyDatabase;
 import com.ost.walletsdk.database.daos.OstSecureKeyDao;
 import com.ost.walletsdk.models.OstSecureKeyModel;
 import com.ost.walletsdk.models.entities.OstSecureKey;
 import com.ost.walletsdk.utils.AsyncStatus;
-import com.ost.walletsdk.utils.DispatchAsync;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
 public class OstSecureKeyModelRepository implements OstSecureKeyModel {
@@ -31,7 +32,7 @@ public class OstSecureKeyModelRepository implements OstSecureKeyModel {
 
     @Override
     public Future<AsyncStatus> insertSecureKey(OstSecureKey ostSecureKey) {
-        return DispatchAsync.dispatch(new DispatchAsync.Executor() {
+        return OstDbExecutors.getWriter().submit(new Callable<AsyncStatus>() {
             @Override
             public AsyncStatus call() {
                 getModel().insert(ostSecureKey);
@@ -42,11 +43,12 @@ public class OstSecureKeyModelRepository implements OstSecureKeyModel {
 
     @Override
     public OstSecureKey getByKey(String id) {
+        OstDbStrictMode.onDbAccess(this);
         return getModel().getById(id);
     }
 
     public Future<AsyncStatus> delete(String id) {
-        return DispatchAsync.dispatch(new DispatchAsync.Executor() {
+        return OstDbExecutors.getWriter().submit(new Callable<AsyncStatus>() {
             @Override
             public AsyncStatus call() {
                 getModel().delete(id);
@@ -57,7 +59,7 @@ public class OstSecureKeyModelRepository implements OstSecureKeyModel {
 
     @Override
     public Future<AsyncStatus> deleteAllSecureKeys() {
-        return DispatchAsync.dispatch(new DispatchAsync.Executor() {
+        return OstDbExecutors.getWriter().submit(new Callable<AsyncStatus>() {
             @Override
             public AsyncStatus call() {
                 getModel().deleteAll();
@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstSessionDao;
@@ -18,13 +20,17 @@ import com.ost.walletsdk.models.entities.OstSession;
 
 import org.web3j.crypto.Keys;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
 class OstSessionModelRepository extends OstBaseModelCacheRepository implements OstSessionModel {
 
     private static final int LRU_CACHE_SIZE = 5;
     private OstSessionDao mOstSessionDao;
 
     OstSessionModelRepository() {
-        super(LRU_CACHE_SIZE);
+        super(OstSdk.SESSION, LRU_CACHE_SIZE);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mOstSessionDao = db.tokenHolderSessionDao();
     }
@@ -41,6 +47,55 @@ class OstSessionModelRepository extends OstBaseModelCacheRepository implements O
 
     @Override
     public OstSession[] getEntitiesByParentId(String id) {
-        return (OstSession[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstSession[0]);
+    }
+
+    @Override
+    public OstSession[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(toChecksumAddresses(ids), new OstSession[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstSession> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(Keys.toChecksumAddress(id));
+    }
+
+    @Override
+    public ListenableFuture<OstSession[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstSession[0]);
+    }
+
+    @Override
+    public OstSession[] getEntitiesByParentIdAndStatus(String parentId, String... statuses) {
+        checkDbAccess();
+        String[] dbIds = mOstSessionDao.getIdsByParentIdAndStatus(parentId, expandStatuses(statuses));
+        return super.getByParentIdAndStatus(parentId, dbIds, statuses, new OstSession[0]);
+    }
+
+    @Override
+    public OstSession[] getActiveEntities(String parentId, long expiresAfter, String minSpendingLimit,
+                                          String... statuses) {
+        checkDbAccess();
+        String[] dbIds = mOstSessionDao.getActiveIds(parentId, expiresAfter, minSpendingLimit,
+                expandStatuses(statuses));
+        OstSession[] sessions = super.getByParentIdAndStatus(parentId, dbIds, statuses, new OstSession[0]);
+        //Sessions pending in the write behind queue are not in the DB yet, check them the same way.
+        BigInteger minSpendingLimitBI = new BigInteger(minSpendingLimit);
+        List<OstSession> activeSessions = new ArrayList<>(sessions.length);
+        for (OstSession session : sessions) {
+            if (isActive(session, expiresAfter, minSpendingLimitBI)) {
+                activeSessions.add(session);
+            }
+        }
+        return activeSessions.toArray(new OstSession[0]);
+    }
+
+    private static boolean isActive(OstSession session, long expiresAfter, BigInteger minSpendingLimit) {
+        try {
+            return Long.parseLong(session.getExpirationTimestamp()) > expiresAfter
+                    && new BigInteger(session.getSpendingLimit()).compareTo(minSpendingLimit) >= 0;
+        } catch (NumberFormatException | NullPointerException e) {
+            return false;
+        }
     }
 }
@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstTokenHolderDao;
@@ -24,7 +26,7 @@ class OstTokenHolderModelRepository extends OstBaseModelCacheRepository implemen
     private OstTokenHolderDao mOstTokenHolderDao;
 
     OstTokenHolderModelRepository() {
-        super(LRU_CACHE_SIZE);
+        super(OstSdk.TOKEN_HOLDER, LRU_CACHE_SIZE);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mOstTokenHolderDao = db.tokenHolderDao();
     }
@@ -41,6 +43,21 @@ class OstTokenHolderModelRepository extends OstBaseModelCacheRepository implemen
 
     @Override
     public OstTokenHolder[] getEntitiesByParentId(String id) {
-        return (OstTokenHolder[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstTokenHolder[0]);
+    }
+
+    @Override
+    public OstTokenHolder[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(toChecksumAddresses(ids), new OstTokenHolder[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstTokenHolder> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(Keys.toChecksumAddress(id));
+    }
+
+    @Override
+    public ListenableFuture<OstTokenHolder[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstTokenHolder[0]);
     }
 }
\ No newline at end of file
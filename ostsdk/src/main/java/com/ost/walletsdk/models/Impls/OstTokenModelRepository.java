@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstTokenDao;
@@ -21,7 +23,7 @@ class OstTokenModelRepository extends OstBaseModelCacheRepository implements Ost
     private OstTokenDao mOstTokenDao;
 
     OstTokenModelRepository() {
-        super(5);
+        super(OstSdk.TOKEN, 5);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mOstTokenDao = db.tokenDao();
     }
@@ -38,6 +40,21 @@ class OstTokenModelRepository extends OstBaseModelCacheRepository implements Ost
 
     @Override
     public OstToken[] getEntitiesByParentId(String id) {
-        return (OstToken[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstToken[0]);
+    }
+
+    @Override
+    public OstToken[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(ids, new OstToken[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstToken> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(id);
+    }
+
+    @Override
+    public ListenableFuture<OstToken[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstToken[0]);
     }
 }
\ No newline at end of file
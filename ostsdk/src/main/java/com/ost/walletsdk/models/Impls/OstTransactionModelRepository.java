@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstTransactionDao;
@@ -22,7 +24,7 @@ class OstTransactionModelRepository extends OstBaseModelCacheRepository implemen
     private OstTransactionDao mOstTransactionDao;
 
     OstTransactionModelRepository() {
-        super(LRU_CACHE_SIZE);
+        super(OstSdk.TRANSACTION, LRU_CACHE_SIZE);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mOstTransactionDao = db.executableRuleDao();
     }
@@ -39,6 +41,28 @@ class OstTransactionModelRepository extends OstBaseModelCacheRepository implemen
 
     @Override
     public OstTransaction[] getEntitiesByParentId(String id) {
-        return (OstTransaction[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstTransaction[0]);
     }
-}
+
+    @Override
+    public OstTransaction[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(ids, new OstTransaction[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstTransaction> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(id);
+    }
+
+    @Override
+    public ListenableFuture<OstTransaction[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstTransaction[0]);
+    }
+
+    @Override
+    public OstTransaction[] getEntitiesByParentIdAndStatus(String parentId, String... statuses) {
+        checkDbAccess();
+        String[] dbIds = mOstTransactionDao.getIdsByParentIdAndStatus(parentId, expandStatuses(statuses));
+        return super.getByParentIdAndStatus(parentId, dbIds, statuses, new OstTransaction[0]);
+    }
+}
\ No newline at end of file
@@ -10,6 +10,8 @@
 
 package com.ost.walletsdk.models.Impls;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.database.OstSdkDatabase;
 import com.ost.walletsdk.database.daos.OstBaseDao;
 import com.ost.walletsdk.database.daos.OstUserDao;
@@ -22,7 +24,7 @@ class OstUserModelRepository extends OstBaseModelCacheRepository implements OstU
     private OstUserDao mOstUserDao;
 
     OstUserModelRepository() {
-        super(LRU_CACHE_SIZE);
+        super(OstSdk.USER, LRU_CACHE_SIZE);
         OstSdkDatabase db = OstSdkDatabase.getDatabase();
         mOstUserDao = db.userDao();
     }
@@ -41,6 +43,21 @@ class OstUserModelRepository extends OstBaseModelCacheRepository implements OstU
 
     @Override
     public OstUser[] getEntitiesByParentId(String id) {
-        return (OstUser[]) super.getByParentId(id);
+        return super.getByParentId(id, new OstUser[0]);
+    }
+
+    @Override
+    public OstUser[] getEntitiesByIds(String[] ids) {
+        return super.getByIds(ids, new OstUser[ids.length]);
+    }
+
+    @Override
+    public ListenableFuture<OstUser> getEntityByIdAsync(String id) {
+        return super.getByIdAsync(id);
+    }
+
+    @Override
+    public ListenableFuture<OstUser[]> getEntitiesByParentIdAsync(String id) {
+        return super.getByParentIdAsync(id, new OstUser[0]);
     }
 }
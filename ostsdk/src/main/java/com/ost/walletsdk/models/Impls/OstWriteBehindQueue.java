@@ -0,0 +1,326 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.Impls;
+
+import android.util.Log;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import com.ost.walletsdk.database.OstSdkDatabase;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.utils.AsyncStatus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write behind stage for entity updates and deletes.
+ * All DB writes of cache repositories go through a single writer thread, so writes and deletes of
+ * the same entity id are applied in the order they were queued. Pending operations of an id
+ * collapse into the latest one and every tick applies the queued operations in one Room
+ * transaction. A tick that fails is retried, operations queued meanwhile stay ahead of it.
+ */
+class OstWriteBehindQueue {
+    private static final String TAG = "OstWriteBehindQueue";
+    private static final long TICK_INTERVAL_MILLIS = 50;
+    private static final int MAX_WRITE_ATTEMPTS = 4;
+
+    private static volatile OstWriteBehindQueue INSTANCE;
+
+    static OstWriteBehindQueue getInstance() {
+        if (INSTANCE == null) {
+            synchronized (OstWriteBehindQueue.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new OstWriteBehindQueue(OstDbExecutors.getWriter());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Pending operations of one repository, a null entity deletes the id.
+     */
+    private static final class RepositoryWrites {
+        private boolean mDeleteAll = false;
+        private final LinkedHashMap<String, OstBaseEntity> mEntities = new LinkedHashMap<>();
+
+        private boolean isDeleted(String id) {
+            if (mEntities.containsKey(id)) {
+                return null == mEntities.get(id);
+            }
+            return mDeleteAll;
+        }
+
+        private List<OstBaseEntity> getWrites() {
+            List<OstBaseEntity> writes = new ArrayList<>(mEntities.size());
+            for (OstBaseEntity entity : mEntities.values()) {
+                if (null != entity) {
+                    writes.add(entity);
+                }
+            }
+            return writes;
+        }
+    }
+
+    private final ScheduledExecutorService mWriter;
+    private final Object mLock = new Object();
+    private LinkedHashMap<OstBaseModelCacheRepository, RepositoryWrites> mPendingWrites = new LinkedHashMap<>();
+    private LinkedHashMap<OstBaseModelCacheRepository, RepositoryWrites> mWritingWrites = new LinkedHashMap<>();
+    private SettableFuture<AsyncStatus> mTickFuture = SettableFuture.create();
+    private boolean mIsTickScheduled = false;
+    private int mFailedAttempts = 0;
+
+    private final Callable<AsyncStatus> mFlushTask = new Callable<AsyncStatus>() {
+        @Override
+        public AsyncStatus call() {
+            return writePendingEntities();
+        }
+    };
+
+    OstWriteBehindQueue(ScheduledExecutorService writer) {
+        mWriter = writer;
+    }
+
+    /**
+     * Queues entity to be persisted on next tick.
+     *
+     * @return Future which completes once the tick persisting this entity is committed.
+     */
+    Future<AsyncStatus> enqueue(OstBaseModelCacheRepository repository, OstBaseEntity entity) {
+        synchronized (mLock) {
+            getRepositoryWrites(repository).mEntities.put(entity.getId(), entity);
+            return scheduleTick();
+        }
+    }
+
+    /**
+     * Queues entities of several repositories on the same tick, so that they are persisted in
+     * the same Room transaction.
+     *
+     * @return Future which completes once the tick persisting these entities is committed.
+     */
+    Future<AsyncStatus> enqueueAll(Map<OstBaseModelCacheRepository, OstBaseEntity[]> entities) {
+        synchronized (mLock) {
+            for (Map.Entry<OstBaseModelCacheRepository, OstBaseEntity[]> entry : entities.entrySet()) {
+                LinkedHashMap<String, OstBaseEntity> repositoryWrites = getRepositoryWrites(entry.getKey()).mEntities;
+                for (OstBaseEntity entity : entry.getValue()) {
+                    repositoryWrites.put(entity.getId(), entity);
+                }
+            }
+            return scheduleTick();
+        }
+    }
+
+    /**
+     * Replaces pending write of the id with a delete, applied on next tick after all writes
+     * queued before.
+     */
+    Future<AsyncStatus> enqueueDelete(OstBaseModelCacheRepository repository, String id) {
+        synchronized (mLock) {
+            LinkedHashMap<String, OstBaseEntity> repositoryWrites = getRepositoryWrites(repository).mEntities;
+            //Re-inserting moves the id behind writes queued before.
+            repositoryWrites.remove(id);
+            repositoryWrites.put(id, null);
+            return scheduleTick();
+        }
+    }
+
+    /**
+     * Drops all pending operations of the repository and clears its table on next tick, writes
+     * queued after this call are applied after the table is cleared.
+     */
+    Future<AsyncStatus> enqueueDeleteAll(OstBaseModelCacheRepository repository) {
+        synchronized (mLock) {
+            RepositoryWrites repositoryWrites = getRepositoryWrites(repository);
+            repositoryWrites.mEntities.clear();
+            repositoryWrites.mDeleteAll = true;
+            return scheduleTick();
+        }
+    }
+
+    /**
+     * @return true if the id is deleted by an operation not committed yet, so that reads do not
+     * bring back the persisted row.
+     */
+    boolean isDeletePending(OstBaseModelCacheRepository repository, String id) {
+        synchronized (mLock) {
+            RepositoryWrites repositoryWrites = mPendingWrites.get(repository);
+            if (null != repositoryWrites && (repositoryWrites.mDeleteAll || repositoryWrites.mEntities.containsKey(id))) {
+                return repositoryWrites.isDeleted(id);
+            }
+            repositoryWrites = mWritingWrites.get(repository);
+            return null != repositoryWrites && repositoryWrites.isDeleted(id);
+        }
+    }
+
+    private RepositoryWrites getRepositoryWrites(OstBaseModelCacheRepository repository) {
+        RepositoryWrites repositoryWrites = mPendingWrites.get(repository);
+        if (null == repositoryWrites) {
+            repositoryWrites = new RepositoryWrites();
+            mPendingWrites.put(repository, repositoryWrites);
+        }
+        return repositoryWrites;
+    }
+
+    private Future<AsyncStatus> scheduleTick() {
+        if (!mIsTickScheduled) {
+            mIsTickScheduled = true;
+            mWriter.schedule(mFlushTask, TICK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return mTickFuture;
+    }
+
+    /**
+     * Barrier for queued writes, runs the next tick right away.
+     *
+     * @return Future which completes once every write queued before this call is committed,
+     * including retries, or with a failed status once they are given up on.
+     */
+    Future<AsyncStatus> flush() {
+        SettableFuture<AsyncStatus> tickFuture;
+        synchronized (mLock) {
+            //Writes of a tick running now are retried on this tick if they fail.
+            tickFuture = mTickFuture;
+        }
+        mWriter.submit(mFlushTask);
+        return tickFuture;
+    }
+
+    void runInTransaction(Runnable writes) {
+        OstSdkDatabase.getDatabase().runInTransaction(writes);
+    }
+
+    private AsyncStatus writePendingEntities() {
+        final LinkedHashMap<OstBaseModelCacheRepository, RepositoryWrites> pendingWrites;
+        SettableFuture<AsyncStatus> tickFuture;
+        synchronized (mLock) {
+            pendingWrites = mPendingWrites;
+            tickFuture = mTickFuture;
+            mWritingWrites = pendingWrites;
+            mPendingWrites = new LinkedHashMap<>();
+            mTickFuture = SettableFuture.create();
+            mIsTickScheduled = false;
+        }
+
+        if (pendingWrites.isEmpty()) {
+            AsyncStatus status = new AsyncStatus(true);
+            tickFuture.set(status);
+            return status;
+        }
+
+        try {
+            runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    for (Map.Entry<OstBaseModelCacheRepository, RepositoryWrites> entry : pendingWrites.entrySet()) {
+                        applyWrites(entry.getKey(), entry.getValue());
+                    }
+                }
+            });
+        } catch (Throwable th) {
+            return onWriteFailed(pendingWrites, tickFuture, th);
+        }
+
+        synchronized (mLock) {
+            mWritingWrites = new LinkedHashMap<>();
+            mFailedAttempts = 0;
+        }
+        AsyncStatus status = new AsyncStatus(true);
+        onPersisted(pendingWrites);
+        tickFuture.set(status);
+        return status;
+    }
+
+    private void applyWrites(OstBaseModelCacheRepository repository, RepositoryWrites repositoryWrites) {
+        if (repositoryWrites.mDeleteAll) {
+            repository.deleteAllPersisted();
+        }
+        for (Map.Entry<String, OstBaseEntity> entry : repositoryWrites.mEntities.entrySet()) {
+            if (null == entry.getValue()) {
+                repository.deletePersisted(entry.getKey());
+            }
+        }
+        repository.persistAll(repositoryWrites.getWrites());
+    }
+
+    /**
+     * Puts the failed operations back ahead of the ones queued meanwhile and retries them with
+     * backoff. After the last attempt the failure is reported through the futures of the tick, the
+     * failed operations stay pending and go with the next tick.
+     */
+    private AsyncStatus onWriteFailed(LinkedHashMap<OstBaseModelCacheRepository, RepositoryWrites> failedWrites,
+                                      final SettableFuture<AsyncStatus> tickFuture, Throwable th) {
+        synchronized (mLock) {
+            mWritingWrites = new LinkedHashMap<>();
+            requeue(failedWrites);
+            mFailedAttempts++;
+            if (mFailedAttempts < MAX_WRITE_ATTEMPTS) {
+                Log.w(TAG, String.format("Failed to persist pending entities, attempt %d", mFailedAttempts), th);
+                //Callers of the failed tick wait for the retry to commit.
+                Futures.addCallback(mTickFuture, new FutureCallback<AsyncStatus>() {
+                    @Override
+                    public void onSuccess(AsyncStatus status) {
+                        tickFuture.set(status);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable th) {
+                        tickFuture.setException(th);
+                    }
+                });
+                mIsTickScheduled = true;
+                mWriter.schedule(mFlushTask, TICK_INTERVAL_MILLIS << mFailedAttempts, TimeUnit.MILLISECONDS);
+                return new AsyncStatus(false, "Failed to persist pending entities, retry scheduled");
+            }
+            mFailedAttempts = 0;
+        }
+
+        //Entities stay pending in the caches, so they are neither evicted nor read back stale.
+        Log.e(TAG, "Failed to persist pending entities, keeping them for the next tick", th);
+        AsyncStatus status = new AsyncStatus(false, "Failed to persist pending entities");
+        tickFuture.set(status);
+        return status;
+    }
+
+    /**
+     * Makes failed operations pending again, operations queued after them win.
+     */
+    private void requeue(LinkedHashMap<OstBaseModelCacheRepository, RepositoryWrites> failedWrites) {
+        for (Map.Entry<OstBaseModelCacheRepository, RepositoryWrites> entry : mPendingWrites.entrySet()) {
+            RepositoryWrites failed = failedWrites.get(entry.getKey());
+            if (null == failed) {
+                failedWrites.put(entry.getKey(), entry.getValue());
+            } else if (entry.getValue().mDeleteAll) {
+                failedWrites.put(entry.getKey(), entry.getValue());
+            } else {
+                for (Map.Entry<String, OstBaseEntity> write : entry.getValue().mEntities.entrySet()) {
+                    failed.mEntities.remove(write.getKey());
+                    failed.mEntities.put(write.getKey(), write.getValue());
+                }
+            }
+        }
+        mPendingWrites = failedWrites;
+    }
+
+    private void onPersisted(LinkedHashMap<OstBaseModelCacheRepository, RepositoryWrites> writes) {
+        for (Map.Entry<OstBaseModelCacheRepository, RepositoryWrites> entry : writes.entrySet()) {
+            entry.getKey().onPersisted(entry.getValue().getWrites());
+        }
+    }
+}
@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.utils.AsyncStatus;
 
@@ -22,6 +23,25 @@ public interface OstBaseModel {
 
     OstBaseEntity[] getEntitiesByParentId(String id);
 
+    /**
+     * Batch lookup of entities. Only ids missing in cache are read from DB.
+     *
+     * @param ids entity ids
+     * @return entities in the order of ids, null for ids which are not found.
+     */
+    OstBaseEntity[] getEntitiesByIds(String[] ids);
+
+    /**
+     * Same as {@link #getEntityById(String)}, served from cache when possible and otherwise read
+     * on a DB reader thread, so it is safe to call from the main thread.
+     */
+    ListenableFuture<? extends OstBaseEntity> getEntityByIdAsync(String id);
+
+    /**
+     * Same as {@link #getEntitiesByParentId(String)}, read on a DB reader thread.
+     */
+    ListenableFuture<? extends OstBaseEntity[]> getEntitiesByParentIdAsync(String id);
+
     Future<AsyncStatus> deleteEntity(String id);
 
     Future<AsyncStatus> deleteAllEntities();
@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstDeviceManager;
 
 public interface OstDeviceManagerModel extends OstBaseModel {
@@ -18,4 +19,13 @@ public interface OstDeviceManagerModel extends OstBaseModel {
 
     @Override
     OstDeviceManager[] getEntitiesByParentId(String id);
+
+    @Override
+    OstDeviceManager[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstDeviceManager> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstDeviceManager[]> getEntitiesByParentIdAsync(String id);
 }
\ No newline at end of file
@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstDeviceManagerOperation;
 
 public interface OstDeviceManagerOperationModel extends OstBaseModel {
@@ -18,4 +19,13 @@ public interface OstDeviceManagerOperationModel extends OstBaseModel {
 
     @Override
     OstDeviceManagerOperation[] getEntitiesByParentId(String id);
+
+    @Override
+    OstDeviceManagerOperation[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstDeviceManagerOperation> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstDeviceManagerOperation[]> getEntitiesByParentIdAsync(String id);
 }
\ No newline at end of file
@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstDevice;
 
 public interface OstDeviceModel extends OstBaseModel {
@@ -18,4 +19,20 @@ public interface OstDeviceModel extends OstBaseModel {
 
     @Override
     OstDevice[] getEntitiesByParentId(String id);
+
+    @Override
+    OstDevice[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstDevice> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstDevice[]> getEntitiesByParentIdAsync(String id);
+
+    /**
+     * @param parentId parent id
+     * @param statuses statuses to match, case insensitive
+     * @return children of parent having one of the statuses.
+     */
+    OstDevice[] getEntitiesByParentIdAndStatus(String parentId, String... statuses);
 }
\ No newline at end of file
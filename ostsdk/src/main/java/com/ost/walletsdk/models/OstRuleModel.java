@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstRule;
 
 public interface OstRuleModel extends OstBaseModel {
@@ -18,4 +19,13 @@ public interface OstRuleModel extends OstBaseModel {
 
     @Override
     OstRule[] getEntitiesByParentId(String id);
+
+    @Override
+    OstRule[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstRule> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstRule[]> getEntitiesByParentIdAsync(String id);
 }
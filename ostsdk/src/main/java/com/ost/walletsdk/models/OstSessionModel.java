@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstSession;
 
 public interface OstSessionModel extends OstBaseModel {
@@ -19,4 +20,30 @@ public interface OstSessionModel extends OstBaseModel {
 
     @Override
     OstSession[] getEntitiesByParentId(String id);
-}
\ No newline at end of file
+
+    @Override
+    OstSession[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstSession> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstSession[]> getEntitiesByParentIdAsync(String id);
+
+    /**
+     * @param parentId parent id
+     * @param statuses statuses to match, case insensitive
+     * @return children of parent having one of the statuses.
+     */
+    OstSession[] getEntitiesByParentIdAndStatus(String parentId, String... statuses);
+
+    /**
+     * @param parentId         parent id
+     * @param expiresAfter     epoch seconds the session must outlive
+     * @param minSpendingLimit amount in wei the session must allow
+     * @param statuses         statuses to match, case insensitive
+     * @return children of parent having one of the statuses which can spend the amount.
+     */
+    OstSession[] getActiveEntities(String parentId, long expiresAfter, String minSpendingLimit,
+                                   String... statuses);
+}
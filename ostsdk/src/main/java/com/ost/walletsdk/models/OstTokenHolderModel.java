@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstTokenHolder;
 
 public interface OstTokenHolderModel extends OstBaseModel {
@@ -18,4 +19,13 @@ public interface OstTokenHolderModel extends OstBaseModel {
 
     @Override
     OstTokenHolder[] getEntitiesByParentId(String id);
+
+    @Override
+    OstTokenHolder[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstTokenHolder> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstTokenHolder[]> getEntitiesByParentIdAsync(String id);
 }
\ No newline at end of file
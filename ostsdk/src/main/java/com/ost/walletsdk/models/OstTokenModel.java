@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstToken;
 
 public interface OstTokenModel extends OstBaseModel {
@@ -18,4 +19,13 @@ public interface OstTokenModel extends OstBaseModel {
 
     @Override
     OstToken[] getEntitiesByParentId(String id);
+
+    @Override
+    OstToken[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstToken> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstToken[]> getEntitiesByParentIdAsync(String id);
 }
\ No newline at end of file
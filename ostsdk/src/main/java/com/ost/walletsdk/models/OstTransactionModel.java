@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstTransaction;
 
 public interface OstTransactionModel extends OstBaseModel {
@@ -18,4 +19,20 @@ public interface OstTransactionModel extends OstBaseModel {
 
     @Override
     OstTransaction[] getEntitiesByParentId(String id);
+
+    @Override
+    OstTransaction[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstTransaction> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstTransaction[]> getEntitiesByParentIdAsync(String id);
+
+    /**
+     * @param parentId parent id
+     * @param statuses statuses to match, case insensitive
+     * @return children of parent having one of the statuses.
+     */
+    OstTransaction[] getEntitiesByParentIdAndStatus(String parentId, String... statuses);
 }
\ No newline at end of file
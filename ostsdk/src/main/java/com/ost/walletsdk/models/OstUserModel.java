@@ -10,6 +10,7 @@
 
 package com.ost.walletsdk.models;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstUser;
 
 public interface OstUserModel extends OstBaseModel {
@@ -18,4 +19,13 @@ public interface OstUserModel extends OstBaseModel {
 
     @Override
     OstUser[] getEntitiesByParentId(String id);
+
+    @Override
+    OstUser[] getEntitiesByIds(String[] ids);
+
+    @Override
+    ListenableFuture<OstUser> getEntityByIdAsync(String id);
+
+    @Override
+    ListenableFuture<OstUser[]> getEntitiesByParentIdAsync(String id);
 }
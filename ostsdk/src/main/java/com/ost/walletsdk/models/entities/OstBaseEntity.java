@@ -17,6 +17,7 @@ import android.support.annotation.NonNull;
 import android.text.TextUtils;
 import android.util.Log;
 
+import com.ost.walletsdk.database.OstRowSchema;
 import com.ost.walletsdk.models.OstBaseModel;
 
 import org.json.JSONException;
@@ -42,7 +43,7 @@ public abstract class OstBaseEntity {
     private String parentId = DEFAULT_PARENT_ID_KEY;
 
     @ColumnInfo(name = "data")
-    private JSONObject data;
+    private volatile OstJsonPayload payload;
 
     @ColumnInfo(name = "status")
     private String status;
@@ -59,6 +60,13 @@ public abstract class OstBaseEntity {
         }
     }
 
+    /**
+     * Constructor used by Room. The payload is not parsed until a field of it is read.
+     */
+    OstBaseEntity(@NonNull String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp) {
+        this.payload = payload;
+    }
+
     @Ignore
     OstBaseEntity(JSONObject jsonObject) throws JSONException {
         if (!validate(jsonObject)) {
@@ -90,17 +98,30 @@ public abstract class OstBaseEntity {
 
 
 
+    /**
+     * @return copy of the payload, safe to modify.
+     */
     public JSONObject getData() {
-        try {
-            return new JSONObject(data.toString());
-        } catch (Exception e) {
-            Log.e(TAG, "JSON Parsing error");
+        OstJsonPayload payload = this.payload;
+        if (null == payload) {
+            return new JSONObject();
         }
-        return new JSONObject();
+        return payload.copy();
     }
 
+    public OstJsonPayload getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return payload view shared with other readers of this entity, must not be modified.
+     */
     JSONObject getJSONData() {
-        return data;
+        OstJsonPayload payload = this.payload;
+        if (null == payload) {
+            return null;
+        }
+        return payload.get();
     }
 
 
@@ -118,7 +139,7 @@ public abstract class OstBaseEntity {
         }
 
         //Set Data.
-        this.data = jsonObject;
+        this.payload = OstJsonPayload.fromJson(jsonObject, getRowSchema());
     }
 
     public String getId() {
@@ -162,9 +183,10 @@ public abstract class OstBaseEntity {
     }
 
     public void updateTimestamp() {
-        JSONObject jsonObject = this.getJSONData();
+        JSONObject jsonObject = this.getData();
         try {
             jsonObject.put(OstBaseEntity.UPDATED_TIMESTAMP, -1 * System.currentTimeMillis());
+            this.payload = OstJsonPayload.fromJson(jsonObject, getRowSchema());
         } catch (JSONException e) {
             Log.e(TAG, "Failed to update timestamp in jsonObject" + ". Entity = " + this.getClass().toString());
         }
@@ -200,6 +222,10 @@ public abstract class OstBaseEntity {
     }
 
 
+    OstRowSchema getRowSchema() {
+        return OstRowSchema.forEntity(getClass());
+    }
+
     public String getDefaultStatus() {
         return "";
     }
@@ -239,6 +265,10 @@ public abstract class OstBaseEntity {
             Log.e(TAG, "getJsonDataPropertyAsString: jsonObject is null. key = " + key + ". Entity = " + this.getClass().toString() );
             return null;
         }
+        return optJsonString(jsonObject, key);
+    }
+
+    static String optJsonString(JSONObject jsonObject, String key) {
         if ( jsonObject.isNull(key) ) {
             return null;
         }
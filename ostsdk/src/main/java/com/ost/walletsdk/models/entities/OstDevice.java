@@ -11,8 +11,10 @@
 package com.ost.walletsdk.models.entities;
 
 
+import android.arch.persistence.room.ColumnInfo;
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -30,7 +32,7 @@ import java.util.Arrays;
 /**
  * To hold Device info
  */
-@Entity(tableName = "device")
+@Entity(tableName = "device", indices = {@Index(value = {"parent_id", "status"})})
 public class OstDevice extends OstBaseEntity {
 
     public static final String TAG = "OstDeviceEntity";
@@ -40,6 +42,9 @@ public class OstDevice extends OstBaseEntity {
     public static final String LINKED_ADDRESS = "linked_address";
     public static final String API_SIGNER_ADDRESS = "api_signer_address";
 
+    @ColumnInfo(name = "linked_address")
+    private String linkedAddress;
+
     public static OstDevice getById(String id) {
         OstDeviceModel ostDeviceModel = OstModelFactory.getDeviceModel();
         if (TextUtils.isEmpty(id)) {
@@ -49,6 +54,19 @@ public class OstDevice extends OstBaseEntity {
         return ostDeviceModel.getEntityById(id);
     }
 
+    /**
+     * Loads devices in one batch read.
+     *
+     * @return devices in the order of ids, null for empty or unknown ids.
+     */
+    public static OstDevice[] getByIds(String... ids) {
+        String[] addresses = new String[ids.length];
+        for (int cnt = 0; cnt < ids.length; cnt++) {
+            addresses[cnt] = TextUtils.isEmpty(ids[cnt]) ? null : ids[cnt];
+        }
+        return OstModelFactory.getDeviceModel().getEntitiesByIds(addresses);
+    }
+
     public static boolean isValidStatus(String status) {
         return Arrays.asList(OstDevice.CONST_STATUS.CREATED, OstDevice.CONST_STATUS.REGISTERED,
                 CONST_STATUS.AUTHORIZING, CONST_STATUS.AUTHORIZED, CONST_STATUS.REVOKING,
@@ -131,7 +149,7 @@ public class OstDevice extends OstBaseEntity {
 
     public static OstDevice[] getDevicesByParentId(String userId) {
         if (TextUtils.isEmpty(userId) ) {
-            return (OstDevice[]) Arrays.asList().toArray();
+            return new OstDevice[0];
         }
 
         OstDeviceModel ostDeviceModel = OstModelFactory.getDeviceModel();
@@ -170,6 +188,13 @@ public class OstDevice extends OstBaseEntity {
     }
 
 
+    public OstDevice(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp,
+                     String linkedAddress) {
+        super(id, parentId, payload, status, updatedTimestamp);
+        this.linkedAddress = linkedAddress;
+    }
+
+    @Ignore
     public OstDevice(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
@@ -186,6 +211,15 @@ public class OstDevice extends OstBaseEntity {
                 jsonObject.has(OstDevice.API_SIGNER_ADDRESS);
     }
 
+    @Override
+    public void processJson(JSONObject jsonObject) throws JSONException {
+        super.processJson(jsonObject);
+        linkedAddress = optJsonString(jsonObject, OstDevice.LINKED_ADDRESS);
+        if (null != linkedAddress) {
+            linkedAddress = Keys.toChecksumAddress(linkedAddress);
+        }
+    }
+
     @Override
     public String getId() {
         String id = super.getId();
@@ -209,10 +243,6 @@ public class OstDevice extends OstBaseEntity {
 
 
     public String getLinkedAddress() {
-        String linkedAddress = this.getJsonDataPropertyAsString(OstDevice.LINKED_ADDRESS);
-        if (null != linkedAddress) {
-            linkedAddress = Keys.toChecksumAddress(linkedAddress);
-        }
         return linkedAddress;
     }
 
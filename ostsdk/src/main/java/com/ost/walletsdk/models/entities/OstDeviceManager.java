@@ -11,8 +11,10 @@
 package com.ost.walletsdk.models.entities;
 
 
+import android.arch.persistence.room.ColumnInfo;
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -26,7 +28,7 @@ import org.web3j.crypto.Keys;
 /**
  * To hold Device manager info
  */
-@Entity(tableName = "device_manager")
+@Entity(tableName = "device_manager", indices = {@Index(value = {"parent_id", "status"})})
 public class OstDeviceManager extends OstBaseEntity {
     private static final String TAG = "OstDeviceManagerEntity";
     public static final String USER_ID = "user_id";
@@ -34,6 +36,9 @@ public class OstDeviceManager extends OstBaseEntity {
     public static final String REQUIREMENT = "requirement";
     public static final String NONCE = "nonce";
 
+    @ColumnInfo(name = "nonce")
+    private int nonce;
+
     public static OstDeviceManager getById(String id) {
         if (TextUtils.isEmpty(id)) {
             return null;
@@ -81,6 +86,13 @@ public class OstDeviceManager extends OstBaseEntity {
 
 
 
+    public OstDeviceManager(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp,
+                            int nonce) {
+        super(id, parentId, payload, status, updatedTimestamp);
+        this.nonce = nonce;
+    }
+
+    @Ignore
     public OstDeviceManager(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
@@ -99,6 +111,12 @@ public class OstDeviceManager extends OstBaseEntity {
                 jsonObject.has(OstDeviceManager.NONCE);
     }
 
+    @Override
+    public void processJson(JSONObject jsonObject) throws JSONException {
+        super.processJson(jsonObject);
+        nonce = jsonObject.optInt(OstDeviceManager.NONCE, -1);
+    }
+
     public String getUserId() {
         return this.getParentId();
     }
@@ -125,12 +143,7 @@ public class OstDeviceManager extends OstBaseEntity {
 
 
     public int getNonce() {
-        JSONObject jsonObject = this.getJSONData();
-        if ( null == jsonObject ) {
-            Log.e(TAG, "getRequirement: jsonObject is null");
-            return -1;
-        }
-        return jsonObject.optInt(OstDeviceManager.NONCE, -1);
+        return nonce;
     }
 
     public int incrementNonce() {
@@ -13,6 +13,7 @@ package com.ost.walletsdk.models.entities;
 
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 
 import com.ost.walletsdk.models.Impls.OstModelFactory;
 
@@ -23,7 +24,7 @@ import org.web3j.crypto.Keys;
 /**
  * To hold Device Manager Operation Info
  */
-@Entity(tableName = "device_operation")
+@Entity(tableName = "device_operation", indices = {@Index(value = {"parent_id", "status"})})
 public class OstDeviceManagerOperation extends OstBaseEntity {
 
     public static final String USER_ID = "user_id";
@@ -82,6 +83,11 @@ public class OstDeviceManagerOperation extends OstBaseEntity {
         return OstDeviceManagerOperation.parse(jsonObject);
     }
 
+    public OstDeviceManagerOperation(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp) {
+        super(id, parentId, payload, status, updatedTimestamp);
+    }
+
+    @Ignore
     public OstDeviceManagerOperation(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
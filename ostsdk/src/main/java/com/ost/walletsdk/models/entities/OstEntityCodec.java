@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+
+package com.ost.walletsdk.models.entities;
+
+import android.text.TextUtils;
+
+import com.ost.walletsdk.models.Impls.OstModelFactory;
+import com.ost.walletsdk.models.OstBaseModel;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+
+/**
+ * Decodes api json of one entity type into entities.
+ * {@link OstBaseEntity#processJson} replaces the whole payload of an entity, so an entity decoded
+ * from the api json alone is the stored entity updated with it. Unlike
+ * {@link OstBaseEntity#insertOrUpdate}, nothing is read from DB and nothing is written, so that
+ * entities can be decoded while the response streams in and persisted together afterwards.
+ */
+public final class OstEntityCodec {
+
+    private static final HashMap<Class, OstEntityCodec> CODECS_BY_ENTITY = new HashMap<>();
+
+    /**
+     * @param entityClass entity having a json constructor and a model in {@link OstModelFactory}
+     * @return the codec of the entity class, one instance per class.
+     */
+    public static OstEntityCodec forEntity(Class<? extends OstBaseEntity> entityClass) {
+        synchronized (CODECS_BY_ENTITY) {
+            OstEntityCodec codec = CODECS_BY_ENTITY.get(entityClass);
+            if (null == codec) {
+                codec = new OstEntityCodec(entityClass);
+                CODECS_BY_ENTITY.put(entityClass, codec);
+            }
+            return codec;
+        }
+    }
+
+    private final Class<? extends OstBaseEntity> mEntityClass;
+    private final Constructor<? extends OstBaseEntity> mJsonConstructor;
+
+    private OstEntityCodec(Class<? extends OstBaseEntity> entityClass) {
+        mEntityClass = entityClass;
+        try {
+            mJsonConstructor = entityClass.getConstructor(JSONObject.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(entityClass.getSimpleName() + " has no json constructor", e);
+        }
+    }
+
+    /**
+     * @return model the decoded entities are persisted with.
+     */
+    public OstBaseModel getModel() {
+        return OstModelFactory.getModel(mEntityClass);
+    }
+
+    public Class<? extends OstBaseEntity> getEntityClass() {
+        return mEntityClass;
+    }
+
+    /**
+     * @param jsonObject api json of an entity of this type
+     * @return the entity, it replaces the stored entity of its id once persisted.
+     * @throws JSONException if the json object has no identifier or is invalid.
+     */
+    public OstBaseEntity decode(JSONObject jsonObject) throws JSONException {
+        OstBaseEntity entity;
+        try {
+            entity = mJsonConstructor.newInstance(jsonObject);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof JSONException) {
+                throw (JSONException) e.getCause();
+            }
+            throw new JSONException("Failed to decode " + this + ": " + e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new JSONException("Failed to decode " + this + ": " + e);
+        }
+        if (TextUtils.isEmpty(jsonObject.optString(entity.getEntityIdKey()))) {
+            throw new JSONException("Identifier value is null");
+        }
+        return entity;
+    }
+
+    @Override
+    public String toString() {
+        return mEntityClass.getSimpleName();
+    }
+}
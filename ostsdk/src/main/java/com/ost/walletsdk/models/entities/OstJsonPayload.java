@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.entities;
+
+import android.util.Log;
+
+import com.ost.walletsdk.database.OstRowCodec;
+import com.ost.walletsdk.database.OstRowSchema;
+
+import org.json.JSONObject;
+
+import java.nio.charset.Charset;
+
+/**
+ * Json payload of an entity.
+ * A payload read from DB keeps the raw row and is decoded on first access. The decoded object is
+ * shared by all readers of the entity and must not be modified, writers work on {@link #copy()}.
+ */
+public final class OstJsonPayload {
+    private static final String TAG = "OstJsonPayload";
+
+    private final byte[] mRaw;
+    private final OstRowSchema mSchema;
+    private volatile JSONObject mJson;
+
+    private OstJsonPayload(byte[] raw, JSONObject json, OstRowSchema schema) {
+        mRaw = raw;
+        mJson = json;
+        mSchema = schema;
+    }
+
+    public static OstJsonPayload fromBytes(byte[] raw) {
+        return new OstJsonPayload(raw, null, null);
+    }
+
+    public static OstJsonPayload fromString(String raw) {
+        return fromBytes(raw.getBytes(Charset.forName("UTF-8")));
+    }
+
+    /**
+     * @param schema row schema of the entity, rows are written binary if it is enabled.
+     */
+    static OstJsonPayload fromJson(JSONObject json, OstRowSchema schema) {
+        return new OstJsonPayload(null, json, schema);
+    }
+
+    /**
+     * @return shared decoded view, read only.
+     */
+    JSONObject get() {
+        JSONObject json = mJson;
+        if (null == json) {
+            json = decode(mRaw);
+            mJson = json;
+        }
+        return json;
+    }
+
+    /**
+     * @return private copy which the caller may modify.
+     */
+    JSONObject copy() {
+        if (null != mRaw) {
+            return decode(mRaw);
+        }
+        return decode(OstRowCodec.encodeJson(mJson));
+    }
+
+    /**
+     * @return row to persist. An unchanged payload is written back as it was read.
+     */
+    public byte[] toBytes() {
+        if (null != mRaw) {
+            return mRaw;
+        }
+        if (null != mSchema && mSchema.isEnabled()) {
+            return OstRowCodec.encode(mJson, mSchema);
+        }
+        return OstRowCodec.encodeJson(mJson);
+    }
+
+    @Override
+    public String toString() {
+        return get().toString();
+    }
+
+    private static JSONObject decode(byte[] raw) {
+        try {
+            return OstRowCodec.decode(raw);
+        } catch (Exception e) {
+            Log.e(TAG, "JSON Parsing error");
+        }
+        return new JSONObject();
+    }
+}
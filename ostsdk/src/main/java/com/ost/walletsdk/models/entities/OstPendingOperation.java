@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.entities;
+
+import android.arch.persistence.room.ColumnInfo;
+import android.arch.persistence.room.Entity;
+import android.arch.persistence.room.Index;
+import android.arch.persistence.room.PrimaryKey;
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Entity awaited to reach a status, kept till it does so tracking survives process death.
+ */
+@Entity(tableName = "pending_operation", indices = {@Index("user_id")})
+public class OstPendingOperation {
+
+    @PrimaryKey()
+    @NonNull
+    @ColumnInfo(name = "id")
+    private String id;
+
+    @NonNull
+    @ColumnInfo(name = "user_id")
+    private String userId;
+
+    @NonNull
+    @ColumnInfo(name = "entity_type")
+    private String entityType;
+
+    @NonNull
+    @ColumnInfo(name = "entity_id")
+    private String entityId;
+
+    @NonNull
+    @ColumnInfo(name = "success_status")
+    private String successStatus;
+
+    @NonNull
+    @ColumnInfo(name = "failed_status")
+    private String failedStatus;
+
+    @ColumnInfo(name = "deadline")
+    private long deadline;
+
+    @ColumnInfo(name = "created_at")
+    private long createdAt;
+
+    public OstPendingOperation(@NonNull String id, @NonNull String userId, @NonNull String entityType,
+                               @NonNull String entityId, @NonNull String successStatus,
+                               @NonNull String failedStatus, long deadline, long createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.successStatus = successStatus;
+        this.failedStatus = failedStatus;
+        this.deadline = deadline;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * @return id of the operation on the entity, an entity has at most one pending operation
+     */
+    public static String getId(String entityType, String entityId) {
+        return String.format("%s:%s", entityType, entityId.toLowerCase(Locale.ENGLISH));
+    }
+
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    @NonNull
+    public String getUserId() {
+        return userId;
+    }
+
+    @NonNull
+    public String getEntityType() {
+        return entityType;
+    }
+
+    @NonNull
+    public String getEntityId() {
+        return entityId;
+    }
+
+    @NonNull
+    public String getSuccessStatus() {
+        return successStatus;
+    }
+
+    @NonNull
+    public String getFailedStatus() {
+        return failedStatus;
+    }
+
+    /**
+     * @return time in millis after which tracking gives up
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
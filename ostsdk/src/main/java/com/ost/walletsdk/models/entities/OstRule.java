@@ -12,6 +12,7 @@ package com.ost.walletsdk.models.entities;
 
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 
 import com.ost.walletsdk.models.Impls.OstModelFactory;
 
@@ -22,7 +23,7 @@ import org.web3j.crypto.Keys;
 /**
  * To hold rule info
  */
-@Entity(tableName = "rule")
+@Entity(tableName = "rule", indices = {@Index(value = {"parent_id", "status"})})
 public class OstRule extends OstBaseEntity {
 
     public static final String TOKEN_ID = "token_id";
@@ -48,6 +49,15 @@ public class OstRule extends OstBaseEntity {
         return entityFactory;
     }
 
+    /**
+     * Loads rules in one batch read.
+     *
+     * @return rules in the order of ids, null for unknown ids.
+     */
+    public static OstRule[] getByIds(String... ids) {
+        return OstModelFactory.getRuleModel().getEntitiesByIds(ids);
+    }
+
     public static OstRule parse(JSONObject jsonObject) throws JSONException {
         return (OstRule) OstBaseEntity.insertOrUpdate( jsonObject, OstModelFactory.getRuleModel(), getIdentifier(), getEntityFactory());
     }
@@ -58,6 +68,11 @@ public class OstRule extends OstBaseEntity {
     }
 
 
+    public OstRule(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp) {
+        super(id, parentId, payload, status, updatedTimestamp);
+    }
+
+    @Ignore
     public OstRule(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
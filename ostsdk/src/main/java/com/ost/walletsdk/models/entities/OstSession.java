@@ -11,8 +11,10 @@
 package com.ost.walletsdk.models.entities;
 
 
+import android.arch.persistence.room.ColumnInfo;
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -38,7 +40,7 @@ import java.util.List;
 /**
  * To hold Session info
  */
-@Entity(tableName = "session")
+@Entity(tableName = "session", indices = {@Index(value = {"parent_id", "status"})})
 public class OstSession extends OstBaseEntity {
     private static final String TAG = "OstSession";
 
@@ -51,6 +53,15 @@ public class OstSession extends OstBaseEntity {
     public static final String SPENDING_LIMIT = "spending_limit";
     public static final String NONCE = "nonce";
 
+    @ColumnInfo(name = "nonce")
+    private int nonce;
+
+    @ColumnInfo(name = "spending_limit")
+    private String spendingLimit;
+
+    @ColumnInfo(name = "expiration_timestamp")
+    private String expirationTimestamp;
+
     public static String getIdentifier() {
         return OstSession.ADDRESS;
     }
@@ -83,19 +94,28 @@ public class OstSession extends OstBaseEntity {
     public static List<OstSession> getActiveSessions(String parentId) {
         return getSessions(parentId, CONST_STATUS.AUTHORISED);
     }
-    private static List<OstSession> getSessions(String parentId, String ...statuses) {
-        OstSession[] ostSessions = getSessionsByParentId(parentId);
-        List<OstSession> activeSessionList = new ArrayList<>();
-        for (OstSession ostSession: ostSessions) {
-            for (String status : statuses) {
-                if (status.equalsIgnoreCase(ostSession.getStatus())) {
-                    activeSessionList.add(ostSession);
-                    break;
-                }
-            }
+    /**
+     * @param parentId              user id
+     * @param expiresAfter          epoch seconds the session must outlive
+     * @param spendingBtAmountInWei amount in wei the session must allow
+     * @return authorized sessions of the user which can spend the amount.
+     */
+    public static List<OstSession> getActiveSessions(String parentId, long expiresAfter,
+                                                     String spendingBtAmountInWei) {
+        if (TextUtils.isEmpty(parentId)) {
+            return new ArrayList<>();
+        }
+        OstSessionModel ostSessionModel = OstModelFactory.getSessionModel();
+        return Arrays.asList(ostSessionModel.getActiveEntities(parentId, expiresAfter,
+                spendingBtAmountInWei, CONST_STATUS.AUTHORISED));
+    }
 
+    private static List<OstSession> getSessions(String parentId, String ...statuses) {
+        if (TextUtils.isEmpty(parentId)) {
+            return new ArrayList<>();
         }
-        return activeSessionList;
+        OstSessionModel ostSessionModel = OstModelFactory.getSessionModel();
+        return Arrays.asList(ostSessionModel.getEntitiesByParentIdAndStatus(parentId, statuses));
     }
 
     public static OstSession[] getSessionsByParentId(String parentId) {
@@ -167,6 +187,15 @@ public class OstSession extends OstBaseEntity {
     }
 
 
+    public OstSession(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp,
+                      int nonce, String spendingLimit, String expirationTimestamp) {
+        super(id, parentId, payload, status, updatedTimestamp);
+        this.nonce = nonce;
+        this.spendingLimit = spendingLimit;
+        this.expirationTimestamp = expirationTimestamp;
+    }
+
+    @Ignore
     public OstSession(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
@@ -190,6 +219,9 @@ public class OstSession extends OstBaseEntity {
     @Override
     public void processJson(JSONObject jsonObject) throws JSONException {
         super.processJson(jsonObject);
+        nonce = jsonObject.optInt(OstSession.NONCE, -1);
+        spendingLimit = optJsonString(jsonObject, OstSession.SPENDING_LIMIT);
+        expirationTimestamp = optJsonString(jsonObject, OstSession.APPROX_EXPIRATION_TIMESTAMP);
     }
 
     public String signTransaction(JSONObject jsonObject, String userId) throws Exception {
@@ -234,20 +266,15 @@ public class OstSession extends OstBaseEntity {
     }
 
     public String getExpirationTimestamp() {
-        return this.getJsonDataPropertyAsString(OstSession.APPROX_EXPIRATION_TIMESTAMP);
+        return expirationTimestamp;
     }
 
     public String getSpendingLimit() {
-        return this.getJsonDataPropertyAsString(OstSession.SPENDING_LIMIT);
+        return spendingLimit;
     }
 
     public int getNonce() {
-        JSONObject jsonObject = this.getJSONData();
-        if (null == jsonObject) {
-            Log.e(TAG, "getRequirement: jsonObject is null");
-            return -1;
-        }
-        return jsonObject.optInt(OstDeviceManager.NONCE, -1);
+        return nonce;
     }
 
     public int incrementNonce() {
@@ -12,6 +12,7 @@ package com.ost.walletsdk.models.entities;
 
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 import android.util.Log;
 
 import com.ost.walletsdk.models.Impls.OstModelFactory;
@@ -23,7 +24,7 @@ import org.json.JSONObject;
 /**
  * To hold Token info
  */
-@Entity(tableName = "token")
+@Entity(tableName = "token", indices = {@Index(value = {"parent_id", "status"})})
 public class OstToken extends OstBaseEntity {
 
     public static final String NAME = "name";
@@ -63,6 +64,11 @@ public class OstToken extends OstBaseEntity {
         return OstToken.parse(jsonObject);
     }
 
+    public OstToken(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp) {
+        super(id, parentId, payload, status, updatedTimestamp);
+    }
+
+    @Ignore
     public OstToken(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
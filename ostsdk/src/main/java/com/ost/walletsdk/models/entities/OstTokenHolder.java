@@ -13,6 +13,7 @@ package com.ost.walletsdk.models.entities;
 
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 import android.text.TextUtils;
 
 import com.ost.walletsdk.models.Impls.OstModelFactory;
@@ -31,7 +32,7 @@ import static com.ost.walletsdk.models.entities.OstTokenHolder.CONST_STATUS.LOGG
 /**
  * To hold Token Holder info
  */
-@Entity(tableName = "token_holder")
+@Entity(tableName = "token_holder", indices = {@Index(value = {"parent_id", "status"})})
 public class OstTokenHolder extends OstBaseEntity {
 
     public static final String USER_ID = "user_id";
@@ -82,6 +83,11 @@ public class OstTokenHolder extends OstBaseEntity {
         return OstTokenHolder.parse(jsonObject);
     }
 
+    public OstTokenHolder(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp) {
+        super(id, parentId, payload, status, updatedTimestamp);
+    }
+
+    @Ignore
     public OstTokenHolder(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
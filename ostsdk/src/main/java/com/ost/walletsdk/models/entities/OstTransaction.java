@@ -13,6 +13,7 @@ package com.ost.walletsdk.models.entities;
 
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 
 import com.ost.walletsdk.models.Impls.OstModelFactory;
 
@@ -30,7 +31,7 @@ import static com.ost.walletsdk.models.entities.OstTransaction.CONST_STATUS.SUCC
 /**
  * To hold Execute Rule Transaction info
  */
-@Entity(tableName = "transaction")
+@Entity(tableName = "transaction", indices = {@Index(value = {"parent_id", "status"})})
 public class OstTransaction extends OstBaseEntity {
 
     public static final String TRANSACTION_HASH = "transaction_hash";
@@ -86,6 +87,11 @@ public class OstTransaction extends OstBaseEntity {
         return OstTransaction.parse(jsonObject);
     }
 
+    public OstTransaction(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp) {
+        super(id, parentId, payload, status, updatedTimestamp);
+    }
+
+    @Ignore
     public OstTransaction(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
@@ -12,6 +12,7 @@ package com.ost.walletsdk.models.entities;
 
 import android.arch.persistence.room.Entity;
 import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
 import android.util.Log;
 
 import com.ost.walletsdk.ecKeyInteracts.OstKeyManager;
@@ -24,11 +25,12 @@ import org.web3j.crypto.Keys;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * To hold User info
  */
-@Entity(tableName = "user")
+@Entity(tableName = "user", indices = {@Index(value = {"parent_id", "status"})})
 public class OstUser extends OstBaseEntity {
 
     private static final String TAG = "OstUser";
@@ -82,15 +84,11 @@ public class OstUser extends OstBaseEntity {
     }
 
     public OstSession getActiveSession(String spendingBtAmountInWei) {
-        List<OstSession> ostActiveSessionList = OstSession.getActiveSessions(getId());
-        String currentTime = String.valueOf(System.currentTimeMillis());
-        for (OstSession ostSession : ostActiveSessionList) {
-            String expirationTimestamp = ostSession.getExpirationTimestamp();
-            BigInteger spendingLimitBI = new BigInteger(ostSession.getSpendingLimit());
-            BigInteger spendingBtAmountInWeiBI = new BigInteger(spendingBtAmountInWei);
-            if (spendingLimitBI.compareTo(spendingBtAmountInWeiBI) >= 0 && expirationTimestamp.compareTo(currentTime) > 0) {
-                return ostSession;
-            }
+        long currentTimeInSecs = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        List<OstSession> ostActiveSessionList = OstSession.getActiveSessions(getId(),
+                currentTimeInSecs, new BigInteger(spendingBtAmountInWei).toString());
+        if (!ostActiveSessionList.isEmpty()) {
+            return ostActiveSessionList.get(0);
         }
         Log.e(TAG, "No Active session key available");
         return null;
@@ -136,6 +134,11 @@ public class OstUser extends OstBaseEntity {
     }
 
 
+    public OstUser(String id, String parentId, OstJsonPayload payload, String status, double updatedTimestamp) {
+        super(id, parentId, payload, status, updatedTimestamp);
+    }
+
+    @Ignore
     public OstUser(String id, String parentId, JSONObject data, String status, double updatedTimestamp) {
         super(id, parentId, data, status, updatedTimestamp);
     }
@@ -10,6 +10,11 @@
 
 package com.ost.walletsdk.network;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.ecKeyInteracts.OstApiSigner;
 import com.ost.walletsdk.ecKeyInteracts.OstKeyManager;
@@ -22,11 +27,12 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 /**
  * Http api client over
  *
- * @see OstHttpRequestClient
+ * @see OstTransport
  * specific for OST Platform calls
  */
 public class OstApiClient {
@@ -43,7 +49,22 @@ public class OstApiClient {
     private static final String SPENDING_LIMIT = "spending_limit";
     private static final String RECOVERY_OWNER_ADDRESS = "recovery_owner_address";
     private static final String DEVICE_ADDRESS = "device_address";
-    private final OstHttpRequestClient mOstHttpRequestClient;
+    private static final String LIMIT = "limit";
+
+    private static final OstTransport.Factory HTTP_TRANSPORT_FACTORY = new OstTransport.Factory() {
+        @Override
+        public OstTransport create(String baseUrl, OstHttpRequestClient.ApiSigner apiSigner,
+                                  OstHttpRequestClient.ResponseParser responseParser) {
+            OstHttpRequestClient ostHttpRequestClient = new OstHttpRequestClient(baseUrl);
+            ostHttpRequestClient.setOstApiSigner(apiSigner);
+            ostHttpRequestClient.setResponseParser(responseParser);
+            return ostHttpRequestClient;
+        }
+    };
+
+    private static volatile OstTransport.Factory sTransportFactory = HTTP_TRANSPORT_FACTORY;
+
+    private final OstTransport mTransport;
     private final String mUserId;
     private final OstUser mOstUser;
     private final OstHttpRequestClient.ResponseParser mResponseParser;
@@ -53,35 +74,68 @@ public class OstApiClient {
         return mResponseParser;
     }
 
+    /**
+     * Sets the transport of api clients created afterwards, tests use it to run workflows
+     * against an in-process platform.
+     *
+     * @param factory transport factory, null to go back to OST Platform over http
+     */
+    static void setTransportFactory(OstTransport.Factory factory) {
+        sTransportFactory = null == factory ? HTTP_TRANSPORT_FACTORY : factory;
+    }
+
     public OstApiClient(String userId, String baseUrl) {
         mUserId = userId;
         mOstUser = OstSdk.getUser(userId);
 
-        mOstHttpRequestClient = new OstHttpRequestClient(baseUrl);
         mApiSigner = new OstApiSigner(mUserId);
-        mOstHttpRequestClient.setOstApiSigner(mApiSigner);
-
         mResponseParser = new OstApiHelper(userId);
-        mOstHttpRequestClient.setResponseParser(mResponseParser);
+        mTransport = sTransportFactory.create(baseUrl, mApiSigner, mResponseParser);
     }
 
     public OstApiClient(String userId) {
         this(userId, OstSdk.get().get_BASE_URL());
     }
 
+    /**
+     * @return http client of this api client, null if it uses another transport.
+     */
     public OstHttpRequestClient getOstHttpRequestClient() {
-        return mOstHttpRequestClient;
+        return mTransport instanceof OstHttpRequestClient ? (OstHttpRequestClient) mTransport : null;
+    }
+
+    public OstTransport getTransport() {
+        return mTransport;
+    }
+
+    /**
+     * Cancels requests of this client which are still in flight, eg: when its workflow is cancelled.
+     */
+    public void cancelAll() {
+        mTransport.cancelAll();
     }
 
     public JSONObject getToken() throws IOException {
+        return OstHttpRequestClient.await(getTokenAsync());
+    }
+
+    public ListenableFuture<JSONObject> getTokenAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get("/tokens/", requestMap);
+        return mTransport.getAsync("/tokens/", requestMap);
     }
 
     public JSONObject postUserActivate(String sessionAddress,
                                        String expirationHeight,
                                        String spendingLimit,
                                        String recoveryOwnerAddress) throws IOException {
+        return OstHttpRequestClient.await(postUserActivateAsync(sessionAddress, expirationHeight,
+                spendingLimit, recoveryOwnerAddress));
+    }
+
+    public ListenableFuture<JSONObject> postUserActivateAsync(String sessionAddress,
+                                                              String expirationHeight,
+                                                              String spendingLimit,
+                                                              String recoveryOwnerAddress) {
 
         Map<String, Object> requestMap = new HashMap<>();
 
@@ -90,23 +144,35 @@ public class OstApiClient {
         requestMap.put(SPENDING_LIMIT, spendingLimit);
         requestMap.put(RECOVERY_OWNER_ADDRESS, recoveryOwnerAddress);
         requestMap.put(DEVICE_ADDRESS, mOstUser.getCurrentDevice().getAddress());
-        return postUserActivate(requestMap);
+        return postUserActivateAsync(requestMap);
     }
 
     public JSONObject postUserActivate(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postUserActivateAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postUserActivateAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/activate-user/", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/activate-user/", mUserId), requestMap);
     }
 
     public JSONObject getDevice(String address) throws IOException {
+        return OstHttpRequestClient.await(getDeviceAsync(address));
+    }
+
+    public ListenableFuture<JSONObject> getDeviceAsync(String address) {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/devices/%s/", mUserId, address), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/devices/%s/", mUserId, address), requestMap);
     }
 
     public JSONObject getUser() throws IOException {
+        return OstHttpRequestClient.await(getUserAsync());
+    }
+
+    public ListenableFuture<JSONObject> getUserAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s", mUserId), requestMap);
+        return mTransport.getAsync(String.format("/users/%s", mUserId), requestMap);
     }
 
     private Map<String, Object> getPrerequisiteMap() {
@@ -122,127 +188,245 @@ public class OstApiClient {
     }
 
     public JSONObject getSalt() throws IOException {
+        return OstHttpRequestClient.await(getSaltAsync());
+    }
+
+    public ListenableFuture<JSONObject> getSaltAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/salts", mUserId), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/salts", mUserId), requestMap);
     }
 
     public JSONObject getCurrentBlockNumber() throws IOException {
+        return OstHttpRequestClient.await(getCurrentBlockNumberAsync());
+    }
+
+    public ListenableFuture<JSONObject> getCurrentBlockNumberAsync() {
         String tokenId = mOstUser.getTokenId();
         OstToken ostToken = OstToken.getById(tokenId);
         String chainId = ostToken.getChainId();
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/chains/%s", chainId), requestMap);
+        return mTransport.getAsync(String.format("/chains/%s", chainId), requestMap);
     }
 
     public JSONObject postAddDevice(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postAddDeviceAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postAddDeviceAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/devices/authorize", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/devices/authorize", mUserId), requestMap);
     }
 
     public JSONObject postAddSession(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postAddSessionAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postAddSessionAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/sessions/authorize", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/sessions/authorize", mUserId), requestMap);
     }
 
     public JSONObject getSession(String address) throws IOException {
+        return OstHttpRequestClient.await(getSessionAsync(address));
+    }
+
+    /**
+     * Session api errors are handed to the key manager before the returned future fails.
+     * Cancelling the returned future cancels the request.
+     */
+    public ListenableFuture<JSONObject> getSessionAsync(final String address) {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        JSONObject jsonObject = null;
-        try {
-            jsonObject = mOstHttpRequestClient.get(String.format("/users/%s/sessions/%s", mUserId, address), requestMap);
-        } catch (OstApiError ostApiError) {
-            try {
-                new OstKeyManager(mUserId).handleSessionApiError(ostApiError, address);
-            } catch (Throwable th) {
-                //Do nothing
+        final ListenableFuture<JSONObject> requestFuture =
+                mTransport.getAsync(String.format("/users/%s/sessions/%s", mUserId, address), requestMap);
+        final SettableFuture<JSONObject> future = SettableFuture.create();
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (future.isCancelled()) {
+                    requestFuture.cancel(true);
+                }
             }
-            throw ostApiError;
-        }
-        return jsonObject;
+        }, MoreExecutors.directExecutor());
+
+        Futures.addCallback(requestFuture, new FutureCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject result) {
+                future.set(result);
+            }
+
+            @Override
+            public void onFailure(Throwable th) {
+                if (th instanceof CancellationException) {
+                    future.cancel(false);
+                    return;
+                }
+                if (th instanceof OstApiError) {
+                    try {
+                        new OstKeyManager(mUserId).handleSessionApiError((OstApiError) th, address);
+                    } catch (Throwable throwable) {
+                        //Do nothing
+                    }
+                }
+                future.setException(th);
+            }
+        });
+        return future;
     }
 
     public JSONObject getDeviceManager() throws IOException {
+        return OstHttpRequestClient.await(getDeviceManagerAsync());
+    }
+
+    public ListenableFuture<JSONObject> getDeviceManagerAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/device-managers", mUserId), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/device-managers", mUserId), requestMap);
     }
 
     public JSONObject postExecuteTransaction(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postExecuteTransactionAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postExecuteTransactionAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/transactions", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/transactions", mUserId), requestMap);
     }
 
     public JSONObject getTransaction(String transactionId) throws IOException {
+        return OstHttpRequestClient.await(getTransactionAsync(transactionId));
+    }
+
+    public ListenableFuture<JSONObject> getTransactionAsync(String transactionId) {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/transactions/%s", mUserId, transactionId), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/transactions/%s", mUserId, transactionId), requestMap);
     }
 
     public JSONObject getAllTransactions() throws IOException {
+        return OstHttpRequestClient.await(getAllTransactionsAsync());
+    }
+
+    public ListenableFuture<JSONObject> getAllTransactionsAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/transactions", mUserId), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/transactions", mUserId), requestMap);
+    }
+
+    /**
+     * Latest transactions of the user, newest first.
+     *
+     * @param limit page size, at most 25
+     */
+    public ListenableFuture<JSONObject> getLatestTransactionsAsync(int limit) {
+        Map<String, Object> requestMap = getPrerequisiteMap();
+        requestMap.put(LIMIT, limit);
+        return mTransport.getAsync(String.format("/users/%s/transactions", mUserId), requestMap);
     }
 
     public JSONObject getAllRules() throws IOException {
+        return OstHttpRequestClient.await(getAllRulesAsync());
+    }
+
+    public ListenableFuture<JSONObject> getAllRulesAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get("/rules", requestMap);
+        return mTransport.getAsync("/rules", requestMap);
     }
 
     public JSONObject postRecoveryOwners(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postRecoveryOwnersAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postRecoveryOwnersAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/recovery-owners", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/recovery-owners", mUserId), requestMap);
     }
 
     public JSONObject getRecoveryOwnerAddress(String recoveryAddress) throws IOException {
+        return OstHttpRequestClient.await(getRecoveryOwnerAddressAsync(recoveryAddress));
+    }
+
+    public ListenableFuture<JSONObject> getRecoveryOwnerAddressAsync(String recoveryAddress) {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/recovery-owners/%s", mUserId, recoveryAddress), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/recovery-owners/%s", mUserId, recoveryAddress), requestMap);
     }
 
     public JSONObject postRevokeDevice(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postRevokeDeviceAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postRevokeDeviceAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/devices/revoke", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/devices/revoke", mUserId), requestMap);
     }
 
     public JSONObject postInitiateRecovery(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postInitiateRecoveryAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postInitiateRecoveryAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/devices/initiate-recovery", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/devices/initiate-recovery", mUserId), requestMap);
     }
 
     public JSONObject postAbortRecovery(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postAbortRecoveryAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postAbortRecoveryAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/devices/abort-recovery", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/devices/abort-recovery", mUserId), requestMap);
     }
 
     public JSONObject getPricePoints() throws IOException {
+        return OstHttpRequestClient.await(getPricePointsAsync());
+    }
+
+    public ListenableFuture<JSONObject> getPricePointsAsync() {
         String tokenId = mOstUser.getTokenId();
         OstToken ostToken = OstToken.getById(tokenId);
         String chainId = ostToken.getChainId();
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/chains/%s/price-points", chainId), requestMap);
+        return mTransport.getAsync(String.format("/chains/%s/price-points", chainId), requestMap);
     }
 
     public JSONObject getPendingRecovery() throws IOException {
+        return OstHttpRequestClient.await(getPendingRecoveryAsync());
+    }
+
+    public ListenableFuture<JSONObject> getPendingRecoveryAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/devices/pending-recovery", mUserId), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/devices/pending-recovery", mUserId), requestMap);
     }
 
     public JSONObject getBalance() throws IOException {
+        return OstHttpRequestClient.await(getBalanceAsync());
+    }
+
+    public ListenableFuture<JSONObject> getBalanceAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/balance", mUserId), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/balance", mUserId), requestMap);
     }
 
     public JSONObject postLogoutAllSessions(Map<String, Object> map) throws IOException {
+        return OstHttpRequestClient.await(postLogoutAllSessionsAsync(map));
+    }
+
+    public ListenableFuture<JSONObject> postLogoutAllSessionsAsync(Map<String, Object> map) {
         Map<String, Object> requestMap = getPrerequisiteMap();
         requestMap.putAll(map);
-        return mOstHttpRequestClient.post(String.format("/users/%s/token-holder/logout", mUserId), requestMap);
+        return mTransport.postAsync(String.format("/users/%s/token-holder/logout", mUserId), requestMap);
     }
 
     public JSONObject getTokenHolder() throws IOException {
+        return OstHttpRequestClient.await(getTokenHolderAsync());
+    }
+
+    public ListenableFuture<JSONObject> getTokenHolderAsync() {
         Map<String, Object> requestMap = getPrerequisiteMap();
-        return mOstHttpRequestClient.get(String.format("/users/%s/token-holder", mUserId), requestMap);
+        return mTransport.getAsync(String.format("/users/%s/token-holder", mUserId), requestMap);
     }
 }
\ No newline at end of file
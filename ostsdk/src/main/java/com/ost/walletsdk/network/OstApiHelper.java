@@ -12,12 +12,17 @@ package com.ost.walletsdk.network;
 
 import android.util.Log;
 
+import com.google.common.util.concurrent.Striped;
 import com.ost.walletsdk.OstConstants;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.ecKeyInteracts.OstApiSigner;
+import com.ost.walletsdk.models.Impls.OstModelFactory;
+import com.ost.walletsdk.models.OstBaseModel;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.models.entities.OstDevice;
 import com.ost.walletsdk.models.entities.OstDeviceManager;
 import com.ost.walletsdk.models.entities.OstDeviceManagerOperation;
+import com.ost.walletsdk.models.entities.OstEntityCodec;
 import com.ost.walletsdk.models.entities.OstRule;
 import com.ost.walletsdk.models.entities.OstSession;
 import com.ost.walletsdk.models.entities.OstToken;
@@ -30,20 +35,64 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-class OstApiHelper implements OstHttpRequestClient.ResponseParser {
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+class OstApiHelper implements OstHttpRequestClient.StreamingResponseParser {
     private static final String TAG = "OstApiHelper";
 
+    /**
+     * Entity codec of every result key, a key holds either one entity or an array of them.
+     */
+    static final Map<String, OstEntityCodec> ENTITY_CODECS;
+    static {
+        LinkedHashMap<String, OstEntityCodec> entityCodecs = new LinkedHashMap<>();
+        entityCodecs.put(OstSdk.USER, OstEntityCodec.forEntity(OstUser.class));
+        entityCodecs.put(OstSdk.TRANSACTION, OstEntityCodec.forEntity(OstTransaction.class));
+        entityCodecs.put(OstSdk.TRANSACTIONS, OstEntityCodec.forEntity(OstTransaction.class));
+        entityCodecs.put(OstSdk.TOKEN_HOLDER, OstEntityCodec.forEntity(OstTokenHolder.class));
+        entityCodecs.put(OstSdk.TOKEN, OstEntityCodec.forEntity(OstToken.class));
+        entityCodecs.put(OstSdk.SESSION, OstEntityCodec.forEntity(OstSession.class));
+        entityCodecs.put(OstSdk.SESSIONS, OstEntityCodec.forEntity(OstSession.class));
+        entityCodecs.put(OstSdk.RULE, OstEntityCodec.forEntity(OstRule.class));
+        entityCodecs.put(OstSdk.RULES, OstEntityCodec.forEntity(OstRule.class));
+        entityCodecs.put(OstSdk.DEVICE_OPERATION, OstEntityCodec.forEntity(OstDeviceManagerOperation.class));
+        entityCodecs.put(OstSdk.DEVICE_MANAGER, OstEntityCodec.forEntity(OstDeviceManager.class));
+        entityCodecs.put(OstSdk.DEVICE, OstEntityCodec.forEntity(OstDevice.class));
+        entityCodecs.put(OstSdk.DEVICES, OstEntityCodec.forEntity(OstDevice.class));
+        ENTITY_CODECS = Collections.unmodifiableMap(entityCodecs);
+    }
+
+    //Responses of a user are ingested one at a time, responses of different users in parallel.
+    private static final Striped<Lock> USER_LOCKS = Striped.lazyWeakLock(64);
+
     String mUserId;
     OstApiHelper(String userId) {
         mUserId = userId;
     }
 
+    @Override
+    public OstJsonStreamReader.EntityListener newEntityListener() {
+        return new EntityCollector();
+    }
+
     @Override
     public void parse(JSONObject jsonObject) {
-        updateWithApiResponse(jsonObject);
+        updateWithApiResponse(jsonObject, null);
+    }
+
+    @Override
+    public void parse(JSONObject jsonObject, OstJsonStreamReader.EntityListener entityListener) {
+        updateWithApiResponse(jsonObject, (EntityCollector) entityListener);
     }
 
-    synchronized private void updateWithApiResponse(JSONObject jsonObject) {
+    /**
+     * @param streamedEntities entities decoded while the response was read, null if it was not streamed.
+     */
+    private void updateWithApiResponse(JSONObject jsonObject, EntityCollector streamedEntities) {
         if ( null == jsonObject || !jsonObject.optBoolean(OstConstants.RESPONSE_SUCCESS) ) {
             OstApiError apiError =  new OstApiError("nw_api_helper_uwapir_1", OstErrors.ErrorCode.OST_PLATFORM_API_ERROR, jsonObject);
             if ( apiError.isApiSignerUnauthorized() ) {
@@ -57,56 +106,92 @@ class OstApiHelper implements OstHttpRequestClient.ResponseParser {
             throw apiError;
         }
 
+        Lock userLock = USER_LOCKS.get(null == mUserId ? "" : mUserId);
+        userLock.lock();
         try {
-            JSONObject jsonData = jsonObject.getJSONObject(OstConstants.RESPONSE_DATA);
-
-            if (jsonData.has(OstSdk.USER)) {
-                OstUser.parse(jsonData.getJSONObject(OstSdk.USER));
-            }
-            if (jsonData.has(OstSdk.TRANSACTION)) {
-                OstTransaction.parse(jsonData.getJSONObject(OstSdk.TRANSACTION));
-            }
-            if (jsonData.has(OstSdk.TOKEN_HOLDER)) {
-                OstTokenHolder.parse(jsonData.getJSONObject(OstSdk.TOKEN_HOLDER));
+            EntityCollector entityCollector = streamedEntities;
+            if (null == entityCollector) {
+                entityCollector = collectEntities(jsonObject.getJSONObject(OstConstants.RESPONSE_DATA));
             }
-            if (jsonData.has(OstSdk.TOKEN)) {
-                OstToken.parse(jsonData.getJSONObject(OstSdk.TOKEN));
+            LinkedHashMap<OstEntityCodec, OstBaseEntity[]> codecEntities = entityCollector.getEntities();
+            if (!codecEntities.isEmpty()) {
+                persist(codecEntities);
             }
-            if (jsonData.has(OstSdk.SESSION)) {
-                OstSession.parse(jsonData.getJSONObject(OstSdk.SESSION));
-            }
-            if (jsonData.has(OstSdk.SESSIONS)) {
-                JSONArray jsonArray = jsonData.getJSONArray(OstSdk.SESSIONS);
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    OstRule.parse(jsonArray.getJSONObject(i));
-                }
-            }
-            if (jsonData.has(OstSdk.RULE)) {
-                OstRule.parse(jsonData.getJSONObject(OstSdk.RULE));
-            }
-            if (jsonData.has(OstSdk.RULES)) {
-                JSONArray jsonArray = jsonData.getJSONArray(OstSdk.RULES);
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    OstRule.parse(jsonArray.getJSONObject(i));
+        } catch (JSONException e) {
+            Log.e(TAG, "JSONException");
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the entities of one response, all of them in one transaction.
+     */
+    void persist(LinkedHashMap<OstEntityCodec, OstBaseEntity[]> codecEntities) {
+        LinkedHashMap<OstBaseModel, OstBaseEntity[]> modelEntities = new LinkedHashMap<>();
+        for (Map.Entry<OstEntityCodec, OstBaseEntity[]> entry : codecEntities.entrySet()) {
+            modelEntities.put(entry.getKey().getModel(), entry.getValue());
+        }
+        OstModelFactory.insertOrUpdateEntities(modelEntities);
+    }
+
+    /**
+     * Decodes the entities of response data which was not streamed, in the order of {@link #ENTITY_CODECS}.
+     */
+    static EntityCollector collectEntities(JSONObject jsonData) throws JSONException {
+        EntityCollector entityCollector = new EntityCollector();
+        for (String key : ENTITY_CODECS.keySet()) {
+            Object value = jsonData.opt(key);
+            if (value instanceof JSONArray) {
+                JSONArray jsonArray = (JSONArray) value;
+                for (int cnt = 0; cnt < jsonArray.length(); cnt++) {
+                    entityCollector.onEntity(key, jsonArray.getJSONObject(cnt));
                 }
+            } else if (value instanceof JSONObject) {
+                entityCollector.onEntity(key, (JSONObject) value);
             }
-            if (jsonData.has(OstSdk.DEVICE_OPERATION)) {
-                OstDeviceManagerOperation.parse(jsonData.getJSONObject(OstSdk.DEVICE_OPERATION));
-            }
-            if (jsonData.has(OstSdk.DEVICE_MANAGER)) {
-                OstDeviceManager.parse(jsonData.getJSONObject(OstSdk.DEVICE_MANAGER));
+        }
+        return entityCollector;
+    }
+
+    /**
+     * Decodes entities of one response and groups them by codec.
+     * An id repeated in the response keeps its first position and the snapshot read last.
+     */
+    static final class EntityCollector implements OstJsonStreamReader.EntityListener {
+        private final LinkedHashMap<OstEntityCodec, LinkedHashMap<String, OstBaseEntity>> mCodecEntities =
+                new LinkedHashMap<>();
+
+        @Override
+        public boolean isEntityKey(String key) {
+            return ENTITY_CODECS.containsKey(key);
+        }
+
+        @Override
+        public void onEntity(String key, JSONObject jsonObject) {
+            OstEntityCodec codec = ENTITY_CODECS.get(key);
+            OstBaseEntity entity;
+            try {
+                entity = codec.decode(jsonObject);
+            } catch (JSONException e) {
+                Log.e(TAG, "JSONException while decoding " + codec);
+                return;
             }
-            if (jsonData.has(OstSdk.DEVICE)) {
-                OstDevice.parse(jsonData.getJSONObject(OstSdk.DEVICE));
+            LinkedHashMap<String, OstBaseEntity> entities = mCodecEntities.get(codec);
+            if (null == entities) {
+                entities = new LinkedHashMap<>();
+                mCodecEntities.put(codec, entities);
             }
-            if (jsonData.has(OstSdk.DEVICES)) {
-                JSONArray jsonArray = jsonData.getJSONArray(OstSdk.DEVICES);
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    OstDevice.parse(jsonArray.getJSONObject(i));
-                }
+            entities.put(entity.getId(), entity);
+        }
+
+        LinkedHashMap<OstEntityCodec, OstBaseEntity[]> getEntities() {
+            LinkedHashMap<OstEntityCodec, OstBaseEntity[]> codecEntities = new LinkedHashMap<>();
+            for (Map.Entry<OstEntityCodec, LinkedHashMap<String, OstBaseEntity>> entry : mCodecEntities.entrySet()) {
+                Collection<OstBaseEntity> entities = entry.getValue().values();
+                codecEntities.put(entry.getKey(), entities.toArray(new OstBaseEntity[entities.size()]));
             }
-        } catch (JSONException e) {
-            Log.e(TAG, "JSONException");
+            return codecEntities;
         }
     }
-}
\ No newline at end of file
+}
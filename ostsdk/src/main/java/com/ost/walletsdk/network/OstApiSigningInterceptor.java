@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import android.util.Log;
+
+import com.ost.walletsdk.workflows.errors.OstError;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+/**
+ * Signs platform requests of one user.
+ * Requests to be signed carry the signing input as {@link StringToSign} tag, the signature is
+ * appended as api_signature to the query of GET requests or to the form body of POST requests.
+ */
+class OstApiSigningInterceptor implements Interceptor {
+    private static final String TAG = "OstApiSigning";
+    static final String API_SIGNATURE = "api_signature";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final OstHttpRequestClient.ApiSigner mApiSigner;
+
+    OstApiSigningInterceptor(OstHttpRequestClient.ApiSigner apiSigner) {
+        mApiSigner = apiSigner;
+    }
+
+    static final class StringToSign {
+        private final byte[] mBytes;
+
+        StringToSign(byte[] bytes) {
+            mBytes = bytes;
+        }
+    }
+
+    /**
+     * Carries the failure of the signer, eg: an OstError when the api key is not available.
+     */
+    static final class SigningException extends IOException {
+        SigningException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!(request.tag() instanceof StringToSign)) {
+            return chain.proceed(request);
+        }
+
+        byte[] bytes = ((StringToSign) request.tag()).mBytes;
+        Log.d(TAG, "bytes to sign: " + new String(bytes, UTF_8));
+        String signature;
+        long signingStartNanos = System.nanoTime();
+        try {
+            signature = mApiSigner.sign(bytes);
+        } catch (RuntimeException | OstError e) {
+            //Signer failures must not escape an async call, the caller unwraps the cause.
+            throw new SigningException(e);
+        }
+        OstCallTrace trace = request.tag(OstCallTrace.class);
+        if (null != trace) {
+            trace.onSigned(System.nanoTime() - signingStartNanos);
+        }
+        Log.d(TAG, "signature:" + signature);
+
+        RequestBody body = request.body();
+        if (body instanceof FormBody) {
+            FormBody formBody = (FormBody) body;
+            FormBody.Builder formBodyBuilder = new FormBody.Builder();
+            for (int cnt = 0; cnt < formBody.size(); cnt++) {
+                formBodyBuilder.addEncoded(formBody.encodedName(cnt), formBody.encodedValue(cnt));
+            }
+            formBodyBuilder.addEncoded(API_SIGNATURE, signature);
+            request = request.newBuilder().method(request.method(), formBodyBuilder.build()).build();
+        } else if (null != body) {
+            //Form body already encoded by OstQueryCanonicalizer.
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            if (buffer.size() > 0) {
+                buffer.writeByte('&');
+            }
+            buffer.writeUtf8(API_SIGNATURE).writeByte('=').writeUtf8(signature);
+            request = request.newBuilder()
+                    .method(request.method(), RequestBody.create(body.contentType(), buffer.readByteString()))
+                    .build();
+        } else {
+            HttpUrl url = request.url().newBuilder()
+                    .addEncodedQueryParameter(API_SIGNATURE, signature)
+                    .build();
+            request = request.newBuilder().url(url).build();
+        }
+        return chain.proceed(request);
+    }
+}
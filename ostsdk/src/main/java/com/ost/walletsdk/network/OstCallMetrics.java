@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+/**
+ * Timings and sizes of one platform api call.
+ * Phases which did not happen, like dns and connect on a reused connection, are 0.
+ */
+public final class OstCallMetrics {
+    private final String mEndpoint;
+    private final String mMethod;
+    private final int mHttpCode;
+    private final String mErrorCode;
+    private final long mDnsNanos;
+    private final long mConnectNanos;
+    private final long mTlsNanos;
+    private final long mTimeToFirstByteNanos;
+    private final long mBodyReadNanos;
+    private final long mSigningNanos;
+    private final long mParsingNanos;
+    private final long mTotalNanos;
+    private final long mRequestBytes;
+    private final long mResponseBytes;
+    private final int mConnectionsAcquired;
+    private final int mConnectionsReused;
+
+    OstCallMetrics(OstCallTrace trace, String errorCode, long totalNanos) {
+        mEndpoint = trace.mEndpoint;
+        mMethod = trace.mMethod;
+        mHttpCode = trace.mHttpCode;
+        mErrorCode = errorCode;
+        mDnsNanos = trace.mDnsNanos;
+        mConnectNanos = trace.mConnectNanos;
+        mTlsNanos = trace.mTlsNanos;
+        mTimeToFirstByteNanos = trace.mTimeToFirstByteNanos;
+        mBodyReadNanos = trace.mBodyReadNanos;
+        mSigningNanos = trace.mSigningNanos;
+        mParsingNanos = trace.mParsingNanos;
+        mTotalNanos = totalNanos;
+        mRequestBytes = trace.mRequestBytes;
+        mResponseBytes = trace.mResponseBytes;
+        mConnectionsAcquired = trace.mConnectionsAcquired;
+        mConnectionsReused = trace.mConnectionsReused;
+    }
+
+    /**
+     * @return resource with ids replaced, eg: /users/{id}/sessions/{addr}
+     */
+    public String getEndpoint() {
+        return mEndpoint;
+    }
+
+    public String getMethod() {
+        return mMethod;
+    }
+
+    /**
+     * @return http status of the last attempt, -1 if no response was received.
+     */
+    public int getHttpCode() {
+        return mHttpCode;
+    }
+
+    /**
+     * @return platform error code, or exception name when the call failed, null on success.
+     */
+    public String getErrorCode() {
+        return mErrorCode;
+    }
+
+    public long getDnsNanos() {
+        return mDnsNanos;
+    }
+
+    public long getConnectNanos() {
+        return mConnectNanos;
+    }
+
+    /**
+     * @return tls handshake time, part of {@link #getConnectNanos()}.
+     */
+    public long getTlsNanos() {
+        return mTlsNanos;
+    }
+
+    /**
+     * @return time from sending request headers to the first byte of the response.
+     */
+    public long getTimeToFirstByteNanos() {
+        return mTimeToFirstByteNanos;
+    }
+
+    public long getBodyReadNanos() {
+        return mBodyReadNanos;
+    }
+
+    public long getSigningNanos() {
+        return mSigningNanos;
+    }
+
+    /**
+     * @return time spent ingesting the response into entities.
+     */
+    public long getParsingNanos() {
+        return mParsingNanos;
+    }
+
+    /**
+     * @return time from building the request till the response is parsed, queueing included.
+     */
+    public long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    /**
+     * @return bytes of url path, query and body sent.
+     */
+    public long getRequestBytes() {
+        return mRequestBytes;
+    }
+
+    /**
+     * @return bytes of response body received.
+     */
+    public long getResponseBytes() {
+        return mResponseBytes;
+    }
+
+    /**
+     * @return connections the call used, more than one when it was retried.
+     */
+    public int getConnectionsAcquired() {
+        return mConnectionsAcquired;
+    }
+
+    /**
+     * @return connections taken from the pool instead of being opened.
+     */
+    public int getConnectionsReused() {
+        return mConnectionsReused;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %d%s %dms (ttfb %dms, sign %dms, parse %dms) %d/%d bytes",
+                mMethod, mEndpoint, mHttpCode, null == mErrorCode ? "" : " " + mErrorCode,
+                mTotalNanos / 1000000, mTimeToFirstByteNanos / 1000000, mSigningNanos / 1000000,
+                mParsingNanos / 1000000, mRequestBytes, mResponseBytes);
+    }
+}
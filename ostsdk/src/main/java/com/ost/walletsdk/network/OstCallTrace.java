@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.ost.walletsdk.OstConstants;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Records one platform api call.
+ * The trace travels as a request tag, so the engine's event listener, the signing interceptor and
+ * the response parser all add to it. It is reported to {@link OstNetworkMetrics} once the
+ * response is parsed or the call failed.
+ */
+final class OstCallTrace extends EventListener {
+    private static final String ERROR = "err";
+    private static final String ERROR_CODE = "code";
+
+    /**
+     * Listens to calls carrying a trace, other calls of the engine are not instrumented.
+     */
+    static final EventListener.Factory FACTORY = new EventListener.Factory() {
+        @Override
+        public EventListener create(Call call) {
+            OstCallTrace trace = call.request().tag(OstCallTrace.class);
+            return null == trace ? EventListener.NONE : trace;
+        }
+    };
+
+    private final OstNetworkMetrics mMetrics;
+    private final long mStartNanos = System.nanoTime();
+    final String mMethod;
+    final String mEndpoint;
+
+    int mHttpCode = -1;
+    long mDnsNanos;
+    long mConnectNanos;
+    long mTlsNanos;
+    long mTimeToFirstByteNanos;
+    long mBodyReadNanos;
+    long mSigningNanos;
+    long mParsingNanos;
+    long mRequestBytes;
+    long mResponseBytes;
+    int mConnectionsAcquired;
+    int mConnectionsReused;
+
+    private long mDnsStartNanos;
+    private long mConnectStartNanos;
+    private long mTlsStartNanos;
+    private long mRequestStartNanos;
+    private long mBodyStartNanos;
+    private boolean mIsConnecting;
+    private boolean mIsFinished;
+
+    OstCallTrace(String method, String resource) {
+        this(method, resource, OstNetworkMetrics.getInstance());
+    }
+
+    OstCallTrace(String method, String resource, OstNetworkMetrics metrics) {
+        mMethod = method;
+        mEndpoint = toEndpoint(resource);
+        mMetrics = metrics;
+    }
+
+    /**
+     * Replaces ids in the resource so that calls of the same api are reported together.
+     * Segments starting with 0x become {addr}, segments with digits become {id}.
+     */
+    static String toEndpoint(String resource) {
+        StringBuilder endpoint = new StringBuilder(resource.length());
+        int segmentStart = 0;
+        while (segmentStart <= resource.length()) {
+            int segmentEnd = resource.indexOf('/', segmentStart);
+            if (-1 == segmentEnd) {
+                segmentEnd = resource.length();
+            }
+            String segment = resource.substring(segmentStart, segmentEnd);
+            if (segment.startsWith("0x")) {
+                endpoint.append("{addr}");
+            } else if (hasDigit(segment)) {
+                endpoint.append("{id}");
+            } else {
+                endpoint.append(segment);
+            }
+            if (segmentEnd < resource.length()) {
+                endpoint.append('/');
+            }
+            segmentStart = segmentEnd + 1;
+        }
+        return endpoint.toString();
+    }
+
+    private static boolean hasDigit(String segment) {
+        for (int cnt = 0; cnt < segment.length(); cnt++) {
+            if (Character.isDigit(segment.charAt(cnt))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void onSigned(long signingNanos) {
+        mSigningNanos += signingNanos;
+    }
+
+    synchronized void onParsed(long parsingNanos) {
+        mParsingNanos += parsingNanos;
+    }
+
+    /**
+     * Reports the call, only the first call of it counts.
+     *
+     * @param jsonResponse api response, null if there is none
+     * @param failure      failure of the call, null if it completed
+     */
+    void finish(JSONObject jsonResponse, Throwable failure) {
+        OstCallMetrics callMetrics;
+        synchronized (this) {
+            if (mIsFinished) {
+                return;
+            }
+            mIsFinished = true;
+            callMetrics = new OstCallMetrics(this, getErrorCode(jsonResponse, failure),
+                    System.nanoTime() - mStartNanos);
+        }
+        mMetrics.record(callMetrics);
+    }
+
+    private static String getErrorCode(JSONObject jsonResponse, Throwable failure) {
+        if (null != jsonResponse) {
+            if (jsonResponse.optBoolean(OstConstants.RESPONSE_SUCCESS)) {
+                return null;
+            }
+            JSONObject error = jsonResponse.optJSONObject(ERROR);
+            if (null != error && null != error.optString(ERROR_CODE, null)) {
+                return error.optString(ERROR_CODE);
+            }
+        }
+        return null == failure ? "UNKNOWN" : failure.getClass().getSimpleName();
+    }
+
+    @Override
+    public synchronized void dnsStart(Call call, String domainName) {
+        mDnsStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        mDnsNanos += System.nanoTime() - mDnsStartNanos;
+    }
+
+    @Override
+    public synchronized void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        mIsConnecting = true;
+        mConnectStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void secureConnectStart(Call call) {
+        mTlsStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void secureConnectEnd(Call call, Handshake handshake) {
+        mTlsNanos += System.nanoTime() - mTlsStartNanos;
+    }
+
+    @Override
+    public synchronized void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        mConnectNanos += System.nanoTime() - mConnectStartNanos;
+    }
+
+    @Override
+    public synchronized void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                                           Protocol protocol, IOException ioe) {
+        mConnectNanos += System.nanoTime() - mConnectStartNanos;
+    }
+
+    @Override
+    public synchronized void connectionAcquired(Call call, Connection connection) {
+        mConnectionsAcquired++;
+        if (!mIsConnecting) {
+            mConnectionsReused++;
+        }
+        mIsConnecting = false;
+    }
+
+    @Override
+    public synchronized void requestHeadersStart(Call call) {
+        mRequestStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void requestHeadersEnd(Call call, Request request) {
+        mRequestBytes += request.url().encodedPath().length();
+        String encodedQuery = request.url().encodedQuery();
+        if (null != encodedQuery) {
+            mRequestBytes += encodedQuery.length() + 1;
+        }
+    }
+
+    @Override
+    public synchronized void requestBodyEnd(Call call, long byteCount) {
+        mRequestBytes += byteCount;
+    }
+
+    @Override
+    public synchronized void responseHeadersStart(Call call) {
+        mTimeToFirstByteNanos = System.nanoTime() - mRequestStartNanos;
+    }
+
+    @Override
+    public synchronized void responseHeadersEnd(Call call, Response response) {
+        mHttpCode = response.code();
+    }
+
+    @Override
+    public synchronized void responseBodyStart(Call call) {
+        mBodyStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void responseBodyEnd(Call call, long byteCount) {
+        mBodyReadNanos += System.nanoTime() - mBodyStartNanos;
+        mResponseBytes += byteCount;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Connectivity state of the device, kept up to date by a {@link ConnectivityManager.NetworkCallback}.
+ * Requests read the state instead of asking ConnectivityManager, which is a binder call, every time.
+ * Pollers and syncs listen to it or wait on it, so that they resume as soon as the network is back
+ * instead of using up their attempts while offline.
+ */
+public final class OstConnectivity {
+    private static final String TAG = "OstConnectivity";
+
+    private static final OstConnectivity INSTANCE = new OstConnectivity();
+
+    public static OstConnectivity getInstance() {
+        return INSTANCE;
+    }
+
+    public interface Listener {
+        /**
+         * Called on a connectivity manager thread when the device goes offline or comes back online.
+         *
+         * @param isConnected true if an internet capable network is available
+         * @param isMetered   true if data may cost the user, schedulers can poll less often then
+         */
+        void onConnectivityChanged(boolean isConnected, boolean isMetered);
+    }
+
+    private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<>();
+    //Available networks, to whether they are metered.
+    private final HashMap<Object, Boolean> mNetworks = new HashMap<>();
+    //Unknown till initialized, requests are let through.
+    private volatile boolean mIsConnected = true;
+    private volatile boolean mIsMetered;
+    private boolean mIsRegistered;
+
+    OstConnectivity() {
+    }
+
+    /**
+     * Registers for network changes, done once by OstSdk initialization.
+     */
+    public static void initialize(Context context) {
+        INSTANCE.register(context.getApplicationContext());
+    }
+
+    private synchronized void register(Context context) {
+        if (mIsRegistered) {
+            return;
+        }
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (null == connectivityManager) {
+            return;
+        }
+
+        //State till the callback reports the available networks.
+        NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
+        mIsConnected = null != activeNetworkInfo && activeNetworkInfo.isConnected();
+        mIsMetered = connectivityManager.isActiveNetworkMetered();
+
+        NetworkRequest networkRequest = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+        connectivityManager.registerNetworkCallback(networkRequest, new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                onNetworkAvailable(network, null);
+            }
+
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities networkCapabilities) {
+                onNetworkAvailable(network,
+                        !networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED));
+            }
+
+            @Override
+            public void onLost(Network network) {
+                onNetworkLost(network);
+            }
+        });
+        mIsRegistered = true;
+    }
+
+    public boolean isConnected() {
+        return mIsConnected;
+    }
+
+    /**
+     * @return true if every available network is metered, eg: only mobile data.
+     */
+    public boolean isMetered() {
+        return mIsMetered;
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Waits till the device is online.
+     *
+     * @param timeoutMillis max time to wait
+     * @return true if online
+     */
+    public synchronized boolean awaitConnected(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (!mIsConnected && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return mIsConnected;
+    }
+
+    /**
+     * @param isMetered null if not known yet, the network is taken as metered till it is.
+     */
+    void onNetworkAvailable(Object network, Boolean isMetered) {
+        synchronized (this) {
+            Boolean knownMetered = mNetworks.get(network);
+            if (null == isMetered) {
+                isMetered = null == knownMetered ? Boolean.TRUE : knownMetered;
+            }
+            mNetworks.put(network, isMetered);
+        }
+        onNetworksChanged();
+    }
+
+    void onNetworkLost(Object network) {
+        synchronized (this) {
+            mNetworks.remove(network);
+        }
+        onNetworksChanged();
+    }
+
+    private void onNetworksChanged() {
+        boolean isConnected;
+        boolean isMetered;
+        boolean hasChanged;
+        synchronized (this) {
+            isConnected = !mNetworks.isEmpty();
+            isMetered = isConnected && !mNetworks.containsValue(Boolean.FALSE);
+            hasChanged = isConnected != mIsConnected || isMetered != mIsMetered;
+            mIsConnected = isConnected;
+            mIsMetered = isMetered;
+            if (isConnected) {
+                notifyAll();
+            }
+        }
+        if (!hasChanged) {
+            return;
+        }
+
+        Log.i(TAG, String.format("Connected: %b, metered: %b", isConnected, isMetered));
+        for (Listener listener : mListeners) {
+            try {
+                listener.onConnectivityChanged(isConnected, isMetered);
+            } catch (Throwable th) {
+                Log.e(TAG, "Connectivity listener failed", th);
+            }
+        }
+    }
+}
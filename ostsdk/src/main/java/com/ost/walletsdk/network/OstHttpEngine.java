@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ost.walletsdk.OstConfigs;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process wide http engine of the sdk.
+ * All api clients share one connection pool and dispatcher, so workflows and polling services
+ * reuse warm connections instead of doing a new TLS handshake per client.
+ * Per user behaviour, like request signing, is added through {@link #newClient(Interceptor)}
+ * which shares the pool and dispatcher of the engine. Retries are handled by
+ * {@link OstRetryInterceptor}, which runs before per user interceptors so each attempt is signed.
+ */
+public final class OstHttpEngine {
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 64;
+    //All platform calls go to a single host, over http/2 they are multiplexed on one connection.
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+    private static final long DEFAULT_CONNECT_TIMEOUT = 30;
+    private static final long READ_TIMEOUT = 30;
+
+    private static final int PARSING_THREADS = 2;
+
+    private static volatile OkHttpClient sClient;
+
+    private static final ListeningExecutorService PARSING_EXECUTOR = MoreExecutors.listeningDecorator(
+            Executors.newFixedThreadPool(PARSING_THREADS, new ThreadFactoryBuilder()
+                    .setNameFormat("ost-http-parser-%d")
+                    .setDaemon(true)
+                    .build()));
+
+    private OstHttpEngine() {
+    }
+
+    public static OkHttpClient getClient() {
+        if (null == sClient) {
+            synchronized (OstHttpEngine.class) {
+                if (null == sClient) {
+                    sClient = buildClient();
+                }
+            }
+        }
+        return sClient;
+    }
+
+    /**
+     * @param interceptor application interceptor of the caller
+     * @return client sharing connection pool and dispatcher of the engine.
+     */
+    public static OkHttpClient newClient(Interceptor interceptor) {
+        return getClient().newBuilder()
+                .addInterceptor(interceptor)
+                .build();
+    }
+
+    /**
+     * Bounded executor building and parsing api responses, keeps dispatcher threads free for io.
+     */
+    static ListeningExecutorService getParsingExecutor() {
+        return PARSING_EXECUTOR;
+    }
+
+    private static OkHttpClient buildClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+        OstConfigs ostConfigs = OstConfigs.getInstance();
+        if (null != ostConfigs) {
+            connectTimeout = ostConfigs.REQUEST_TIMEOUT_DURATION;
+        }
+
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .addInterceptor(new OstRetryInterceptor())
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeout, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(false)
+                .eventListenerFactory(OstCallTrace.FACTORY)
+                .build();
+    }
+}
@@ -10,113 +10,74 @@
 
 package com.ost.walletsdk.network;
 
-import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.util.Log;
+import android.util.MalformedJsonException;
 
-import com.google.common.escape.Escaper;
-import com.google.common.net.UrlEscapers;
-import com.ost.walletsdk.OstConfigs;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.ost.walletsdk.OstConstants;
-import com.ost.walletsdk.OstSdk;
-import com.ost.walletsdk.ecKeyInteracts.OstApiSigner;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.SocketTimeoutException;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.Map;
-import java.util.TreeMap;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import okhttp3.Call;
-import okhttp3.ConnectionPool;
-import okhttp3.Dispatcher;
-import okhttp3.FormBody;
+import okhttp3.Callback;
 import okhttp3.HttpUrl;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okio.Buffer;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 
 /**
  * HttpRequestClient to supports get and post requests with api signing.
+ * It is the OkHttp {@link OstTransport} of api clients.
  */
-public class OstHttpRequestClient {
+public class OstHttpRequestClient implements OstTransport {
     private static final String TAG = "OstHttp";
-    private static final String API_SIGNATURE = "api_signature";
+    private static final String API_REQUEST_TIMESTAMP = "api_request_timestamp";
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final int HTTP_NOT_MODIFIED = 304;
     private String apiEndpoint;
-    private long timeout;
     private OkHttpClient client;
-    private static final Escaper FormParameterEscaper = UrlEscapers.urlFormParameterEscaper();
-    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final MediaType FORM_URL_ENCODED = MediaType.parse("application/x-www-form-urlencoded");
     private static Boolean DEBUG = ("true").equalsIgnoreCase(System.getenv("OST_KYC_SDK_DEBUG"));
     private static Boolean VERBOSE = false;
-    private OstApiSigner mOstApiSigner;
+    private ApiSigner mOstApiSigner;
     private ResponseParser mResponseParser;
+    private final OstResponseCache mResponseCache = OstResponseCache.getInstance();
+    private final OstSingleFlight mSingleFlight = OstSingleFlight.getInstance();
+    private final Set<Future<JSONObject>> mPendingRequests =
+            Collections.newSetFromMap(new ConcurrentHashMap<Future<JSONObject>, Boolean>());
 
-    public void setOstApiSigner(OstApiSigner ostApiSigner) {
+    public void setOstApiSigner(ApiSigner ostApiSigner) {
         mOstApiSigner = ostApiSigner;
+        client = null == ostApiSigner ? OstHttpEngine.getClient()
+                : OstHttpEngine.newClient(new OstApiSigningInterceptor(ostApiSigner));
     }
 
     public void setResponseParser(ResponseParser mResponseParser) {
         this.mResponseParser = mResponseParser;
     }
 
-    static class HttpParam {
-        private String paramName;
-        private String paramValue;
-
-        public HttpParam() {
-
-        }
-
-        public HttpParam(String paramName, String paramValue) {
-            this.paramName = paramName;
-            this.paramValue = paramValue;
-        }
-
-        public String getParamValue() {
-            return paramValue;
-        }
-
-        public void setParamValue(String paramValue) {
-            this.paramValue = paramValue;
-        }
-
-        public String getParamName() {
-            return paramName;
-        }
-
-        public void setParamName(String paramName) {
-            this.paramName = paramName;
-        }
-
-    }
-
     public OstHttpRequestClient(String baseUrl) {
         this.apiEndpoint = baseUrl;
-        this.timeout = 30;
-
-        //To-Do: Discuss Dispatcher config with Team.
-        Dispatcher dispatcher = new Dispatcher();
-        dispatcher.setMaxRequests(500);
-        dispatcher.setMaxRequestsPerHost(150);
-
-        client = new OkHttpClient.Builder()
-                .connectionPool(new ConnectionPool(10, 2, TimeUnit.MINUTES))
-                .connectTimeout(OstConfigs.getInstance().REQUEST_TIMEOUT_DURATION, TimeUnit.SECONDS)
-                .readTimeout(timeout, TimeUnit.SECONDS)
-                .dispatcher(dispatcher)
-                .retryOnConnectionFailure(false)
-                .build();
-
+        this.client = OstHttpEngine.getClient();
     }
 
     private static String GET_REQUEST = "GET";
@@ -126,152 +87,326 @@ public class OstHttpRequestClient {
     private static String NetworkExceptionString = "{'success':'false','err':{'code':'NO_NETWORK','internal_id':'SDK(NO_NETWORK)','msg':'','error_data':[]}}";
 
     public JSONObject get(String resource, Map<String, Object> queryParams) throws IOException {
-        return send(GET_REQUEST, resource, queryParams);
+        return await(getAsync(resource, queryParams));
     }
 
     public JSONObject post(String resource, Map<String, Object> queryParams) throws IOException {
-        return send(POST_REQUEST, resource, queryParams);
+        return await(postAsync(resource, queryParams));
+    }
+
+    @Override
+    public ListenableFuture<JSONObject> getAsync(String resource, Map<String, Object> queryParams) {
+        return sendAsync(GET_REQUEST, resource, queryParams);
+    }
+
+    @Override
+    public ListenableFuture<JSONObject> postAsync(String resource, Map<String, Object> queryParams) {
+        return sendAsync(POST_REQUEST, resource, queryParams);
     }
 
-    private JSONObject send(String requestType, String resource, Map<String, Object> mapParams) throws IOException {
-        // Basic Sanity.
-        if (!isNetworkAvailable()) {
+    @Override
+    public void cancelAll() {
+        for (Future<JSONObject> future : mPendingRequests) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Waits for the response of an async request, failures are rethrown as the blocking api did.
+     */
+    static JSONObject await(Future<JSONObject> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for response");
+        } catch (CancellationException e) {
+            throw new IOException("Request cancelled", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private ListenableFuture<JSONObject> sendAsync(String requestType, String resource, Map<String, Object> mapParams) {
+        boolean isGet = GET_REQUEST.equalsIgnoreCase(requestType);
+        OstQueryCanonicalizer.CanonicalQuery query =
+                OstQueryCanonicalizer.canonicalize(resource, mapParams, API_REQUEST_TIMESTAMP);
+        String requestKey = isGet ? buildRequestKey(query) : null;
+
+        CacheRequest cacheRequest = null;
+        long ttlNanos = OstResponseCache.getTtlNanos(resource);
+        if (isGet && ttlNanos > 0) {
+            cacheRequest = new CacheRequest(requestKey, resource, ttlNanos);
+            OstResponseCache.Entry entry = mResponseCache.getFresh(cacheRequest.mKey);
+            if (null != entry) {
+                //Entities of the response are parsed again, callers rely on them being in db.
+                SettableFuture<JSONObject> future = SettableFuture.create();
+                parseResponse(entry.getBody(), future, null, null);
+                return future;
+            }
+            cacheRequest.mEntry = mResponseCache.getRevalidatable(cacheRequest.mKey);
+        }
+
+        // Basic Sanity, connectivity state is kept by a network callback.
+        if (!OstConnectivity.getInstance().isConnected()) {
             try {
-                return new JSONObject(NetworkExceptionString);
+                return Futures.immediateFuture(new JSONObject(NetworkExceptionString));
             } catch (JSONException e) {
                 //Not expected
             }
         }
 
-        if (!requestType.equalsIgnoreCase(POST_REQUEST) && !requestType.equalsIgnoreCase(GET_REQUEST)) {
-            throw new IOException("Invalid requestType");
+        Request request;
+        try {
+            request = buildRequest(requestType, resource, query);
+        } catch (IOException e) {
+            return Futures.immediateFailedFuture(e);
         }
-        if (null == mapParams) {
-            mapParams = new HashMap<String, Object>();
+        if (null != cacheRequest && null != cacheRequest.mEntry) {
+            request = request.newBuilder().header(IF_NONE_MATCH, cacheRequest.mEntry.getETag()).build();
         }
 
-        // Start Building the request, url of request and request form body.
-        Request.Builder requestBuilder = new Request.Builder();
-        HttpUrl baseUrl = HttpUrl.parse(apiEndpoint + resource);
-        HttpUrl.Builder urlBuilder = baseUrl.newBuilder(resource);
-
-        FormBody.Builder formBodyBuilder = new FormBody.Builder();
-        if (null == urlBuilder) {
-            throw new IOException("Failed to instantiate HttpUrl.Builder. resource or Api Endpoint is incorrect.");
+        ListenableFuture<JSONObject> future;
+        if (isGet) {
+            //Identical GETs in flight share one call and one parse.
+            final Request getRequest = request;
+            final CacheRequest getCacheRequest = cacheRequest;
+            future = mSingleFlight.execute(requestKey, new Supplier<ListenableFuture<JSONObject>>() {
+                @Override
+                public ListenableFuture<JSONObject> get() {
+                    return enqueue(getRequest, getCacheRequest);
+                }
+            });
+        } else {
+            future = enqueue(request, null);
         }
+        return track(future);
+    }
 
-        // Evaluate the url generated so far.
-        HttpUrl url = urlBuilder.build();
-
-        // Start Building Query-String Input Buffer by parsing the url.
-        Buffer qsInputBuffer = new Buffer();
-
-        qsInputBuffer.writeUtf8(resource);
-        qsInputBuffer.writeByte('?');
-
-        //Reset urlBuilder.
-        urlBuilder = baseUrl.newBuilder();
-
-        ArrayList<HttpParam> params = new ArrayList<HttpParam>();
-        String paramKey;
-        String paramVal;
-
-        params = buildNestedQuery(params, "", mapParams);
-
-        // Add params to url/form-body & qsInputBuffer.
-        Iterator it = params.iterator();
-        boolean firstParam = true;
-        while (it.hasNext()) {
-            HttpParam pair = (HttpParam) it.next();
-
-            paramKey = pair.getParamName();
-            paramVal = pair.getParamValue();
+    /**
+     * Keeps the future till it completes, so that {@link #cancelAll()} can cancel it.
+     */
+    private ListenableFuture<JSONObject> track(final ListenableFuture<JSONObject> future) {
+        mPendingRequests.add(future);
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                mPendingRequests.remove(future);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
 
-            paramKey = specialCharacterEscape(paramKey);
-            paramVal = specialCharacterEscape(paramVal);
+    /**
+     * Key of a GET request, used for caching and coalescing. Signature and request timestamp
+     * change on every request and are left out.
+     */
+    private String buildRequestKey(OstQueryCanonicalizer.CanonicalQuery query) {
+        return apiEndpoint + query.getKeyQuery();
+    }
 
-            if (!firstParam) {
-                qsInputBuffer.writeByte('&');
-            }
-            firstParam = false;
+    private static final class CacheRequest {
+        private final String mKey;
+        private final String mResource;
+        private final long mTtlNanos;
+        //Stale entry to revalidate, if any.
+        private OstResponseCache.Entry mEntry;
+        private String mETag;
+
+        CacheRequest(String key, String resource, long ttlNanos) {
+            mKey = key;
+            mResource = resource;
+            mTtlNanos = ttlNanos;
+        }
+    }
 
-            qsInputBuffer.writeUtf8(paramKey);
-            qsInputBuffer.writeByte('=');
-            qsInputBuffer.writeUtf8(paramVal);
-            Log.d(TAG, "paramKey " + paramKey + " paramVal " + paramVal);
+    private Request buildRequest(String requestType, String resource,
+                                 OstQueryCanonicalizer.CanonicalQuery query) throws IOException {
+        if (!requestType.equalsIgnoreCase(POST_REQUEST) && !requestType.equalsIgnoreCase(GET_REQUEST)) {
+            throw new IOException("Invalid requestType");
+        }
 
-            if (GET_REQUEST.equalsIgnoreCase(requestType)) {
-                urlBuilder.addEncodedQueryParameter(paramKey, paramVal);
-            } else {
-                formBodyBuilder.addEncoded(paramKey, paramVal);
-            }
+        HttpUrl baseUrl = HttpUrl.parse(apiEndpoint + resource);
+        if (null == baseUrl) {
+            throw new IOException("Failed to instantiate HttpUrl.Builder. resource or Api Endpoint is incorrect.");
         }
 
+        Request.Builder requestBuilder = new Request.Builder()
+                .tag(OstCallTrace.class, new OstCallTrace(requestType.toUpperCase(), resource));
         if (null != mOstApiSigner) {
-            // Add signature to Params.
-            paramKey = API_SIGNATURE;
-            paramVal = signQueryParams(qsInputBuffer);
-            if (GET_REQUEST.equalsIgnoreCase(requestType)) {
-                urlBuilder.addEncodedQueryParameter(paramKey, paramVal);
-            } else {
-                formBodyBuilder.addEncoded(paramKey, paramVal);
-            }
+            // Signature is added to params by OstApiSigningInterceptor.
+            requestBuilder.tag(new OstApiSigningInterceptor.StringToSign(query.getBytesToSign()));
         }
-        // Build the url.
-        url = urlBuilder.build();
-        Log.i(TAG, "url = " + url.toString());
 
-        // Set url in requestBuilder.
-        requestBuilder.url(url);
-
-        // Build the request Object.
-        Request request;
+        // Params are already encoded, url and form body take them as they are.
+        byte[] bytes = query.getBytesToSign();
+        int encodedOffset = query.getEncodedOffset();
         if (GET_REQUEST.equalsIgnoreCase(requestType)) {
+            HttpUrl url = baseUrl.newBuilder()
+                    .encodedQuery(query.getEncoded().isEmpty() ? null : query.getEncoded())
+                    .build();
+            Log.i(TAG, "url = " + url.toString());
+            requestBuilder.url(url);
             requestBuilder.get().addHeader("Content-Type", OstConstants.CONTENT_TYPE);
             requestBuilder.get().addHeader("User-Agent", OstConstants.USER_AGENT);
         } else {
-            FormBody formBody = formBodyBuilder.build();
-            if (DEBUG && VERBOSE) {
-                for (int i = 0; i < formBody.size(); i++) {
-                    Log.d(TAG, formBody.name(i) + "\t\t" + formBody.value(i));
+            Log.i(TAG, "url = " + baseUrl.toString());
+            requestBuilder.url(baseUrl);
+            requestBuilder.post(RequestBody.create(FORM_URL_ENCODED, bytes, encodedOffset,
+                    bytes.length - encodedOffset));
+        }
+        return requestBuilder.build();
+    }
+
+    /**
+     * Enqueues the call on the shared dispatcher. The response body is read on the dispatcher
+     * thread, parsing the json response happens on the parsing executor. Responses which are not
+     * cached are built while they are read, cached ones are read as a String to be stored.
+     */
+    private ListenableFuture<JSONObject> enqueue(Request request, final CacheRequest cacheRequest) {
+        final Call call = client.newCall(request);
+        final OstCallTrace trace = request.tag(OstCallTrace.class);
+        final SettableFuture<JSONObject> future = SettableFuture.create();
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (future.isCancelled()) {
+                    call.cancel();
+                }
+            }
+        }, MoreExecutors.directExecutor());
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (e instanceof SocketTimeoutException) {
+                    Log.e(TAG, "SocketTimeoutException occurred.");
+                    parseResponse(SocketTimeoutExceptionString, future, null, trace);
+                } else if (e instanceof OstApiSigningInterceptor.SigningException) {
+                    finish(trace, null, e.getCause());
+                    future.setException(e.getCause());
+                } else {
+                    finish(trace, null, e);
+                    future.setException(e);
                 }
             }
 
-            requestBuilder.post(formBody);
-        }
-        request = requestBuilder.build();
-
-        // Make the call and execute.
-        String responseBody;
-        Call call = client.newCall(request);
-        try {
-            okhttp3.Response response = call.execute();
-            responseBody = getResponseBodyAsString(response);
-        }catch (SocketTimeoutException e)
-        {
-            Log.e(TAG, "SocketTimeoutException occurred.");
-            responseBody =  SocketTimeoutExceptionString;
-        }
+            @Override
+            public void onResponse(Call call, okhttp3.Response response) {
+                if (null == cacheRequest) {
+                    //Not cached, no need for the body as a String.
+                    OstJsonStreamReader.EntityListener entityListener = newEntityListener();
+                    parseResponse(readApiResponse(response, entityListener), entityListener, future, trace);
+                } else if (HTTP_NOT_MODIFIED == response.code() && null != cacheRequest.mEntry) {
+                    response.close();
+                    parseResponse(mResponseCache.onNotModified(cacheRequest.mEntry), future, null, trace);
+                } else {
+                    cacheRequest.mETag = response.header(ETAG);
+                    parseResponse(getResponseBodyAsString(response), future,
+                            response.isSuccessful() ? cacheRequest : null, trace);
+                }
+            }
+        });
+        return future;
+    }
 
-        JSONObject jsonResponse = buildApiResponse(responseBody);
+    /**
+     * @param cacheRequest cache request to store the response for, null if it is not to be cached.
+     * @param trace        trace of the call, null when the response comes from the cache.
+     */
+    private void parseResponse(final String responseBody, final SettableFuture<JSONObject> future,
+                               final CacheRequest cacheRequest, final OstCallTrace trace) {
+        OstHttpEngine.getParsingExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                JSONObject jsonResponse = null;
+                try {
+                    jsonResponse = buildApiResponse(responseBody);
+
+                    parse(jsonResponse, null, trace);
+
+                    //Parser throws on error responses, only successful ones reach here.
+                    if (null != cacheRequest && jsonResponse.optBoolean(OstConstants.RESPONSE_SUCCESS)) {
+                        mResponseCache.put(cacheRequest.mKey, cacheRequest.mResource, responseBody,
+                                cacheRequest.mETag, cacheRequest.mTtlNanos);
+                    }
+
+                    finish(trace, jsonResponse, null);
+                    future.set(jsonResponse);
+                } catch (Throwable th) {
+                    finish(trace, jsonResponse, th);
+                    future.setException(th);
+                }
+            }
+        });
+    }
 
-        if (null != mResponseParser) mResponseParser.parse(jsonResponse);
 
-        return jsonResponse;
+    /**
+     * @param entityListener listener the response was read with, null if it was read without one.
+     */
+    private void parseResponse(final JSONObject jsonResponse,
+                               final OstJsonStreamReader.EntityListener entityListener,
+                               final SettableFuture<JSONObject> future, final OstCallTrace trace) {
+        OstHttpEngine.getParsingExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    parse(jsonResponse, entityListener, trace);
+                    finish(trace, jsonResponse, null);
+                    future.set(jsonResponse);
+                } catch (Throwable th) {
+                    finish(trace, jsonResponse, th);
+                    future.setException(th);
+                }
+            }
+        });
     }
 
+    private OstJsonStreamReader.EntityListener newEntityListener() {
+        if (mResponseParser instanceof StreamingResponseParser) {
+            return ((StreamingResponseParser) mResponseParser).newEntityListener();
+        }
+        return null;
+    }
 
-    private String signQueryParams(Buffer qsInputBuffer) {
-        // Generate Signature for Params.
-        byte[] bytes = qsInputBuffer.readByteArray();
-        Log.d(TAG,"bytes to sign: " + new String(bytes, UTF_8));
-        // Encryption of bytes
+    private void parse(JSONObject jsonResponse, OstJsonStreamReader.EntityListener entityListener,
+                       OstCallTrace trace) {
+        if (null == mResponseParser) {
+            return;
+        }
+        long parsingStartNanos = System.nanoTime();
+        try {
+            if (null != entityListener) {
+                ((StreamingResponseParser) mResponseParser).parse(jsonResponse, entityListener);
+            } else {
+                mResponseParser.parse(jsonResponse);
+            }
+        } finally {
+            if (null != trace) {
+                trace.onParsed(System.nanoTime() - parsingStartNanos);
+            }
+        }
+    }
 
-        String signature = mOstApiSigner.sign(bytes);
-        Log.d(TAG,"signature:" + signature);
-        return signature;
+    private static void finish(OstCallTrace trace, JSONObject jsonResponse, Throwable failure) {
+        if (null != trace) {
+            trace.finish(jsonResponse, failure);
+        }
     }
 
+
     private static String SOMETHING_WRONG_RESPONSE = "{'success': false, 'err': {'code': 'SOMETHING_WENT_WRONG', 'internal_id': 'SDK(SOMETHING_WENT_WRONG)', 'msg': '', 'error_data':[]}}";
 
     private static String getResponseBodyAsString(okhttp3.Response response) {
@@ -291,7 +426,45 @@ public class OstHttpRequestClient {
         }
 
         // Response does not have a body. Lets create one.
-        switch (response.code()) {
+        responseBody = getLocalResponseBody(response.code());
+        Log.d(TAG, "local responseBody:\n" + responseBody + "\n");
+        return responseBody;
+    }
+
+    /**
+     * Builds the json response while reading the body, see {@link OstJsonStreamReader}.
+     *
+     * @param entityListener listener of the entities of the response, may be null.
+     */
+    private static JSONObject readApiResponse(okhttp3.Response response,
+                                              OstJsonStreamReader.EntityListener entityListener) {
+        ResponseBody body = response.body();
+        try {
+            if (null != body && !body.source().exhausted()) {
+                JSONObject jsonResponse = OstJsonStreamReader.read(body.charStream(), entityListener);
+                Log.d(TAG, "responseCode:" + response.code());
+                return jsonResponse;
+            }
+        } catch (MalformedJsonException | JSONException | IllegalStateException | NumberFormatException e) {
+            //Same as a body JSONObject fails to parse.
+            Log.e(TAG, "Malformed response body", e);
+            return buildApiResponse(SOMETHING_WRONG_RESPONSE);
+        } catch (IOException e) {
+            // Silently handle the error.
+            e.printStackTrace();
+        } finally {
+            response.close();
+        }
+
+        // Response does not have a body. Lets create one.
+        String responseBody = getLocalResponseBody(response.code());
+        Log.d(TAG, "local responseBody:\n" + responseBody + "\n");
+        return buildApiResponse(responseBody);
+    }
+
+    private static String getLocalResponseBody(int responseCode) {
+        String responseBody;
+        switch (responseCode) {
             case 502:
                 responseBody = "{'success': false, 'err': {'code': 'BAD_GATEWAY', 'internal_id': 'SDK(BAD_GATEWAY)', 'msg': '', 'error_data':[]}}";
                 break;
@@ -304,8 +477,6 @@ public class OstHttpRequestClient {
             default:
                 responseBody = SOMETHING_WRONG_RESPONSE;
         }
-
-        Log.d(TAG, "local responseBody:\n" + responseBody + "\n");
         return responseBody;
     }
 
@@ -324,62 +495,27 @@ public class OstHttpRequestClient {
         return null;
     }
 
-    private static ArrayList<HttpParam> buildNestedQuery(ArrayList<HttpParam> params, String paramKeyPrefix, Object paramValObj) {
-
-        if (paramValObj instanceof Map) {
-
-            //            sort map.
-            Map<String, Object> sortedMap = new TreeMap<String, Object>((Map<? extends String, ?>) paramValObj);
-            for (Object paramPair : sortedMap.entrySet()) {
-                Map.Entry pair = (Map.Entry) paramPair;
-                String key = (String) pair.getKey();
-                Object value = pair.getValue();
-                String prefix = "";
-                if (paramKeyPrefix.isEmpty()) {
-                    prefix = key;
-                } else {
-                    prefix = paramKeyPrefix + "[" + key + "]";
-                }
-
-                params = buildNestedQuery(params, prefix, value);
-            }
-
-        } else if (paramValObj instanceof Collection) {
-            Iterator<Object> iterator = ((Collection) paramValObj).iterator();
-
-            while (iterator.hasNext()) {
-                Object value = iterator.next();
-                String prefix = paramKeyPrefix + "[]";
-                params = buildNestedQuery(params, prefix, value);
-            }
-        } else {
-            if (paramValObj != null) {
-                params.add(new HttpParam(paramKeyPrefix, paramValObj.toString()));
-            } else {
-                params.add(new HttpParam(paramKeyPrefix, ""));
-            }
-
-        }
-        return params;
-    }
-
-    private static String specialCharacterEscape(String stringToEscape) {
-        stringToEscape = FormParameterEscaper.escape(stringToEscape);
-        stringToEscape = stringToEscape.replace("*", "%26");
-        return stringToEscape;
-    }
-
-    private boolean isNetworkAvailable() {
-        ConnectivityManager connectivityManager
-                = (ConnectivityManager) OstSdk.getContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
-        return activeNetworkInfo != null && activeNetworkInfo.isConnected();
-    }
-
     public interface ResponseParser {
         void parse(JSONObject jsonObject);
     }
 
+    /**
+     * Parser which decodes entities while the response body is being read.
+     * Responses which are not streamed, e.g. served from the response cache, still go
+     * through {@link #parse(JSONObject)}.
+     */
+    interface StreamingResponseParser extends ResponseParser {
+        /**
+         * @return listener for the entities of one response.
+         */
+        OstJsonStreamReader.EntityListener newEntityListener();
+
+        /**
+         * @param entityListener listener the response was read with.
+         */
+        void parse(JSONObject jsonObject, OstJsonStreamReader.EntityListener entityListener);
+    }
+
     public interface ApiSigner {
         String sign(byte[] bytes);
     }
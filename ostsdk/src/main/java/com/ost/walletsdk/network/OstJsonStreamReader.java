@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.ost.walletsdk.OstConstants;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Builds the json response while it is read from the response stream.
+ * The body is pulled through the small buffer of JsonReader straight into the response objects,
+ * it is never held as a whole String and never tokenized a second time, so parsing overlaps the
+ * download and large list responses do not need a copy of their body on top of the objects.
+ * With an {@link EntityListener}, every entity of the response data is handed over as soon as it
+ * is read, so entities are decoded while the rest of the body is still streaming in.
+ */
+final class OstJsonStreamReader {
+
+    private OstJsonStreamReader() {
+    }
+
+    /**
+     * Reads a json object and closes the reader.
+     *
+     * @throws IOException   if reading fails, MalformedJsonException if the json is malformed.
+     * @throws JSONException if the json is not an object.
+     */
+    static JSONObject read(Reader reader) throws IOException, JSONException {
+        return read(reader, null);
+    }
+
+    /**
+     * Reads a json response and closes the reader.
+     * Entity objects stay in the response as well, callers of the api read them from there.
+     *
+     * @param entityListener listener of the entities under the response data, may be null.
+     * @throws IOException   if reading fails, MalformedJsonException if the json is malformed.
+     * @throws JSONException if the json is not an object.
+     */
+    static JSONObject read(Reader reader, EntityListener entityListener) throws IOException, JSONException {
+        JsonReader jsonReader = new JsonReader(reader);
+        //Same leniency as JSONObject(String).
+        jsonReader.setLenient(true);
+        try {
+            if (JsonToken.BEGIN_OBJECT != jsonReader.peek()) {
+                throw new JSONException("Response is not a json object");
+            }
+            if (null == entityListener) {
+                return readObject(jsonReader);
+            }
+            return readResponse(jsonReader, entityListener);
+        } finally {
+            jsonReader.close();
+        }
+    }
+
+    private static JSONObject readResponse(JsonReader jsonReader, EntityListener entityListener)
+            throws IOException, JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (OstConstants.RESPONSE_DATA.equals(name) && JsonToken.BEGIN_OBJECT == jsonReader.peek()) {
+                jsonObject.put(name, readData(jsonReader, entityListener));
+            } else {
+                jsonObject.put(name, readValue(jsonReader));
+            }
+        }
+        jsonReader.endObject();
+        return jsonObject;
+    }
+
+    private static JSONObject readData(JsonReader jsonReader, EntityListener entityListener)
+            throws IOException, JSONException {
+        JSONObject jsonData = new JSONObject();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (!entityListener.isEntityKey(name)) {
+                jsonData.put(name, readValue(jsonReader));
+            } else if (JsonToken.BEGIN_ARRAY == jsonReader.peek()) {
+                JSONArray jsonArray = new JSONArray();
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    Object value = readValue(jsonReader);
+                    jsonArray.put(value);
+                    if (value instanceof JSONObject) {
+                        entityListener.onEntity(name, (JSONObject) value);
+                    }
+                }
+                jsonReader.endArray();
+                jsonData.put(name, jsonArray);
+            } else {
+                Object value = readValue(jsonReader);
+                jsonData.put(name, value);
+                if (value instanceof JSONObject) {
+                    entityListener.onEntity(name, (JSONObject) value);
+                }
+            }
+        }
+        jsonReader.endObject();
+        return jsonData;
+    }
+
+    private static JSONObject readObject(JsonReader jsonReader) throws IOException, JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            jsonObject.put(name, readValue(jsonReader));
+        }
+        jsonReader.endObject();
+        return jsonObject;
+    }
+
+    private static JSONArray readArray(JsonReader jsonReader) throws IOException, JSONException {
+        JSONArray jsonArray = new JSONArray();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            jsonArray.put(readValue(jsonReader));
+        }
+        jsonReader.endArray();
+        return jsonArray;
+    }
+
+    private static Object readValue(JsonReader jsonReader) throws IOException, JSONException {
+        JsonToken token = jsonReader.peek();
+        switch (token) {
+            case BEGIN_OBJECT:
+                return readObject(jsonReader);
+            case BEGIN_ARRAY:
+                return readArray(jsonReader);
+            case STRING:
+                return jsonReader.nextString();
+            case NUMBER:
+                return toNumber(jsonReader.nextString());
+            case BOOLEAN:
+                return jsonReader.nextBoolean();
+            case NULL:
+                jsonReader.nextNull();
+                return JSONObject.NULL;
+            default:
+                throw new JSONException("Unexpected token " + token);
+        }
+    }
+
+    /**
+     * Same number types as JSONObject(String) gives, so entities read values the same way:
+     * Integer if it fits, then Long, then Double.
+     */
+    static Object toNumber(String literal) {
+        if (-1 == literal.indexOf('.') && -1 == literal.indexOf('e') && -1 == literal.indexOf('E')) {
+            try {
+                long longValue = Long.parseLong(literal);
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            } catch (NumberFormatException e) {
+                //Too large for a long, read as a double below.
+            }
+        }
+        try {
+            return Double.valueOf(literal);
+        } catch (NumberFormatException e) {
+            return literal;
+        }
+    }
+
+    /**
+     * Receives the entities of the response data while the response is read.
+     */
+    interface EntityListener {
+        /**
+         * @param key key under the response data
+         * @return true if the key holds an entity or an array of entities.
+         */
+        boolean isEntityKey(String key);
+
+        /**
+         * Called on the reading thread once the entity object is read completely,
+         * before the rest of the response is read. The response may still turn out to be an error.
+         *
+         * @param key        key under the response data
+         * @param jsonObject the entity object, the same instance the response holds.
+         */
+        void onEntity(String key, JSONObject jsonObject);
+    }
+}
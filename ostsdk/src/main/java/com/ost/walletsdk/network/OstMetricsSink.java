@@ -0,0 +1,30 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.ost.walletsdk.workflows.services.OstPollingPolicy;
+
+/**
+ * Receives metrics of every platform api call and of status polling, see
+ * {@link OstNetworkMetrics#addSink(OstMetricsSink)}.
+ * Called on sdk network threads, implementations should hand the metrics off quickly.
+ */
+public interface OstMetricsSink {
+    void onCallMetrics(OstCallMetrics callMetrics);
+
+    /**
+     * Called each time polling learns how long an entity took to reach a status.
+     *
+     * @param key          entity type and status, like "transaction:mined"
+     * @param distribution time to the status learned so far
+     */
+    void onPollingDistribution(String key, OstPollingPolicy.Distribution distribution);
+}
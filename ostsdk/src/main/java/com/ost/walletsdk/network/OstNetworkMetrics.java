@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import android.util.Log;
+
+import com.ost.walletsdk.workflows.services.OstPollingPolicy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network metrics of platform api calls.
+ * Calls are aggregated per endpoint into a latency histogram and byte counts, along with error
+ * code counts and the share of calls served on a pooled connection. Apps export them by reading
+ * the aggregates or by adding an {@link OstMetricsSink}, which gets the metrics of every call
+ * along with the status timings learned by {@link OstPollingPolicy}.
+ */
+public final class OstNetworkMetrics {
+    private static final String TAG = "OstNetworkMetrics";
+
+    /**
+     * Upper bounds of the latency buckets, the last bucket holds slower calls.
+     */
+    private static final long[] LATENCY_BOUNDS_MILLIS = {50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final OstNetworkMetrics INSTANCE = new OstNetworkMetrics();
+
+    public static OstNetworkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Aggregates of one endpoint.
+     */
+    public static final class EndpointStats {
+        private long mCallCount;
+        private long mErrorCount;
+        private long mTotalNanos;
+        private long mRequestBytes;
+        private long mResponseBytes;
+        private final long[] mLatencyCounts = new long[LATENCY_BOUNDS_MILLIS.length + 1];
+
+        private EndpointStats() {
+        }
+
+        private EndpointStats(EndpointStats stats) {
+            mCallCount = stats.mCallCount;
+            mErrorCount = stats.mErrorCount;
+            mTotalNanos = stats.mTotalNanos;
+            mRequestBytes = stats.mRequestBytes;
+            mResponseBytes = stats.mResponseBytes;
+            System.arraycopy(stats.mLatencyCounts, 0, mLatencyCounts, 0, mLatencyCounts.length);
+        }
+
+        private void add(OstCallMetrics callMetrics) {
+            mCallCount++;
+            if (null != callMetrics.getErrorCode()) {
+                mErrorCount++;
+            }
+            mTotalNanos += callMetrics.getTotalNanos();
+            mRequestBytes += callMetrics.getRequestBytes();
+            mResponseBytes += callMetrics.getResponseBytes();
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(callMetrics.getTotalNanos());
+            int bucket = 0;
+            while (bucket < LATENCY_BOUNDS_MILLIS.length && latencyMillis > LATENCY_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            mLatencyCounts[bucket]++;
+        }
+
+        public long getCallCount() {
+            return mCallCount;
+        }
+
+        public long getErrorCount() {
+            return mErrorCount;
+        }
+
+        public long getAverageLatencyMillis() {
+            return 0 == mCallCount ? 0 : TimeUnit.NANOSECONDS.toMillis(mTotalNanos / mCallCount);
+        }
+
+        public long getRequestBytes() {
+            return mRequestBytes;
+        }
+
+        public long getResponseBytes() {
+            return mResponseBytes;
+        }
+
+        /**
+         * @return upper bound of every bucket of {@link #getLatencyCounts()} but the last.
+         */
+        public long[] getLatencyBoundsMillis() {
+            return LATENCY_BOUNDS_MILLIS.clone();
+        }
+
+        /**
+         * @return call count per latency bucket.
+         */
+        public long[] getLatencyCounts() {
+            return mLatencyCounts.clone();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("calls %d, errors %d, avg %dms, histogram %s, bytes %d/%d",
+                    mCallCount, mErrorCount, getAverageLatencyMillis(),
+                    Arrays.toString(mLatencyCounts), mRequestBytes, mResponseBytes);
+        }
+    }
+
+    private final CopyOnWriteArrayList<OstMetricsSink> mSinks = new CopyOnWriteArrayList<>();
+    private final HashMap<String, EndpointStats> mEndpointStats = new HashMap<>();
+    private final HashMap<String, Long> mErrorCounts = new HashMap<>();
+    private long mConnectionsAcquired;
+    private long mConnectionsReused;
+
+    OstNetworkMetrics() {
+    }
+
+    public void addSink(OstMetricsSink sink) {
+        mSinks.addIfAbsent(sink);
+    }
+
+    public void removeSink(OstMetricsSink sink) {
+        mSinks.remove(sink);
+    }
+
+    void record(OstCallMetrics callMetrics) {
+        synchronized (this) {
+            EndpointStats endpointStats = mEndpointStats.get(callMetrics.getEndpoint());
+            if (null == endpointStats) {
+                endpointStats = new EndpointStats();
+                mEndpointStats.put(callMetrics.getEndpoint(), endpointStats);
+            }
+            endpointStats.add(callMetrics);
+
+            String errorCode = callMetrics.getErrorCode();
+            if (null != errorCode) {
+                Long errorCount = mErrorCounts.get(errorCode);
+                mErrorCounts.put(errorCode, null == errorCount ? 1 : errorCount + 1);
+            }
+            mConnectionsAcquired += callMetrics.getConnectionsAcquired();
+            mConnectionsReused += callMetrics.getConnectionsReused();
+        }
+
+        for (OstMetricsSink sink : mSinks) {
+            try {
+                sink.onCallMetrics(callMetrics);
+            } catch (Throwable th) {
+                Log.e(TAG, "Metrics sink failed", th);
+            }
+        }
+    }
+
+    /**
+     * Hands a distribution learned by the polling policy to the sinks.
+     */
+    public void recordPollingDistribution(String key, OstPollingPolicy.Distribution distribution) {
+        for (OstMetricsSink sink : mSinks) {
+            try {
+                sink.onPollingDistribution(key, distribution);
+            } catch (Throwable th) {
+                Log.e(TAG, "Metrics sink failed", th);
+            }
+        }
+    }
+
+    /**
+     * @return copy of the aggregates, by endpoint.
+     */
+    public synchronized Map<String, EndpointStats> getEndpointStats() {
+        HashMap<String, EndpointStats> endpointStats = new HashMap<>(mEndpointStats.size() * 2);
+        for (Map.Entry<String, EndpointStats> entry : mEndpointStats.entrySet()) {
+            endpointStats.put(entry.getKey(), new EndpointStats(entry.getValue()));
+        }
+        return endpointStats;
+    }
+
+    /**
+     * @return copy of the failed call counts, by platform error code or exception name.
+     */
+    public synchronized Map<String, Long> getErrorCounts() {
+        return new HashMap<>(mErrorCounts);
+    }
+
+    /**
+     * @return share of connections taken from the pool, 0 before any call.
+     */
+    public synchronized double getConnectionReuseRatio() {
+        return 0 == mConnectionsAcquired ? 0 : (double) mConnectionsReused / mConnectionsAcquired;
+    }
+
+    public synchronized void reset() {
+        mEndpointStats.clear();
+        mErrorCounts.clear();
+        mConnectionsAcquired = 0;
+        mConnectionsReused = 0;
+    }
+}
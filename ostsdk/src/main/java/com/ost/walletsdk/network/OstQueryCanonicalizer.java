@@ -0,0 +1,246 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Canonical form of platform request params, built in one pass.
+ * Params are flattened the way the platform signs them: nested map keys as key[sub], collection
+ * items as key[], sorted by key at every level. Names and values are form encoded once, straight
+ * into a buffer reused by the calling thread, which then holds the string to sign and, after the
+ * resource prefix, the query or form body.
+ */
+final class OstQueryCanonicalizer {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    //Buffers above this size are not kept for reuse.
+    private static final int MAX_REUSED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<OstQueryCanonicalizer> CANONICALIZERS = new ThreadLocal<OstQueryCanonicalizer>() {
+        @Override
+        protected OstQueryCanonicalizer initialValue() {
+            return new OstQueryCanonicalizer();
+        }
+    };
+
+    /**
+     * Canonical params of a request.
+     */
+    static final class CanonicalQuery {
+        private final String mResource;
+        private final String mEncoded;
+        private final byte[] mBytesToSign;
+        private final int mExcludedStart;
+        private final int mExcludedEnd;
+
+        private CanonicalQuery(String resource, String encoded, byte[] bytesToSign,
+                               int excludedStart, int excludedEnd) {
+            mResource = resource;
+            mEncoded = encoded;
+            mBytesToSign = bytesToSign;
+            mExcludedStart = excludedStart;
+            mExcludedEnd = excludedEnd;
+        }
+
+        /**
+         * @return encoded params, name=value pairs joined by &amp;.
+         */
+        String getEncoded() {
+            return mEncoded;
+        }
+
+        /**
+         * @return resource?encoded params, as ascii bytes.
+         */
+        byte[] getBytesToSign() {
+            return mBytesToSign;
+        }
+
+        /**
+         * @return offset of the encoded params in {@link #getBytesToSign()}.
+         */
+        int getEncodedOffset() {
+            return mBytesToSign.length - mEncoded.length();
+        }
+
+        /**
+         * @return resource?encoded params, leaving out the excluded param.
+         */
+        String getKeyQuery() {
+            StringBuilder keyQuery = new StringBuilder(mResource.length() + 1 + mEncoded.length())
+                    .append(mResource).append('?');
+            if (mExcludedStart < 0) {
+                return keyQuery.append(mEncoded).toString();
+            }
+            return keyQuery.append(mEncoded, 0, mExcludedStart)
+                    .append(mEncoded, mExcludedEnd, mEncoded.length())
+                    .toString();
+        }
+    }
+
+    private StringBuilder mBuffer = new StringBuilder(1024);
+    private final StringBuilder mName = new StringBuilder(64);
+    private String mExcludedName;
+    private int mQueryStart;
+    private int mExcludedStart;
+    private int mExcludedEnd;
+
+    private OstQueryCanonicalizer() {
+    }
+
+    /**
+     * @param resource     resource of the request
+     * @param params       request params, may be null
+     * @param excludedName top level param to leave out of {@link CanonicalQuery#getKeyQuery()}
+     */
+    static CanonicalQuery canonicalize(String resource, Map<String, Object> params, String excludedName) {
+        return CANONICALIZERS.get().build(resource, params, excludedName);
+    }
+
+    private CanonicalQuery build(String resource, Map<String, Object> params, String excludedName) {
+        if (mBuffer.capacity() > MAX_REUSED_CAPACITY) {
+            mBuffer = new StringBuilder(1024);
+        }
+        mBuffer.setLength(0);
+        mName.setLength(0);
+        mExcludedName = excludedName;
+        mExcludedStart = -1;
+        mExcludedEnd = -1;
+
+        mBuffer.append(resource).append('?');
+        mQueryStart = mBuffer.length();
+        if (null != params) {
+            write(params);
+        }
+
+        int excludedStart = -1;
+        int excludedEnd = -1;
+        if (mExcludedStart >= 0) {
+            excludedStart = mExcludedStart - mQueryStart;
+            excludedEnd = mExcludedEnd - mQueryStart;
+        }
+        return new CanonicalQuery(resource, mBuffer.substring(mQueryStart), toBytes(mBuffer),
+                excludedStart, excludedEnd);
+    }
+
+    private void write(Object value) {
+        int nameLength = mName.length();
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Object[] keys = map.keySet().toArray();
+            Arrays.sort(keys);
+            for (Object key : keys) {
+                if (0 == nameLength) {
+                    escape(key.toString(), mName);
+                } else {
+                    mName.append("%5B");
+                    escape(key.toString(), mName);
+                    mName.append("%5D");
+                }
+                write(map.get(key));
+                mName.setLength(nameLength);
+            }
+        } else if (value instanceof Collection) {
+            mName.append("%5B%5D");
+            for (Object item : (Collection<?>) value) {
+                write(item);
+            }
+            mName.setLength(nameLength);
+        } else {
+            int paramStart = mBuffer.length();
+            if (paramStart > mQueryStart) {
+                mBuffer.append('&');
+            }
+            mBuffer.append(mName).append('=');
+            if (null != value) {
+                escape(value.toString(), mBuffer);
+            }
+            if (null != mExcludedName && isExcludedName()) {
+                mExcludedStart = paramStart;
+                mExcludedEnd = mBuffer.length();
+            }
+        }
+    }
+
+    private boolean isExcludedName() {
+        if (mName.length() != mExcludedName.length()) {
+            return false;
+        }
+        for (int cnt = 0; cnt < mName.length(); cnt++) {
+            if (mName.charAt(cnt) != mExcludedName.charAt(cnt)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Form encoding, as Guava's urlFormParameterEscaper followed by '*' replaced with %26, which
+     * is what signatures are computed on.
+     */
+    static void escape(String value, StringBuilder out) {
+        int length = value.length();
+        for (int index = 0; index < length; index++) {
+            char c = value.charAt(index);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || '-' == c || '_' == c || '.' == c) {
+                out.append(c);
+            } else if (' ' == c) {
+                out.append('+');
+            } else if ('*' == c) {
+                out.append("%26");
+            } else if (c < 0x80) {
+                appendPercent(out, c);
+            } else if (c < 0x800) {
+                appendPercent(out, 0xC0 | (c >> 6));
+                appendPercent(out, 0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                appendPercent(out, 0xE0 | (c >> 12));
+                appendPercent(out, 0x80 | ((c >> 6) & 0x3F));
+                appendPercent(out, 0x80 | (c & 0x3F));
+            } else {
+                if (!Character.isHighSurrogate(c) || index + 1 == length
+                        || !Character.isLowSurrogate(value.charAt(index + 1))) {
+                    throw new IllegalArgumentException("Invalid unicode character in param value");
+                }
+                int codePoint = Character.toCodePoint(c, value.charAt(++index));
+                appendPercent(out, 0xF0 | (codePoint >> 18));
+                appendPercent(out, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendPercent(out, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendPercent(out, 0x80 | (codePoint & 0x3F));
+            }
+        }
+    }
+
+    private static void appendPercent(StringBuilder out, int b) {
+        out.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+    }
+
+    /**
+     * Params are ascii once encoded, only the resource may need utf-8.
+     */
+    private static byte[] toBytes(StringBuilder buffer) {
+        int length = buffer.length();
+        byte[] bytes = new byte[length];
+        for (int cnt = 0; cnt < length; cnt++) {
+            char c = buffer.charAt(cnt);
+            if (c >= 0x80) {
+                return buffer.toString().getBytes(UTF_8);
+            }
+            bytes[cnt] = (byte) c;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.base.Ticker;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Response cache of slow changing platform resources.
+ * Fresh responses are served without a request, stale responses having an ETag are revalidated
+ * with If-None-Match. Keys are built from the canonical query without api_signature and
+ * api_request_timestamp, see {@link OstHttpRequestClient}.
+ */
+public final class OstResponseCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    //Chain is not cached, it carries the block height which changes with every block and is used
+    //to calculate expiration heights.
+    private static final Policy[] POLICIES = {
+            new Policy("^/tokens/?$", 5, TimeUnit.MINUTES),
+            new Policy("^/rules/?$", 10, TimeUnit.MINUTES),
+            new Policy("^/chains/[^/]+/price-points/?$", 30, TimeUnit.SECONDS)
+    };
+
+    private static final OstResponseCache INSTANCE = new OstResponseCache(Ticker.systemTicker());
+
+    public static OstResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Policy {
+        private final Pattern mResource;
+        private final long mTtlNanos;
+
+        Policy(String resourceRegex, long ttl, TimeUnit timeUnit) {
+            mResource = Pattern.compile(resourceRegex);
+            mTtlNanos = timeUnit.toNanos(ttl);
+        }
+    }
+
+    static final class Entry {
+        private final String mResource;
+        private final String mBody;
+        private final String mETag;
+        private final long mTtlNanos;
+        private volatile long mStoredAtNanos;
+
+        Entry(String resource, String body, String eTag, long ttlNanos, long storedAtNanos) {
+            mResource = resource;
+            mBody = body;
+            mETag = eTag;
+            mTtlNanos = ttlNanos;
+            mStoredAtNanos = storedAtNanos;
+        }
+
+        String getBody() {
+            return mBody;
+        }
+
+        String getETag() {
+            return mETag;
+        }
+    }
+
+    private final Ticker mTicker;
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mRevalidatedCount = new AtomicLong();
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    OstResponseCache(Ticker ticker) {
+        mTicker = ticker;
+    }
+
+    /**
+     * @param resource resource path relative to api endpoint
+     * @return time to live in nanos, 0 if responses of the resource are not cached.
+     */
+    static long getTtlNanos(String resource) {
+        for (Policy policy : POLICIES) {
+            if (policy.mResource.matcher(resource).matches()) {
+                return policy.mTtlNanos;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return fresh entry of the key, counted as hit.
+     */
+    Entry getFresh(String key) {
+        Entry entry = get(key);
+        if (null != entry && isFresh(entry)) {
+            mHitCount.incrementAndGet();
+            return entry;
+        }
+        mMissCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @return entry of the key which can be revalidated, null if there is none.
+     */
+    Entry getRevalidatable(String key) {
+        Entry entry = get(key);
+        return null != entry && null != entry.mETag ? entry : null;
+    }
+
+    void put(String key, String resource, String body, String eTag, long ttlNanos) {
+        synchronized (mEntries) {
+            mEntries.put(key, new Entry(resource, body, eTag, ttlNanos, mTicker.read()));
+        }
+    }
+
+    /**
+     * Platform confirmed the entry is unchanged, it is fresh again.
+     */
+    String onNotModified(Entry entry) {
+        entry.mStoredAtNanos = mTicker.read();
+        mRevalidatedCount.incrementAndGet();
+        return entry.mBody;
+    }
+
+    private Entry get(String key) {
+        synchronized (mEntries) {
+            return mEntries.get(key);
+        }
+    }
+
+    private boolean isFresh(Entry entry) {
+        return mTicker.read() - entry.mStoredAtNanos < entry.mTtlNanos;
+    }
+
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * @return number of stale responses the platform answered with 304 Not Modified.
+     */
+    public long getRevalidatedCount() {
+        return mRevalidatedCount.get();
+    }
+
+    /**
+     * Drops cached responses of the resource, eg: "/rules".
+     */
+    public void invalidate(String resource) {
+        synchronized (mEntries) {
+            Iterator<Entry> iterator = mEntries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().mResource.equals(resource)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (mEntries) {
+            mEntries.clear();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import android.util.Log;
+
+import com.google.common.base.Ticker;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Retries failed platform requests.
+ * <ul>
+ * <li>GET requests are retried on io failures and on 502, 503 and 504.</li>
+ * <li>POST requests are retried only when the connection could not be made, or when they carry
+ * an Idempotency-Key header.</li>
+ * <li>Retries back off exponentially with full jitter, a Retry-After header is honoured.</li>
+ * <li>A retry budget caps retries to a share of the requests, so retries can not multiply the
+ * load of a struggling platform.</li>
+ * <li>A circuit breaker per host fails requests fast once the host keeps failing, and lets a
+ * single probe through after a cool down.</li>
+ * </ul>
+ */
+public class OstRetryInterceptor implements Interceptor {
+    private static final String TAG = "OstRetry";
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final String GET_REQUEST = "GET";
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_BASE_DELAY_MILLIS = 250;
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 4000;
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final long DEFAULT_OPEN_MILLIS = 30000;
+    private static final double DEFAULT_MAX_RETRY_TOKENS = 10;
+    private static final double DEFAULT_RETRY_RATIO = 0.2;
+
+    /**
+     * Thrown while the circuit of the host is open.
+     */
+    public static class CircuitOpenException extends IOException {
+        CircuitOpenException(String host) {
+            super(String.format("Circuit open for %s", host));
+        }
+    }
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    final class CircuitBreaker {
+        private State mState = State.CLOSED;
+        private int mConsecutiveFailures;
+        private long mOpenedAtNanos;
+        private boolean mProbeInFlight;
+
+        /**
+         * @return true if the request may go out.
+         */
+        synchronized boolean allowRequest() {
+            switch (mState) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (mTicker.read() - mOpenedAtNanos < mOpenNanos) {
+                        return false;
+                    }
+                    mState = State.HALF_OPEN;
+                    mProbeInFlight = true;
+                    return true;
+                case HALF_OPEN:
+                default:
+                    if (mProbeInFlight) {
+                        return false;
+                    }
+                    mProbeInFlight = true;
+                    return true;
+            }
+        }
+
+        synchronized void onSuccess() {
+            mState = State.CLOSED;
+            mConsecutiveFailures = 0;
+            mProbeInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            mConsecutiveFailures++;
+            if (State.HALF_OPEN == mState || mConsecutiveFailures >= mFailureThreshold) {
+                mState = State.OPEN;
+                mOpenedAtNanos = mTicker.read();
+            }
+            mProbeInFlight = false;
+        }
+
+        /**
+         * Attempt ended without telling anything about the host.
+         */
+        synchronized void onAbandoned() {
+            mProbeInFlight = false;
+        }
+
+        synchronized State getState() {
+            return mState;
+        }
+    }
+
+    /**
+     * Every request deposits a fraction of a token, every retry withdraws a whole one.
+     */
+    final class RetryBudget {
+        private double mTokens = mMaxRetryTokens;
+
+        synchronized void onRequest() {
+            mTokens = Math.min(mMaxRetryTokens, mTokens + mRetryRatio);
+        }
+
+        synchronized boolean tryRetry() {
+            if (mTokens < 1) {
+                return false;
+            }
+            mTokens -= 1;
+            return true;
+        }
+    }
+
+    private final int mMaxAttempts;
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+    private final int mFailureThreshold;
+    private final long mOpenNanos;
+    private final double mMaxRetryTokens;
+    private final double mRetryRatio;
+    private final Ticker mTicker;
+    private final Random mRandom = new Random();
+    private final RetryBudget mRetryBudget;
+    private final ConcurrentHashMap<String, CircuitBreaker> mCircuitBreakers = new ConcurrentHashMap<>();
+
+    public OstRetryInterceptor() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS,
+                DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS, DEFAULT_MAX_RETRY_TOKENS,
+                DEFAULT_RETRY_RATIO, Ticker.systemTicker());
+    }
+
+    OstRetryInterceptor(int maxAttempts, long baseDelayMillis, long maxDelayMillis,
+                        int failureThreshold, long openMillis, double maxRetryTokens,
+                        double retryRatio, Ticker ticker) {
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+        mFailureThreshold = failureThreshold;
+        mOpenNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        mMaxRetryTokens = maxRetryTokens;
+        mRetryRatio = retryRatio;
+        mTicker = ticker;
+        mRetryBudget = new RetryBudget();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host();
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+        mRetryBudget.onRequest();
+
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.allowRequest()) {
+                throw new CircuitOpenException(host);
+            }
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (e instanceof OstApiSigningInterceptor.SigningException || chain.call().isCanceled()) {
+                    //Not a failure of the host.
+                    circuitBreaker.onAbandoned();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+                if (!shouldRetry(chain, request, e, attempt)) {
+                    throw e;
+                }
+                Log.w(TAG, String.format("Retrying %s after %s", request.url().encodedPath(), e.getClass().getSimpleName()));
+                backOff(attempt, null);
+                continue;
+            } catch (RuntimeException e) {
+                circuitBreaker.onAbandoned();
+                throw e;
+            }
+
+            if (!isRetryableStatus(response.code())) {
+                circuitBreaker.onSuccess();
+                return response;
+            }
+            circuitBreaker.onFailure();
+            if (!shouldRetry(chain, request, null, attempt)) {
+                return response;
+            }
+            Log.w(TAG, String.format("Retrying %s after http %d", request.url().encodedPath(), response.code()));
+            String retryAfter = response.header(RETRY_AFTER);
+            response.close();
+            backOff(attempt, retryAfter);
+        }
+    }
+
+    CircuitBreaker getCircuitBreaker(String host) {
+        CircuitBreaker circuitBreaker = mCircuitBreakers.get(host);
+        if (null == circuitBreaker) {
+            mCircuitBreakers.putIfAbsent(host, new CircuitBreaker());
+            circuitBreaker = mCircuitBreakers.get(host);
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * @param e failure of the attempt, null if the platform responded with a retryable status.
+     */
+    private boolean shouldRetry(Chain chain, Request request, IOException e, int attempt) {
+        if (attempt >= mMaxAttempts || chain.call().isCanceled()) {
+            return false;
+        }
+        if (e instanceof OstApiSigningInterceptor.SigningException) {
+            return false;
+        }
+        if (!isIdempotent(request) && !isConnectFailure(e)) {
+            return false;
+        }
+        return mRetryBudget.tryRetry();
+    }
+
+    private static boolean isIdempotent(Request request) {
+        return GET_REQUEST.equalsIgnoreCase(request.method()) || null != request.header(IDEMPOTENCY_KEY);
+    }
+
+    /**
+     * Request never reached the platform, safe to send again whatever its method.
+     */
+    private static boolean isConnectFailure(IOException e) {
+        return e instanceof ConnectException
+                || e instanceof UnknownHostException
+                || e instanceof NoRouteToHostException;
+    }
+
+    private static boolean isRetryableStatus(int code) {
+        return 502 == code || 503 == code || 504 == code;
+    }
+
+    private void backOff(int attempt, String retryAfter) throws IOException {
+        long delayMillis = -1;
+        if (null != retryAfter) {
+            try {
+                delayMillis = Math.min(mMaxDelayMillis, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException e) {
+                //Http date format is not used by the platform, fall back to backoff.
+            }
+        }
+        if (delayMillis < 0) {
+            long cap = Math.min(mMaxDelayMillis, mBaseDelayMillis << Math.min(attempt - 1, 20));
+            delayMillis = (long) (mRandom.nextDouble() * cap);
+        }
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical GET requests in flight.
+ * The first caller of a key starts the call, callers arriving before it completes wait for the
+ * same response, which is parsed once. Every caller gets its own future: cancelling it only
+ * stops that caller from waiting, the call itself is cancelled once nobody waits for it.
+ */
+public final class OstSingleFlight {
+
+    private static final OstSingleFlight INSTANCE = new OstSingleFlight();
+
+    public static OstSingleFlight getInstance() {
+        return INSTANCE;
+    }
+
+    private final HashMap<String, Flight> mFlights = new HashMap<>();
+    private final AtomicLong mCallCount = new AtomicLong();
+    private final AtomicLong mSavedCallCount = new AtomicLong();
+
+    private final class Flight {
+        private final String mKey;
+        private final SettableFuture<JSONObject> mResult = SettableFuture.create();
+        private ListenableFuture<JSONObject> mCall;
+        private int mWaiters;
+
+        Flight(String key) {
+            mKey = key;
+        }
+
+        /**
+         * A waiter cancelled, cancels the call when it was the last one.
+         */
+        void release() {
+            ListenableFuture<JSONObject> call = null;
+            synchronized (mFlights) {
+                mWaiters--;
+                if (mWaiters > 0 || mResult.isDone()) {
+                    return;
+                }
+                remove(this);
+                call = mCall;
+            }
+            mResult.cancel(false);
+            if (null != call) {
+                call.cancel(true);
+            }
+        }
+    }
+
+    OstSingleFlight() {
+    }
+
+    /**
+     * @param key  request key, identical requests have the same key
+     * @param call starts the request, invoked only by the first caller of the key
+     * @return future of the response.
+     */
+    ListenableFuture<JSONObject> execute(String key, Supplier<ListenableFuture<JSONObject>> call) {
+        Flight flight;
+        boolean isOwner = false;
+        synchronized (mFlights) {
+            flight = mFlights.get(key);
+            if (null == flight) {
+                flight = new Flight(key);
+                mFlights.put(key, flight);
+                isOwner = true;
+                mCallCount.incrementAndGet();
+            } else {
+                mSavedCallCount.incrementAndGet();
+            }
+            flight.mWaiters++;
+        }
+
+        ListenableFuture<JSONObject> waiter = newWaiter(flight);
+        if (isOwner) {
+            start(flight, call);
+        }
+        return waiter;
+    }
+
+    private void start(final Flight flight, Supplier<ListenableFuture<JSONObject>> call) {
+        ListenableFuture<JSONObject> future;
+        try {
+            future = call.get();
+        } catch (Throwable th) {
+            future = Futures.immediateFailedFuture(th);
+        }
+
+        boolean isAbandoned;
+        synchronized (mFlights) {
+            flight.mCall = future;
+            isAbandoned = flight.mResult.isCancelled();
+        }
+        if (isAbandoned) {
+            future.cancel(true);
+            return;
+        }
+
+        Futures.addCallback(future, new FutureCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject result) {
+                remove(flight);
+                flight.mResult.set(result);
+            }
+
+            @Override
+            public void onFailure(Throwable th) {
+                remove(flight);
+                if (th instanceof CancellationException) {
+                    flight.mResult.cancel(false);
+                } else {
+                    flight.mResult.setException(th);
+                }
+            }
+        });
+    }
+
+    private ListenableFuture<JSONObject> newWaiter(final Flight flight) {
+        final SettableFuture<JSONObject> waiter = SettableFuture.create();
+        Futures.addCallback(flight.mResult, new FutureCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject result) {
+                waiter.set(result);
+            }
+
+            @Override
+            public void onFailure(Throwable th) {
+                if (th instanceof CancellationException) {
+                    waiter.cancel(false);
+                } else {
+                    waiter.setException(th);
+                }
+            }
+        });
+        waiter.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (waiter.isCancelled()) {
+                    flight.release();
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        return waiter;
+    }
+
+    private void remove(Flight flight) {
+        synchronized (mFlights) {
+            if (mFlights.get(flight.mKey) == flight) {
+                mFlights.remove(flight.mKey);
+            }
+        }
+    }
+
+    /**
+     * @return number of requests sent.
+     */
+    public long getCallCount() {
+        return mCallCount.get();
+    }
+
+    /**
+     * @return number of requests which joined a request in flight instead of being sent.
+     */
+    public long getSavedCallCount() {
+        return mSavedCallCount.get();
+    }
+}
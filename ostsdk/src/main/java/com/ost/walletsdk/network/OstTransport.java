@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * Carries platform api calls of {@link OstApiClient}.
+ * {@link OstHttpRequestClient} sends them to OST Platform over OkHttp, tests plug in transports
+ * answering them in-process so workflows run without network.
+ * <p>
+ * A transport hands every response to its response parser before completing the future, so that
+ * entities are stored by the time callers see the response. Failures of the parser, like
+ * {@link OstApiError} for error responses, fail the future.
+ */
+public interface OstTransport {
+
+    ListenableFuture<JSONObject> getAsync(String resource, Map<String, Object> queryParams);
+
+    ListenableFuture<JSONObject> postAsync(String resource, Map<String, Object> queryParams);
+
+    /**
+     * Cancels requests in flight, blocking callers get an IOException.
+     */
+    void cancelAll();
+
+    /**
+     * Creates the transport of each api client, see {@link OstApiClient#setTransportFactory(Factory)}.
+     */
+    interface Factory {
+        /**
+         * @param baseUrl        OST Platform url the sdk is initialized with
+         * @param apiSigner      signer of the user's requests
+         * @param responseParser parser storing entities of the user's responses
+         */
+        OstTransport create(String baseUrl, OstHttpRequestClient.ApiSigner apiSigner,
+                            OstHttpRequestClient.ResponseParser responseParser);
+    }
+}
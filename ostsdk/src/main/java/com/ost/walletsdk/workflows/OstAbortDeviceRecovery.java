@@ -103,9 +103,14 @@ public class OstAbortDeviceRecovery extends OstBaseWorkFlow {
             throw new OstError("wf_adr_pr_2", OstErrors.ErrorCode.NO_PENDING_RECOVERY);
         }
 
-        OstDevice ostDevice1 = OstDevice.parse(jsonArray.getJSONObject(0));
+        //Devices of the response are stored by the api client, read them back in one batch.
+        OstDevice[] ostDevices = OstDevice.getByIds(
+                jsonArray.getJSONObject(0).optString(OstDevice.ADDRESS),
+                jsonArray.getJSONObject(1).optString(OstDevice.ADDRESS)
+        );
+        OstDevice ostDevice1 = null != ostDevices[0] ? ostDevices[0] : OstDevice.parse(jsonArray.getJSONObject(0));
         hasValidStatus(ostDevice1.getStatus());
-        OstDevice ostDevice2 = OstDevice.parse(jsonArray.getJSONObject(1));
+        OstDevice ostDevice2 = null != ostDevices[1] ? ostDevices[1] : OstDevice.parse(jsonArray.getJSONObject(1));
         hasValidStatus(ostDevice2.getStatus());
 
         if (OstDevice.CONST_STATUS.REVOKING.equalsIgnoreCase(ostDevice1.getStatus())) {
@@ -150,8 +155,12 @@ public class OstAbortDeviceRecovery extends OstBaseWorkFlow {
 
     private AsyncStatus pollForStatus() {
         Log.i(TAG, "Waiting for update");
-        Bundle bundle = OstDevicePollingService.startPolling(mUserId, mRecoveringDeviceAddress, OstDevice.CONST_STATUS.REGISTERED,
-                OstDevice.CONST_STATUS.AUTHORIZED);
+        return continueAfterPolling(OstDevicePollingService.startPollingAsync(mUserId, mRecoveringDeviceAddress,
+                OstDevice.CONST_STATUS.REGISTERED, OstDevice.CONST_STATUS.AUTHORIZED));
+    }
+
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
             Log.d(TAG, String.format("Polling time out for device Id: %s", mRecoveringDeviceAddress));
             return postErrorInterrupt("wf_rd_pr_5", ErrorCode.POLLING_TIMEOUT);
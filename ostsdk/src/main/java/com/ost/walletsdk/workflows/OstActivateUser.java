@@ -120,8 +120,12 @@ public class OstActivateUser extends OstBaseWorkFlow {
         //Activate the user if otherwise.
         Log.i(TAG, "Starting user polling service");
         Log.i(TAG, "Waiting for update");
-        Bundle bundle = OstUserPollingService.startPolling(mUserId, mUserId, OstUser.CONST_STATUS.ACTIVATED,
-                OstUser.CONST_STATUS.CREATED);
+        return continueAfterPolling(OstUserPollingService.startPollingAsync(mUserId, mUserId,
+                OstUser.CONST_STATUS.ACTIVATED, OstUser.CONST_STATUS.CREATED));
+    }
+
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
             Log.d(TAG, String.format("Polling time out for user Id: %s", mUserId));
             return postErrorInterrupt("wf_au_udvp_3", ErrorCode.ACTIVATE_USER_API_POLLING_FAILED);
@@ -110,9 +110,12 @@ public class OstAddCurrentDeviceWithMnemonics extends OstBaseWorkFlow implements
 
     AsyncStatus startPolling() {
         Log.i(TAG, "Waiting for update");
-        Bundle bundle = OstDevicePollingService.startPolling(mUserId, mAddedDeviceAddress, OstDevice.CONST_STATUS.AUTHORIZED,
-                OstDevice.CONST_STATUS.REGISTERED);
+        return continueAfterPolling(OstDevicePollingService.startPollingAsync(mUserId, mAddedDeviceAddress,
+                OstDevice.CONST_STATUS.AUTHORIZED, OstDevice.CONST_STATUS.REGISTERED));
+    }
 
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         boolean hasTimedout = bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true);
         if ( hasTimedout ) {
             Log.d(TAG, String.format("Polling time out for device Id: %s", mAddedDeviceAddress));
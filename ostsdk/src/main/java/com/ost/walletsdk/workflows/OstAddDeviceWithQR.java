@@ -74,8 +74,12 @@ public class OstAddDeviceWithQR extends OstBaseWorkFlow {
 
     private AsyncStatus pollForStatus() {
         Log.i(TAG, "Waiting for update");
-        Bundle bundle = OstDevicePollingService.startPolling(mUserId, mDeviceAddressToBeAdded, OstDevice.CONST_STATUS.AUTHORIZED,
-                OstDevice.CONST_STATUS.CREATED);
+        return continueAfterPolling(OstDevicePollingService.startPollingAsync(mUserId, mDeviceAddressToBeAdded,
+                OstDevice.CONST_STATUS.AUTHORIZED, OstDevice.CONST_STATUS.CREATED));
+    }
+
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
             Log.d(TAG, String.format("Polling time out for device Id: %s", mDeviceAddressToBeAdded));
             return postErrorInterrupt("wf_adwq_pr_5", ErrorCode.POLLING_TIMEOUT);
@@ -29,6 +29,7 @@ import com.ost.walletsdk.workflows.errors.OstError;
 import com.ost.walletsdk.workflows.errors.OstErrors;
 import com.ost.walletsdk.workflows.interfaces.OstPinAcceptInterface;
 import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+import com.ost.walletsdk.workflows.services.OstPollingPolicy;
 import com.ost.walletsdk.workflows.services.OstPollingService;
 import com.ost.walletsdk.workflows.services.OstSessionPollingService;
 
@@ -49,6 +50,7 @@ public class OstAddSession extends OstBaseWorkFlow implements OstPinAcceptInterf
     private static final String TAG = "OstAddSession";
     private final String mSpendingLimit;
     private final long mExpiresAfterInSecs;
+    private String mSessionAddress;
 
     public OstAddSession(String userId, String spendingLimit, long expiresAfterInSecs, OstWorkFlowCallback callback) {
         super(userId, callback);
@@ -60,7 +62,8 @@ public class OstAddSession extends OstBaseWorkFlow implements OstPinAcceptInterf
 
     @Override
     AsyncStatus performOnAuthenticated() {
-        String sessionAddress = new OstKeyManager(mUserId).createSessionKey();
+        mSessionAddress = new OstKeyManager(mUserId).createSessionKey();
+        String sessionAddress = mSessionAddress;
 
         OstApiClient ostApiClient = new OstApiClient(mUserId);
 
@@ -122,10 +125,14 @@ public class OstAddSession extends OstBaseWorkFlow implements OstPinAcceptInterf
 
         Log.i(TAG, "Starting Session polling service");
         Log.i(TAG, "Waiting for update");
-        Bundle bundle = OstSessionPollingService.startPolling(mUserId, sessionAddress, OstSession.CONST_STATUS.AUTHORISED,
-                OstSession.CONST_STATUS.CREATED);
+        return continueAfterPolling(OstSessionPollingService.startPollingAsync(mUserId, sessionAddress,
+                OstSession.CONST_STATUS.AUTHORISED, OstSession.CONST_STATUS.CREATED));
+    }
+
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
-            Log.d(TAG, String.format("Polling time out for session Id: %s", sessionAddress));
+            Log.d(TAG, String.format("Polling time out for session Id: %s", mSessionAddress));
             return postErrorInterrupt("wf_as_pr_as_4", OstErrors.ErrorCode.POLLING_TIMEOUT);
         }
 
@@ -134,7 +141,7 @@ public class OstAddSession extends OstBaseWorkFlow implements OstPinAcceptInterf
 
         Log.i(TAG, "Response received for Add session");
         return postFlowComplete(
-                new OstContextEntity(OstSession.getById(sessionAddress), OstSdk.SESSION)
+                new OstContextEntity(OstSession.getById(mSessionAddress), OstSdk.SESSION)
         );
     }
 
@@ -147,6 +154,15 @@ public class OstAddSession extends OstBaseWorkFlow implements OstPinAcceptInterf
             Log.e(TAG, "IOException");
         }
         blockNumber = parseResponseForKey(jsonObject, OstConstants.BLOCK_HEIGHT);
+        String blockTime = parseResponseForKey(jsonObject, OstConstants.BLOCK_TIME);
+        if (null != blockTime) {
+            try {
+                OstPollingPolicy.getInstance().onBlockTime(Long.parseLong(blockTime));
+            } catch (NumberFormatException e) {
+                //Polling keeps the block time it has.
+                Log.e(TAG, String.format("Invalid block time: %s", blockTime));
+            }
+        }
         return blockNumber;
     }
 
@@ -13,11 +13,16 @@ package com.ost.walletsdk.workflows;
 import android.content.Context;
 import android.hardware.fingerprint.FingerprintManager;
 import android.os.Build;
+import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.text.TextUtils;
 import android.util.Log;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.ost.walletsdk.OstConfigs;
 import com.ost.walletsdk.OstConstants;
 import com.ost.walletsdk.OstSdk;
@@ -26,6 +31,7 @@ import com.ost.walletsdk.ecKeyInteracts.OstKeyManager;
 import com.ost.walletsdk.ecKeyInteracts.OstRecoveryManager;
 import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
 import com.ost.walletsdk.ecKeyInteracts.structs.SignedAddDeviceStruct;
+import com.ost.walletsdk.models.Impls.OstModelFactory;
 import com.ost.walletsdk.models.entities.OstDevice;
 import com.ost.walletsdk.models.entities.OstDeviceManager;
 import com.ost.walletsdk.models.entities.OstDeviceManagerOperation;
@@ -46,6 +52,7 @@ import com.ost.walletsdk.workflows.errors.OstErrors.ErrorCode;
 import com.ost.walletsdk.workflows.interfaces.OstPinAcceptInterface;
 import com.ost.walletsdk.workflows.interfaces.OstVerifyDataInterface;
 import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+import com.ost.walletsdk.workflows.services.OstPollingPolicy;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -56,15 +63,13 @@ import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
     private static final String TAG = "OstBaseWorkFlow";
-    
-    private final static ThreadPoolExecutor THREAD_POOL_EXECUTOR = (ThreadPoolExecutor) Executors
-            .newFixedThreadPool(1);
+    private static final long FLUSH_WAIT_TIME = 10;
 
     //region - Variables
     OstApiClient mOstApiClient;
@@ -76,6 +81,8 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
     private final WeakReference <OstWorkFlowCallback> workFlowCallbackWeakReference;
     private OstBiometricAuthentication.Callback mBioMetricCallBack;
     private int mPinAskCount = 0;
+    private final AtomicBoolean mAdmitted = new AtomicBoolean(false);
+    private final AtomicBoolean mFinished = new AtomicBoolean(false);
     //endregion
     
     
@@ -87,10 +94,6 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
     protected OstWorkFlowCallback getCallback() {
         return workFlowCallbackWeakReference.get();
     }
-
-    ThreadPoolExecutor getAsyncQueue() {
-        return THREAD_POOL_EXECUTOR;
-    }
     //endregion
     
     
@@ -166,12 +169,37 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
     
     //region - SME methods
     public Future<AsyncStatus> perform() {
-        return getAsyncQueue().submit(new Callable<AsyncStatus>() {
+        //Once admitted, later steps of the workflow are always queued so it can complete.
+        OstWorkflowScheduler.RejectionCallback rejectionCallback = null;
+        if ( mAdmitted.compareAndSet(false, true) ) {
+            mFinished.set(false);
+            rejectionCallback = new OstWorkflowScheduler.RejectionCallback() {
+                @Override
+                public void onRejected(String userId) {
+                    mAdmitted.set(false);
+                    postErrorInterrupt("wf_bwf_p_1", ErrorCode.WORKFLOW_QUEUE_FULL);
+                }
+            };
+        }
+        return OstWorkflowScheduler.getInstance().submit(mUserId, this, new Callable<AsyncStatus>() {
             @Override
             public AsyncStatus call() {
-                return process();
+                AsyncStatus status = process();
+                //A step arriving after the workflow finished took the lane again, hand it back.
+                if ( mFinished.get() ) {
+                    OstWorkflowScheduler.getInstance().release(mUserId, OstBaseWorkFlow.this);
+                }
+                return status;
             }
-        });
+        }, rejectionCallback);
+    }
+
+    /**
+     * Lets the next workflow of the user run, once this one has nothing left to do.
+     */
+    void finishWorkflow() {
+        mFinished.set(true);
+        OstWorkflowScheduler.getInstance().release(mUserId, this);
     }
 
     synchronized protected AsyncStatus process() {
@@ -215,6 +243,9 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
                     return verifyUserPin( (UserPassphrase) stateObject );
 
                 case WorkflowStateManager.AUTHENTICATED:
+                    //Make sure queued entity updates (eg: nonce) are persisted before signing.
+                    flushPendingWrites();
+
                     //Call the abstract method.
                     AsyncStatus status = performOnAuthenticated();
                     if ( !status.isSuccess() ) {
@@ -230,13 +261,19 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
                     }
 
                 case WorkflowStateManager.COMPLETED:
+                    finishWorkflow();
                     return new AsyncStatus(true);
 
                 case WorkflowStateManager.COMPLETED_WITH_ERROR:
+                    finishWorkflow();
                     return new AsyncStatus(false);
                 case WorkflowStateManager.CALLBACK_LOST:
                     Log.w(TAG, "The callback instance has been lost. Workflow class name: " + getClass().getName());
+                    finishWorkflow();
                     return new AsyncStatus(false);
+
+                case WorkflowStateManager.POLLING_FINISHED:
+                    return onPollingFinished( (Bundle) stateObject );
             }
         } catch (OstError ostError) {
             return postErrorInterrupt(ostError);
@@ -486,12 +523,17 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
             JSONObject rulesResponseObject = mOstApiClient.getAllRules();
             JSONArray rulesJsonArray = (JSONArray)new CommonUtils().parseResponseForResultType(rulesResponseObject);
 
+            //Rules of the response are stored by the api client, read them back in one batch.
             int numberOfRules = rulesJsonArray.length();
-            OstRule[] ostRules = new OstRule[numberOfRules];
+            String[] ruleAddresses = new String[numberOfRules];
             for (int i=0; i<numberOfRules; i++) {
-                ostRules[i] = OstRule.parse(
-                        rulesJsonArray.getJSONObject(i)
-                );
+                ruleAddresses[i] = rulesJsonArray.getJSONObject(i).getString(OstRule.ADDRESS);
+            }
+            OstRule[] ostRules = OstRule.getByIds(ruleAddresses);
+            for (int i=0; i<numberOfRules; i++) {
+                if ( null == ostRules[i] ) {
+                    ostRules[i] = OstRule.parse(rulesJsonArray.getJSONObject(i));
+                }
             }
             mOstRules = ostRules;
         } catch (Exception e) {
@@ -572,6 +614,8 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
     }
 
     public void cancelFlow() {
+        //Requests of a cancelled flow are not needed anymore.
+        mOstApiClient.cancelAll();
         performWithState(WorkflowStateManager.CANCELLED);
     }
     //endregion
@@ -595,6 +639,7 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
     }
     AsyncStatus postFlowComplete(OstContextEntity ostContextEntity) {
         Log.i(TAG, "Flow complete");
+        finishWorkflow();
         mHandler.post(new Runnable() {
             @Override
             public void run() {
@@ -618,6 +663,7 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
     }
     
     AsyncStatus postErrorInterrupt(OstError error) {
+        finishWorkflow();
         mHandler.post(new Runnable() {
             @Override
             public void run() {
@@ -719,9 +765,49 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
     protected AsyncStatus onUserDeviceValidationPerformed(Object stateObject) {
         return performNext();
     }
+
+    /**
+     * Called in a new step of the workflow once polling started by {@link #continueAfterPolling} finishes.
+     * @param bundle - bundle of the polling service, see the extras of OstPollingService.
+     */
+    AsyncStatus onPollingFinished(Bundle bundle) {
+        return postErrorInterrupt("wf_bwf_opf_1", ErrorCode.UNKNOWN);
+    }
     //endregion
 
     //region - Helper methods
+    void flushPendingWrites() {
+        try {
+            AsyncStatus status = OstModelFactory.flushPendingWrites().get(FLUSH_WAIT_TIME, TimeUnit.SECONDS);
+            if (!status.isSuccess()) {
+                Log.e(TAG, String.format("Pending entity writes not persisted: %s", status.getMessage()));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to flush pending entity writes", e);
+        }
+    }
+
+    /**
+     * Ends the current step without holding its thread while polling runs,
+     * the workflow continues with {@link #onPollingFinished(Bundle)}.
+     */
+    AsyncStatus continueAfterPolling(ListenableFuture<Bundle> polling) {
+        Futures.addCallback(polling, new FutureCallback<Bundle>() {
+            @Override
+            public void onSuccess(Bundle bundle) {
+                performWithState(WorkflowStateManager.POLLING_FINISHED, bundle);
+            }
+
+            @Override
+            public void onFailure(Throwable th) {
+                Log.e(TAG, "Polling failed", th);
+                //A bundle without extras reads as a polling timeout.
+                performWithState(WorkflowStateManager.POLLING_FINISHED, new Bundle());
+            }
+        }, MoreExecutors.directExecutor());
+        return new AsyncStatus(true);
+    }
+
     String parseResponseForKey(JSONObject jsonObject, String key) {
         String value = null;
         try {
@@ -812,6 +898,7 @@ abstract class OstBaseWorkFlow implements OstPinAcceptInterface {
 
         currentBlockNumber = Long.parseLong(strCurrentBlockNumber);
         blockGenerationTime = Long.parseLong(strBlockGenerationTime);
+        OstPollingPolicy.getInstance().onBlockTime(blockGenerationTime);
         long bufferBlocks = (OstConfigs.getInstance().SESSION_BUFFER_TIME) / blockGenerationTime;
         long expiresAfterBlocks = expiresInSecs / blockGenerationTime;
         long expirationHeight = currentBlockNumber + expiresAfterBlocks + bufferBlocks;
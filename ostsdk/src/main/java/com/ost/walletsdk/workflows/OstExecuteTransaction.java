@@ -28,8 +28,8 @@ import com.ost.walletsdk.workflows.OstWorkflowContext.WORKFLOW_TYPE;
 import com.ost.walletsdk.workflows.errors.OstError;
 import com.ost.walletsdk.workflows.errors.OstErrors;
 import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+import com.ost.walletsdk.workflows.services.OstPendingOperations;
 import com.ost.walletsdk.workflows.services.OstPollingService;
-import com.ost.walletsdk.workflows.services.OstTransactionPollingService;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -59,6 +59,8 @@ public class OstExecuteTransaction extends OstBaseWorkFlow {
     private final List<String> mAmounts;
     private final String mRuleName;
     private final Map<String, Object> mMeta;
+    private String mTransactionId;
+    private String mSessionAddress;
 
     public OstExecuteTransaction(String userId,
                                  List<String> tokenHolderAddresses,
@@ -105,22 +107,29 @@ public class OstExecuteTransaction extends OstBaseWorkFlow {
                 new OstContextEntity(OstTransaction.getById(entityId), OstSdk.TRANSACTION));
 
         Log.i(TAG, "start polling");
-        Bundle bundle = OstTransactionPollingService.startPolling(mUserId, entityId,
-                OstTransaction.CONST_STATUS.SUCCESS, OstTransaction.CONST_STATUS.FAILED);
+        mTransactionId = entityId;
+        mSessionAddress = signedTransactionStruct.getSignerAddress();
+        //Tracked durably, so the transaction is followed up even if the process dies meanwhile.
+        return continueAfterPolling(OstPendingOperations.getInstance().track(mUserId, OstSdk.TRANSACTION, entityId,
+                OstTransaction.CONST_STATUS.SUCCESS, OstTransaction.CONST_STATUS.FAILED));
+    }
+
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
             return postErrorInterrupt("wf_et_pr_5", OstErrors.ErrorCode.POLLING_TIMEOUT);
         }
         if (!bundle.getBoolean(OstPollingService.EXTRA_IS_VALID_RESPONSE, false)) {
             Log.i(TAG, "Not a valid response retrying again");
             try {
-                mOstApiClient.getSession(signedTransactionStruct.getSignerAddress());
+                mOstApiClient.getSession(mSessionAddress);
             } catch (IOException e) {
                 Log.e(TAG, "update sessions error", e);
             }
             return postErrorInterrupt("wf_et_pr_6", OstErrors.ErrorCode.TRANSACTION_API_FAILED);
         } else {
             return postFlowComplete(
-                    new OstContextEntity(OstTransaction.getById(entityId), OstSdk.TRANSACTION)
+                    new OstContextEntity(OstTransaction.getById(mTransactionId), OstSdk.TRANSACTION)
             );
         }
     }
@@ -80,13 +80,21 @@ public class OstLogoutAllSessions extends OstBaseWorkFlow {
         if (null != manager) manager.incrementNonce();
 
         Log.i(TAG, "wait for status update for Logged out");
-        waitForStatusUpdate();
+        return continueAfterPolling(OstTokenHolderPollingService.startPollingAsync(
+                mUserId,
+                mOstUser.getTokenHolderAddress(),
+                OstTokenHolder.CONST_STATUS.LOGGED_OUT,
+                OstTokenHolder.CONST_STATUS.ACTIVE
+        ));
+    }
+
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
+        checkStatusUpdate(bundle);
 
-        postFlowComplete(
+        return postFlowComplete(
                 new OstContextEntity(mOstUser.getTokenHolder(), OstSdk.TOKEN_HOLDER)
         );
-
-        return super.performOnAuthenticated();
     }
 
     private void wipeAllLocalSessions() {
@@ -94,14 +102,7 @@ public class OstLogoutAllSessions extends OstBaseWorkFlow {
         new OstSessionKeyModelRepository().deleteAllSessionKeys();
     }
 
-    private void waitForStatusUpdate() {
-        Bundle bundle = OstTokenHolderPollingService.startPolling(
-                mUserId,
-                mOstUser.getTokenHolderAddress(),
-                OstTokenHolder.CONST_STATUS.LOGGED_OUT,
-                OstTokenHolder.CONST_STATUS.ACTIVE
-        );
-
+    private void checkStatusUpdate(Bundle bundle) {
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
             throw new OstError("wf_loas_pr_3", OstErrors.ErrorCode.POLLING_TIMEOUT);
         }
@@ -75,6 +75,8 @@ public class OstPerform extends OstBaseWorkFlow implements OstVerifyDataInterfac
                     );
                     return new AsyncStatus(true);
                 case WorkflowStateManager.DATA_VERIFIED:
+                    //The workflow started next does the work, it queues behind this one otherwise.
+                    finishWorkflow();
                     dataDefinitionInstance.startDataDefinitionFlow();
                     return new AsyncStatus(true);
             }
@@ -19,6 +19,7 @@ import com.ost.walletsdk.utils.AsyncStatus;
 import com.ost.walletsdk.workflows.errors.OstError;
 import com.ost.walletsdk.workflows.errors.OstErrors.ErrorCode;
 import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+import com.ost.walletsdk.workflows.services.OstPendingOperations;
 
 import org.web3j.crypto.Keys;
 import org.web3j.crypto.WalletUtils;
@@ -26,6 +27,7 @@ import org.web3j.crypto.WalletUtils;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * It will authorize the current device address by revoking provided device address.
@@ -33,6 +35,9 @@ import java.util.Map;
  */
 public class OstRecoverDeviceWorkflow extends OstBaseWorkFlow {
 
+    //Delayed recovery completes after the recovery delay of the recovery contract, hours later.
+    private static final long RECOVERY_TRACKING_TIME = TimeUnit.DAYS.toMillis(2);
+
     private SignedRecoverOperationStruct dataHolder;
     private String deviceAddressToRecover;
     private OstDevice deviceToRecover;
@@ -144,6 +149,10 @@ public class OstRecoverDeviceWorkflow extends OstBaseWorkFlow {
             rm = null;
             Map<String, Object> postData = buildApiRequest( dataHolder );
             mOstApiClient.postInitiateRecovery(postData);
+            //Followed up across process restarts till the current device is authorized or recovery is aborted,
+            //which takes the device from recovering back to registered.
+            OstPendingOperations.getInstance().track(mUserId, OstSdk.DEVICE, mCurrentDevice.getAddress(),
+                    OstDevice.CONST_STATUS.AUTHORIZED, OstDevice.CONST_STATUS.REGISTERED, RECOVERY_TRACKING_TIME);
             OstContextEntity contextEntity = new OstContextEntity(mCurrentDevice, OstSdk.DEVICE);
             postRequestAcknowledge(contextEntity);
             return postFlowComplete(contextEntity);
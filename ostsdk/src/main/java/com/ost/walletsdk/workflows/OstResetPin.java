@@ -47,6 +47,8 @@ public class OstResetPin extends OstBaseWorkFlow {
 
     private final UserPassphrase currentPassphrase;
     private final UserPassphrase newPassphrase;
+    private String mNewRecoveryOwnerAddress;
+    private OstRecoveryOwner mRecoveryOwner;
 
     public OstResetPin(String userId, UserPassphrase currentPassphrase, UserPassphrase newPassphrase, OstWorkFlowCallback workFlowCallback) {
         super(userId, workFlowCallback);
@@ -82,7 +84,6 @@ public class OstResetPin extends OstBaseWorkFlow {
 
     @Override
     protected AsyncStatus onUserDeviceValidationPerformed(Object stateObject) {
-        String newRecoveryOwnerAddress = "";
         try {
             mOstApiClient.getDevice(mOstUser.getCurrentDevice().getAddress());
         } catch (IOException e) {
@@ -100,8 +101,8 @@ public class OstResetPin extends OstBaseWorkFlow {
             return postErrorInterrupt(error.getInternalErrorCode(), error.getErrorCode());
         }
 
-        newRecoveryOwnerAddress = struct.getNewRecoveryOwnerAddress();
-        Map<String, Object> requestMap = buildApiRequest(newRecoveryOwnerAddress,
+        mNewRecoveryOwnerAddress = struct.getNewRecoveryOwnerAddress();
+        Map<String, Object> requestMap = buildApiRequest(mNewRecoveryOwnerAddress,
                 struct.getRecoveryOwnerAddress(), struct.getRecoveryContractAddress(), struct.getSignature());
 
         JSONObject postRecoveryAddresssResponse = null;
@@ -113,27 +114,29 @@ public class OstResetPin extends OstBaseWorkFlow {
 
         JSONObject jsonData = postRecoveryAddresssResponse.optJSONObject(OstConstants.RESPONSE_DATA);
         JSONObject resultTypeObject = jsonData.optJSONObject(jsonData.optString(OstConstants.RESULT_TYPE));
-        OstRecoveryOwner ostRecoveryOwner = null;
         try {
-            ostRecoveryOwner = OstRecoveryOwner.parse(resultTypeObject);
+            mRecoveryOwner = OstRecoveryOwner.parse(resultTypeObject);
         } catch (JSONException e) {
             return postErrorInterrupt("wf_rp_udv_1", OstErrors.ErrorCode.POST_RESET_RECOVERY_API_FAILED);
         }
 
-        postRequestAcknowledge(new OstWorkflowContext(getWorkflowType()), new OstContextEntity(ostRecoveryOwner, OstSdk.RECOVERY_OWNER));
+        postRequestAcknowledge(new OstWorkflowContext(getWorkflowType()), new OstContextEntity(mRecoveryOwner, OstSdk.RECOVERY_OWNER));
 
         Log.i(TAG, "Waiting for update");
-        Bundle bundle = OstRecoveryPollingService.startPolling(mUserId, newRecoveryOwnerAddress, OstRecoveryOwner.CONST_STATUS.AUTHORIZED,
-                OstRecoveryOwner.CONST_STATUS.AUTHORIZATION_FAILED);
+        return continueAfterPolling(OstRecoveryPollingService.startPollingAsync(mUserId, mNewRecoveryOwnerAddress,
+                OstRecoveryOwner.CONST_STATUS.AUTHORIZED, OstRecoveryOwner.CONST_STATUS.AUTHORIZATION_FAILED));
+    }
 
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
-            Log.d(TAG, String.format("Polling time out for recovery owner Id: %s", newRecoveryOwnerAddress));
+            Log.d(TAG, String.format("Polling time out for recovery owner Id: %s", mNewRecoveryOwnerAddress));
             return postErrorInterrupt("wf_rp_udv_2", OstErrors.ErrorCode.POLLING_TIMEOUT);
         }
 
         Log.i(TAG, "Response received for RecoveryOwner");
         return postFlowComplete(
-                new OstContextEntity(ostRecoveryOwner, OstSdk.RECOVERY_OWNER)
+                new OstContextEntity(mRecoveryOwner, OstSdk.RECOVERY_OWNER)
         );
     }
 
@@ -116,8 +116,12 @@ public class OstRevokeDevice extends OstBaseWorkFlow {
 
     private AsyncStatus pollForStatus() {
         Log.i(TAG, "Waiting for update");
-        Bundle bundle = OstDevicePollingService.startPolling(mUserId, mDeviceToBeRevoked, OstDevice.CONST_STATUS.REVOKED,
-                OstDevice.CONST_STATUS.AUTHORIZED);
+        return continueAfterPolling(OstDevicePollingService.startPollingAsync(mUserId, mDeviceToBeRevoked,
+                OstDevice.CONST_STATUS.REVOKED, OstDevice.CONST_STATUS.AUTHORIZED));
+    }
+
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
             Log.d(TAG, String.format("Polling time out for device Id: %s", mDeviceToBeRevoked));
             return postErrorInterrupt("wf_rd_pr_5", ErrorCode.POLLING_TIMEOUT);
@@ -13,18 +13,22 @@ package com.ost.walletsdk.workflows;
 import android.os.Looper;
 import android.util.Log;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.models.entities.OstSession;
 import com.ost.walletsdk.models.entities.OstUser;
 import com.ost.walletsdk.network.OstApiClient;
-import com.ost.walletsdk.network.OstApiError;
-import com.ost.walletsdk.utils.AsyncStatus;
-import com.ost.walletsdk.utils.DispatchAsync;
+import com.ost.walletsdk.network.OstConnectivity;
 
-import java.io.IOException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Helper Class to sync OstSdk entities
@@ -45,7 +49,6 @@ class OstSdkSync {
 
     private final String mUserId;
     private final SYNC_ENTITY[] mSyncParams;
-    private CountDownLatch mCountDownLatch;
 
     public OstSdkSync(String userId) {
         mUserId = userId;
@@ -66,53 +69,73 @@ class OstSdkSync {
             throw new RuntimeException(String.format("%s: SyncOperation on MainThread Exception", TAG));
         }
 
-        mCountDownLatch = new CountDownLatch(mSyncParams.length);
+        //Offline requests fail right away, wait for the network to come back within the sync time.
+        long syncStart = System.nanoTime();
+        try {
+            if (!OstConnectivity.getInstance().awaitConnected(TimeUnit.SECONDS.toMillis(WAIT_TIME))) {
+                Log.e(TAG, "Sync skipped, network not available");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Log.e(TAG, String.format("Sync Wait Exception: %s", e.getMessage()));
+            return;
+        }
+        long waitNanos = TimeUnit.SECONDS.toNanos(WAIT_TIME) - (System.nanoTime() - syncStart);
 
+        OstApiClient ostApiClient = new OstApiClient(mUserId);
+        List<ListenableFuture<JSONObject>> futures = new ArrayList<>();
         for (SYNC_ENTITY entity : mSyncParams) {
-            sync(entity);
+            sync(ostApiClient, entity, futures);
         }
 
+        //Requests run concurrently on the shared http engine, failed ones resolve to null.
+        ListenableFuture<List<JSONObject>> allResponses = Futures.successfulAsList(futures);
         try {
-            mCountDownLatch.await(WAIT_TIME, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Log.e(TAG, String.format("Sync Wait TimeOutException: %s", e.getMessage()));
+            allResponses.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            Log.e(TAG, "Sync Wait TimeOutException");
+            ostApiClient.cancelAll();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, String.format("Sync Wait Exception: %s", e.getMessage()));
+            ostApiClient.cancelAll();
         }
     }
 
-    private void sync(SYNC_ENTITY entity) {
-        DispatchAsync.dispatch(new DispatchAsync.Executor() {
-            @Override
-            public AsyncStatus call() {
-                try {
-                    OstApiClient ostApiClient = new OstApiClient(mUserId);
-                    OstUser ostUser = OstUser.getById(mUserId);
-                    Log.i(TAG, String.format("Sync request for %s", entity.toString()));
-                    if (SYNC_ENTITY.TOKEN == entity) {
-                        ostApiClient.getToken();
-                    } else if (SYNC_ENTITY.USER == entity) {
-                        ostApiClient.getUser();
-                    } else if (SYNC_ENTITY.DEVICE == entity) {
-                        ostApiClient.getDevice(ostUser.getCurrentDevice().getAddress());
-                    } else if (SYNC_ENTITY.SESSION == entity) {
-                        List<OstSession> ostSessionList = OstSession.getSessionsToSync(mUserId);
-                        for (OstSession ostSession : ostSessionList) {
-                            try {
-                                ostApiClient.getSession(ostSession.getAddress());
-                            } catch (OstApiError ostApiError) {
-                                //Do nothing
-                            }
-                        }
-                    } else if (SYNC_ENTITY.DEVICE_MANAGER == entity) {
-                        ostApiClient.getDeviceManager();
-                    }
-                    Log.i(TAG, String.format("Sync response for %s", entity.toString()));
-                } catch (IOException e) {
-                    Log.e(TAG, String.format("IOException: %s", e.getCause()));
-                } finally {
-                    mCountDownLatch.countDown();
+    private void sync(OstApiClient ostApiClient, final SYNC_ENTITY entity,
+                      List<ListenableFuture<JSONObject>> futures) {
+        List<ListenableFuture<JSONObject>> entityFutures = new ArrayList<>();
+        try {
+            OstUser ostUser = OstUser.getById(mUserId);
+            Log.i(TAG, String.format("Sync request for %s", entity.toString()));
+            if (SYNC_ENTITY.TOKEN == entity) {
+                entityFutures.add(ostApiClient.getTokenAsync());
+            } else if (SYNC_ENTITY.USER == entity) {
+                entityFutures.add(ostApiClient.getUserAsync());
+            } else if (SYNC_ENTITY.DEVICE == entity) {
+                entityFutures.add(ostApiClient.getDeviceAsync(ostUser.getCurrentDevice().getAddress()));
+            } else if (SYNC_ENTITY.SESSION == entity) {
+                List<OstSession> ostSessionList = OstSession.getSessionsToSync(mUserId);
+                for (OstSession ostSession : ostSessionList) {
+                    entityFutures.add(ostApiClient.getSessionAsync(ostSession.getAddress()));
                 }
-                return new AsyncStatus(true);
+            } else if (SYNC_ENTITY.DEVICE_MANAGER == entity) {
+                entityFutures.add(ostApiClient.getDeviceManagerAsync());
+            }
+        } catch (Throwable th) {
+            Log.e(TAG, String.format("Sync request for %s failed: %s", entity.toString(), th.getMessage()));
+        }
+
+        Futures.addCallback(Futures.successfulAsList(entityFutures), new FutureCallback<List<JSONObject>>() {
+            @Override
+            public void onSuccess(List<JSONObject> result) {
+                Log.i(TAG, String.format("Sync response for %s", entity.toString()));
+            }
+
+            @Override
+            public void onFailure(Throwable th) {
+                Log.e(TAG, String.format("Sync for %s failed: %s", entity.toString(), th.getMessage()));
             }
         });
+        futures.addAll(entityFutures);
     }
-}
\ No newline at end of file
+}
@@ -50,8 +50,10 @@ class OstStartPolling extends OstBaseWorkFlow {
 
     @Override
     protected AsyncStatus process() {
+        if (WorkflowStateManager.POLLING_FINISHED.equals(stateManager.getCurrentState())) {
+            return super.process();
+        }
 
-        Bundle bundle;
         Log.d(TAG, String.format("Polling workflow for userId: %s started", mUserId));
 
         Log.i(TAG, "validate params");
@@ -60,37 +62,22 @@ class OstStartPolling extends OstBaseWorkFlow {
         }
         switch (mEntityType) {
             case OstSdk.USER:
-                bundle = OstUserPollingService.startPolling(mUserId, mEntityId, mFromStatus, mToStatus);
-                AsyncStatus userStatus = waitForUpdate(bundle);
-                if (!userStatus.isSuccess()) return userStatus;
-
-                return postFlowComplete(new OstContextEntity(OstUser.getById(mEntityId), mEntityType));
+                return continueAfterPolling(OstUserPollingService.startPollingAsync(mUserId, mEntityId, mFromStatus, mToStatus));
 
             case OstSdk.DEVICE:
-                bundle = OstDevicePollingService.startPolling(mUserId, mEntityId, mFromStatus, mToStatus);
-                AsyncStatus deviceStatus = waitForUpdate(bundle);
-                if (!deviceStatus.isSuccess()) return deviceStatus;
-
-                return postFlowComplete(new OstContextEntity(OstDevice.getById(mEntityId), mEntityType));
+                return continueAfterPolling(OstDevicePollingService.startPollingAsync(mUserId, mEntityId, mFromStatus, mToStatus));
 
             case OstSdk.SESSION:
-                bundle = OstSessionPollingService.startPolling(mUserId, mEntityId, mFromStatus, mToStatus);
-                AsyncStatus sessionStatus = waitForUpdate(bundle);
-                if (!sessionStatus.isSuccess()) return sessionStatus;
-
-                return postFlowComplete(new OstContextEntity(OstSession.getById(mEntityId), mEntityType));
+                return continueAfterPolling(OstSessionPollingService.startPollingAsync(mUserId, mEntityId, mFromStatus, mToStatus));
 
             case OstSdk.TRANSACTION:
-                bundle = OstTransactionPollingService.startPolling(mUserId, mEntityId, mFromStatus, mToStatus);
-                AsyncStatus transactionStatus = waitForUpdate(bundle);
-                if (!transactionStatus.isSuccess()) return transactionStatus;
-
-                return postFlowComplete(new OstContextEntity(OstTransaction.getById(mEntityId), mEntityType));
+                return continueAfterPolling(OstTransactionPollingService.startPollingAsync(mUserId, mEntityId, mFromStatus, mToStatus));
         }
         return postErrorInterrupt("wf_sp_pr_4", OstErrors.ErrorCode.UNKNOWN_ENTITY_TYPE);
     }
 
-    private AsyncStatus waitForUpdate(Bundle bundle) {
+    @Override
+    AsyncStatus onPollingFinished(Bundle bundle) {
         Log.i(TAG, "Waiting for update");
         if (bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT, true)) {
             Log.d(TAG, String.format("Polling time out for %s Id: %s", mEntityType, mEntityId));
@@ -100,6 +87,18 @@ class OstStartPolling extends OstBaseWorkFlow {
             Log.d(TAG, String.format("Polling time out for %s Id: %s", mEntityType, mEntityId));
             return postErrorInterrupt("wf_sp_pr_3", OstErrors.ErrorCode.POLLING_API_FAILED);
         }
-        return new AsyncStatus(true);
+        switch (mEntityType) {
+            case OstSdk.USER:
+                return postFlowComplete(new OstContextEntity(OstUser.getById(mEntityId), mEntityType));
+
+            case OstSdk.DEVICE:
+                return postFlowComplete(new OstContextEntity(OstDevice.getById(mEntityId), mEntityType));
+
+            case OstSdk.SESSION:
+                return postFlowComplete(new OstContextEntity(OstSession.getById(mEntityId), mEntityType));
+
+            default:
+                return postFlowComplete(new OstContextEntity(OstTransaction.getById(mEntityId), mEntityType));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+
+package com.ost.walletsdk.workflows;
+
+import android.util.Log;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ost.walletsdk.utils.AsyncStatus;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs workflows in one serial lane per user.
+ * Workflows of a user run one at a time in submission order, while lanes of different users run in
+ * parallel on a small shared pool. A workflow holds the lane of its user from its first step until
+ * it is released, so workflows reading and spending the same nonce never overlap. A lane hands its
+ * thread back after every step, so a busy user can not starve the others. Workflows wait in their
+ * lane, and new workflows are turned away once too many steps are waiting, instead of piling up
+ * behind a slow network.
+ */
+public final class OstWorkflowScheduler {
+    private static final String TAG = "OstWorkflowScheduler";
+
+    private static final int MAX_RUNNING_WORKFLOWS = 4;
+    private static final int MAX_QUEUED_WORKFLOWS = 64;
+    private static final int MAX_QUEUED_USER_WORKFLOWS = 16;
+    private static final String UNKNOWN_USER = "";
+
+    private static final OstWorkflowScheduler INSTANCE = new OstWorkflowScheduler(
+            Executors.newFixedThreadPool(MAX_RUNNING_WORKFLOWS, new ThreadFactoryBuilder()
+                    .setNameFormat("ost-workflow-%d")
+                    .setDaemon(true)
+                    .build()),
+            MAX_QUEUED_WORKFLOWS,
+            MAX_QUEUED_USER_WORKFLOWS);
+
+    public static OstWorkflowScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Told when a step is turned away because too many steps are waiting.
+     */
+    public interface RejectionCallback {
+        void onRejected(String userId);
+    }
+
+    /**
+     * Snapshot of the scheduler counters.
+     */
+    public static final class Stats {
+        private final long mSubmittedCount;
+        private final long mRejectedCount;
+        private final long mStartedCount;
+        private final long mCompletedCount;
+        private final long mTotalWaitNanos;
+        private final long mMaxWaitNanos;
+        private final int mQueueDepth;
+        private final int mRunningCount;
+
+        private Stats(OstWorkflowScheduler scheduler) {
+            mSubmittedCount = scheduler.mSubmittedCount;
+            mRejectedCount = scheduler.mRejectedCount;
+            mStartedCount = scheduler.mStartedCount;
+            mCompletedCount = scheduler.mCompletedCount;
+            mTotalWaitNanos = scheduler.mTotalWaitNanos;
+            mMaxWaitNanos = scheduler.mMaxWaitNanos;
+            mQueueDepth = scheduler.mQueueDepth;
+            mRunningCount = scheduler.mRunningCount;
+        }
+
+        /**
+         * @return steps accepted, rejected ones excluded.
+         */
+        public long getSubmittedCount() {
+            return mSubmittedCount;
+        }
+
+        public long getRejectedCount() {
+            return mRejectedCount;
+        }
+
+        public long getCompletedCount() {
+            return mCompletedCount;
+        }
+
+        public long getStartedCount() {
+            return mStartedCount;
+        }
+
+        /**
+         * @return average time steps waited from submission until running, 0 before any step ran.
+         */
+        public long getAverageWaitMillis() {
+            return 0 == mStartedCount ? 0 : TimeUnit.NANOSECONDS.toMillis(mTotalWaitNanos / mStartedCount);
+        }
+
+        public long getMaxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(mMaxWaitNanos);
+        }
+
+        /**
+         * @return steps waiting in all lanes, including steps of workflows waiting for their lane.
+         */
+        public int getQueueDepth() {
+            return mQueueDepth;
+        }
+
+        /**
+         * @return lanes having a step on the pool.
+         */
+        public int getRunningCount() {
+            return mRunningCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("submitted %d, rejected %d, completed %d, queued %d, running %d, wait avg %dms max %dms",
+                    mSubmittedCount, mRejectedCount, mCompletedCount, mQueueDepth, mRunningCount,
+                    getAverageWaitMillis(), getMaxWaitMillis());
+        }
+    }
+
+    private static final class Lane {
+        //Steps of the workflow holding the lane.
+        private final ArrayDeque<Step> mSteps = new ArrayDeque<>();
+        //Steps of workflows waiting for the lane, in submission order.
+        private final ArrayDeque<Step> mWaiting = new ArrayDeque<>();
+        private Object mHolder;
+        private boolean mRunning;
+
+        private int size() {
+            return mSteps.size() + mWaiting.size();
+        }
+
+        private boolean isIdle() {
+            return null == mHolder && !mRunning && mSteps.isEmpty() && mWaiting.isEmpty();
+        }
+
+        /**
+         * Hands the lane to the workflow waiting the longest, along with all its waiting steps.
+         */
+        private void admitNext() {
+            if (mWaiting.isEmpty()) {
+                return;
+            }
+            mHolder = mWaiting.peek().mWorkflow;
+            Iterator<Step> iterator = mWaiting.iterator();
+            while (iterator.hasNext()) {
+                Step step = iterator.next();
+                if (step.mWorkflow == mHolder) {
+                    iterator.remove();
+                    mSteps.add(step);
+                }
+            }
+        }
+    }
+
+    private final class Step implements Runnable {
+        private final String mLaneKey;
+        private final Object mWorkflow;
+        private final ListenableFutureTask<AsyncStatus> mFutureTask;
+        private final long mSubmittedAt = System.nanoTime();
+
+        private Step(String laneKey, Object workflow, Callable<AsyncStatus> callable) {
+            mLaneKey = laneKey;
+            mWorkflow = workflow;
+            mFutureTask = ListenableFutureTask.create(callable);
+        }
+
+        @Override
+        public void run() {
+            onStepStarted(mSubmittedAt);
+            try {
+                mFutureTask.run();
+            } finally {
+                onStepFinished(mLaneKey);
+            }
+        }
+    }
+
+    private final Executor mExecutor;
+    private final int mMaxQueued;
+    private final int mMaxQueuedPerUser;
+    private final HashMap<String, Lane> mLanes = new HashMap<>();
+
+    private long mSubmittedCount;
+    private long mRejectedCount;
+    private long mStartedCount;
+    private long mCompletedCount;
+    private long mTotalWaitNanos;
+    private long mMaxWaitNanos;
+    private int mQueueDepth;
+    private int mRunningCount;
+
+    /**
+     * @param executor         pool the lanes run on, its thread count bounds the users served at once
+     * @param maxQueued        steps allowed to wait in all lanes
+     * @param maxQueuedPerUser steps allowed to wait in the lane of a user
+     */
+    OstWorkflowScheduler(Executor executor, int maxQueued, int maxQueuedPerUser) {
+        mExecutor = executor;
+        mMaxQueued = maxQueued;
+        mMaxQueuedPerUser = maxQueuedPerUser;
+    }
+
+    /**
+     * Queues a step of a workflow in the lane of the user.
+     * The first step of a workflow takes the lane when it is free, otherwise it waits until the
+     * workflows submitted before have been released. The workflow then keeps the lane, and its later
+     * steps run without waiting for other workflows, until {@link #release(String, Object)}.
+     *
+     * @param userId            user whose lane runs the step
+     * @param workflow          workflow the step belongs to, steps of a workflow pass the same instance
+     * @param callable          step to run
+     * @param rejectionCallback told when the step is turned away, null to always queue the step,
+     *                          as for steps of workflows already running
+     * @return future of the step, a rejected step completes with a failed status
+     */
+    public ListenableFuture<AsyncStatus> submit(String userId, Object workflow, Callable<AsyncStatus> callable,
+                                                RejectionCallback rejectionCallback) {
+        String laneKey = null == userId ? UNKNOWN_USER : userId;
+        Step step = new Step(laneKey, workflow, callable);
+        boolean runLane;
+        synchronized (this) {
+            Lane lane = mLanes.get(laneKey);
+            int laneDepth = null == lane ? 0 : lane.size();
+            if (null != rejectionCallback && (mQueueDepth >= mMaxQueued || laneDepth >= mMaxQueuedPerUser)) {
+                mRejectedCount++;
+                step = null;
+                runLane = false;
+            } else {
+                if (null == lane) {
+                    lane = new Lane();
+                    mLanes.put(laneKey, lane);
+                }
+                if (null == lane.mHolder && lane.mWaiting.isEmpty()) {
+                    lane.mHolder = workflow;
+                }
+                if (lane.mHolder == workflow) {
+                    lane.mSteps.add(step);
+                } else {
+                    lane.mWaiting.add(step);
+                }
+                mSubmittedCount++;
+                mQueueDepth++;
+                runLane = startLane(lane);
+            }
+        }
+
+        if (null == step) {
+            Log.w(TAG, String.format("Workflow of user %s rejected, %s", userId, getStats()));
+            rejectionCallback.onRejected(userId);
+            return Futures.immediateFuture(new AsyncStatus(false));
+        }
+        if (runLane) {
+            runNext(laneKey);
+        }
+        return step.mFutureTask;
+    }
+
+    /**
+     * Hands the lane of the user to the next waiting workflow.
+     * Called once the workflow is done, calling it again or for a workflow not holding the lane does
+     * nothing. A step the workflow submits later waits for the lane again.
+     *
+     * @param userId   user whose lane the workflow holds
+     * @param workflow workflow passed with its steps
+     */
+    public void release(String userId, Object workflow) {
+        String laneKey = null == userId ? UNKNOWN_USER : userId;
+        boolean runLane;
+        synchronized (this) {
+            Lane lane = mLanes.get(laneKey);
+            if (null == lane || lane.mHolder != workflow) {
+                return;
+            }
+            lane.mHolder = null;
+            //Steps the workflow queued before releasing still run, ahead of the next workflow.
+            if (lane.mSteps.isEmpty()) {
+                lane.admitNext();
+            }
+            if (lane.isIdle()) {
+                mLanes.remove(laneKey);
+            }
+            runLane = startLane(lane);
+        }
+        if (runLane) {
+            runNext(laneKey);
+        }
+    }
+
+    private boolean startLane(Lane lane) {
+        if (lane.mRunning || lane.mSteps.isEmpty()) {
+            return false;
+        }
+        lane.mRunning = true;
+        mRunningCount++;
+        return true;
+    }
+
+    private void runNext(String laneKey) {
+        Step step;
+        synchronized (this) {
+            step = mLanes.get(laneKey).mSteps.poll();
+            mQueueDepth--;
+        }
+        mExecutor.execute(step);
+    }
+
+    private synchronized void onStepStarted(long submittedAt) {
+        long waitNanos = System.nanoTime() - submittedAt;
+        mStartedCount++;
+        mTotalWaitNanos += waitNanos;
+        mMaxWaitNanos = Math.max(mMaxWaitNanos, waitNanos);
+    }
+
+    private void onStepFinished(String laneKey) {
+        boolean runLane;
+        synchronized (this) {
+            mCompletedCount++;
+            Lane lane = mLanes.get(laneKey);
+            if (lane.mSteps.isEmpty() && null == lane.mHolder) {
+                lane.admitNext();
+            }
+            runLane = !lane.mSteps.isEmpty();
+            if (!runLane) {
+                lane.mRunning = false;
+                mRunningCount--;
+                if (lane.isIdle()) {
+                    mLanes.remove(laneKey);
+                }
+            }
+        }
+        //Going to the back of the pool queue lets lanes of other users run in between.
+        if (runLane) {
+            runNext(laneKey);
+        }
+    }
+
+    /**
+     * @return steps waiting in the lane of the user, including steps of workflows waiting for the lane.
+     */
+    public synchronized int getQueueDepth(String userId) {
+        Lane lane = mLanes.get(null == userId ? UNKNOWN_USER : userId);
+        return null == lane ? 0 : lane.size();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(this);
+    }
+
+    /**
+     * Clears the counters, waiting and running steps are kept.
+     */
+    public synchronized void resetStats() {
+        mSubmittedCount = 0;
+        mRejectedCount = 0;
+        mStartedCount = 0;
+        mCompletedCount = 0;
+        mTotalWaitNanos = 0;
+        mMaxWaitNanos = 0;
+    }
+}
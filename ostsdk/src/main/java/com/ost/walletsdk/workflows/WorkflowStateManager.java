@@ -31,6 +31,7 @@ class WorkflowStateManager {
     public static final String VERIFY_DATA = "VERIFY_DATA";
     public static final String DATA_VERIFIED = "DATA_VERIFIED";
     public static final String CALLBACK_LOST = "CALLBACK_LOST";
+    public static final String POLLING_FINISHED = "POLLING_FINISHED";
 
 
     private int mCurrentState = 0;
@@ -53,6 +54,7 @@ class WorkflowStateManager {
         orderedStates.add(COMPLETED);
         orderedStates.add(COMPLETED_WITH_ERROR);
         orderedStates.add(CALLBACK_LOST);
+        orderedStates.add(POLLING_FINISHED);
     }
 
 
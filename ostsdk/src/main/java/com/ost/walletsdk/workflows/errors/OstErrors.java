@@ -215,6 +215,8 @@ public class OstErrors {
                 return "Logout request of all sessions failed";
             case TOKEN_HOLDER_API_FAILED:
                 return "Token holder get api returned failed response";
+            case WORKFLOW_QUEUE_FULL:
+                return "Too many workflows are waiting to be executed. Please retry once pending workflows complete.";
             //Important Note for P.M.:
             //This is a special case. Do not add return in front of UNKNOWN:
             case UNKNOWN:
@@ -316,6 +318,7 @@ public class OstErrors {
         //Generic
         UNKNOWN,
         WORKFLOW_CANCELLED,
+        WORKFLOW_QUEUE_FULL,
         UNCAUGHT_EXCEPTION_HANDELED,
         DEPRECATED,
         FAILED_TO_GENERATE_ETH_KEY,
@@ -12,6 +12,7 @@ package com.ost.walletsdk.workflows.services;
 
 import android.os.Bundle;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.models.entities.OstDevice;
@@ -20,19 +21,31 @@ import com.ost.walletsdk.network.OstApiClient;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
+import java.util.Set;
 
 public class OstDevicePollingService extends OstPollingService {
 
     private static final String TAG = "OstDevicePollingService";
 
-    private OstDevicePollingService(String userId, String entityId, String successStatus, String failedStatus) {
+    OstDevicePollingService(String userId, String entityId, String successStatus, String failedStatus) {
         super(userId, entityId, successStatus, failedStatus);
     }
 
-    public static Bundle startPolling(String userId, String entityId, String successStatus, String failedStatus) {
+    public static ListenableFuture<Bundle> startPollingAsync(String userId, String entityId, String successStatus, String failedStatus) {
         OstDevicePollingService ostDevicePollingService = new OstDevicePollingService(userId, entityId, successStatus, failedStatus);
-        return ostDevicePollingService.waitForUpdate();
+        return ostDevicePollingService.getUpdateAsync();
+    }
+
+    /**
+     * A device is registered before recovery as well as after recovery is aborted, registered only
+     * means failure once the device was seen recovering.
+     */
+    @Override
+    boolean isFailed(String failedStatus, Set<String> seenStatuses) {
+        if (OstDevice.CONST_STATUS.REGISTERED.equalsIgnoreCase(failedStatus)) {
+            return seenStatuses.contains(OstDevice.CONST_STATUS.RECOVERING);
+        }
+        return true;
     }
 
     @Override
@@ -46,8 +59,8 @@ public class OstDevicePollingService extends OstPollingService {
     }
 
     @Override
-    protected JSONObject poll(String deviceId, String entityId) throws IOException {
-        return new OstApiClient(deviceId).getDevice(entityId);
+    protected ListenableFuture<JSONObject> pollAsync(String deviceId, String entityId) {
+        return new OstApiClient(deviceId).getDeviceAsync(entityId);
     }
 
     @Override
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import org.json.JSONObject;
+
+/**
+ * In-process {@link OstStatusChannel}, updates published on it are received like pushed ones.
+ * Meant for tests and for apps bridging a push source they already have.
+ */
+public final class OstLocalStatusChannel implements OstStatusChannel {
+
+    private volatile Receiver mReceiver;
+
+    @Override
+    public void open(Receiver receiver) {
+        mReceiver = receiver;
+    }
+
+    @Override
+    public void close() {
+        mReceiver = null;
+    }
+
+    /**
+     * @return false when the channel is not open and the update is dropped
+     */
+    public boolean publish(String userId, String entityType, JSONObject entity) {
+        Receiver receiver = mReceiver;
+        if (null == receiver) {
+            return false;
+        }
+        receiver.onEntityUpdate(userId, entityType, entity);
+        return true;
+    }
+}
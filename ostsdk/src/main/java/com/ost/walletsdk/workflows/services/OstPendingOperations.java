@@ -0,0 +1,277 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.Impls.OstPendingOperationModelRepository;
+import com.ost.walletsdk.models.OstPendingOperationModel;
+import com.ost.walletsdk.models.entities.OstPendingOperation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks entities awaited to reach a status across process death.
+ * <p>
+ * A tracked operation is stored in the pending_operation table before polling starts and removed
+ * once the entity reaches the success or failed status, the response turns invalid or the deadline
+ * passes. Polling that times out or fails before the deadline goes on at a long fixed interval till
+ * the deadline, the row is kept meanwhile. Operations left over by a process that died are resumed
+ * on {@link OstSdk#initialize}, listeners learn about them like about operations tracked in this
+ * process.
+ */
+public final class OstPendingOperations {
+    private static final String TAG = "OstPendingOperations";
+
+    //Interval of polls once polling at the intervals of the polling policy timed out.
+    private static final long REPOLL_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private static final OstPendingOperations INSTANCE = new OstPendingOperations();
+
+    public interface Listener {
+        void onOperationStarted(OstPendingOperation operation);
+
+        /**
+         * @param result bundle of the polling service, see the extras of {@link OstPollingService}
+         */
+        void onOperationFinished(OstPendingOperation operation, Bundle result);
+    }
+
+    /**
+     * Starts polling of the entity of an operation.
+     */
+    interface Poller {
+        /**
+         * @param intervalMillis fixed interval of polls, 0 for the intervals of the polling policy
+         * @param timeoutMillis  time after which polls at a fixed interval give up
+         */
+        ListenableFuture<Bundle> startPolling(OstPendingOperation operation, long intervalMillis, long timeoutMillis);
+
+        /**
+         * @return true if polling ended without the entity reaching the success or failed status
+         */
+        boolean isPollingTimeout(Bundle bundle);
+    }
+
+    private static final Poller POLLER = new Poller() {
+        @Override
+        public ListenableFuture<Bundle> startPolling(OstPendingOperation operation, long intervalMillis,
+                                                     long timeoutMillis) {
+            OstPollingService pollingService = newPollingService(operation);
+            if (null == pollingService) {
+                Log.e(TAG, String.format("Unknown entity type of %s", operation.getId()));
+                return Futures.immediateFuture(new Bundle());
+            }
+            return pollingService.getUpdateAsync(intervalMillis, timeoutMillis);
+        }
+
+        @Override
+        public boolean isPollingTimeout(Bundle bundle) {
+            return bundle.containsKey(OstPollingService.EXTRA_ENTITY_ID)
+                    && bundle.getBoolean(OstPollingService.EXTRA_IS_POLLING_TIMEOUT);
+        }
+    };
+
+    private final Map<String, SettableFuture<Bundle>> mTracked = new HashMap<>();
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+    private final Poller mPoller;
+    private final Executor mExecutor;
+    private OstPendingOperationModel mModel;
+
+    public static OstPendingOperations getInstance() {
+        return INSTANCE;
+    }
+
+    private OstPendingOperations() {
+        this(null, POLLER, OstPollScheduler.getScheduler());
+    }
+
+    /**
+     * @param model    store of operations, the pending_operation table when null
+     * @param executor runs resumed operations
+     */
+    OstPendingOperations(OstPendingOperationModel model, Poller poller, Executor executor) {
+        mModel = model;
+        mPoller = poller;
+        mExecutor = executor;
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * @return operations of the user in flight, including ones resumed from a previous process
+     */
+    public List<OstPendingOperation> getPendingOperations(String userId) {
+        return Arrays.asList(getModel().getPendingOperationsOfUser(userId));
+    }
+
+    /**
+     * Tracks the entity for as long as polling waits by default, see {@link OstPollingPolicy#getTimeout}.
+     */
+    public ListenableFuture<Bundle> track(String userId, String entityType, String entityId,
+                                          String successStatus, String failedStatus) {
+        return track(userId, entityType, entityId, successStatus, failedStatus,
+                OstPollingPolicy.getInstance().getTimeout(entityType, successStatus));
+    }
+
+    /**
+     * @param trackingMillis time after which tracking gives up
+     * @return future of the bundle of the polling service, completed once tracking finishes
+     */
+    public ListenableFuture<Bundle> track(String userId, String entityType, String entityId,
+                                          String successStatus, String failedStatus, long trackingMillis) {
+        long now = System.currentTimeMillis();
+        OstPendingOperation operation = new OstPendingOperation(OstPendingOperation.getId(entityType, entityId),
+                userId, entityType, entityId, successStatus, failedStatus, now + trackingMillis, now);
+        getModel().insertPendingOperation(operation);
+        return start(operation);
+    }
+
+    /**
+     * Resumes tracking of operations stored by a previous process, off the calling thread.
+     */
+    public void resume() {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long now = System.currentTimeMillis();
+                for (OstPendingOperation operation : getModel().getAllPendingOperations()) {
+                    Log.i(TAG, String.format("Resuming tracking of %s", operation.getId()));
+                    if (now >= operation.getDeadline()) {
+                        finish(operation, timeoutBundle(operation));
+                    } else {
+                        start(operation);
+                    }
+                }
+            }
+        });
+    }
+
+    private ListenableFuture<Bundle> start(OstPendingOperation operation) {
+        SettableFuture<Bundle> result;
+        synchronized (this) {
+            result = mTracked.get(operation.getId());
+            if (null != result) {
+                return result;
+            }
+            result = SettableFuture.create();
+            mTracked.put(operation.getId(), result);
+        }
+        for (Listener listener : mListeners) {
+            listener.onOperationStarted(operation);
+        }
+        poll(operation, 0);
+        return result;
+    }
+
+    /**
+     * @param intervalMillis fixed interval of polls, 0 for the intervals of the polling policy
+     */
+    private void poll(final OstPendingOperation operation, long intervalMillis) {
+        long timeoutMillis = Math.max(0, operation.getDeadline() - System.currentTimeMillis());
+        Futures.addCallback(mPoller.startPolling(operation, intervalMillis, timeoutMillis), new FutureCallback<Bundle>() {
+            @Override
+            public void onSuccess(Bundle bundle) {
+                if (mPoller.isPollingTimeout(bundle) && repoll(operation)) {
+                    return;
+                }
+                finish(operation, bundle);
+            }
+
+            @Override
+            public void onFailure(Throwable th) {
+                Log.e(TAG, String.format("Polling of %s failed", operation.getId()), th);
+                if (!repoll(operation)) {
+                    finish(operation, timeoutBundle(operation));
+                }
+            }
+        });
+    }
+
+    /**
+     * @return false if the deadline of the operation passed
+     */
+    private boolean repoll(OstPendingOperation operation) {
+        if (System.currentTimeMillis() >= operation.getDeadline()) {
+            return false;
+        }
+        Log.d(TAG, String.format("Polling of %s ended before the deadline, polling every %d ms",
+                operation.getId(), REPOLL_INTERVAL));
+        poll(operation, REPOLL_INTERVAL);
+        return true;
+    }
+
+    private static OstPollingService newPollingService(OstPendingOperation operation) {
+        String userId = operation.getUserId();
+        String entityId = operation.getEntityId();
+        String successStatus = operation.getSuccessStatus();
+        String failedStatus = operation.getFailedStatus();
+        switch (operation.getEntityType()) {
+            case OstSdk.TRANSACTION:
+                return new OstTransactionPollingService(userId, entityId, successStatus, failedStatus);
+            case OstSdk.SESSION:
+                return new OstSessionPollingService(userId, entityId, successStatus, failedStatus);
+            case OstSdk.DEVICE:
+                return new OstDevicePollingService(userId, entityId, successStatus, failedStatus);
+            case OstSdk.USER:
+                return new OstUserPollingService(userId, entityId, successStatus, failedStatus);
+            case OstSdk.TOKEN_HOLDER:
+                return new OstTokenHolderPollingService(userId, entityId, successStatus, failedStatus);
+            case OstSdk.RECOVERY_OWNER:
+                return new OstRecoveryPollingService(userId, entityId, successStatus, failedStatus);
+        }
+        return null;
+    }
+
+    private static Bundle timeoutBundle(OstPendingOperation operation) {
+        return OstPollingService.updateBundle(operation.getUserId(), operation.getEntityId(),
+                operation.getEntityType(), true, true);
+    }
+
+    private void finish(OstPendingOperation operation, Bundle result) {
+        getModel().deletePendingOperation(operation.getId());
+        SettableFuture<Bundle> future;
+        synchronized (this) {
+            future = mTracked.remove(operation.getId());
+        }
+        for (Listener listener : mListeners) {
+            listener.onOperationFinished(operation, result);
+        }
+        if (null != future) {
+            future.set(result);
+        }
+    }
+
+    private synchronized OstPendingOperationModel getModel() {
+        if (null == mModel) {
+            mModel = new OstPendingOperationModelRepository();
+        }
+        return mModel;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Scheduler shared by all polling services.
+ * A poller is a task scheduled for its next poll, waiting between polls holds no thread, so a
+ * couple of threads track any number of pending entities.
+ */
+final class OstPollScheduler {
+
+    private static final int POLL_THREADS = 2;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(POLL_THREADS,
+            new ThreadFactoryBuilder()
+                    .setNameFormat("ost-poller-%d")
+                    .setDaemon(true)
+                    .build());
+
+    private OstPollScheduler() {
+    }
+
+    static ScheduledExecutorService getScheduler() {
+        return SCHEDULER;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import com.ost.walletsdk.OstConfigs;
+import com.ost.walletsdk.network.OstNetworkMetrics;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Polling intervals learned from how long entities take to reach each status.
+ * <p>
+ * Every poller reports the time from the start of polling to the first poll seeing a status,
+ * the policy keeps a decaying mean and deviation of it per entity type and status. Polls start
+ * a little before the expected time of the awaited status, run every block till a little after
+ * it, and then back off exponentially. Till enough samples are seen the policy polls like the
+ * fixed intervals did: 6 blocks first and then every block.
+ * The block time starts from BLOCK_GENERATION_TIME of the config and follows the block time
+ * of the latest chain response, see {@link #onBlockTime(long)}.
+ */
+public final class OstPollingPolicy {
+
+    //Weight of a new sample once the first samples are averaged.
+    private static final double SAMPLE_WEIGHT = 0.2;
+    private static final int MIN_SAMPLES = 3;
+    private static final int DEFAULT_INITIAL_BLOCKS = 6;
+    private static final int DEFAULT_POLL_BLOCKS = 10;
+    private static final int MAX_BACKOFF_BLOCKS = 16;
+
+    private static volatile OstPollingPolicy sInstance;
+
+    private final Map<String, Distribution> mDistributions = new HashMap<>();
+    private volatile long mBlockTimeMillis;
+
+    public static OstPollingPolicy getInstance() {
+        if (null == sInstance) {
+            synchronized (OstPollingPolicy.class) {
+                if (null == sInstance) {
+                    sInstance = new OstPollingPolicy(OstConfigs.getInstance().BLOCK_GENERATION_TIME * 1000);
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    OstPollingPolicy(long blockTimeMillis) {
+        mBlockTimeMillis = blockTimeMillis;
+    }
+
+    /**
+     * @param blockTimeSeconds block time of the auxiliary chain, as returned by the chains api
+     */
+    public void onBlockTime(long blockTimeSeconds) {
+        if (blockTimeSeconds > 0) {
+            mBlockTimeMillis = blockTimeSeconds * 1000;
+        }
+    }
+
+    public long getBlockTimeMillis() {
+        return mBlockTimeMillis;
+    }
+
+    /**
+     * Records that polling of an entity first saw the status after elapsedMillis, the updated
+     * distribution goes to the sinks of {@link OstNetworkMetrics}.
+     */
+    public void onStatus(String entityType, String status, long elapsedMillis) {
+        String key = key(entityType, status);
+        Distribution distribution;
+        synchronized (this) {
+            distribution = mDistributions.get(key);
+            distribution = null == distribution
+                    ? new Distribution(1, elapsedMillis, 0)
+                    : distribution.add(elapsedMillis);
+            mDistributions.put(key, distribution);
+        }
+        OstNetworkMetrics.getInstance().recordPollingDistribution(key, distribution);
+    }
+
+    /**
+     * @return delay of the first poll for an entity awaited to reach the status
+     */
+    public long getInitialDelay(String entityType, String status) {
+        long blockTime = mBlockTimeMillis;
+        Distribution distribution = getLearned(entityType, status);
+        if (null == distribution) {
+            return DEFAULT_INITIAL_BLOCKS * blockTime;
+        }
+        return Math.max(blockTime, (long) (distribution.getMeanMillis() - distribution.getDeviationMillis()));
+    }
+
+    /**
+     * @return delay of the next poll, elapsedMillis after polling started
+     */
+    public long getNextDelay(String entityType, String status, long elapsedMillis) {
+        long blockTime = mBlockTimeMillis;
+        long overrun = elapsedMillis - getExpectedEnd(entityType, status, blockTime);
+        if (overrun <= 0) {
+            return blockTime;
+        }
+        //Next poll at twice the overrun, capped.
+        return Math.min(Math.max(blockTime, overrun), MAX_BACKOFF_BLOCKS * blockTime);
+    }
+
+    /**
+     * @return time after which polling gives up waiting for the status
+     */
+    public long getTimeout(String entityType, String status) {
+        long blockTime = mBlockTimeMillis;
+        long defaultTimeout = (DEFAULT_INITIAL_BLOCKS + DEFAULT_POLL_BLOCKS) * blockTime;
+        if (null == getLearned(entityType, status)) {
+            return defaultTimeout;
+        }
+        return Math.max(defaultTimeout, 2 * getExpectedEnd(entityType, status, blockTime));
+    }
+
+    /**
+     * @return snapshot of learned distributions keyed by entity type and status, like "transaction:mined"
+     */
+    public synchronized Map<String, Distribution> getDistributions() {
+        return new HashMap<>(mDistributions);
+    }
+
+    private long getExpectedEnd(String entityType, String status, long blockTime) {
+        Distribution distribution = getLearned(entityType, status);
+        if (null == distribution) {
+            return (DEFAULT_INITIAL_BLOCKS + DEFAULT_POLL_BLOCKS) * blockTime;
+        }
+        return (long) (distribution.getMeanMillis() + 2 * distribution.getDeviationMillis()) + blockTime;
+    }
+
+    private synchronized Distribution getLearned(String entityType, String status) {
+        Distribution distribution = mDistributions.get(key(entityType, status));
+        return null == distribution || distribution.getCount() < MIN_SAMPLES ? null : distribution;
+    }
+
+    private static String key(String entityType, String status) {
+        return String.format("%s:%s", entityType, status.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Immutable decaying mean and deviation of the time to a status.
+     */
+    public static final class Distribution {
+        private final long mCount;
+        private final double mMeanMillis;
+        private final double mVariance;
+
+        Distribution(long count, double meanMillis, double variance) {
+            mCount = count;
+            mMeanMillis = meanMillis;
+            mVariance = variance;
+        }
+
+        Distribution add(long sampleMillis) {
+            long count = mCount + 1;
+            //Plain average of the first samples, recent samples weigh more after that.
+            double weight = Math.max(SAMPLE_WEIGHT, 1.0 / count);
+            double diff = sampleMillis - mMeanMillis;
+            return new Distribution(count, mMeanMillis + weight * diff,
+                    (1 - weight) * (mVariance + weight * diff * diff));
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public double getMeanMillis() {
+            return mMeanMillis;
+        }
+
+        public double getDeviationMillis() {
+            return Math.sqrt(mVariance);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ENGLISH, "count: %d, mean: %.0fms, deviation: %.0fms",
+                    mCount, getMeanMillis(), getDeviationMillis());
+        }
+    }
+}
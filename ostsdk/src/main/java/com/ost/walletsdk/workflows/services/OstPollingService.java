@@ -14,15 +14,26 @@ import android.app.IntentService;
 import android.os.Bundle;
 import android.util.Log;
 
-import com.ost.walletsdk.OstConfigs;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.ost.walletsdk.OstConstants;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.network.OstConnectivity;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An {@link IntentService} subclass for handling asynchronous task requests in
@@ -38,113 +49,340 @@ public abstract class OstPollingService {
     public static final String EXTRA_IS_POLLING_TIMEOUT = "com.ost.mobilesdk.workflows.extra.IS_POLLING_TIMEOUT";
     public static final String EXTRA_IS_VALID_RESPONSE = "com.ost.mobilesdk.workflows.extra.IS_VALID_RESPONSE";
 
-    private static final int POLL_MAX_COUNT = 10;
-
     private static final String TAG = "OstPollingService";
-    private static final long POLLING_INTERVAL = OstConfigs.getInstance().BLOCK_GENERATION_TIME * 1000;
-    private static final long INITIAL_POLLING_INTERVAL = 6 * POLLING_INTERVAL;
+    //Polling is only a fallback while updates may be pushed, polls after the first are stretched.
+    private static final int PUSH_FALLBACK_FACTOR = 4;
     private final String failedStatus;
     private final String successStatus;
     private final String entityId;
     private final String userId;
-    private int pollCount;
+    private final ScheduledExecutorService scheduler;
+    private final OstPollingPolicy policy;
+    private final OstConnectivity connectivity;
+    private final OstStatusChannels statusChannels;
+    private final SettableFuture<Bundle> update = SettableFuture.create();
+    private final Set<String> seenStatuses = new HashSet<>();
+    private long pollingStart;
+    private boolean isWaitingForNetwork;
+    private boolean isPolling;
+    private boolean isPollRequested;
+    //Fixed interval and timeout of polls, used instead of the policy when set.
+    private long fixedIntervalMillis;
+    private long fixedTimeoutMillis;
+    private long offlineSince;
+    private long offlineWait;
+    private ScheduledFuture<?> nextPoll;
+
+    private final OstConnectivity.Listener connectivityListener = new OstConnectivity.Listener() {
+        @Override
+        public void onConnectivityChanged(boolean isConnected, boolean isMetered) {
+            synchronized (OstPollingService.this) {
+                if (isConnected && isWaitingForNetwork) {
+                    //Poll right away instead of waiting for the interval to pass.
+                    nextPoll.cancel(false);
+                    schedulePoll(0);
+                }
+            }
+        }
+    };
+
+    private final OstStatusChannels.Subscriber pushSubscriber = new OstStatusChannels.Subscriber() {
+        @Override
+        public void onPushedUpdate() {
+            onPushedHint();
+        }
+    };
+
+    private final Runnable pollTask = new Runnable() {
+        @Override
+        public void run() {
+            onPollTime();
+        }
+    };
 
     public OstPollingService(String userId, String entityId, String successStatus, String failedStatus) {
+        this(userId, entityId, successStatus, failedStatus, OstPollScheduler.getScheduler(),
+                OstPollingPolicy.getInstance(), OstConnectivity.getInstance(), OstStatusChannels.getInstance());
+    }
+
+    OstPollingService(String userId, String entityId, String successStatus, String failedStatus,
+                      ScheduledExecutorService scheduler, OstPollingPolicy policy, OstConnectivity connectivity,
+                      OstStatusChannels statusChannels) {
         this.userId = userId;
         this.entityId = entityId;
         this.successStatus = successStatus;
         this.failedStatus = failedStatus;
-        this.pollCount = POLL_MAX_COUNT;
+        this.scheduler = scheduler;
+        this.policy = policy;
+        this.connectivity = connectivity;
+        this.statusChannels = statusChannels;
+    }
+
+    /**
+     * Starts polling on the shared poll scheduler, no thread is held between polls.
+     *
+     * @return future of the update bundle, completed once the entity reaches the success or failed
+     * status, or polling times out
+     */
+    synchronized public ListenableFuture<Bundle> getUpdateAsync() {
+        return getUpdateAsync(0, 0);
     }
 
-    synchronized public Bundle waitForUpdate() {
+    /**
+     * Polls at a fixed interval instead of the intervals of the polling policy, the first poll
+     * after one interval. Fixed polls are not learned from.
+     *
+     * @param intervalMillis interval of polls, 0 for the intervals of the policy
+     * @param timeoutMillis  time after which polling gives up, used with an interval only
+     */
+    synchronized ListenableFuture<Bundle> getUpdateAsync(long intervalMillis, long timeoutMillis) {
+        if (null != nextPoll || update.isDone()) {
+            return update;
+        }
         if (!isValidUserId(userId)) {
             Log.e(TAG, String.format("Invalid User Id: %s", userId));
-            return new Bundle();
+            update.set(new Bundle());
+            return update;
         }
 
         if (!validateParams(entityId, successStatus, failedStatus)) {
             Log.e(TAG, String.format("Invalid Entity Params for Entity: %s, EntityId: %s, " +
                             "From Status: %s, To Status: %s", getEntityName(), entityId,
                     successStatus, failedStatus));
-            return new Bundle();
+            update.set(new Bundle());
+            return update;
         }
 
-        try {
-            wait(INITIAL_POLLING_INTERVAL);
-        } catch (InterruptedException e) {
-            Log.e(TAG, String.format("Initial polling interval wait interrupted for %s entity Id: %s", getEntityName(), entityId), e);
+        connectivity.addListener(connectivityListener);
+        statusChannels.subscribe(getEntityName(), entityId, pushSubscriber);
+        update.addListener(new Runnable() {
+            @Override
+            public void run() {
+                connectivity.removeListener(connectivityListener);
+                statusChannels.unsubscribe(getEntityName(), entityId, pushSubscriber);
+                synchronized (OstPollingService.this) {
+                    nextPoll.cancel(false);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        fixedIntervalMillis = intervalMillis;
+        fixedTimeoutMillis = timeoutMillis;
+        pollingStart = System.currentTimeMillis();
+        schedulePoll(isFixedInterval() ? Math.min(fixedIntervalMillis, fixedTimeoutMillis)
+                : policy.getInitialDelay(getEntityName(), successStatus));
+        return update;
+    }
+
+    private boolean isFixedInterval() {
+        return 0 < fixedIntervalMillis;
+    }
+
+    private long getNextDelay(long elapsed) {
+        if (isFixedInterval()) {
+            return fixedIntervalMillis;
         }
-        return startPolling();
+        long delayMillis = policy.getNextDelay(getEntityName(), successStatus, elapsed);
+        return statusChannels.hasChannels() ? PUSH_FALLBACK_FACTOR * delayMillis : delayMillis;
     }
 
-    synchronized protected Bundle startPolling() {
-        while (pollCount > 0) {
-            Log.i(TAG, String.format("Polling... of entity %s", getEntityName()));
-            JSONObject response = null;
-            try {
-                response = poll(userId, entityId);
-            } catch (IOException e) {
-                Log.e(TAG, String.format("IOException: %s", e.getCause()));
-            }
+    private long getTimeout() {
+        return isFixedInterval() ? fixedTimeoutMillis : policy.getTimeout(getEntityName(), successStatus);
+    }
 
-            Log.d(TAG, String.format("Response of %s poll is %s", getEntityName(), response.toString()));
-            Log.i(TAG, String.format("Checking response validity of %s entity", getEntityName()));
-            boolean isValidResponse = isResponseValid(response);
-            Log.d(TAG, String.format("Response of %s entity validity: %b", getEntityName(), isValidResponse));
-            if (!isValidResponse) {
-                return sendUpdateMessage(userId, entityId, false, false);
-            }
+    private void schedulePoll(long delayMillis) {
+        nextPoll = scheduler.schedule(pollTask, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized private void onPollTime() {
+        //A poll in flight schedules the next one once answered.
+        if (update.isDone() || isPolling) {
+            return;
+        }
+        if (isWaitingForNetwork) {
+            isWaitingForNetwork = false;
+            offlineWait += System.currentTimeMillis() - offlineSince;
+        }
+        if (!connectivity.isConnected()) {
+            waitForNetwork();
+            return;
+        }
 
-            Log.i(TAG, String.format("Checking %s entity update status", getEntityName()));
-            String status = updatedGivenStatus(response, successStatus, failedStatus);
-            if (null != status) {
-                Log.d(TAG, String.format("Is %s entity updated status %s", getEntityName(), status));
-                return sendUpdateMessage(userId, entityId, false, status.equalsIgnoreCase(successStatus));
+        Log.i(TAG, String.format("Polling... of entity %s", getEntityName()));
+        isPolling = true;
+        Futures.addCallback(pollAsync(userId, entityId), new FutureCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject response) {
+                onPollResponse(response);
             }
-            pollCount = pollCount - 1;
-            try {
-                wait(POLLING_INTERVAL);
-            } catch (InterruptedException e) {
-                Log.e(TAG, String.format("Initial polling interval wait interrupted for %s entity Id: %s", getEntityName(), entityId), e);
+
+            @Override
+            public void onFailure(Throwable th) {
+                Log.e(TAG, String.format("Poll of %s entity failed: %s", getEntityName(), th.getMessage()));
+                onPollResponse(null);
             }
+        }, scheduler);
+    }
+
+    synchronized private void onPollResponse(JSONObject response) {
+        isPolling = false;
+        if (update.isDone()) {
+            return;
+        }
+        Log.d(TAG, String.format("Response of %s poll is %s", getEntityName(), response));
+        Log.i(TAG, String.format("Checking response validity of %s entity", getEntityName()));
+        boolean isValidResponse = isResponseValid(response);
+        Log.d(TAG, String.format("Response of %s entity validity: %b", getEntityName(), isValidResponse));
+        if (!isValidResponse && !connectivity.isConnected()) {
+            //Network went away during the poll, wait for it without using up polling time.
+            waitForNetwork();
+            return;
+        }
+        if (!isValidResponse) {
+            update.set(sendUpdateMessage(userId, entityId, false, false));
+            return;
         }
 
-        Log.d(TAG, String.format("Poll count reach to zero for %s", getEntityName()));
-        return sendUpdateMessage(userId, entityId, true);
+        Log.i(TAG, String.format("Checking %s entity update status", getEntityName()));
+        if (isUpdated(response)) {
+            return;
+        }
+        long elapsed = getElapsed();
+        long timeout = getTimeout();
+        if (elapsed >= timeout) {
+            Log.d(TAG, String.format("Polling timed out for %s", getEntityName()));
+            update.set(sendUpdateMessage(userId, entityId, true));
+            return;
+        }
+        long delay = isPollRequested ? 0 : getNextDelay(elapsed);
+        isPollRequested = false;
+        //Stretched polls still end with a poll at the timeout.
+        schedulePoll(Math.min(delay, timeout - elapsed));
+    }
+
+    synchronized private void onPushedHint() {
+        if (update.isDone() || isWaitingForNetwork) {
+            return;
+        }
+        Log.i(TAG, String.format("Pushed update of %s entity %s, polling it", getEntityName(), entityId));
+        if (isPolling) {
+            //The poll in flight may have been answered before the update.
+            isPollRequested = true;
+            return;
+        }
+        nextPoll.cancel(false);
+        schedulePoll(0);
+    }
+
+    /**
+     * Records the status of the entity in the response and completes the update on success or
+     * failed status.
+     */
+    private boolean isUpdated(JSONObject response) {
+        String currentStatus = getCurrentStatus(response);
+        if (null != currentStatus && seenStatuses.add(currentStatus.toLowerCase(Locale.ENGLISH))
+                && !isFixedInterval()) {
+            policy.onStatus(getEntityName(), currentStatus, getElapsed());
+        }
+        String status = updatedGivenStatus(currentStatus, successStatus, failedStatus);
+        if (null == status) {
+            return false;
+        }
+        if (status.equalsIgnoreCase(failedStatus) && !isFailed(failedStatus, Collections.unmodifiableSet(seenStatuses))) {
+            Log.d(TAG, String.format("%s entity in status %s but not failed yet", getEntityName(), status));
+            return false;
+        }
+        Log.d(TAG, String.format("Is %s entity updated status %s", getEntityName(), status));
+        update.set(sendUpdateMessage(userId, entityId, false, status.equalsIgnoreCase(successStatus)));
+        return true;
+    }
+
+    private long getElapsed() {
+        //Offline time is not counted, polling resumes where it was when the network is back.
+        long offline = isWaitingForNetwork ? System.currentTimeMillis() - offlineSince : 0;
+        return System.currentTimeMillis() - pollingStart - offlineWait - offline;
+    }
+
+    /**
+     * Tells whether the entity in the failed status has failed, for entities whose failed status is
+     * also a status they are in before the awaited change.
+     *
+     * @param seenStatuses statuses seen while polling, in lower case
+     */
+    boolean isFailed(String failedStatus, Set<String> seenStatuses) {
+        return true;
+    }
+
+    private void waitForNetwork() {
+        //Offline time does not use up polling time, but is capped to it.
+        if (offlineWait >= getTimeout()) {
+            Log.d(TAG, String.format("Network not back in time for %s", getEntityName()));
+            update.set(sendUpdateMessage(userId, entityId, true));
+            return;
+        }
+        Log.i(TAG, String.format("Offline, polling of entity %s waits for network", getEntityName()));
+        isWaitingForNetwork = true;
+        offlineSince = System.currentTimeMillis();
+        schedulePoll(policy.getBlockTimeMillis());
+    }
+
+    /**
+     * @return response of the entity, shaped like the api response of the entity type
+     */
+    static JSONObject entityResponse(String entityType, JSONObject entity) {
+        try {
+            JSONObject jsonData = new JSONObject();
+            jsonData.put(OstConstants.RESULT_TYPE, entityType);
+            jsonData.put(entityType, entity);
+            JSONObject response = new JSONObject();
+            response.put(OstConstants.RESPONSE_SUCCESS, true);
+            response.put(OstConstants.RESPONSE_DATA, jsonData);
+            return response;
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private Bundle sendUpdateMessage(String userId, String entityId, boolean pollingTimeout) {
         return sendUpdateMessage(userId, entityId, pollingTimeout, true);
     }
 
-    private Bundle sendUpdateMessage(String userId, String entityId, boolean pollingTimeout, boolean validResponse) {
+    Bundle sendUpdateMessage(String userId, String entityId, boolean pollingTimeout, boolean validResponse) {
+        return updateBundle(userId, entityId, getEntityName(), pollingTimeout, validResponse);
+    }
+
+    static Bundle updateBundle(String userId, String entityId, String entityType, boolean pollingTimeout,
+                               boolean validResponse) {
         Bundle bundle = new Bundle();
         // You can also include some extra data.
         bundle.putString(EXTRA_USER_ID, userId);
         bundle.putString(EXTRA_ENTITY_ID, entityId);
-        bundle.putString(EXTRA_ENTITY_TYPE, getEntityName());
+        bundle.putString(EXTRA_ENTITY_TYPE, entityType);
         bundle.putBoolean(EXTRA_IS_POLLING_TIMEOUT, pollingTimeout);
         bundle.putBoolean(EXTRA_IS_VALID_RESPONSE, validResponse);
 
         return bundle;
     }
 
-    private boolean isValidUserId(String userId) {
+    boolean isValidUserId(String userId) {
         return null != OstSdk.getUser(userId);
     }
 
-    private String updatedGivenStatus(JSONObject response, String entitySuccessStatus, String entityFailureStatus) {
+    private String getCurrentStatus(JSONObject response) {
         JSONObject jsonData = response.optJSONObject(OstConstants.RESPONSE_DATA);
         JSONObject entityObject = jsonData.optJSONObject(getEntityName());
-        String currentStatus;
         try {
             OstBaseEntity ostBaseEntity = parseEntity(entityObject);
-            currentStatus = ostBaseEntity.getStatus();
+            return ostBaseEntity.getStatus();
         } catch (JSONException e) {
             Log.d(TAG, "JSONException", e);
             return null;
         }
+    }
+
+    private String updatedGivenStatus(String currentStatus, String entitySuccessStatus, String entityFailureStatus) {
+        if (null == currentStatus) {
+            return null;
+        }
         Log.d(TAG, String.format("Entity Success status: %s, Entity Failure status %s, Entity Current status %s",
                 entitySuccessStatus, entityFailureStatus, currentStatus));
 
@@ -161,6 +399,9 @@ public abstract class OstPollingService {
     protected abstract OstBaseEntity parseEntity(JSONObject entityObject) throws JSONException;
 
     private boolean isResponseValid(JSONObject response) {
+        if (null == response) {
+            return false;
+        }
         try {
             if (!response.getBoolean(OstConstants.RESPONSE_SUCCESS)) {
                 return false;
@@ -176,7 +417,10 @@ public abstract class OstPollingService {
 
     protected abstract String getEntityName();
 
-    protected abstract JSONObject poll(String userId, String entityId) throws IOException;
+    /**
+     * Fetches the entity, the returned future must not block the poll scheduler.
+     */
+    protected abstract ListenableFuture<JSONObject> pollAsync(String userId, String entityId);
 
     protected abstract boolean validateParams(String entityId, String successStatus, String failedStatus);
 }
\ No newline at end of file
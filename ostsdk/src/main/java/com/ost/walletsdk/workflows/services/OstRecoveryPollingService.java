@@ -15,6 +15,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.models.entities.OstRecoveryOwner;
@@ -23,19 +24,17 @@ import com.ost.walletsdk.network.OstApiClient;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
-
 public class OstRecoveryPollingService extends OstPollingService {
 
     private static final String TAG = "OstRecoveryPollingService";
 
-    private OstRecoveryPollingService(String userId, String entityId, String successStatus, String failedStatus) {
+    OstRecoveryPollingService(String userId, String entityId, String successStatus, String failedStatus) {
         super(userId, entityId, successStatus, failedStatus);
     }
 
-    public static Bundle startPolling(String userId, String entityId, String successStatus, String failedStatus) {
+    public static ListenableFuture<Bundle> startPollingAsync(String userId, String entityId, String successStatus, String failedStatus) {
         OstRecoveryPollingService ostRecoveryPollingService = new OstRecoveryPollingService(userId, entityId, successStatus, failedStatus);
-        return ostRecoveryPollingService.waitForUpdate();
+        return ostRecoveryPollingService.getUpdateAsync();
     }
 
     @Override
@@ -49,8 +48,8 @@ public class OstRecoveryPollingService extends OstPollingService {
     }
 
     @Override
-    protected JSONObject poll(String userId, String entityId) throws IOException {
-        return new OstApiClient(userId).getRecoveryOwnerAddress(entityId);
+    protected ListenableFuture<JSONObject> pollAsync(String userId, String entityId) {
+        return new OstApiClient(userId).getRecoveryOwnerAddressAsync(entityId);
     }
 
     @Override
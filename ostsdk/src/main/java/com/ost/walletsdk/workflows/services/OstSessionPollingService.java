@@ -15,6 +15,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.models.entities.OstSession;
@@ -23,19 +24,17 @@ import com.ost.walletsdk.network.OstApiClient;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
-
 public class OstSessionPollingService extends OstPollingService {
 
     private static final String TAG = "OstSessionPollingService";
 
-    private OstSessionPollingService(String userId, String entityId, String successStatus, String failureStatus) {
+    OstSessionPollingService(String userId, String entityId, String successStatus, String failureStatus) {
         super(userId, entityId, successStatus, failureStatus);
     }
 
-    public static Bundle startPolling(String userId, String entityId, String successStatus, String failureStatus) {
+    public static ListenableFuture<Bundle> startPollingAsync(String userId, String entityId, String successStatus, String failureStatus) {
         OstSessionPollingService ostSessionPollingService = new OstSessionPollingService(userId, entityId, successStatus, failureStatus);
-        return ostSessionPollingService.waitForUpdate();
+        return ostSessionPollingService.getUpdateAsync();
     }
 
     @Override
@@ -49,8 +48,8 @@ public class OstSessionPollingService extends OstPollingService {
     }
 
     @Override
-    protected JSONObject poll(String userId, String entityId) throws IOException {
-        return new OstApiClient(userId).getSession(entityId);
+    protected ListenableFuture<JSONObject> pollAsync(String userId, String entityId) {
+        return new OstApiClient(userId).getSessionAsync(entityId);
     }
 
     @Override
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import org.json.JSONObject;
+
+/**
+ * Source of pushed entity updates, like FCM data messages forwarded by the app or a WebSocket.
+ * <p>
+ * A channel added through {@link OstStatusChannels#addChannel(OstStatusChannel)} is opened with
+ * the receiver it hands entity updates to. An update is only a hint: pollers waiting on the entity
+ * fetch it right away with a signed api call, and only that api response is stored. Pushed json is
+ * never stored, so a channel need not authenticate its source. Polling carries on at a longer
+ * interval as a fallback.
+ */
+public interface OstStatusChannel {
+
+    /**
+     * Starts delivering updates to the receiver, till {@link #close()}.
+     */
+    void open(Receiver receiver);
+
+    void close();
+
+    interface Receiver {
+        /**
+         * @param userId     user the entity belongs to
+         * @param entityType entity type, like {@link com.ost.walletsdk.OstSdk#TRANSACTION}
+         * @param entity     entity json as returned by OST Platform apis, only its id is read
+         */
+        void onEntityUpdate(String userId, String entityType, JSONObject entity);
+    }
+}
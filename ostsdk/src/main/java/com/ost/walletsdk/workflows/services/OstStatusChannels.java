@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import android.util.Log;
+
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstRecoveryOwner;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstTokenHolder;
+import com.ost.walletsdk.models.entities.OstTransaction;
+import com.ost.walletsdk.models.entities.OstUser;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Receives entity updates of every added {@link OstStatusChannel}.
+ * Pushed json is not authenticated, so it is never stored or handed on. An update only makes the
+ * pollers waiting on the entity poll it right away, the entity is then stored from the signed api
+ * response like any polled one. Updates are handled on the poll scheduler, so a channel may
+ * deliver them on any thread.
+ */
+public final class OstStatusChannels {
+    private static final String TAG = "OstStatusChannels";
+
+    private static final OstStatusChannels INSTANCE = new OstStatusChannels(new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            OstPollScheduler.getScheduler().execute(command);
+        }
+    });
+
+    //Key of the entity id in the json of each entity type.
+    private static final Map<String, String> IDENTIFIERS;
+    static {
+        HashMap<String, String> identifiers = new HashMap<>();
+        identifiers.put(OstSdk.TRANSACTION, OstTransaction.getIdentifier());
+        identifiers.put(OstSdk.SESSION, OstSession.getIdentifier());
+        identifiers.put(OstSdk.DEVICE, OstDevice.getIdentifier());
+        identifiers.put(OstSdk.RECOVERY_OWNER, OstRecoveryOwner.getIdentifier());
+        identifiers.put(OstSdk.USER, OstUser.getIdentifier());
+        identifiers.put(OstSdk.TOKEN_HOLDER, OstTokenHolder.getIdentifier());
+        IDENTIFIERS = Collections.unmodifiableMap(identifiers);
+    }
+
+    /**
+     * Poller waiting on an entity.
+     */
+    interface Subscriber {
+        /**
+         * Called when an update of the entity is pushed, the entity should be polled right away.
+         */
+        void onPushedUpdate();
+    }
+
+    private final Executor mExecutor;
+    private final CopyOnWriteArrayList<OstStatusChannel> mChannels = new CopyOnWriteArrayList<>();
+    private final Map<String, List<Subscriber>> mSubscribers = new HashMap<>();
+
+    private final OstStatusChannel.Receiver mReceiver = new OstStatusChannel.Receiver() {
+        @Override
+        public void onEntityUpdate(final String userId, final String entityType, final JSONObject entity) {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(userId, entityType, entity);
+                }
+            });
+        }
+    };
+
+    public static OstStatusChannels getInstance() {
+        return INSTANCE;
+    }
+
+    OstStatusChannels(Executor executor) {
+        mExecutor = executor;
+    }
+
+    public void addChannel(OstStatusChannel channel) {
+        if (mChannels.addIfAbsent(channel)) {
+            channel.open(mReceiver);
+        }
+    }
+
+    public void removeChannel(OstStatusChannel channel) {
+        if (mChannels.remove(channel)) {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return true when updates may be pushed, pollers then fall back to longer intervals
+     */
+    public boolean hasChannels() {
+        return !mChannels.isEmpty();
+    }
+
+    synchronized void subscribe(String entityType, String entityId, Subscriber subscriber) {
+        String key = key(entityType, entityId);
+        List<Subscriber> subscribers = mSubscribers.get(key);
+        if (null == subscribers) {
+            subscribers = new ArrayList<>();
+            mSubscribers.put(key, subscribers);
+        }
+        subscribers.add(subscriber);
+    }
+
+    synchronized void unsubscribe(String entityType, String entityId, Subscriber subscriber) {
+        String key = key(entityType, entityId);
+        List<Subscriber> subscribers = mSubscribers.get(key);
+        if (null != subscribers && subscribers.remove(subscriber) && subscribers.isEmpty()) {
+            mSubscribers.remove(key);
+        }
+    }
+
+    private void deliver(String userId, String entityType, JSONObject entity) {
+        String identifier = IDENTIFIERS.get(entityType);
+        String entityId = null == identifier || null == entity ? null : entity.optString(identifier, null);
+        if (null == entityId) {
+            Log.e(TAG, String.format("Dropping pushed update of entity type %s without id", entityType));
+            return;
+        }
+        List<Subscriber> subscribers;
+        synchronized (this) {
+            List<Subscriber> entitySubscribers = mSubscribers.get(key(entityType, entityId));
+            subscribers = null == entitySubscribers
+                    ? Collections.<Subscriber>emptyList() : new ArrayList<>(entitySubscribers);
+        }
+        if (subscribers.isEmpty()) {
+            Log.d(TAG, String.format("No poller waits on pushed %s %s", entityType, entityId));
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onPushedUpdate();
+        }
+    }
+
+    private static String key(String entityType, String entityId) {
+        return String.format("%s:%s", entityType, entityId.toLowerCase(Locale.ENGLISH));
+    }
+}
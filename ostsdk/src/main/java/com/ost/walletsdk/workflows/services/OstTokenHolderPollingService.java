@@ -12,6 +12,7 @@ package com.ost.walletsdk.workflows.services;
 
 import android.os.Bundle;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.models.entities.OstTokenHolder;
@@ -20,26 +21,24 @@ import com.ost.walletsdk.network.OstApiClient;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
-
 public class OstTokenHolderPollingService  extends OstPollingService {
 
     private static final String TAG = "OstTokenHolderPollingService";
 
     /**
      * Polls OstTokenHolder entity periodically.
-     * It polls on the caller's thread synchronously.
+     * Polls run on the shared poll scheduler without holding the caller's thread.
      *
      * @param userId        user id of user to which token holder is associated
      * @param tokenHolderId Token holder id
      * @param successStatus Success status to poll
      * @param failureStatus Failure status to report
-     * @return Bundle hash map having response
+     * @return future of the Bundle hash map having response
      */
-    public static Bundle startPolling(String userId,
-                                      String tokenHolderId,
-                                      String successStatus,
-                                      String failureStatus) {
+    public static ListenableFuture<Bundle> startPollingAsync(String userId,
+                                                             String tokenHolderId,
+                                                             String successStatus,
+                                                             String failureStatus) {
         OstTokenHolderPollingService ostTokenHolderPollingService = new OstTokenHolderPollingService(
                 userId,
                 tokenHolderId,
@@ -47,10 +46,10 @@ public class OstTokenHolderPollingService  extends OstPollingService {
                 failureStatus
         );
 
-        return ostTokenHolderPollingService.waitForUpdate();
+        return ostTokenHolderPollingService.getUpdateAsync();
     }
 
-    private OstTokenHolderPollingService(String userId,
+    OstTokenHolderPollingService(String userId,
                                          String tokenHolderId,
                                          String successStatus,
                                          String failedStatus) {
@@ -73,8 +72,8 @@ public class OstTokenHolderPollingService  extends OstPollingService {
     }
 
     @Override
-    protected JSONObject poll(String userId, String entityId) throws IOException {
-        return new OstApiClient(userId).getTokenHolder();
+    protected ListenableFuture<JSONObject> pollAsync(String userId, String entityId) {
+        return new OstApiClient(userId).getTokenHolderAsync();
     }
 
     @Override
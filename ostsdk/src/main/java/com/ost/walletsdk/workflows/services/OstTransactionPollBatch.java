@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.ost.walletsdk.OstConstants;
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.entities.OstTransaction;
+import com.ost.walletsdk.network.OstApiClient;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces transaction polls of a user into one list call.
+ * Polls of a user arriving within a quarter block time form a batch. A batch of several
+ * transactions is resolved with one call for the latest transactions of the user, transactions
+ * not on that page are fetched one by one. The list response goes through the response parser
+ * of the api client like any other response, so the db has every transaction of the page.
+ * Pollers of a batch get their responses together and so stay in step for the following polls.
+ * A poll of the only transaction of the user being polled has nothing to wait for and is fetched
+ * right away.
+ */
+final class OstTransactionPollBatch {
+    private static final String TAG = "OstTransactionPollBatch";
+
+    //Share of a block time polls of a batch may wait for each other.
+    private static final int BATCH_WINDOW_DIVISOR = 4;
+    //Largest page of the transactions list api.
+    private static final int LIST_LIMIT = 25;
+
+    private static volatile OstTransactionPollBatch sInstance;
+
+    /**
+     * Transaction calls of the api client.
+     */
+    interface Api {
+        ListenableFuture<JSONObject> getLatestTransactions(String userId, int limit);
+
+        ListenableFuture<JSONObject> getTransaction(String userId, String transactionId);
+    }
+
+    private final ScheduledExecutorService mScheduler;
+    private final OstPollingPolicy mPolicy;
+    private final Api mApi;
+    //Guarded by mOpenBatches, like mPending.
+    private final Map<String, Batch> mOpenBatches = new HashMap<>();
+    private final Map<String, Set<String>> mPending = new HashMap<>();
+
+    static OstTransactionPollBatch getInstance() {
+        if (null == sInstance) {
+            synchronized (OstTransactionPollBatch.class) {
+                if (null == sInstance) {
+                    sInstance = new OstTransactionPollBatch(OstPollScheduler.getScheduler(),
+                            OstPollingPolicy.getInstance(), new Api() {
+                        @Override
+                        public ListenableFuture<JSONObject> getLatestTransactions(String userId, int limit) {
+                            return new OstApiClient(userId).getLatestTransactionsAsync(limit);
+                        }
+
+                        @Override
+                        public ListenableFuture<JSONObject> getTransaction(String userId, String transactionId) {
+                            return new OstApiClient(userId).getTransactionAsync(transactionId);
+                        }
+                    });
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    OstTransactionPollBatch(ScheduledExecutorService scheduler, OstPollingPolicy policy, Api api) {
+        mScheduler = scheduler;
+        mPolicy = policy;
+        mApi = api;
+    }
+
+    /**
+     * Counts the transaction as polled till the update completes.
+     */
+    void track(final String userId, final String transactionId, ListenableFuture<Bundle> update) {
+        synchronized (mOpenBatches) {
+            Set<String> pending = mPending.get(userId);
+            if (null == pending) {
+                pending = new HashSet<>();
+                mPending.put(userId, pending);
+            }
+            pending.add(transactionId);
+        }
+        update.addListener(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (mOpenBatches) {
+                    Set<String> pending = mPending.get(userId);
+                    if (null != pending && pending.remove(transactionId) && pending.isEmpty()) {
+                        mPending.remove(userId);
+                    }
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * @return future of the transaction response, shaped like the response of
+     * {@link OstApiClient#getTransactionAsync(String)}
+     */
+    ListenableFuture<JSONObject> poll(String userId, String transactionId) {
+        synchronized (mOpenBatches) {
+            Batch batch = mOpenBatches.get(userId);
+            if (null == batch) {
+                if (!hasOtherPending(userId, transactionId)) {
+                    return mApi.getTransaction(userId, transactionId);
+                }
+                batch = new Batch(userId);
+                mOpenBatches.put(userId, batch);
+                batch.scheduleFlush();
+            }
+            return batch.add(transactionId);
+        }
+    }
+
+    private boolean hasOtherPending(String userId, String transactionId) {
+        Set<String> pending = mPending.get(userId);
+        return null != pending && (pending.size() > 1 || !pending.contains(transactionId));
+    }
+
+    /**
+     * Polls of a user within one batch window.
+     */
+    private final class Batch {
+        private final String mUserId;
+        private final Map<String, SettableFuture<JSONObject>> mPolls = new LinkedHashMap<>();
+
+        private Batch(String userId) {
+            mUserId = userId;
+        }
+
+        private ListenableFuture<JSONObject> add(String transactionId) {
+            SettableFuture<JSONObject> future = mPolls.get(transactionId);
+            if (null == future) {
+                future = SettableFuture.create();
+                mPolls.put(transactionId, future);
+            }
+            return future;
+        }
+
+        private void scheduleFlush() {
+            mScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, mPolicy.getBlockTimeMillis() / BATCH_WINDOW_DIVISOR, TimeUnit.MILLISECONDS);
+        }
+
+        private void flush() {
+            //Polls arriving from now on open the next batch.
+            synchronized (mOpenBatches) {
+                mOpenBatches.remove(mUserId);
+            }
+            if (1 == mPolls.size()) {
+                fetchEach(mPolls.keySet());
+                return;
+            }
+
+            Log.d(TAG, String.format("Polling %d transactions of user %s with one list call", mPolls.size(), mUserId));
+            Futures.addCallback(mApi.getLatestTransactions(mUserId, LIST_LIMIT), new FutureCallback<JSONObject>() {
+                @Override
+                public void onSuccess(JSONObject response) {
+                    resolve(response);
+                }
+
+                @Override
+                public void onFailure(Throwable th) {
+                    Log.e(TAG, String.format("Transactions list call failed: %s", th.getMessage()));
+                    fetchEach(mPolls.keySet());
+                }
+            }, mScheduler);
+        }
+
+        private void resolve(JSONObject response) {
+            List<String> stragglers = new ArrayList<>(mPolls.keySet());
+            JSONObject jsonData = response.optJSONObject(OstConstants.RESPONSE_DATA);
+            JSONArray transactions = null == jsonData ? null : jsonData.optJSONArray(OstSdk.TRANSACTIONS);
+            for (int cnt = 0; null != transactions && cnt < transactions.length(); cnt++) {
+                JSONObject transaction = transactions.optJSONObject(cnt);
+                String transactionId = null == transaction ? null : transaction.optString(OstTransaction.getIdentifier());
+                if (stragglers.remove(transactionId)) {
+                    mPolls.get(transactionId).set(OstPollingService.entityResponse(OstSdk.TRANSACTION, transaction));
+                }
+            }
+            if (!stragglers.isEmpty()) {
+                Log.d(TAG, String.format("%d transactions not in the list, fetching them one by one", stragglers.size()));
+            }
+            fetchEach(stragglers);
+        }
+
+        private void fetchEach(Collection<String> transactionIds) {
+            for (String transactionId : transactionIds) {
+                final SettableFuture<JSONObject> future = mPolls.get(transactionId);
+                Futures.addCallback(mApi.getTransaction(mUserId, transactionId), new FutureCallback<JSONObject>() {
+                    @Override
+                    public void onSuccess(JSONObject response) {
+                        future.set(response);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable th) {
+                        future.setException(th);
+                    }
+                });
+            }
+        }
+    }
+}
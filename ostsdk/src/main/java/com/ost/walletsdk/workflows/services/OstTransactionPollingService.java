@@ -12,27 +12,37 @@ package com.ost.walletsdk.workflows.services;
 
 import android.os.Bundle;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.models.entities.OstTransaction;
-import com.ost.walletsdk.network.OstApiClient;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
-
 public class OstTransactionPollingService extends OstPollingService {
 
     private static final String TAG = "OstTransactionPollingService";
+    private final String mUserId;
+    private final String mTransactionId;
 
-    private OstTransactionPollingService(String userId, String entityId, String successStatus, String failureStatus) {
+    OstTransactionPollingService(String userId, String entityId, String successStatus, String failureStatus) {
         super(userId, entityId, successStatus, failureStatus);
+        mUserId = userId;
+        mTransactionId = entityId;
     }
 
-    public static Bundle startPolling(String userId, String entityId, String successStatus, String failureStatus) {
+    public static ListenableFuture<Bundle> startPollingAsync(String userId, String entityId, String successStatus, String failureStatus) {
         OstTransactionPollingService ostTransactionPollingService = new OstTransactionPollingService(userId, entityId, successStatus, failureStatus);
-        return ostTransactionPollingService.waitForUpdate();
+        return ostTransactionPollingService.getUpdateAsync();
+    }
+
+    @Override
+    synchronized ListenableFuture<Bundle> getUpdateAsync(long intervalMillis, long timeoutMillis) {
+        ListenableFuture<Bundle> update = super.getUpdateAsync(intervalMillis, timeoutMillis);
+        //Counted as polled by the batch till the update completes.
+        OstTransactionPollBatch.getInstance().track(mUserId, mTransactionId, update);
+        return update;
     }
 
     @Override
@@ -46,8 +56,9 @@ public class OstTransactionPollingService extends OstPollingService {
     }
 
     @Override
-    protected JSONObject poll(String transactionId, String entityId) throws IOException {
-        return new OstApiClient(transactionId).getTransaction(entityId);
+    protected ListenableFuture<JSONObject> pollAsync(String userId, String entityId) {
+        //Transactions of a user polled at about the same time share one list call.
+        return OstTransactionPollBatch.getInstance().poll(userId, entityId);
     }
 
     @Override
@@ -12,6 +12,7 @@ package com.ost.walletsdk.workflows.services;
 
 import android.os.Bundle;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.models.entities.OstUser;
@@ -20,19 +21,17 @@ import com.ost.walletsdk.network.OstApiClient;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
-
 public class OstUserPollingService extends OstPollingService {
 
     private static final String TAG = "OstUserPollingService";
 
-    private OstUserPollingService(String userId, String entityId, String successStatus, String failureStatus) {
+    OstUserPollingService(String userId, String entityId, String successStatus, String failureStatus) {
         super(userId, entityId, successStatus, failureStatus);
     }
 
-    public static Bundle startPolling(String userId, String entityId, String successStatus, String failureStatus) {
+    public static ListenableFuture<Bundle> startPollingAsync(String userId, String entityId, String successStatus, String failureStatus) {
         OstUserPollingService ostUserPollingService = new OstUserPollingService(userId, entityId, successStatus, failureStatus);
-        return ostUserPollingService.waitForUpdate();
+        return ostUserPollingService.getUpdateAsync();
     }
 
     @Override
@@ -46,8 +45,8 @@ public class OstUserPollingService extends OstPollingService {
     }
 
     @Override
-    protected JSONObject poll(String userId, String entityId) throws IOException {
-        return new OstApiClient(userId).getUser();
+    protected ListenableFuture<JSONObject> pollAsync(String userId, String entityId) {
+        return new OstApiClient(userId).getUserAsync();
     }
 
     @Override
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+
+package com.ost.walletsdk.database;
+
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstTransaction;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Reports encode/decode throughput of the binary row format against the json text path.
+ * Timings depend on the machine, so they are printed and never asserted on.
+ */
+public class OstRowCodecBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 20000;
+
+    private interface Codec {
+        byte[] encode(JSONObject jsonObject);
+
+        JSONObject decode(byte[] row) throws JSONException;
+    }
+
+    private static final Codec JSON_CODEC = new Codec() {
+        @Override
+        public byte[] encode(JSONObject jsonObject) {
+            return OstRowCodec.encodeJson(jsonObject);
+        }
+
+        @Override
+        public JSONObject decode(byte[] row) throws JSONException {
+            return OstRowCodec.decode(row);
+        }
+    };
+
+    private static Codec binaryCodec(final OstRowSchema schema) {
+        return new Codec() {
+            @Override
+            public byte[] encode(JSONObject jsonObject) {
+                return OstRowCodec.encode(jsonObject, schema);
+            }
+
+            @Override
+            public JSONObject decode(byte[] row) throws JSONException {
+                return OstRowCodec.decode(row);
+            }
+        };
+    }
+
+    @Test
+    public void testTransactionThroughput() throws JSONException {
+        report("OstTransaction", OstRowCodecTest.buildTransactionJson(), OstRowSchema.forEntity(OstTransaction.class));
+    }
+
+    @Test
+    public void testSessionThroughput() throws JSONException {
+        report("OstSession", OstRowCodecTest.buildSessionJson(), OstRowSchema.forEntity(OstSession.class));
+    }
+
+    private static void report(String entity, JSONObject jsonObject, OstRowSchema schema) throws JSONException {
+        Codec binaryCodec = binaryCodec(schema);
+        int jsonSize = JSON_CODEC.encode(jsonObject).length;
+        int binarySize = binaryCodec.encode(jsonObject).length;
+
+        long jsonEncodeNanos = encodeNanos(JSON_CODEC, jsonObject);
+        long binaryEncodeNanos = encodeNanos(binaryCodec, jsonObject);
+        long jsonDecodeNanos = decodeNanos(JSON_CODEC, jsonObject);
+        long binaryDecodeNanos = decodeNanos(binaryCodec, jsonObject);
+
+        System.out.println(String.format("%s row bytes json: %d binary: %d", entity, jsonSize, binarySize));
+        System.out.println(String.format("%s encode ns/op json: %d binary: %d", entity, jsonEncodeNanos, binaryEncodeNanos));
+        System.out.println(String.format("%s decode ns/op json: %d binary: %d", entity, jsonDecodeNanos, binaryDecodeNanos));
+    }
+
+    private static long encodeNanos(Codec codec, JSONObject jsonObject) {
+        for (int cnt = 0; cnt < WARM_UP_ITERATIONS; cnt++) {
+            codec.encode(jsonObject);
+        }
+        long start = System.nanoTime();
+        for (int cnt = 0; cnt < ITERATIONS; cnt++) {
+            codec.encode(jsonObject);
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static long decodeNanos(Codec codec, JSONObject jsonObject) throws JSONException {
+        byte[] row = codec.encode(jsonObject);
+        for (int cnt = 0; cnt < WARM_UP_ITERATIONS; cnt++) {
+            codec.decode(row);
+        }
+        long start = System.nanoTime();
+        for (int cnt = 0; cnt < ITERATIONS; cnt++) {
+            codec.decode(row);
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.database;
+
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstTransaction;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trip of the binary row format and its row size against the json text path.
+ * Throughput is reported by {@link OstRowCodecBenchmark}.
+ */
+public class OstRowCodecTest {
+
+    private static final int TRANSFER_COUNT = 20;
+
+    @Test
+    public void testTransactionRoundTrip() throws JSONException {
+        JSONObject transaction = buildTransactionJson();
+        byte[] row = OstRowCodec.encode(transaction, OstRowSchema.forEntity(OstTransaction.class));
+
+        assertTrue(OstRowCodec.isBinary(row));
+        assertEquals(transaction.toString(), OstRowCodec.decode(row).toString());
+    }
+
+    @Test
+    public void testSessionRoundTrip() throws JSONException {
+        JSONObject session = buildSessionJson();
+        session.put("unknown_key", JSONObject.NULL);
+        session.put("flag", true);
+        session.put("ratio", 0.25);
+        session.put("big", Long.MAX_VALUE);
+        session.put("negative", -42);
+        byte[] row = OstRowCodec.encode(session, OstRowSchema.forEntity(OstSession.class));
+
+        assertEquals(session.toString(), OstRowCodec.decode(row).toString());
+    }
+
+    @Test
+    public void testJsonRowStaysReadable() throws JSONException {
+        JSONObject session = buildSessionJson();
+        byte[] row = OstRowCodec.encodeJson(session);
+
+        assertFalse(OstRowCodec.isBinary(row));
+        assertEquals(session.toString(), OstRowCodec.decode(row).toString());
+    }
+
+    @Test
+    public void testTransactionRowSmaller() throws JSONException {
+        assertSmaller(buildTransactionJson(), OstRowSchema.forEntity(OstTransaction.class));
+    }
+
+    @Test
+    public void testSessionRowSmaller() throws JSONException {
+        assertSmaller(buildSessionJson(), OstRowSchema.forEntity(OstSession.class));
+    }
+
+    private static void assertSmaller(JSONObject jsonObject, OstRowSchema schema) throws JSONException {
+        byte[] jsonRow = OstRowCodec.encodeJson(jsonObject);
+        byte[] binaryRow = OstRowCodec.encode(jsonObject, schema);
+
+        assertTrue(String.format("row bytes json: %d binary: %d", jsonRow.length, binaryRow.length),
+                binaryRow.length < jsonRow.length);
+        assertEquals(jsonObject.toString(), OstRowCodec.decode(binaryRow).toString());
+    }
+
+    static JSONObject buildTransactionJson() throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(OstTransaction.ID, "ebd5d3d3-5a2b-4ea9-9bb9-4fcd1c5a8b47");
+        jsonObject.put(OstTransaction.TRANSACTION_HASH, "0x6ad3b8e8a2a0d1a1d6e1f39ad0f5c3a6c0c1f7e7d0c2c7a1b0b5e0a3c1d2e3f4");
+        jsonObject.put(OstTransaction.STATUS, "SUCCESS");
+        jsonObject.put(OstTransaction.GAS_PRICE, "1000000000");
+        jsonObject.put(OstTransaction.GAS_USED, 120153);
+        jsonObject.put(OstTransaction.TRANSACTION_FEE, "120153000000000");
+        jsonObject.put(OstTransaction.BLOCK_TIMESTAMP, 1559028000);
+        jsonObject.put(OstTransaction.BLOCK_NUMBER, 2010532);
+        jsonObject.put(OstTransaction.RULE_NAME, "Direct Transfer");
+        jsonObject.put(OstBaseEntity.UPDATED_TIMESTAMP, 1559028010);
+
+        JSONArray transfers = new JSONArray();
+        for (int cnt = 0; cnt < TRANSFER_COUNT; cnt++) {
+            JSONObject transfer = new JSONObject();
+            transfer.put("from", "0x8d5a2a1c1b8c1d6f2e3a9b7c4d5e6f7a8b9c0d1e");
+            transfer.put("from_user_id", "3f1b2a4c-6d7e-4f80-9a1b-2c3d4e5f6a7b");
+            transfer.put("to", "0x1a2b3c4d5e6f7a8b9c0d1e2f3a4b5c6d7e8f9a0b");
+            transfer.put("to_user_id", "7b6a5f4e-3d2c-4b1a-9f80-7e6d5c4a2b1f");
+            transfer.put("amount", "1000000000000000000");
+            transfer.put("kind", "transfer");
+            transfers.put(transfer);
+        }
+        jsonObject.put(OstTransaction.TRANSFERS, transfers);
+        return jsonObject;
+    }
+
+    static JSONObject buildSessionJson() throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(OstSession.ADDRESS, "0x4e2d1b3c5a6f7e8d9c0b1a2f3e4d5c6b7a8f9e0d");
+        jsonObject.put(OstSession.USER_ID, "3f1b2a4c-6d7e-4f80-9a1b-2c3d4e5f6a7b");
+        jsonObject.put(OstSession.STATUS, "AUTHORIZED");
+        jsonObject.put(OstSession.TOKEN_HOLDER_ADDRESS, "0x9f8e7d6c5b4a3f2e1d0c9b8a7f6e5d4c3b2a1f0e");
+        jsonObject.put(OstSession.EXPIRATION_HEIGHT, 10000000);
+        jsonObject.put(OstSession.APPROX_EXPIRATION_TIMESTAMP, 1590564000);
+        jsonObject.put(OstSession.SPENDING_LIMIT, "1000000000000000000000");
+        jsonObject.put(OstSession.NONCE, 12);
+        jsonObject.put(OstBaseEntity.UPDATED_TIMESTAMP, 1559028010);
+        return jsonObject;
+    }
+}
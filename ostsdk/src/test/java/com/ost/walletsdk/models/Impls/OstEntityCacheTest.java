@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.Impls;
+
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstUser;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OstEntityCacheTest {
+
+    @Test
+    public void testSingleLoadUnderContention() throws Exception {
+        final OstEntityCache cache = new OstEntityCache(16);
+        final AtomicInteger loadCount = new AtomicInteger(0);
+        final CountDownLatch startGate = new CountDownLatch(1);
+        final OstEntityCache.Loader loader = new OstEntityCache.Loader() {
+            @Override
+            public OstBaseEntity load(String id) {
+                loadCount.incrementAndGet();
+                try {
+                    Thread.sleep(20);
+                    return buildUser(id);
+                } catch (Exception e) {
+                    return null;
+                }
+            }
+        };
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int cnt = 0; cnt < 32; cnt++) {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startGate.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    assertNotNull(cache.getOrLoad("1", loader));
+                }
+            });
+        }
+        startGate.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testLoadDoesNotBlockOtherIds() throws Exception {
+        //A single stripe, every id shares it.
+        final OstEntityCache cache = new OstEntityCache(1);
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<OstBaseEntity> slowLoad = executorService.submit(new Callable<OstBaseEntity>() {
+            @Override
+            public OstBaseEntity call() {
+                return cache.getOrLoad("1", blockingLoader(loadStarted, release));
+            }
+        });
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        //Would wait for the slow load if it held the stripe.
+        Future<OstBaseEntity> otherIds = executorService.submit(new Callable<OstBaseEntity>() {
+            @Override
+            public OstBaseEntity call() throws JSONException {
+                OstUser user = buildUser("2");
+                cache.put(user);
+                assertSame(user, cache.get("2"));
+                return cache.getOrLoad("3", blockingLoader(new CountDownLatch(1), new CountDownLatch(0)));
+            }
+        });
+        assertNotNull(otherIds.get(5, TimeUnit.SECONDS));
+
+        release.countDown();
+        assertNotNull(slowLoad.get(5, TimeUnit.SECONDS));
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testRemoveDuringLoadNotCached() throws Exception {
+        final OstEntityCache cache = new OstEntityCache(4);
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<OstBaseEntity> load = executorService.submit(new Callable<OstBaseEntity>() {
+            @Override
+            public OstBaseEntity call() {
+                return cache.getOrLoad("1", blockingLoader(loadStarted, release));
+            }
+        });
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        cache.remove("1");
+        release.countDown();
+        assertNotNull(load.get(5, TimeUnit.SECONDS));
+        executorService.shutdown();
+
+        assertNull(cache.get("1"));
+    }
+
+    @Test
+    public void testCapacityIsBounded() throws JSONException {
+        OstEntityCache cache = new OstEntityCache(4);
+        for (int cnt = 0; cnt < 100; cnt++) {
+            cache.put(buildUser(String.valueOf(cnt)));
+        }
+        assertTrue(cache.size() <= 4);
+    }
+
+    @Test
+    public void testPendingEntitySurvivesEviction() throws JSONException {
+        OstEntityCache cache = new OstEntityCache(1);
+        OstUser pendingUser = buildUser("pending");
+        cache.putPending(pendingUser);
+        for (int cnt = 0; cnt < 10; cnt++) {
+            cache.put(buildUser(String.valueOf(cnt)));
+        }
+        assertSame(pendingUser, cache.get("pending"));
+
+        cache.clearPending(pendingUser);
+        assertNull(cache.get("pending"));
+    }
+
+    @Test
+    public void testClearPendingKeepsNewerSnapshot() throws JSONException {
+        OstEntityCache cache = new OstEntityCache(1);
+        OstUser olderUser = buildUser("1");
+        OstUser newerUser = buildUser("1");
+        cache.putPending(olderUser);
+        cache.putPending(newerUser);
+        cache.clearPending(olderUser);
+        cache.put(buildUser("2"));
+
+        assertSame(newerUser, cache.get("1"));
+    }
+
+    private static OstEntityCache.Loader blockingLoader(final CountDownLatch loadStarted,
+                                                       final CountDownLatch release) {
+        return new OstEntityCache.Loader() {
+            @Override
+            public OstBaseEntity load(String id) {
+                loadStarted.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                    return buildUser(id);
+                } catch (Exception e) {
+                    return null;
+                }
+            }
+        };
+    }
+
+    private static OstUser buildUser(String id) throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(OstUser.ID, id);
+        jsonObject.put(OstUser.TOKEN_ID, "1");
+        return new OstUser(jsonObject);
+    }
+}
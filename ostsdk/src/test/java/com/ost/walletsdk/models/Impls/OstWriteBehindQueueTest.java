@@ -0,0 +1,234 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+
+package com.ost.walletsdk.models.Impls;
+
+import com.ost.walletsdk.database.daos.OstBaseDao;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstUser;
+import com.ost.walletsdk.utils.AsyncStatus;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writes and deletes reach the DB in queued order, failed ticks are retried.
+ */
+public class OstWriteBehindQueueTest {
+
+    private static final long WAIT_SECONDS = 5;
+
+    private ScheduledExecutorService mWriter;
+    private List<String> mCommitted;
+    private AtomicInteger mFailuresLeft;
+    private AtomicInteger mAttempts;
+    private CountDownLatch mFirstFailure;
+    private OstWriteBehindQueue mQueue;
+    private RecordingRepository mRepository;
+
+    @Before
+    public void setUp() {
+        mWriter = Executors.newSingleThreadScheduledExecutor();
+        mCommitted = Collections.synchronizedList(new ArrayList<String>());
+        mFailuresLeft = new AtomicInteger(0);
+        mAttempts = new AtomicInteger(0);
+        mFirstFailure = new CountDownLatch(1);
+        mQueue = new OstWriteBehindQueue(mWriter) {
+            @Override
+            void runInTransaction(Runnable writes) {
+                mAttempts.incrementAndGet();
+                if (mFailuresLeft.getAndDecrement() > 0) {
+                    mFirstFailure.countDown();
+                    throw new IllegalStateException("database is locked");
+                }
+                writes.run();
+            }
+        };
+        mRepository = new RecordingRepository(mCommitted);
+    }
+
+    @After
+    public void tearDown() {
+        mWriter.shutdownNow();
+    }
+
+    @Test
+    public void testDeleteAppliedAfterQueuedWrite() throws Exception {
+        mQueue.enqueue(mRepository, buildUser("1"));
+        mQueue.enqueue(mRepository, buildUser("2"));
+        Future<AsyncStatus> future = mQueue.enqueueDelete(mRepository, "1");
+        assertTrue(mQueue.isDeletePending(mRepository, "1"));
+        assertFalse(mQueue.isDeletePending(mRepository, "2"));
+
+        assertTrue(future.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertEquals(Arrays.asList("delete 1", "write 2"), mCommitted);
+        assertFalse(mQueue.isDeletePending(mRepository, "1"));
+    }
+
+    @Test
+    public void testWriteAppliedAfterQueuedDelete() throws Exception {
+        mQueue.enqueueDelete(mRepository, "1");
+        mQueue.enqueue(mRepository, buildUser("1"));
+        mQueue.flush().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("write 1"), mCommitted);
+    }
+
+    @Test
+    public void testWriteAppliedAfterQueuedDeleteAll() throws Exception {
+        mQueue.enqueue(mRepository, buildUser("1"));
+        mQueue.enqueueDeleteAll(mRepository);
+        mQueue.enqueue(mRepository, buildUser("2"));
+        mQueue.flush().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("delete all", "write 2"), mCommitted);
+    }
+
+    @Test
+    public void testFailedTickRetried() throws Exception {
+        mFailuresLeft.set(2);
+
+        AsyncStatus status = mQueue.enqueue(mRepository, buildUser("1")).get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(status.isSuccess());
+        assertEquals(3, mAttempts.get());
+        assertEquals(Arrays.asList("write 1"), mCommitted);
+    }
+
+    @Test
+    public void testWritesQueuedDuringRetryWin() throws Exception {
+        mFailuresLeft.set(1);
+        mQueue.enqueue(mRepository, buildUser("1"));
+        assertTrue(mFirstFailure.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        AsyncStatus status = mQueue.enqueueDelete(mRepository, "1").get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(status.isSuccess());
+        assertEquals(Arrays.asList("delete 1"), mCommitted);
+    }
+
+    @Test
+    public void testFailureReportedAfterLastAttempt() throws Exception {
+        mFailuresLeft.set(Integer.MAX_VALUE);
+
+        AsyncStatus status = mQueue.enqueue(mRepository, buildUser("1")).get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertFalse(status.isSuccess());
+        assertTrue(mCommitted.isEmpty());
+    }
+
+    @Test
+    public void testFailedWritesKeptAfterLastAttempt() throws Exception {
+        mFailuresLeft.set(Integer.MAX_VALUE);
+        assertFalse(mQueue.enqueue(mRepository, buildUser("1")).get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertTrue(mRepository.mPersisted.isEmpty());
+
+        mFailuresLeft.set(0);
+        AsyncStatus status = mQueue.flush().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(status.isSuccess());
+        assertEquals(Arrays.asList("write 1"), mCommitted);
+        assertEquals(Arrays.asList("1"), mRepository.mPersisted);
+    }
+
+    @Test
+    public void testFlushWaitsForRetry() throws Exception {
+        mFailuresLeft.set(2);
+        mQueue.enqueue(mRepository, buildUser("1"));
+
+        AsyncStatus status = mQueue.flush().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(status.isSuccess());
+        assertEquals(3, mAttempts.get());
+        assertEquals(Arrays.asList("write 1"), mCommitted);
+    }
+
+    @Test
+    public void testEntitiesOfSeveralRepositoriesWrittenInOneTransaction() throws Exception {
+        RecordingRepository otherRepository = new RecordingRepository(mCommitted);
+        LinkedHashMap<OstBaseModelCacheRepository, OstBaseEntity[]> entities = new LinkedHashMap<>();
+        entities.put(mRepository, new OstBaseEntity[]{buildUser("1"), buildUser("2")});
+        entities.put(otherRepository, new OstBaseEntity[]{buildUser("3")});
+
+        AsyncStatus status = mQueue.enqueueAll(entities).get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(status.isSuccess());
+        assertEquals(1, mAttempts.get());
+        assertEquals(Arrays.asList("write 1", "write 2", "write 3"), mCommitted);
+    }
+
+    private static OstUser buildUser(String id) throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(OstUser.ID, id);
+        jsonObject.put(OstUser.TOKEN_ID, "1");
+        return new OstUser(jsonObject);
+    }
+
+    private static class RecordingRepository extends OstBaseModelCacheRepository {
+        private final List<String> mCommitted;
+        private final List<String> mPersisted = Collections.synchronizedList(new ArrayList<String>());
+
+        RecordingRepository(List<String> committed) {
+            super("user", 16);
+            mCommitted = committed;
+        }
+
+        @Override
+        OstBaseDao getModel() {
+            return null;
+        }
+
+        @Override
+        void persistAll(Collection<OstBaseEntity> entities) {
+            for (OstBaseEntity entity : entities) {
+                mCommitted.add("write " + entity.getId());
+            }
+        }
+
+        @Override
+        void deletePersisted(String id) {
+            mCommitted.add("delete " + id);
+        }
+
+        @Override
+        void deleteAllPersisted() {
+            mCommitted.add("delete all");
+        }
+
+        @Override
+        void onPersisted(Collection<OstBaseEntity> entities) {
+            for (OstBaseEntity entity : entities) {
+                mPersisted.add(entity.getId());
+            }
+            super.onPersisted(entities);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+
+package com.ost.walletsdk.models.entities;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Session payload handling as it was before payloads became lazy, copied from OstBaseEntity and
+ * OstSession of that version. Reference for {@link OstPayloadAllocationTest}, do not optimize.
+ * Only the DB write of updateWithJsonObject is left out, the cached entity is updated in place
+ * as insertOrUpdate did.
+ */
+class OstBaselineSession {
+
+    private JSONObject data;
+
+    /**
+     * Room read: the JSONObject type converter parsed the row and the constructor processed it.
+     */
+    OstBaselineSession(String row) {
+        JSONObject data;
+        try {
+            data = new JSONObject(row);
+        } catch (Exception e) {
+            data = new JSONObject();
+        }
+        try {
+            this.processJson(data);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Repository read: every entity returned by OstBaseModelRepository was processed once more.
+     */
+    static OstBaselineSession getById(String row) {
+        OstBaselineSession baseEntity = new OstBaselineSession(row);
+        try {
+            baseEntity.processJson(baseEntity.getData());
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+        return baseEntity;
+    }
+
+    JSONObject getData() {
+        try {
+            return new JSONObject(data.toString());
+        } catch (Exception e) {
+            return new JSONObject();
+        }
+    }
+
+    JSONObject getJSONData() {
+        return data;
+    }
+
+    void processJson(JSONObject jsonObject) throws JSONException {
+        //Update Timestamp if needed.
+        if ( !jsonObject.has(OstBaseEntity.UPDATED_TIMESTAMP) ) {
+            jsonObject.put(OstBaseEntity.UPDATED_TIMESTAMP, -1 * System.currentTimeMillis());
+        }
+
+        //Set Data.
+        this.data = jsonObject;
+    }
+
+    int getNonce() {
+        JSONObject jsonObject = this.getJSONData();
+        if (null == jsonObject) {
+            return -1;
+        }
+        return jsonObject.optInt(OstDeviceManager.NONCE, -1);
+    }
+
+    int incrementNonce() {
+        int currentNonce = getNonce();
+        int newNonce = currentNonce + 1;
+        try {
+            setJsonDataProperty(OstSession.NONCE, newNonce);
+        } catch (JSONException e) {
+            return currentNonce;
+        }
+        return newNonce;
+    }
+
+    private void setJsonDataProperty(String key, Object obj) throws JSONException {
+        //Create a copy of JSON Data.
+        JSONObject jsonObjectCopy = this.getData();
+
+        //Now set the key/value
+        jsonObjectCopy.put(key, obj.toString() );
+
+        //Update the timestamp
+        jsonObjectCopy.put(OstBaseEntity.UPDATED_TIMESTAMP, -1 * System.currentTimeMillis());
+
+        //Schedule DB Update.
+        this.processJson(jsonObjectCopy);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.entities;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allocation test of session payload handling.
+ * The lazy payload path is compared with {@link OstBaselineSession}, the payload handling of the
+ * previous version, for loading a session and for incrementing its nonce.
+ */
+public class OstPayloadAllocationTest {
+
+    private static final String ADDRESS = "0x2901239";
+    private static final String USER_ID = "1234";
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 20000;
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    @Test
+    public void testGetByIdAllocations() throws Exception {
+        final String raw = buildSessionJson().toString();
+
+        long baselineBytes = bytesPerOperation(new Operation() {
+            @Override
+            public void run() {
+                OstBaselineSession.getById(raw).getNonce();
+            }
+        });
+        long lazyBytes = bytesPerOperation(new Operation() {
+            @Override
+            public void run() {
+                loadLazy(raw).getNonce();
+            }
+        });
+
+        assertTrue(String.format("lazy %d bytes/op, baseline %d bytes/op", lazyBytes, baselineBytes),
+                lazyBytes < baselineBytes);
+    }
+
+    @Test
+    public void testIncrementNonceAllocations() throws Exception {
+        final String raw = buildSessionJson().toString();
+
+        long baselineBytes = bytesPerOperation(new Operation() {
+            @Override
+            public void run() {
+                OstBaselineSession.getById(raw).incrementNonce();
+            }
+        });
+        long lazyBytes = bytesPerOperation(new Operation() {
+            @Override
+            public void run() {
+                loadLazy(raw).incrementNonce();
+            }
+        });
+
+        assertTrue(String.format("lazy %d bytes/op, baseline %d bytes/op", lazyBytes, baselineBytes),
+                lazyBytes < baselineBytes);
+    }
+
+    @Test
+    public void testIncrementNonceMatchesBaseline() throws JSONException {
+        String raw = buildSessionJson().toString();
+
+        OstSession ostSession = loadLazy(raw);
+        OstBaselineSession baselineSession = OstBaselineSession.getById(raw);
+
+        assertEquals(baselineSession.incrementNonce(), ostSession.incrementNonce());
+        assertEquals(baselineSession.getNonce(), ostSession.getNonce());
+    }
+
+    @Test
+    public void testMutationDoesNotLeakIntoSharedView() throws JSONException {
+        OstSession ostSession = loadLazy(buildSessionJson().toString());
+        JSONObject sharedView = ostSession.getJSONData();
+
+        JSONObject jsonObjectCopy = ostSession.getData();
+        jsonObjectCopy.put(OstSession.NONCE, 2);
+
+        assertEquals(1, sharedView.optInt(OstSession.NONCE));
+        assertEquals(1, ostSession.getNonce());
+    }
+
+    /**
+     * Loads a session the way Room does. Updates are applied to the entity only, the DB write is
+     * left out like for the baseline.
+     */
+    private static OstSession loadLazy(String raw) {
+        return new OstSession(ADDRESS, USER_ID, OstJsonPayload.fromString(raw), "authorized", 0,
+                1, "9999", "1560000000") {
+            @Override
+            protected OstSession updateWithJsonObject(JSONObject jsonObject) throws JSONException {
+                processJson(jsonObject);
+                return this;
+            }
+        };
+    }
+
+    private static long bytesPerOperation(Operation operation) throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        for (int cnt = 0; cnt < WARM_UP_ITERATIONS; cnt++) {
+            operation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long startBytes = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int cnt = 0; cnt < ITERATIONS; cnt++) {
+            operation.run();
+        }
+        return (allocationBean.getThreadAllocatedBytes(threadId) - startBytes) / ITERATIONS;
+    }
+
+    private static JSONObject buildSessionJson() throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(OstSession.ADDRESS, ADDRESS);
+        jsonObject.put(OstSession.USER_ID, USER_ID);
+        jsonObject.put(OstSession.STATUS, "AUTHORIZED");
+        jsonObject.put(OstSession.TOKEN_HOLDER_ADDRESS, "0x123");
+        jsonObject.put(OstSession.EXPIRATION_HEIGHT, "1000000");
+        jsonObject.put(OstSession.APPROX_EXPIRATION_TIMESTAMP, "1560000000");
+        jsonObject.put(OstSession.SPENDING_LIMIT, "9999");
+        jsonObject.put(OstSession.NONCE, 1);
+        jsonObject.put(OstBaseEntity.UPDATED_TIMESTAMP, 1550000000);
+        return jsonObject;
+    }
+}
@@ -66,6 +66,38 @@ public class OstSessionTest {
 
     }
 
+    @Test
+    public void testTypedColumnsFollowJson() throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(OstSession.ADDRESS, "0x2901239");
+        jsonObject.put(OstSession.USER_ID, "1234");
+        jsonObject.put(OstSession.SPENDING_LIMIT, "9999");
+        jsonObject.put(OstSession.EXPIRATION_HEIGHT, "1000");
+        jsonObject.put(OstSession.APPROX_EXPIRATION_TIMESTAMP, "1560000000");
+        jsonObject.put(OstSession.NONCE, 1);
+
+        OstSession ostSession = new OstSession(jsonObject);
+        assertEquals("1560000000", ostSession.getExpirationTimestamp());
+
+        jsonObject.put(OstSession.NONCE, 2);
+        jsonObject.put(OstSession.SPENDING_LIMIT, "100");
+        ostSession.processJson(jsonObject);
+        assertEquals(2, ostSession.getNonce());
+        assertEquals("100", ostSession.getSpendingLimit());
+    }
+
+    @Test
+    public void testTypedColumnsReadFromDb() throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(OstSession.ADDRESS, "0x2901239");
+        jsonObject.put(OstSession.USER_ID, "1234");
+
+        OstSession ostSession = new OstSession("0x2901239", "1234", OstJsonPayload.fromString(jsonObject.toString()),
+                "authorized", 0, 5, "9999", "1560000000");
+        assertEquals(5, ostSession.getNonce());
+        assertEquals("9999", ostSession.getSpendingLimit());
+        assertEquals("1560000000", ostSession.getExpirationTimestamp());
+    }
 
     private void testTokenHolderSessionJsonException(JSONObject jsonObject) {
         try {
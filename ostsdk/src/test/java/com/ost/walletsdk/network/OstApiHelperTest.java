@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstDeviceManager;
+import com.ost.walletsdk.models.entities.OstDeviceManagerOperation;
+import com.ost.walletsdk.models.entities.OstEntityCodec;
+import com.ost.walletsdk.models.entities.OstRule;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstTokenHolder;
+import com.ost.walletsdk.models.entities.OstTransaction;
+import com.ost.walletsdk.models.entities.OstUser;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OstApiHelperTest {
+
+    @Test
+    public void testUser() {
+        assertEntity(OstSdk.USER, OstUser.class);
+    }
+
+    @Test
+    public void testTransaction() {
+        assertEntity(OstSdk.TRANSACTION, OstTransaction.class);
+    }
+
+    @Test
+    public void testTransactions() {
+        assertEntities(OstSdk.TRANSACTIONS, OstTransaction.class);
+    }
+
+    @Test
+    public void testTokenHolder() {
+        assertEntity(OstSdk.TOKEN_HOLDER, OstTokenHolder.class);
+    }
+
+    @Test
+    public void testToken() {
+        assertEntity(OstSdk.TOKEN, OstToken.class);
+    }
+
+    @Test
+    public void testSession() {
+        assertEntity(OstSdk.SESSION, OstSession.class);
+    }
+
+    @Test
+    public void testSessions() {
+        assertEntities(OstSdk.SESSIONS, OstSession.class);
+    }
+
+    @Test
+    public void testRule() {
+        assertEntity(OstSdk.RULE, OstRule.class);
+    }
+
+    @Test
+    public void testRules() {
+        assertEntities(OstSdk.RULES, OstRule.class);
+    }
+
+    @Test
+    public void testDeviceOperation() {
+        assertEntity(OstSdk.DEVICE_OPERATION, OstDeviceManagerOperation.class);
+    }
+
+    @Test
+    public void testDeviceManager() {
+        assertEntity(OstSdk.DEVICE_MANAGER, OstDeviceManager.class);
+    }
+
+    @Test
+    public void testDevice() {
+        assertEntity(OstSdk.DEVICE, OstDevice.class);
+    }
+
+    @Test
+    public void testDevices() {
+        assertEntities(OstSdk.DEVICES, OstDevice.class);
+    }
+
+    @Test
+    public void testEveryKeyIsTested() {
+        assertEquals(13, OstApiHelper.ENTITY_CODECS.size());
+    }
+
+    @Test
+    public void testSameEntityKeysShareCodec() throws JSONException {
+        JSONObject jsonData = new JSONObject()
+                .put(OstSdk.DEVICE, device("0x1", "REGISTERED"))
+                .put(OstSdk.DEVICES, new JSONArray()
+                        .put(device("0x2", "AUTHORIZED"))
+                        .put(device("0x3", "AUTHORIZED")));
+
+        LinkedHashMap<OstEntityCodec, OstBaseEntity[]> codecEntities =
+                OstApiHelper.collectEntities(jsonData).getEntities();
+
+        assertEquals(1, codecEntities.size());
+        assertEquals(3, codecEntities.get(OstEntityCodec.forEntity(OstDevice.class)).length);
+    }
+
+    @Test
+    public void testRepeatedIdKeepsLastSnapshot() throws JSONException {
+        JSONObject jsonData = new JSONObject()
+                .put(OstSdk.DEVICE, device("0x1", "REGISTERED"))
+                .put(OstSdk.DEVICES, new JSONArray()
+                        .put(device("0x2", "AUTHORIZED"))
+                        .put(device("0x1", "AUTHORIZED")));
+
+        OstBaseEntity[] entities =
+                OstApiHelper.collectEntities(jsonData).getEntities().get(OstEntityCodec.forEntity(OstDevice.class));
+
+        assertEquals(2, entities.length);
+        assertEquals("0x1", entities[0].getId());
+        assertEquals("AUTHORIZED", ((OstDevice) entities[0]).getStatus());
+    }
+
+    @Test
+    public void testInvalidEntitySkipped() throws JSONException {
+        JSONObject jsonData = new JSONObject()
+                .put(OstSdk.DEVICES, new JSONArray()
+                        .put(new JSONObject().put(OstDevice.ADDRESS, "0x1"))
+                        .put(device("0x2", "AUTHORIZED")));
+
+        OstBaseEntity[] entities =
+                OstApiHelper.collectEntities(jsonData).getEntities().get(OstEntityCodec.forEntity(OstDevice.class));
+
+        assertEquals(1, entities.length);
+        assertEquals("0x2", entities[0].getId());
+    }
+
+    @Test
+    public void testUnknownKeysIgnored() throws JSONException {
+        JSONObject jsonData = new JSONObject()
+                .put("result_type", "transactions")
+                .put("meta", new JSONObject());
+
+        assertEquals(0, OstApiHelper.collectEntities(jsonData).getEntities().size());
+    }
+
+    @Test
+    public void testSameCodecInstancePerEntity() {
+        assertSame(OstEntityCodec.forEntity(OstDevice.class), OstEntityCodec.forEntity(OstDevice.class));
+        assertSame(OstEntityCodec.forEntity(OstSession.class), OstApiHelper.ENTITY_CODECS.get(OstSdk.SESSIONS));
+    }
+
+    @Test
+    public void testDevicesResponsePersistedOnce() throws JSONException {
+        RecordingApiHelper apiHelper = new RecordingApiHelper();
+
+        apiHelper.parse(new JSONObject(DEVICES_RESPONSE));
+
+        assertEquals(1, apiHelper.mPersisted.size());
+        LinkedHashMap<OstEntityCodec, OstBaseEntity[]> codecEntities = apiHelper.mPersisted.get(0);
+        OstBaseEntity[] devices = codecEntities.get(OstEntityCodec.forEntity(OstDevice.class));
+        assertEquals(1, codecEntities.size());
+        assertEquals(2, devices.length);
+        assertEquals("0x58b41721fc24517c76a7167352283e514dace11d", devices[0].getId().toLowerCase());
+        assertEquals("AUTHORIZED", ((OstDevice) devices[0]).getStatus());
+        assertEquals("0x3d3cf9d9d4fb3b3a11e4b6a5e9b1b2d4c1e7a0f2", devices[1].getId().toLowerCase());
+        assertEquals("REGISTERED", ((OstDevice) devices[1]).getStatus());
+    }
+
+    @Test
+    public void testEntitiesOfSeveralModelsPersistedOnce() throws JSONException {
+        JSONObject jsonData = new JSONObject(DEVICES_RESPONSE).getJSONObject("data")
+                .put(OstSdk.USER, new JSONObject()
+                        .put(OstUser.ID, "f1a2b3c4-5d6e-4f70-8a9b-0c1d2e3f4a5b")
+                        .put(OstUser.TOKEN_ID, "1129")
+                        .put(OstUser.STATUS, "ACTIVATED"));
+        RecordingApiHelper apiHelper = new RecordingApiHelper();
+
+        apiHelper.parse(new JSONObject().put("success", true).put("data", jsonData));
+
+        assertEquals(1, apiHelper.mPersisted.size());
+        LinkedHashMap<OstEntityCodec, OstBaseEntity[]> codecEntities = apiHelper.mPersisted.get(0);
+        assertEquals(2, codecEntities.size());
+        assertEquals(1, codecEntities.get(OstEntityCodec.forEntity(OstUser.class)).length);
+        assertEquals(2, codecEntities.get(OstEntityCodec.forEntity(OstDevice.class)).length);
+    }
+
+    @Test
+    public void testErrorResponseNotPersisted() throws JSONException {
+        RecordingApiHelper apiHelper = new RecordingApiHelper();
+        JSONObject errorResponse = new JSONObject(DEVICES_RESPONSE).put("success", false)
+                .put("err", new JSONObject().put("code", "NOT_FOUND"));
+
+        try {
+            apiHelper.parse(errorResponse);
+            fail();
+        } catch (OstApiError error) {
+            assertTrue(apiHelper.mPersisted.isEmpty());
+        }
+    }
+
+    private static void assertEntity(String key, Class<? extends OstBaseEntity> entityClass) {
+        OstApiHelper.EntityCollector entityCollector = new OstApiHelper.EntityCollector();
+        assertTrue(entityCollector.isEntityKey(key));
+        assertSame(entityClass, OstApiHelper.ENTITY_CODECS.get(key).getEntityClass());
+    }
+
+    private static void assertEntities(String key, Class<? extends OstBaseEntity> entityClass) {
+        assertEntity(key, entityClass);
+        assertSame(OstApiHelper.ENTITY_CODECS.get(key.substring(0, key.length() - 1)),
+                OstApiHelper.ENTITY_CODECS.get(key));
+    }
+
+    /**
+     * Response of GET /users/{user_id}/devices.
+     */
+    private static final String DEVICES_RESPONSE = "{\"success\":true,\"data\":{" +
+            "\"result_type\":\"devices\"," +
+            "\"devices\":[{" +
+            "\"user_id\":\"f1a2b3c4-5d6e-4f70-8a9b-0c1d2e3f4a5b\"," +
+            "\"address\":\"0x58b41721fc24517c76a7167352283e514dace11d\"," +
+            "\"linked_address\":\"0xda74267adf9dc730f436bc679f842abea4716673\"," +
+            "\"api_signer_address\":\"0x1c28052133aff3228851bc7e06d19aad2adee125\"," +
+            "\"device_name\":\"Pixel 3\"," +
+            "\"device_uuid\":\"bded3abc259cc1c566d87e06d84ad8c3\"," +
+            "\"device_manager_address\":\"0x296f50c1b2de08a987c0d98237386b1103935177\"," +
+            "\"status\":\"AUTHORIZED\"," +
+            "\"updated_timestamp\":1554000000" +
+            "},{" +
+            "\"user_id\":\"f1a2b3c4-5d6e-4f70-8a9b-0c1d2e3f4a5b\"," +
+            "\"address\":\"0x3d3cf9d9d4fb3b3a11e4b6a5e9b1b2d4c1e7a0f2\"," +
+            "\"linked_address\":null," +
+            "\"api_signer_address\":\"0x8e0a3b6f2c9d1e4a7b5c0d3f6e9a2b5c8d1e4f70\"," +
+            "\"device_name\":\"Pixel 3a\"," +
+            "\"device_uuid\":\"6a1f0c2e9d8b7a6c5e4d3f2a1b0c9d8e\"," +
+            "\"device_manager_address\":\"0x296f50c1b2de08a987c0d98237386b1103935177\"," +
+            "\"status\":\"REGISTERED\"," +
+            "\"updated_timestamp\":1554000100" +
+            "}]," +
+            "\"meta\":{\"next_page_payload\":{}}}}";
+
+    /**
+     * Records what would be written instead of writing to DB.
+     */
+    private static class RecordingApiHelper extends OstApiHelper {
+        private final List<LinkedHashMap<OstEntityCodec, OstBaseEntity[]>> mPersisted = new ArrayList<>();
+
+        RecordingApiHelper() {
+            super("f1a2b3c4-5d6e-4f70-8a9b-0c1d2e3f4a5b");
+        }
+
+        @Override
+        void persist(LinkedHashMap<OstEntityCodec, OstBaseEntity[]> codecEntities) {
+            mPersisted.add(codecEntities);
+        }
+    }
+
+    private static JSONObject device(String address, String status) throws JSONException {
+        return new JSONObject()
+                .put(OstDevice.USER_ID, "1234")
+                .put(OstDevice.ADDRESS, address)
+                .put(OstDevice.API_SIGNER_ADDRESS, "0x12345567")
+                .put(OstDevice.DEVICE_MANAGER_ADDRESS, "123")
+                .put(OstDevice.STATUS, status);
+    }
+}
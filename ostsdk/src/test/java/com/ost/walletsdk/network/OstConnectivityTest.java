@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Connectivity state follows the network callback, networks stand in as plain objects.
+ */
+public class OstConnectivityTest {
+
+    private final Object mWifi = new Object();
+    private final Object mMobile = new Object();
+    private OstConnectivity mConnectivity;
+    private List<String> mChanges;
+
+    @Before
+    public void setUp() {
+        mConnectivity = new OstConnectivity();
+        mChanges = new ArrayList<>();
+        mConnectivity.addListener(new OstConnectivity.Listener() {
+            @Override
+            public void onConnectivityChanged(boolean isConnected, boolean isMetered) {
+                mChanges.add(isConnected + "/" + isMetered);
+            }
+        });
+    }
+
+    @Test
+    public void testOfflineTillNetworkAvailable() {
+        mConnectivity.onNetworkAvailable(mWifi, false);
+        mConnectivity.onNetworkLost(mWifi);
+
+        assertFalse(mConnectivity.isConnected());
+
+        mConnectivity.onNetworkAvailable(mMobile, true);
+
+        assertTrue(mConnectivity.isConnected());
+        assertTrue(mConnectivity.isMetered());
+        assertEquals("false/false,true/true", join(mChanges));
+    }
+
+    @Test
+    public void testUnmeteredWhenAnyNetworkIsUnmetered() {
+        mConnectivity.onNetworkAvailable(mMobile, true);
+        mConnectivity.onNetworkAvailable(mWifi, null);
+        assertTrue(mConnectivity.isMetered());
+
+        mConnectivity.onNetworkAvailable(mWifi, false);
+        assertFalse(mConnectivity.isMetered());
+
+        //Capabilities already known are kept when the network is reported again.
+        mConnectivity.onNetworkAvailable(mWifi, null);
+        assertFalse(mConnectivity.isMetered());
+
+        mConnectivity.onNetworkLost(mWifi);
+        assertTrue(mConnectivity.isConnected());
+        assertTrue(mConnectivity.isMetered());
+    }
+
+    @Test
+    public void testListenerCalledOnlyOnChange() {
+        mConnectivity.onNetworkLost(mWifi);
+        mConnectivity.onNetworkAvailable(mWifi, false);
+        mConnectivity.onNetworkAvailable(mWifi, false);
+        mConnectivity.onNetworkLost(mMobile);
+
+        assertEquals(2, mChanges.size());
+    }
+
+    @Test
+    public void testAwaitConnectedWokenByNetwork() throws Exception {
+        mConnectivity.onNetworkLost(mWifi);
+        assertFalse(mConnectivity.awaitConnected(10));
+
+        Thread networkThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                mConnectivity.onNetworkAvailable(mWifi, false);
+            }
+        });
+        networkThread.start();
+
+        long start = System.currentTimeMillis();
+        assertTrue(mConnectivity.awaitConnected(10000));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        networkThread.join();
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            joined.append(joined.length() > 0 ? "," : "").append(value);
+        }
+        return joined.toString();
+    }
+}
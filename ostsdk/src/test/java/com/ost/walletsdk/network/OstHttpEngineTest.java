@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.io.BaseEncoding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import okhttp3.FormBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Clients of different users, as created by workflows and polling services, share one
+ * connection pool and keep their own request signing.
+ */
+public class OstHttpEngineTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private MockWebServer mServer;
+
+    @Before
+    public void setUp() throws IOException {
+        OstHttpEngine.getClient().connectionPool().evictAll();
+        mServer = new MockWebServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testConnectionReusedAcrossWorkflows() throws Exception {
+        OkHttpClient firstWorkflowClient = OstHttpEngine.newClient(new OstApiSigningInterceptor(fakeSigner("user1")));
+        OkHttpClient secondWorkflowClient = OstHttpEngine.newClient(new OstApiSigningInterceptor(fakeSigner("user2")));
+        OkHttpClient pollingClient = OstHttpEngine.newClient(new OstApiSigningInterceptor(fakeSigner("user1")));
+
+        assertSame(OstHttpEngine.getClient().connectionPool(), firstWorkflowClient.connectionPool());
+        assertSame(OstHttpEngine.getClient().dispatcher(), secondWorkflowClient.dispatcher());
+
+        execute(firstWorkflowClient, "/users/user1");
+        execute(secondWorkflowClient, "/users/user2");
+        execute(pollingClient, "/users/user1/transactions/1");
+
+        assertEquals(0, mServer.takeRequest().getSequenceNumber());
+        assertEquals(1, mServer.takeRequest().getSequenceNumber());
+        assertEquals(2, mServer.takeRequest().getSequenceNumber());
+        assertEquals(1, OstHttpEngine.getClient().connectionPool().connectionCount());
+    }
+
+    @Test
+    public void testSignatureAddedPerUser() throws Exception {
+        execute(OstHttpEngine.newClient(new OstApiSigningInterceptor(fakeSigner("user1"))), "/users/user1");
+        execute(OstHttpEngine.newClient(new OstApiSigningInterceptor(fakeSigner("user2"))), "/users/user2");
+
+        RecordedRequest firstRequest = mServer.takeRequest();
+        RecordedRequest secondRequest = mServer.takeRequest();
+        assertEquals(signature("user1", "/users/user1?a=1"),
+                firstRequest.getRequestUrl().queryParameter(OstApiSigningInterceptor.API_SIGNATURE));
+        assertEquals(signature("user2", "/users/user2?a=1"),
+                secondRequest.getRequestUrl().queryParameter(OstApiSigningInterceptor.API_SIGNATURE));
+    }
+
+    @Test
+    public void testSignatureAddedToFormBody() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{}"));
+        OkHttpClient client = OstHttpEngine.newClient(new OstApiSigningInterceptor(fakeSigner("user1")));
+        Request request = new Request.Builder()
+                .url(mServer.url("/users/user1/sessions"))
+                .post(new FormBody.Builder().addEncoded("a", "1").build())
+                .tag(new OstApiSigningInterceptor.StringToSign("/users/user1/sessions?a=1".getBytes(UTF_8)))
+                .build();
+        client.newCall(request).execute().close();
+
+        assertEquals("a=1&api_signature=" + signature("user1", "/users/user1/sessions?a=1"),
+                mServer.takeRequest().getBody().readUtf8());
+    }
+
+    private void execute(OkHttpClient client, String resource) throws IOException {
+        mServer.enqueue(new MockResponse().setBody("{}"));
+        Request request = new Request.Builder()
+                .url(mServer.url(resource).newBuilder().addEncodedQueryParameter("a", "1").build())
+                .tag(new OstApiSigningInterceptor.StringToSign((resource + "?a=1").getBytes(UTF_8)))
+                .build();
+        Response response = client.newCall(request).execute();
+        response.body().string();
+        response.close();
+    }
+
+    private static OstHttpRequestClient.ApiSigner fakeSigner(final String userId) {
+        return new OstHttpRequestClient.ApiSigner() {
+            @Override
+            public String sign(byte[] bytes) {
+                return signature(userId, new String(bytes, UTF_8));
+            }
+        };
+    }
+
+    private static String signature(String userId, String stringToSign) {
+        return "0x" + BaseEncoding.base16().lowerCase().encode((userId + stringToSign).getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Blocking api is a wrapper over the async one, failures must surface as before.
+ * Async requests are checked against a local server.
+ */
+public class OstHttpRequestClientTest {
+
+    private static final String SIGNATURE = "0xsignature";
+
+    private MockWebServer mServer;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        OstHttpEngine.getClient().dispatcher().setIdleCallback(null);
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testEnqueueSignsAndParsesResponse() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{\"success\":true,\"data\":{\"result_type\":\"transaction\"}}"));
+        final AtomicReference<JSONObject> parsed = new AtomicReference<>();
+        OstHttpRequestClient client = newClient(new OstHttpRequestClient.ApiSigner() {
+            @Override
+            public String sign(byte[] bytes) {
+                return SIGNATURE;
+            }
+        });
+        client.setResponseParser(new OstHttpRequestClient.ResponseParser() {
+            @Override
+            public void parse(JSONObject jsonObject) {
+                parsed.set(jsonObject);
+            }
+        });
+
+        //Rules are cached, their body is read as a String. Streamed bodies need android.util.JsonReader.
+        JSONObject response = OstHttpRequestClient.await(client.getAsync("/rules", params()));
+
+        assertTrue(response.getBoolean("success"));
+        assertSame(response, parsed.get());
+        RecordedRequest request = mServer.takeRequest(1, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("GET", request.getMethod());
+        assertEquals(SIGNATURE, request.getRequestUrl().queryParameter(OstApiSigningInterceptor.API_SIGNATURE));
+    }
+
+    @Test
+    public void testCancelAllCancelsCall() throws Exception {
+        final CountDownLatch signing = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        OstHttpRequestClient client = newClient(new OstHttpRequestClient.ApiSigner() {
+            @Override
+            public String sign(byte[] bytes) {
+                signing.countDown();
+                try {
+                    cancelled.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return SIGNATURE;
+            }
+        });
+        final CountDownLatch idle = new CountDownLatch(1);
+        OstHttpEngine.getClient().dispatcher().setIdleCallback(new Runnable() {
+            @Override
+            public void run() {
+                idle.countDown();
+            }
+        });
+
+        ListenableFuture<JSONObject> future = client.postAsync("/users/1/transactions", params());
+        assertTrue(signing.await(1, TimeUnit.SECONDS));
+        client.cancelAll();
+        cancelled.countDown();
+
+        assertTrue(future.isCancelled());
+        assertTrue(idle.await(1, TimeUnit.SECONDS));
+        //Call was cancelled before it was sent.
+        assertEquals(0, mServer.getRequestCount());
+        try {
+            OstHttpRequestClient.await(future);
+            fail("IOException expected");
+        } catch (IOException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void testSigningFailureIsUnwrapped() throws Exception {
+        final OstError ostError = new OstError("test", OstErrors.ErrorCode.UNKNOWN);
+        OstHttpRequestClient client = newClient(new OstHttpRequestClient.ApiSigner() {
+            @Override
+            public String sign(byte[] bytes) {
+                throw ostError;
+            }
+        });
+
+        try {
+            OstHttpRequestClient.await(client.postAsync("/users/1/transactions", params()));
+            fail("OstError expected");
+        } catch (OstError e) {
+            assertSame(ostError, e);
+        }
+        assertEquals(0, mServer.getRequestCount());
+    }
+
+    @Test
+    public void testIOExceptionIsPassedOn() throws Exception {
+        mServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+        OstHttpRequestClient client = newClient(new OstHttpRequestClient.ApiSigner() {
+            @Override
+            public String sign(byte[] bytes) {
+                return SIGNATURE;
+            }
+        });
+
+        try {
+            OstHttpRequestClient.await(client.postAsync("/users/1/transactions", params()));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(!(e instanceof OstApiSigningInterceptor.SigningException));
+        }
+    }
+
+    private OstHttpRequestClient newClient(OstHttpRequestClient.ApiSigner apiSigner) {
+        String baseUrl = mServer.url("/api").toString();
+        OstHttpRequestClient client = new OstHttpRequestClient(baseUrl);
+        client.setOstApiSigner(apiSigner);
+        return client;
+    }
+
+    private static Map<String, Object> params() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("api_key", "1.1.0x1.0x2");
+        params.put("api_request_timestamp", "1560000000");
+        return params;
+    }
+
+    @Test
+    public void testAwaitReturnsResponse() throws IOException {
+        SettableFuture<JSONObject> future = SettableFuture.create();
+        JSONObject response = new JSONObject();
+        future.set(response);
+
+        assertSame(response, OstHttpRequestClient.await(future));
+    }
+
+    @Test
+    public void testAwaitRethrowsIOException() {
+        SettableFuture<JSONObject> future = SettableFuture.create();
+        SocketException socketException = new SocketException();
+        future.setException(socketException);
+
+        try {
+            OstHttpRequestClient.await(future);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertSame(socketException, e);
+        }
+    }
+
+    @Test
+    public void testAwaitRethrowsOstError() throws IOException {
+        SettableFuture<JSONObject> future = SettableFuture.create();
+        OstError ostError = new OstError("test", OstErrors.ErrorCode.UNKNOWN);
+        future.setException(ostError);
+
+        try {
+            OstHttpRequestClient.await(future);
+            fail("OstError expected");
+        } catch (OstError e) {
+            assertSame(ostError, e);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testAwaitCancelledRequest() throws IOException {
+        SettableFuture<JSONObject> future = SettableFuture.create();
+        future.cancel(true);
+
+        OstHttpRequestClient.await(future);
+    }
+}
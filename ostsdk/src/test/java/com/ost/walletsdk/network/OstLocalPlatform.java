@@ -0,0 +1,768 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ost.walletsdk.OstConstants;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstDeviceManager;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstTokenHolder;
+import com.ost.walletsdk.models.entities.OstTransaction;
+import com.ost.walletsdk.models.entities.OstUser;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * In-process stand-in of OST Platform, answers api calls of an {@link OstLocalTransport}.
+ * It keeps tokens, users, devices, device managers, sessions, nonces, balances and transactions,
+ * and moves entities through their statuses like the platform does. Statuses move when the entity
+ * is read, so polling drives them forward the same way on every run.
+ * <p>
+ * Ids, addresses, latencies and failures come from a seeded random and time is a counter of
+ * handled requests, so a run with the same seed and the same request order gives the same
+ * responses. Users and devices are created through {@link #createUser(String, String)} and
+ * {@link #registerDevice(String, String, String)}, as the app's server does with the real platform.
+ */
+final class OstLocalPlatform {
+    private static final String GET = "GET";
+    private static final String POST = "POST";
+
+    private static final long EPOCH_SECONDS = 1554000000L;
+    private static final long BASE_BLOCK_HEIGHT = 3000000L;
+    private static final int BLOCK_TIME = 3;
+    private static final String DEFAULT_BALANCE = "1000000000000000000000";
+    private static final String BASE_TOKEN = "OST";
+    private static final String QUOTE_CURRENCY = "USD";
+
+    private static final String API_KEY = "api_key";
+    private static final String NONCE = "nonce";
+    private static final String SIGNER = "signer";
+    private static final String RAW_CALL_DATA = "raw_calldata";
+    private static final String SESSION_ADDRESSES = "session_addresses";
+    private static final String DEVICE_ADDRESS = "device_address";
+    private static final String RECOVERY_OWNER_ADDRESS = "recovery_owner_address";
+    private static final String DIRECT_TRANSFER = "Direct Transfer";
+    private static final String PRICER = "Pricer";
+    private static final String LIMIT = "limit";
+    private static final int DEFAULT_PAGE_LIMIT = 10;
+    private static final int MAX_PAGE_LIMIT = 25;
+
+    private static final String BAD_REQUEST = OstApiError.ApiErrorCodes.BAD_REQUEST;
+    private static final String NOT_FOUND = OstApiError.ApiErrorCodes.NOT_FOUND;
+    private static final String UNPROCESSABLE_ENTITY = OstApiError.ApiErrorCodes.UNPROCESSABLE_ENTITY;
+    private static final String AUTHENTICATION_ERROR = OstApiError.ApiErrorCodes.AUTHENTICATION_ERROR;
+    private static final String INSUFFICIENT_FUNDS = OstApiError.ApiErrorCodes.INSUFFICIENT_FUNDS;
+
+    /**
+     * Error response of the platform, with the request parameter at fault if any.
+     */
+    private static final class PlatformError extends Exception {
+        private final String mCode;
+        private final String mParameter;
+
+        PlatformError(String code, String parameter, String msg) {
+            super(msg);
+            mCode = code;
+            mParameter = parameter;
+        }
+    }
+
+    /**
+     * One platform entity and the statuses it is yet to move through.
+     */
+    private final class Record {
+        private final JSONObject mJson;
+        private String[] mNextStatuses = new String[0];
+        private int mNext;
+        private int mReadsLeft;
+
+        Record(JSONObject json) {
+            mJson = json;
+            touch();
+        }
+
+        String get(String key) {
+            return mJson.optString(key, null);
+        }
+
+        void set(String key, Object value) {
+            put(mJson, key, value);
+            touch();
+        }
+
+        /**
+         * Sets the status, the entity moves to the next statuses one by one as it is read.
+         */
+        void transition(String status, String... nextStatuses) {
+            set(OstBaseEntity.STATUS, status);
+            mNextStatuses = nextStatuses;
+            mNext = 0;
+            mReadsLeft = mReadsPerTransition;
+        }
+
+        JSONObject read() {
+            if (mNext < mNextStatuses.length && --mReadsLeft <= 0) {
+                set(OstBaseEntity.STATUS, mNextStatuses[mNext++]);
+                mReadsLeft = mReadsPerTransition;
+                onStatusChanged(this);
+            }
+            return copy(mJson);
+        }
+
+        private void touch() {
+            put(mJson, OstBaseEntity.UPDATED_TIMESTAMP, EPOCH_SECONDS + mTicks);
+        }
+    }
+
+    private final Random mRandom;
+    private final ScheduledExecutorService mScheduler;
+    private long mMinLatencyMillis;
+    private long mMaxLatencyMillis;
+    private double mFailureRate;
+    private int mReadsPerTransition = 1;
+    private long mTicks;
+
+    private final Map<String, Record> mTokens = new HashMap<>();
+    private final Map<String, Record> mUsers = new HashMap<>();
+    private final Map<String, Record> mDevices = new HashMap<>();
+    private final Map<String, Record> mDeviceManagers = new HashMap<>();
+    private final Map<String, Record> mTokenHolders = new HashMap<>();
+    private final Map<String, Record> mSessions = new HashMap<>();
+    private final Map<String, Record> mTransactions = new LinkedHashMap<>();
+    private final Map<String, BigInteger> mBalances = new HashMap<>();
+
+    public OstLocalPlatform(long seed) {
+        mRandom = new Random(seed);
+        mScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("ost-local-platform")
+                .setDaemon(true)
+                .build());
+    }
+
+    // region - configuration
+
+    /**
+     * Latency of every response, picked uniformly between min and max.
+     */
+    public synchronized OstLocalPlatform setLatency(long minMillis, long maxMillis) {
+        mMinLatencyMillis = minMillis;
+        mMaxLatencyMillis = Math.max(minMillis, maxMillis);
+        return this;
+    }
+
+    /**
+     * Share of requests failing with an IOException before they reach the platform.
+     */
+    public synchronized OstLocalPlatform setFailureRate(double failureRate) {
+        mFailureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * Reads of an entity it takes to move it to its next status, eg: polls per block confirmation.
+     */
+    public synchronized OstLocalPlatform setReadsPerTransition(int readsPerTransition) {
+        mReadsPerTransition = Math.max(1, readsPerTransition);
+        return this;
+    }
+
+    // endregion
+
+    // region - app server calls
+
+    public synchronized void createToken(String tokenId, String chainId) {
+        JSONObject auxiliaryChain = new JSONObject();
+        put(auxiliaryChain, "chain_id", chainId);
+        put(auxiliaryChain, "utility_branded_token", newAddress());
+        JSONObject originChain = new JSONObject();
+        put(originChain, "chain_id", "3");
+        put(originChain, "branded_token", newAddress());
+
+        JSONObject token = new JSONObject();
+        put(token, OstBaseEntity.ID, tokenId);
+        put(token, "name", "Local Token " + tokenId);
+        put(token, "symbol", "LT" + tokenId);
+        put(token, "conversion_factor", "10");
+        put(token, "total_supply", "1000000000000000000000000");
+        put(token, "decimals", "18");
+        put(token, "origin_chain", originChain);
+        put(token, "auxiliary_chains", new JSONArray().put(auxiliaryChain));
+        mTokens.put(tokenId, new Record(token));
+    }
+
+    /**
+     * Creates a user of the token with a default balance, the token is created if needed.
+     */
+    public synchronized void createUser(String userId, String tokenId) {
+        if (!mTokens.containsKey(tokenId)) {
+            createToken(tokenId, "1409");
+        }
+        JSONObject user = new JSONObject();
+        put(user, OstBaseEntity.ID, userId);
+        put(user, OstUser.TOKEN_ID, tokenId);
+        put(user, OstUser.TYPE, "user");
+        put(user, OstBaseEntity.STATUS, OstUser.CONST_STATUS.CREATED);
+        mUsers.put(userId, new Record(user));
+        mBalances.put(userId, new BigInteger(DEFAULT_BALANCE));
+    }
+
+    public synchronized void registerDevice(String userId, String deviceAddress, String apiSignerAddress) {
+        JSONObject device = new JSONObject();
+        put(device, OstDevice.ADDRESS, deviceAddress);
+        put(device, OstDevice.USER_ID, userId);
+        put(device, OstDevice.API_SIGNER_ADDRESS, apiSignerAddress);
+        put(device, OstDevice.LINKED_ADDRESS, JSONObject.NULL);
+        put(device, OstBaseEntity.STATUS, OstDevice.CONST_STATUS.REGISTERED);
+        Record user = mUsers.get(userId);
+        if (null != user && null != user.get(OstUser.DEVICE_MANAGER_ADDRESS)) {
+            put(device, OstDevice.DEVICE_MANAGER_ADDRESS, user.get(OstUser.DEVICE_MANAGER_ADDRESS));
+        }
+        mDevices.put(deviceAddress.toLowerCase(), new Record(device));
+    }
+
+    public synchronized String getStatus(String entityId) {
+        Record record = findRecord(entityId);
+        return null == record ? null : record.get(OstBaseEntity.STATUS);
+    }
+
+    public synchronized String getBalance(String userId) {
+        BigInteger balance = mBalances.get(userId);
+        return null == balance ? null : balance.toString();
+    }
+
+    // endregion
+
+    ScheduledExecutorService getScheduler() {
+        return mScheduler;
+    }
+
+    synchronized long nextLatencyMillis() {
+        long range = mMaxLatencyMillis - mMinLatencyMillis;
+        return mMinLatencyMillis + (range > 0 ? (long) (mRandom.nextDouble() * (range + 1)) : 0);
+    }
+
+    synchronized boolean nextIsFailure() {
+        return mFailureRate > 0 && mRandom.nextDouble() < mFailureRate;
+    }
+
+    /**
+     * Answers a request as the platform would, errors come back as error responses.
+     */
+    synchronized JSONObject handle(String method, String resource, Map<String, Object> params) {
+        mTicks++;
+        try {
+            String[] segments = resource.replaceAll("^/+|/+$", "").split("/");
+            String[] apiKey = authenticate(params);
+            return route(method, segments, apiKey, params);
+        } catch (PlatformError error) {
+            return errorResponse(error);
+        }
+    }
+
+    private JSONObject route(String method, String[] segments, String[] apiKey,
+                             Map<String, Object> params) throws PlatformError {
+        String tokenId = apiKey[0];
+        String userId = apiKey[1];
+        int length = segments.length;
+        String root = segments[0];
+
+        if (GET.equals(method) && 1 == length && "tokens".equals(root)) {
+            return response("token", getRecord(mTokens, tokenId).read());
+        }
+        if (GET.equals(method) && 1 == length && "rules".equals(root)) {
+            return response("rules", rules(tokenId));
+        }
+        if (GET.equals(method) && "chains".equals(root) && 2 == length) {
+            return response("chain", chain(segments[1]));
+        }
+        if (GET.equals(method) && "chains".equals(root) && 3 == length && "price-points".equals(segments[2])) {
+            return response("price_point", pricePoint());
+        }
+        if (!"users".equals(root) || length < 2 || !userId.equals(segments[1])) {
+            throw new PlatformError(NOT_FOUND, null, "Resource not found");
+        }
+
+        Record user = getRecord(mUsers, userId);
+        String action = length > 2 ? segments[2] : "";
+        if (GET.equals(method) && 2 == length) {
+            return response("user", user.read());
+        }
+        if (POST.equals(method) && "activate-user".equals(action)) {
+            return response("user", activateUser(user, params));
+        }
+        if (GET.equals(method) && "salts".equals(action)) {
+            JSONObject salt = new JSONObject();
+            put(salt, "scrypt_salt", Integer.toHexString(userId.hashCode()) + "local-salt");
+            return response("salt", salt);
+        }
+        if (GET.equals(method) && "devices".equals(action) && 4 == length) {
+            return response("device", getUserRecord(mDevices, segments[3], userId).read());
+        }
+        if (GET.equals(method) && "device-managers".equals(action)) {
+            return response("device_manager", getRecord(mDeviceManagers, user.get(OstUser.DEVICE_MANAGER_ADDRESS)).read());
+        }
+        if (GET.equals(method) && "token-holder".equals(action)) {
+            return response("token_holder", getRecord(mTokenHolders, user.get(OstUser.TOKEN_HOLDER_ADDRESS)).read());
+        }
+        if (GET.equals(method) && "balance".equals(action)) {
+            return response("balance", balance(userId));
+        }
+        if (POST.equals(method) && "sessions".equals(action) && 4 == length && "authorize".equals(segments[3])) {
+            return response("device_manager_operation", authorizeSession(user, params));
+        }
+        if (GET.equals(method) && "sessions".equals(action) && 4 == length) {
+            return response("session", getUserRecord(mSessions, segments[3], userId).read());
+        }
+        if (POST.equals(method) && "transactions".equals(action) && 3 == length) {
+            return response("transaction", executeTransaction(user, params));
+        }
+        if (GET.equals(method) && "transactions".equals(action) && 3 == length) {
+            //Newest first, a page of limit transactions like the platform.
+            List<Record> userTransactions = new ArrayList<>();
+            for (Record transaction : mTransactions.values()) {
+                if (userId.equals(transaction.get(OstConstants.USER_ID))) {
+                    userTransactions.add(0, transaction);
+                }
+            }
+            int limit = Math.min(parseLimit(params), userTransactions.size());
+            JSONArray transactions = new JSONArray();
+            for (int cnt = 0; cnt < limit; cnt++) {
+                transactions.put(userTransactions.get(cnt).read());
+            }
+            return response("transactions", transactions);
+        }
+        if (GET.equals(method) && "transactions".equals(action) && 4 == length) {
+            return response("transaction", getUserRecord(mTransactions, segments[3], userId).read());
+        }
+        throw new PlatformError(NOT_FOUND, null, "Resource not supported by local platform");
+    }
+
+    /**
+     * @return token id, user id, device address and api signer address of the api key.
+     */
+    private String[] authenticate(Map<String, Object> params) throws PlatformError {
+        Object apiKeyValue = null == params ? null : params.get(API_KEY);
+        String[] apiKey = null == apiKeyValue ? new String[0] : apiKeyValue.toString().split("\\.");
+        if (4 != apiKey.length) {
+            throw new PlatformError(AUTHENTICATION_ERROR, API_KEY, "Invalid api key");
+        }
+        Record user = mUsers.get(apiKey[1]);
+        Record device = mDevices.get(apiKey[2].toLowerCase());
+        if (null == user || !apiKey[0].equals(user.get(OstUser.TOKEN_ID)) || null == device
+                || !apiKey[1].equals(device.get(OstDevice.USER_ID))
+                || !apiKey[3].equalsIgnoreCase(device.get(OstDevice.API_SIGNER_ADDRESS))
+                || OstDevice.CONST_STATUS.REVOKED.equalsIgnoreCase(device.get(OstBaseEntity.STATUS))) {
+            throw new PlatformError(AUTHENTICATION_ERROR, API_KEY, "Api signer not authorized");
+        }
+        return apiKey;
+    }
+
+    private JSONObject activateUser(Record user, Map<String, Object> params) throws PlatformError {
+        if (!OstUser.CONST_STATUS.CREATED.equalsIgnoreCase(user.get(OstBaseEntity.STATUS))) {
+            throw new PlatformError(UNPROCESSABLE_ENTITY, null, "User is not in created state");
+        }
+        String userId = user.get(OstBaseEntity.ID);
+        Record device = getUserRecord(mDevices, requireParam(params, DEVICE_ADDRESS), userId);
+        Object sessionAddresses = params.get(SESSION_ADDRESSES);
+        if (!(sessionAddresses instanceof Collection) || ((Collection) sessionAddresses).isEmpty()) {
+            throw new PlatformError(BAD_REQUEST, SESSION_ADDRESSES, "Session addresses missing");
+        }
+
+        String tokenHolderAddress = newAddress();
+        String deviceManagerAddress = newAddress();
+        user.set(OstUser.TOKEN_HOLDER_ADDRESS, tokenHolderAddress);
+        user.set(OstUser.DEVICE_MANAGER_ADDRESS, deviceManagerAddress);
+        user.set(OstUser.RECOVERY_ADDRESS, newAddress());
+        user.set(OstUser.RECOVERY_OWNER_ADDRESS, requireParam(params, RECOVERY_OWNER_ADDRESS));
+        user.transition(OstUser.CONST_STATUS.ACTIVATING, OstUser.CONST_STATUS.ACTIVATED);
+
+        JSONObject deviceManager = new JSONObject();
+        put(deviceManager, OstDeviceManager.ADDRESS, deviceManagerAddress);
+        put(deviceManager, OstDeviceManager.USER_ID, userId);
+        put(deviceManager, OstDeviceManager.REQUIREMENT, 1);
+        put(deviceManager, OstDeviceManager.NONCE, 0);
+        put(deviceManager, OstBaseEntity.STATUS, OstDeviceManager.CONST_STATUS.ACTIVATED);
+        mDeviceManagers.put(deviceManagerAddress, new Record(deviceManager));
+
+        JSONObject tokenHolder = new JSONObject();
+        put(tokenHolder, OstTokenHolder.ADDRESS, tokenHolderAddress);
+        put(tokenHolder, OstTokenHolder.USER_ID, userId);
+        put(tokenHolder, OstBaseEntity.STATUS, OstTokenHolder.CONST_STATUS.ACTIVE);
+        mTokenHolders.put(tokenHolderAddress, new Record(tokenHolder));
+
+        device.set(OstDevice.DEVICE_MANAGER_ADDRESS, deviceManagerAddress);
+        device.set(OstBaseEntity.STATUS, OstDevice.CONST_STATUS.AUTHORIZING);
+        for (Object sessionAddress : (Collection) sessionAddresses) {
+            Record session = createSession(userId, tokenHolderAddress, sessionAddress.toString(),
+                    requireParam(params, OstSession.SPENDING_LIMIT), requireParam(params, OstSession.EXPIRATION_HEIGHT));
+            session.set(OstBaseEntity.STATUS, OstSession.CONST_STATUS.INITIALIZING);
+        }
+        return copy(user.mJson);
+    }
+
+    private JSONObject authorizeSession(Record user, Map<String, Object> params) throws PlatformError {
+        Record deviceManager = getRecord(mDeviceManagers, user.get(OstUser.DEVICE_MANAGER_ADDRESS));
+        checkNonce(deviceManager, params);
+        JSONArray parameters = rawCallDataParameters(params);
+        String sessionAddress = parameters.optString(0);
+        if (mSessions.containsKey(sessionAddress.toLowerCase())) {
+            throw new PlatformError(BAD_REQUEST, RAW_CALL_DATA, "Session already exists");
+        }
+        deviceManager.set(OstDeviceManager.NONCE, Integer.parseInt(deviceManager.get(OstDeviceManager.NONCE)) + 1);
+
+        Record session = createSession(user.get(OstBaseEntity.ID), user.get(OstUser.TOKEN_HOLDER_ADDRESS),
+                sessionAddress, parameters.optString(1), parameters.optString(2));
+        session.transition(OstSession.CONST_STATUS.INITIALIZING, OstSession.CONST_STATUS.AUTHORISED);
+
+        JSONObject operation = new JSONObject();
+        put(operation, OstBaseEntity.ID, newUuid());
+        put(operation, OstConstants.USER_ID, user.get(OstBaseEntity.ID));
+        put(operation, "kind", "authorize_session");
+        put(operation, OstBaseEntity.STATUS, "CREATED");
+        put(operation, OstBaseEntity.UPDATED_TIMESTAMP, EPOCH_SECONDS + mTicks);
+        return operation;
+    }
+
+    private JSONObject executeTransaction(Record user, Map<String, Object> params) throws PlatformError {
+        String userId = user.get(OstBaseEntity.ID);
+        Record session = getUserRecord(mSessions, requireParam(params, SIGNER), userId);
+        if (!OstSession.CONST_STATUS.AUTHORISED.equalsIgnoreCase(session.get(OstBaseEntity.STATUS))) {
+            throw new PlatformError(UNPROCESSABLE_ENTITY, SIGNER, "Session is not authorized");
+        }
+        checkNonce(session, params);
+
+        JSONObject rawCallData = rawCallData(params);
+        JSONArray parameters = rawCallData.optJSONArray(OstConstants.PARAMETERS);
+        boolean isPricer = "pay".equals(rawCallData.optString(OstConstants.METHOD));
+        //Pricer rule takes the from address first.
+        int offset = isPricer ? 1 : 0;
+        JSONArray toAddresses = null == parameters ? null : parameters.optJSONArray(offset);
+        JSONArray amounts = null == parameters ? null : parameters.optJSONArray(offset + 1);
+        if (null == toAddresses || null == amounts || toAddresses.length() != amounts.length()) {
+            throw new PlatformError(BAD_REQUEST, RAW_CALL_DATA, "Invalid transfers");
+        }
+        BigInteger total = BigInteger.ZERO;
+        JSONArray transfers = new JSONArray();
+        for (int cnt = 0; cnt < toAddresses.length(); cnt++) {
+            BigInteger amount = new BigInteger(amounts.optString(cnt, "0"));
+            total = total.add(amount);
+            JSONObject transfer = new JSONObject();
+            put(transfer, "from", user.get(OstUser.TOKEN_HOLDER_ADDRESS));
+            put(transfer, "from_user_id", userId);
+            put(transfer, "to", toAddresses.optString(cnt));
+            put(transfer, "to_user_id", findUserIdByTokenHolder(toAddresses.optString(cnt)));
+            put(transfer, "amount", amount.toString());
+            put(transfer, "kind", "transfer");
+            transfers.put(transfer);
+        }
+        if (mBalances.get(userId).compareTo(total) < 0) {
+            throw new PlatformError(INSUFFICIENT_FUNDS, null, "Insufficient balance");
+        }
+        session.set(OstSession.NONCE, Integer.parseInt(session.get(OstSession.NONCE)) + 1);
+        mBalances.put(userId, mBalances.get(userId).subtract(total));
+
+        JSONObject transaction = new JSONObject();
+        String transactionId = newUuid();
+        put(transaction, OstBaseEntity.ID, transactionId);
+        put(transaction, OstConstants.USER_ID, userId);
+        put(transaction, OstTransaction.TRANSACTION_HASH, JSONObject.NULL);
+        put(transaction, OstTransaction.RULE_NAME, isPricer ? PRICER : DIRECT_TRANSFER);
+        put(transaction, OstTransaction.TRANSFERS, transfers);
+        put(transaction, OstTransaction.GAS_PRICE, "1000000000");
+        put(transaction, "meta_property", toJson(params.get("meta_property")));
+        Record record = new Record(transaction);
+        record.transition(OstTransaction.CONST_STATUS.SUBMITTED, OstTransaction.CONST_STATUS.MINED,
+                OstTransaction.CONST_STATUS.SUCCESS);
+        mTransactions.put(transactionId, record);
+        return copy(transaction);
+    }
+
+    /**
+     * Follow ups of status changes, as the platform does when a block is confirmed.
+     */
+    private void onStatusChanged(Record record) {
+        String status = record.get(OstBaseEntity.STATUS);
+        if (mUsers.containsValue(record) && OstUser.CONST_STATUS.ACTIVATED.equalsIgnoreCase(status)) {
+            String userId = record.get(OstBaseEntity.ID);
+            for (Record device : mDevices.values()) {
+                if (userId.equals(device.get(OstDevice.USER_ID))
+                        && OstDevice.CONST_STATUS.AUTHORIZING.equalsIgnoreCase(device.get(OstBaseEntity.STATUS))) {
+                    device.set(OstBaseEntity.STATUS, OstDevice.CONST_STATUS.AUTHORIZED);
+                }
+            }
+            for (Record session : mSessions.values()) {
+                if (userId.equals(session.get(OstSession.USER_ID))
+                        && OstSession.CONST_STATUS.INITIALIZING.equalsIgnoreCase(session.get(OstBaseEntity.STATUS))) {
+                    session.set(OstBaseEntity.STATUS, OstSession.CONST_STATUS.AUTHORISED);
+                }
+            }
+        } else if (mTransactions.containsValue(record) && OstTransaction.CONST_STATUS.MINED.equalsIgnoreCase(status)) {
+            record.set(OstTransaction.TRANSACTION_HASH, "0x" + newHex(64));
+            record.set(OstTransaction.BLOCK_NUMBER, BASE_BLOCK_HEIGHT + mTicks);
+            record.set(OstTransaction.BLOCK_TIMESTAMP, EPOCH_SECONDS + mTicks);
+        } else if (mTransactions.containsValue(record) && OstTransaction.CONST_STATUS.SUCCESS.equalsIgnoreCase(status)) {
+            record.set(OstTransaction.GAS_USED, 120000);
+            JSONArray transfers = record.mJson.optJSONArray(OstTransaction.TRANSFERS);
+            for (int cnt = 0; cnt < transfers.length(); cnt++) {
+                JSONObject transfer = transfers.optJSONObject(cnt);
+                String toUserId = transfer.optString("to_user_id", null);
+                if (null != toUserId && mBalances.containsKey(toUserId)) {
+                    mBalances.put(toUserId, mBalances.get(toUserId).add(new BigInteger(transfer.optString("amount"))));
+                }
+            }
+        }
+    }
+
+    private Record createSession(String userId, String tokenHolderAddress, String sessionAddress,
+                                 String spendingLimit, String expirationHeight) {
+        JSONObject session = new JSONObject();
+        put(session, OstSession.ADDRESS, sessionAddress);
+        put(session, OstSession.USER_ID, userId);
+        put(session, OstSession.TOKEN_HOLDER_ADDRESS, tokenHolderAddress);
+        put(session, OstSession.SPENDING_LIMIT, spendingLimit);
+        put(session, OstSession.EXPIRATION_HEIGHT, expirationHeight);
+        long blocksLeft = Long.parseLong(expirationHeight) - (BASE_BLOCK_HEIGHT + mTicks);
+        put(session, OstSession.APPROX_EXPIRATION_TIMESTAMP, EPOCH_SECONDS + mTicks + blocksLeft * BLOCK_TIME);
+        put(session, OstSession.NONCE, 0);
+        put(session, OstBaseEntity.STATUS, OstSession.CONST_STATUS.CREATED);
+        Record record = new Record(session);
+        mSessions.put(sessionAddress.toLowerCase(), record);
+        return record;
+    }
+
+    private void checkNonce(Record record, Map<String, Object> params) throws PlatformError {
+        String nonce = requireParam(params, NONCE);
+        if (!nonce.equals(record.get(NONCE))) {
+            throw new PlatformError(BAD_REQUEST, NONCE, "Invalid nonce, expected " + record.get(NONCE));
+        }
+    }
+
+    private JSONObject rawCallData(Map<String, Object> params) throws PlatformError {
+        try {
+            return new JSONObject(requireParam(params, RAW_CALL_DATA));
+        } catch (JSONException e) {
+            throw new PlatformError(BAD_REQUEST, RAW_CALL_DATA, "Invalid raw call data");
+        }
+    }
+
+    private JSONArray rawCallDataParameters(Map<String, Object> params) throws PlatformError {
+        JSONArray parameters = rawCallData(params).optJSONArray(OstConstants.PARAMETERS);
+        if (null == parameters || parameters.length() < 3) {
+            throw new PlatformError(BAD_REQUEST, RAW_CALL_DATA, "Invalid raw call data");
+        }
+        return parameters;
+    }
+
+    private JSONArray rules(String tokenId) {
+        JSONArray rules = new JSONArray();
+        for (String name : new String[]{DIRECT_TRANSFER, PRICER}) {
+            JSONObject rule = new JSONObject();
+            //Rule addresses are the same for every run of a token.
+            put(rule, "address", String.format("0x%040x", (name + tokenId).hashCode() & 0xffffffffL));
+            put(rule, OstConstants.TOKEN_ID, tokenId);
+            put(rule, "name", name);
+            put(rule, "abi", "[]");
+            put(rule, OstBaseEntity.UPDATED_TIMESTAMP, EPOCH_SECONDS);
+            rules.put(rule);
+        }
+        return rules;
+    }
+
+    private JSONObject chain(String chainId) {
+        JSONObject chain = new JSONObject();
+        put(chain, "chain_id", chainId);
+        put(chain, OstConstants.BLOCK_HEIGHT, BASE_BLOCK_HEIGHT + mTicks);
+        put(chain, OstConstants.BLOCK_TIME, BLOCK_TIME);
+        put(chain, OstBaseEntity.UPDATED_TIMESTAMP, EPOCH_SECONDS + mTicks);
+        return chain;
+    }
+
+    private JSONObject pricePoint() {
+        JSONObject quote = new JSONObject();
+        put(quote, QUOTE_CURRENCY, 0.0193);
+        put(quote, "decimals", 18);
+        put(quote, OstBaseEntity.UPDATED_TIMESTAMP, EPOCH_SECONDS + mTicks);
+        JSONObject pricePoint = new JSONObject();
+        put(pricePoint, BASE_TOKEN, quote);
+        return pricePoint;
+    }
+
+    private JSONObject balance(String userId) {
+        JSONObject balance = new JSONObject();
+        put(balance, OstConstants.USER_ID, userId);
+        put(balance, "total_balance", mBalances.get(userId).toString());
+        put(balance, "available_balance", mBalances.get(userId).toString());
+        put(balance, "unsettled_debit", "0");
+        put(balance, OstBaseEntity.UPDATED_TIMESTAMP, EPOCH_SECONDS + mTicks);
+        return balance;
+    }
+
+    private String findUserIdByTokenHolder(String tokenHolderAddress) {
+        Record tokenHolder = mTokenHolders.get(tokenHolderAddress);
+        return null == tokenHolder ? null : tokenHolder.get(OstTokenHolder.USER_ID);
+    }
+
+    private Record findRecord(String entityId) {
+        String key = null == entityId ? null : entityId.toLowerCase();
+        List<Map<String, Record>> allRecords = new ArrayList<>();
+        allRecords.add(mUsers);
+        allRecords.add(mTransactions);
+        allRecords.add(mDeviceManagers);
+        allRecords.add(mTokenHolders);
+        for (Map<String, Record> records : allRecords) {
+            if (records.containsKey(entityId)) {
+                return records.get(entityId);
+            }
+        }
+        return mDevices.containsKey(key) ? mDevices.get(key) : mSessions.get(key);
+    }
+
+    private static Record getRecord(Map<String, Record> records, String id) throws PlatformError {
+        Record record = null == id ? null : records.get(id);
+        if (null == record) {
+            throw new PlatformError(NOT_FOUND, null, "Entity not found");
+        }
+        return record;
+    }
+
+    /**
+     * Looks up an entity of the user, addresses are matched ignoring case.
+     */
+    private Record getUserRecord(Map<String, Record> records, String id, String userId) throws PlatformError {
+        Record record = records.get(id);
+        if (null == record) {
+            record = records.get(id.toLowerCase());
+        }
+        if (null == record || !userId.equals(record.get(OstConstants.USER_ID))) {
+            throw new PlatformError(NOT_FOUND, null, "Entity not found");
+        }
+        return record;
+    }
+
+    private static String requireParam(Map<String, Object> params, String name) throws PlatformError {
+        Object value = params.get(name);
+        if (null == value || value.toString().isEmpty()) {
+            throw new PlatformError(BAD_REQUEST, name, "Missing parameter " + name);
+        }
+        return value.toString();
+    }
+
+    private static int parseLimit(Map<String, Object> params) throws PlatformError {
+        Object value = params.get(LIMIT);
+        if (null == value) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        try {
+            int limit = Integer.parseInt(value.toString());
+            if (limit > 0 && limit <= MAX_PAGE_LIMIT) {
+                return limit;
+            }
+        } catch (NumberFormatException e) {
+            //Reported below.
+        }
+        throw new PlatformError(BAD_REQUEST, LIMIT, "Invalid parameter " + LIMIT);
+    }
+
+    private String newAddress() {
+        return "0x" + newHex(40);
+    }
+
+    private String newHex(int length) {
+        StringBuilder hex = new StringBuilder(length);
+        for (int cnt = 0; cnt < length; cnt++) {
+            hex.append(Character.forDigit(mRandom.nextInt(16), 16));
+        }
+        return hex.toString();
+    }
+
+    private String newUuid() {
+        return new UUID(mRandom.nextLong(), mRandom.nextLong()).toString();
+    }
+
+    private static JSONObject response(String resultType, Object result) {
+        JSONObject data = new JSONObject();
+        put(data, OstConstants.RESULT_TYPE, resultType);
+        put(data, resultType, result);
+        JSONObject response = new JSONObject();
+        put(response, OstConstants.RESPONSE_SUCCESS, true);
+        put(response, OstConstants.RESPONSE_DATA, data);
+        return response;
+    }
+
+    private static JSONObject errorResponse(PlatformError error) {
+        JSONArray errorData = new JSONArray();
+        if (null != error.mParameter) {
+            JSONObject parameterError = new JSONObject();
+            put(parameterError, "parameter", error.mParameter);
+            put(parameterError, "msg", error.getMessage());
+            errorData.put(parameterError);
+        }
+        JSONObject err = new JSONObject();
+        put(err, "code", error.mCode);
+        put(err, "msg", error.getMessage());
+        put(err, "internal_id", "LOCAL(" + error.mCode + ")");
+        put(err, "error_data", errorData);
+        JSONObject response = new JSONObject();
+        put(response, OstConstants.RESPONSE_SUCCESS, false);
+        put(response, "err", err);
+        return response;
+    }
+
+    private static Object toJson(Object value) {
+        if (value instanceof Map) {
+            JSONObject jsonObject = new JSONObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                put(jsonObject, String.valueOf(entry.getKey()), toJson(entry.getValue()));
+            }
+            return jsonObject;
+        }
+        if (value instanceof Collection) {
+            JSONArray jsonArray = new JSONArray();
+            for (Object item : (Collection) value) {
+                jsonArray.put(toJson(item));
+            }
+            return jsonArray;
+        }
+        return null == value ? JSONObject.NULL : value;
+    }
+
+    private static JSONObject copy(JSONObject jsonObject) {
+        try {
+            return new JSONObject(jsonObject.toString());
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void put(JSONObject jsonObject, String key, Object value) {
+        try {
+            jsonObject.put(key, value);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Api calls of activate user, add session and execute transaction against the local platform.
+ */
+public class OstLocalPlatformTest {
+
+    private static final String TOKEN_ID = "1129";
+    private static final String USER_ID = "6c6ea645-d86d-41ba-8a8f-b4b6ab0a1a1c";
+    private static final String RECIPIENT_ID = "0b7f3f8e-3a2c-4d36-9a0e-2b1d5c7e9f10";
+    private static final String DEVICE = "0x1111111111111111111111111111111111111111";
+    private static final String API_SIGNER = "0x2222222222222222222222222222222222222222";
+    private static final String RECIPIENT_DEVICE = "0x3333333333333333333333333333333333333333";
+    private static final String SESSION = "0x4444444444444444444444444444444444444444";
+    private static final String NEW_SESSION = "0x5555555555555555555555555555555555555555";
+
+    private OstLocalPlatform mPlatform;
+    private OstTransport mTransport;
+    private List<JSONObject> mParsedResponses;
+
+    @Before
+    public void setUp() {
+        mPlatform = new OstLocalPlatform(42);
+        mPlatform.createUser(USER_ID, TOKEN_ID);
+        mPlatform.registerDevice(USER_ID, DEVICE, API_SIGNER);
+        mParsedResponses = Collections.synchronizedList(new ArrayList<JSONObject>());
+        mTransport = newTransport(mPlatform);
+    }
+
+    @Test
+    public void testActivateAddSessionAndExecuteTransaction() throws Exception {
+        String recipientTokenHolder = activateRecipient();
+
+        JSONObject user = result(post("/users/" + USER_ID + "/activate-user/", activateParams(SESSION)));
+        assertEquals("activating", user.getString("status"));
+        assertEquals("activated", pollStatus("/users/" + USER_ID, "activated"));
+        JSONObject session = result(get("/users/" + USER_ID + "/sessions/" + SESSION));
+        assertEquals("authorized", session.getString("status"));
+
+        Map<String, Object> addSession = new HashMap<>();
+        addSession.put("nonce", "0");
+        addSession.put("raw_calldata", "{\"method\":\"authorizeSession\",\"parameters\":[\"" + NEW_SESSION
+                + "\",\"1000000000000000000\",\"4000000\"]}");
+        assertTrue(post("/users/" + USER_ID + "/sessions/authorize", addSession).getBoolean("success"));
+        assertEquals("authorized", pollStatus("/users/" + USER_ID + "/sessions/" + NEW_SESSION, "authorized"));
+        assertEquals(1, result(get("/users/" + USER_ID + "/device-managers")).getInt("nonce"));
+
+        JSONObject transaction = result(post("/users/" + USER_ID + "/transactions",
+                transactionParams(NEW_SESSION, "0", recipientTokenHolder, "5")));
+        assertEquals("submitted", transaction.getString("status"));
+        String transactionResource = "/users/" + USER_ID + "/transactions/" + transaction.getString("id");
+        assertEquals("success", pollStatus(transactionResource, "success"));
+
+        assertEquals("999999999999999999995", mPlatform.getBalance(USER_ID));
+        assertEquals("1000000000000000000005", mPlatform.getBalance(RECIPIENT_ID));
+        //Every response went through the parser before the future completed.
+        assertFalse(mParsedResponses.isEmpty());
+    }
+
+    @Test
+    public void testStaleNonceRejected() throws Exception {
+        activate();
+        post("/users/" + USER_ID + "/transactions", transactionParams(SESSION, "0", "0xabc", "1"));
+
+        JSONObject response = post("/users/" + USER_ID + "/transactions", transactionParams(SESSION, "0", "0xabc", "1"));
+
+        assertFalse(response.getBoolean("success"));
+        JSONObject err = response.getJSONObject("err");
+        assertEquals("BAD_REQUEST", err.getString("code"));
+        assertEquals("nonce", err.getJSONArray("error_data").getJSONObject(0).getString("parameter"));
+    }
+
+    @Test
+    public void testTransactionsListedNewestFirst() throws Exception {
+        activate();
+        String first = result(post("/users/" + USER_ID + "/transactions",
+                transactionParams(SESSION, "0", "0xabc", "1"))).getString("id");
+        String second = result(post("/users/" + USER_ID + "/transactions",
+                transactionParams(SESSION, "1", "0xabc", "1"))).getString("id");
+
+        assertEquals(first, listTransactions(2).getJSONObject(1).getString("id"));
+        JSONArray page = listTransactions(1);
+        assertEquals(1, page.length());
+        assertEquals(second, page.getJSONObject(0).getString("id"));
+    }
+
+    @Test
+    public void testUnknownApiSignerRejected() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("api_key", String.format("%s.%s.%s.%s", TOKEN_ID, USER_ID, DEVICE, "0x0"));
+
+        JSONObject response = mPlatform.handle("GET", "/users/" + USER_ID, params);
+
+        JSONObject err = response.getJSONObject("err");
+        assertEquals("AUTHENTICATION_ERROR", err.getString("code"));
+        assertEquals("api_key", err.getJSONArray("error_data").getJSONObject(0).getString("parameter"));
+    }
+
+    @Test
+    public void testSameSeedSameResponses() throws Exception {
+        OstLocalPlatform otherPlatform = new OstLocalPlatform(42);
+        otherPlatform.createUser(USER_ID, TOKEN_ID);
+        otherPlatform.registerDevice(USER_ID, DEVICE, API_SIGNER);
+        OstTransport otherTransport = newTransport(otherPlatform);
+
+        JSONObject user = result(post("/users/" + USER_ID + "/activate-user/", activateParams(SESSION)));
+        JSONObject otherUser = result(OstHttpRequestClient.await(otherTransport.postAsync(
+                "/users/" + USER_ID + "/activate-user/", apiParams(activateParams(SESSION)))));
+
+        assertEquals(user.toString(), otherUser.toString());
+    }
+
+    @Test
+    public void testFailureRate() throws Exception {
+        mPlatform.setFailureRate(1);
+
+        try {
+            get("/users/" + USER_ID);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals(0, mParsedResponses.size());
+        }
+    }
+
+    @Test
+    public void testLatency() throws Exception {
+        mPlatform.setLatency(100, 150);
+
+        long start = System.nanoTime();
+        get("/users/" + USER_ID);
+
+        assertTrue(System.nanoTime() - start >= 100 * 1000000L);
+    }
+
+    private OstTransport newTransport(OstLocalPlatform platform) {
+        return OstLocalTransport.newFactory(platform, false).create(null, null,
+                new OstHttpRequestClient.ResponseParser() {
+                    @Override
+                    public void parse(JSONObject jsonObject) {
+                        mParsedResponses.add(jsonObject);
+                    }
+                });
+    }
+
+    private String activateRecipient() throws Exception {
+        mPlatform.createUser(RECIPIENT_ID, TOKEN_ID);
+        mPlatform.registerDevice(RECIPIENT_ID, RECIPIENT_DEVICE, API_SIGNER);
+        Map<String, Object> params = activateParams("0x6666666666666666666666666666666666666666");
+        params.put("device_address", RECIPIENT_DEVICE);
+        params.put("api_key", String.format("%s.%s.%s.%s", TOKEN_ID, RECIPIENT_ID, RECIPIENT_DEVICE, API_SIGNER));
+        JSONObject response = mPlatform.handle("POST", "/users/" + RECIPIENT_ID + "/activate-user/", params);
+        return result(response).getString("token_holder_address");
+    }
+
+    private void activate() throws Exception {
+        post("/users/" + USER_ID + "/activate-user/", activateParams(SESSION));
+        pollStatus("/users/" + USER_ID, "activated");
+    }
+
+    private static Map<String, Object> activateParams(String sessionAddress) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("session_addresses", Arrays.asList(sessionAddress));
+        params.put("expiration_height", "4000000");
+        params.put("spending_limit", "1000000000000000000");
+        params.put("recovery_owner_address", "0x7777777777777777777777777777777777777777");
+        params.put("device_address", DEVICE);
+        return params;
+    }
+
+    private static Map<String, Object> transactionParams(String session, String nonce, String to, String amount) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("signer", session);
+        params.put("nonce", nonce);
+        params.put("raw_calldata", "{\"method\":\"directTransfers\",\"parameters\":[[\"" + to
+                + "\"],[\"" + amount + "\"]]}");
+        return params;
+    }
+
+    private JSONArray listTransactions(int limit) throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("limit", limit);
+        JSONObject response = OstHttpRequestClient.await(mTransport.getAsync("/users/" + USER_ID + "/transactions",
+                apiParams(params)));
+        return response.getJSONObject("data").getJSONArray("transactions");
+    }
+
+    private String pollStatus(String resource, String status) throws Exception {
+        String currentStatus = null;
+        for (int cnt = 0; cnt < 10 && !status.equals(currentStatus); cnt++) {
+            currentStatus = result(get(resource)).getString("status");
+        }
+        return currentStatus;
+    }
+
+    private JSONObject get(String resource) throws IOException {
+        return OstHttpRequestClient.await(mTransport.getAsync(resource, apiParams(new HashMap<String, Object>())));
+    }
+
+    private JSONObject post(String resource, Map<String, Object> params) throws IOException {
+        return OstHttpRequestClient.await(mTransport.postAsync(resource, apiParams(params)));
+    }
+
+    private static Map<String, Object> apiParams(Map<String, Object> params) {
+        params.put("api_key", String.format("%s.%s.%s.%s", TOKEN_ID, USER_ID, DEVICE, API_SIGNER));
+        params.put("api_request_timestamp", "1554000000");
+        params.put("api_signature_kind", "OST1-PS");
+        return params;
+    }
+
+    private static JSONObject result(JSONObject response) throws Exception {
+        JSONObject data = response.getJSONObject("data");
+        return data.getJSONObject(data.getString("result_type"));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OstTransport} answering api calls from an in-process {@link OstLocalPlatform}, so that
+ * workflows run in JVM tests without network.
+ * Responses arrive after the platform's latency and are parsed on the parsing executor of
+ * {@link OstHttpEngine}, like responses of the http transport.
+ */
+final class OstLocalTransport implements OstTransport {
+    private static final String GET_REQUEST = "GET";
+    private static final String POST_REQUEST = "POST";
+    private static final String API_REQUEST_TIMESTAMP = "api_request_timestamp";
+
+    private final OstLocalPlatform mPlatform;
+    private final OstHttpRequestClient.ApiSigner mApiSigner;
+    private final OstHttpRequestClient.ResponseParser mResponseParser;
+    private final Set<Future<JSONObject>> mPendingRequests =
+            Collections.newSetFromMap(new ConcurrentHashMap<Future<JSONObject>, Boolean>());
+
+    /**
+     * @param platform     platform answering the calls
+     * @param signRequests true to sign requests with the user's api key as the http transport does,
+     *                     which needs the keys of the user in the key store
+     */
+    public static OstTransport.Factory newFactory(final OstLocalPlatform platform, final boolean signRequests) {
+        return new OstTransport.Factory() {
+            @Override
+            public OstTransport create(String baseUrl, OstHttpRequestClient.ApiSigner apiSigner,
+                                       OstHttpRequestClient.ResponseParser responseParser) {
+                return new OstLocalTransport(platform, signRequests ? apiSigner : null, responseParser);
+            }
+        };
+    }
+
+    OstLocalTransport(OstLocalPlatform platform, OstHttpRequestClient.ApiSigner apiSigner,
+                      OstHttpRequestClient.ResponseParser responseParser) {
+        mPlatform = platform;
+        mApiSigner = apiSigner;
+        mResponseParser = responseParser;
+    }
+
+    @Override
+    public ListenableFuture<JSONObject> getAsync(String resource, Map<String, Object> queryParams) {
+        return sendAsync(GET_REQUEST, resource, queryParams);
+    }
+
+    @Override
+    public ListenableFuture<JSONObject> postAsync(String resource, Map<String, Object> queryParams) {
+        return sendAsync(POST_REQUEST, resource, queryParams);
+    }
+
+    @Override
+    public void cancelAll() {
+        for (Future<JSONObject> future : mPendingRequests) {
+            future.cancel(true);
+        }
+    }
+
+    private ListenableFuture<JSONObject> sendAsync(final String requestType, final String resource,
+                                                   Map<String, Object> mapParams) {
+        final Map<String, Object> params = null == mapParams
+                ? new HashMap<String, Object>() : new HashMap<>(mapParams);
+        final SettableFuture<JSONObject> future = SettableFuture.create();
+        mPendingRequests.add(future);
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                mPendingRequests.remove(future);
+            }
+        }, MoreExecutors.directExecutor());
+
+        if (null != mApiSigner) {
+            try {
+                byte[] bytesToSign = OstQueryCanonicalizer.canonicalize(resource, params, API_REQUEST_TIMESTAMP)
+                        .getBytesToSign();
+                mApiSigner.sign(bytesToSign);
+            } catch (RuntimeException e) {
+                future.setException(e);
+                return future;
+            }
+        }
+
+        mPlatform.getScheduler().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (future.isDone()) {
+                    return;
+                }
+                if (mPlatform.nextIsFailure()) {
+                    future.setException(new IOException("Local platform request failed"));
+                    return;
+                }
+                parseResponse(mPlatform.handle(requestType, resource, params), future);
+            }
+        }, mPlatform.nextLatencyMillis(), TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private void parseResponse(final JSONObject jsonResponse, final SettableFuture<JSONObject> future) {
+        OstHttpEngine.getParsingExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (null != mResponseParser) mResponseParser.parse(jsonResponse);
+                    future.set(jsonResponse);
+                } catch (Throwable th) {
+                    future.setException(th);
+                }
+            }
+        });
+    }
+}
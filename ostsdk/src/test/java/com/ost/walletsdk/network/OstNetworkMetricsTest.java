@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.ost.walletsdk.workflows.services.OstPollingPolicy;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OstNetworkMetricsTest {
+
+    private static final String SUCCESS_BODY = "{\"success\":true,\"data\":{\"result_type\":\"user\"}}";
+    private static final String ERROR_BODY = "{\"success\":false,\"err\":{\"code\":\"NOT_FOUND\",\"msg\":\"\"}}";
+
+    private MockWebServer mServer;
+    private OstNetworkMetrics mMetrics;
+
+    @Before
+    public void setUp() throws IOException {
+        OstHttpEngine.getClient().connectionPool().evictAll();
+        mServer = new MockWebServer();
+        mServer.start();
+        mMetrics = new OstNetworkMetrics();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testEndpointTemplate() {
+        assertEquals("/users/{id}/sessions/{addr}",
+                OstCallTrace.toEndpoint("/users/6c6ea645-d86d-41ba-8a8f-b4b6ab0a1a1c/sessions/0xabc123"));
+        assertEquals("/users/{id}/transactions/", OstCallTrace.toEndpoint("/users/123/transactions/"));
+        assertEquals("/chains/{id}", OstCallTrace.toEndpoint("/chains/1409"));
+        assertEquals("/tokens/", OstCallTrace.toEndpoint("/tokens/"));
+    }
+
+    @Test
+    public void testCallsAggregatedPerEndpoint() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(SUCCESS_BODY));
+        mServer.enqueue(new MockResponse().setBody(SUCCESS_BODY));
+
+        call("/users/1");
+        call("/users/2");
+
+        Map<String, OstNetworkMetrics.EndpointStats> endpointStats = mMetrics.getEndpointStats();
+        assertEquals(1, endpointStats.size());
+        OstNetworkMetrics.EndpointStats usersStats = endpointStats.get("/users/{id}");
+        assertEquals(2, usersStats.getCallCount());
+        assertEquals(0, usersStats.getErrorCount());
+        assertEquals(2 * SUCCESS_BODY.length(), usersStats.getResponseBytes());
+        assertEquals(2 * "/users/1".length(), usersStats.getRequestBytes());
+        long histogramCount = 0;
+        for (long count : usersStats.getLatencyCounts()) {
+            histogramCount += count;
+        }
+        assertEquals(2, histogramCount);
+    }
+
+    @Test
+    public void testErrorCodesCounted() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(404).setBody(ERROR_BODY));
+
+        OstCallMetrics callMetrics = call("/users/1");
+
+        assertEquals(404, callMetrics.getHttpCode());
+        assertEquals("NOT_FOUND", callMetrics.getErrorCode());
+        assertEquals(Long.valueOf(1), mMetrics.getErrorCounts().get("NOT_FOUND"));
+        assertEquals(1, mMetrics.getEndpointStats().get("/users/{id}").getErrorCount());
+    }
+
+    @Test
+    public void testConnectionReuseRatio() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(SUCCESS_BODY));
+        mServer.enqueue(new MockResponse().setBody(SUCCESS_BODY));
+
+        OstCallMetrics firstCall = call("/users/1");
+        OstCallMetrics secondCall = call("/users/1");
+
+        assertEquals(0, firstCall.getConnectionsReused());
+        assertEquals(1, firstCall.getConnectionsAcquired());
+        assertEquals(1, secondCall.getConnectionsReused());
+        assertEquals(0, secondCall.getConnectNanos());
+        assertEquals(0.5, mMetrics.getConnectionReuseRatio(), 0.0001);
+    }
+
+    @Test
+    public void testSinkGetsEveryCall() throws Exception {
+        final List<OstCallMetrics> received = new ArrayList<>();
+        mMetrics.addSink(new OstMetricsSink() {
+            @Override
+            public void onCallMetrics(OstCallMetrics callMetrics) {
+                throw new IllegalStateException("sink failure does not stop others");
+            }
+
+            @Override
+            public void onPollingDistribution(String key, OstPollingPolicy.Distribution distribution) {
+            }
+        });
+        mMetrics.addSink(new OstMetricsSink() {
+            @Override
+            public void onCallMetrics(OstCallMetrics callMetrics) {
+                received.add(callMetrics);
+            }
+
+            @Override
+            public void onPollingDistribution(String key, OstPollingPolicy.Distribution distribution) {
+            }
+        });
+        mServer.enqueue(new MockResponse().setBody(SUCCESS_BODY));
+
+        OstCallTrace trace = new OstCallTrace("GET", "/users/1", mMetrics);
+        execute(trace, "/users/1");
+        trace.finish(new JSONObject(SUCCESS_BODY), null);
+        trace.finish(new JSONObject(SUCCESS_BODY), null);
+
+        assertEquals(1, received.size());
+        assertEquals("/users/{id}", received.get(0).getEndpoint());
+        assertNull(received.get(0).getErrorCode());
+    }
+
+    private OstCallMetrics call(String resource) throws IOException {
+        final OstCallMetrics[] callMetrics = new OstCallMetrics[1];
+        OstMetricsSink sink = new OstMetricsSink() {
+            @Override
+            public void onCallMetrics(OstCallMetrics metrics) {
+                callMetrics[0] = metrics;
+            }
+
+            @Override
+            public void onPollingDistribution(String key, OstPollingPolicy.Distribution distribution) {
+            }
+        };
+        mMetrics.addSink(sink);
+        try {
+            OstCallTrace trace = new OstCallTrace("GET", resource, mMetrics);
+            String body = execute(trace, resource);
+            trace.finish(new JSONObject(body), null);
+        } catch (JSONException e) {
+            throw new IOException(e);
+        } finally {
+            mMetrics.removeSink(sink);
+        }
+        return callMetrics[0];
+    }
+
+    private String execute(OstCallTrace trace, String resource) throws IOException {
+        Request request = new Request.Builder()
+                .url(mServer.url(resource))
+                .tag(OstCallTrace.class, trace)
+                .build();
+        try (Response response = OstHttpEngine.getClient().newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.escape.Escaper;
+import com.google.common.net.UrlEscapers;
+import com.sun.management.ThreadMXBean;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class OstQueryCanonicalizerTest {
+
+    private static final String RESOURCE = "/users/123/transactions";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int ITERATIONS = 500;
+
+    /**
+     * Query building the canonicalizer replaces, signatures must not change.
+     */
+    static final class LegacyQueryBuilder {
+        private static final Escaper FormParameterEscaper = UrlEscapers.urlFormParameterEscaper();
+
+        static String build(Map<String, Object> mapParams) {
+            ArrayList<String[]> params = buildNestedQuery(new ArrayList<String[]>(), "", mapParams);
+            StringBuilder query = new StringBuilder();
+            Iterator<String[]> it = params.iterator();
+            boolean firstParam = true;
+            while (it.hasNext()) {
+                String[] pair = it.next();
+                if (!firstParam) {
+                    query.append('&');
+                }
+                firstParam = false;
+                query.append(specialCharacterEscape(pair[0])).append('=').append(specialCharacterEscape(pair[1]));
+            }
+            return query.toString();
+        }
+
+        private static ArrayList<String[]> buildNestedQuery(ArrayList<String[]> params, String paramKeyPrefix, Object paramValObj) {
+            if (paramValObj instanceof Map) {
+                Map<String, Object> sortedMap = new TreeMap<String, Object>((Map<? extends String, ?>) paramValObj);
+                for (Map.Entry<String, Object> pair : sortedMap.entrySet()) {
+                    String prefix = paramKeyPrefix.isEmpty() ? pair.getKey() : paramKeyPrefix + "[" + pair.getKey() + "]";
+                    params = buildNestedQuery(params, prefix, pair.getValue());
+                }
+            } else if (paramValObj instanceof Collection) {
+                for (Object value : (Collection) paramValObj) {
+                    params = buildNestedQuery(params, paramKeyPrefix + "[]", value);
+                }
+            } else {
+                params.add(new String[]{paramKeyPrefix, null == paramValObj ? "" : paramValObj.toString()});
+            }
+            return params;
+        }
+
+        private static String specialCharacterEscape(String stringToEscape) {
+            return FormParameterEscaper.escape(stringToEscape).replace("*", "%26");
+        }
+    }
+
+    @Test
+    public void testSameAsLegacyQuery() {
+        Map<String, Object> params = executeTransactionParams(20, 10);
+        OstQueryCanonicalizer.CanonicalQuery query = OstQueryCanonicalizer.canonicalize(RESOURCE, params, null);
+
+        String legacyQuery = LegacyQueryBuilder.build(params);
+        assertEquals(legacyQuery, query.getEncoded());
+        assertArrayEquals((RESOURCE + "?" + legacyQuery).getBytes(UTF_8), query.getBytesToSign());
+        assertEquals(RESOURCE.length() + 1, query.getEncodedOffset());
+    }
+
+    @Test
+    public void testSameAsLegacyQueryForRandomValues() {
+        Random random = new Random(7);
+        for (int cnt = 0; cnt < 200; cnt++) {
+            Map<String, Object> params = new HashMap<>();
+            params.put(randomString(random), randomString(random));
+            params.put("list", Arrays.asList(randomString(random), null, randomString(random)));
+            Map<String, Object> nested = new HashMap<>();
+            nested.put(randomString(random), randomString(random));
+            nested.put("empty", "");
+            params.put("nested", nested);
+
+            assertEquals(LegacyQueryBuilder.build(params),
+                    OstQueryCanonicalizer.canonicalize(RESOURCE, params, null).getEncoded());
+        }
+    }
+
+    @Test
+    public void testKeyQueryLeavesOutExcludedParam() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("api_key", "1.2.3");
+        params.put("api_request_timestamp", "1554000000");
+        params.put("user_id", "123");
+
+        OstQueryCanonicalizer.CanonicalQuery query =
+                OstQueryCanonicalizer.canonicalize(RESOURCE, params, "api_request_timestamp");
+
+        assertEquals("api_key=1.2.3&api_request_timestamp=1554000000&user_id=123", query.getEncoded());
+        assertEquals(RESOURCE + "?api_key=1.2.3&user_id=123", query.getKeyQuery());
+    }
+
+    @Test
+    public void testNoParams() {
+        OstQueryCanonicalizer.CanonicalQuery query = OstQueryCanonicalizer.canonicalize(RESOURCE, null, null);
+
+        assertEquals("", query.getEncoded());
+        assertArrayEquals((RESOURCE + "?").getBytes(UTF_8), query.getBytesToSign());
+    }
+
+    /**
+     * Every request is signed, for large transactions the canonical query must produce the same
+     * bytes as the legacy builder while allocating less.
+     */
+    @Test
+    public void testLargeQueryAllocatesLessThanLegacy() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        Map<String, Object> params = executeTransactionParams(100, 50);
+        assertArrayEquals(legacyBytesToSign(params), canonicalBytesToSign(params));
+        for (int cnt = 0; cnt < WARM_UP_ITERATIONS; cnt++) {
+            legacyBytesToSign(params);
+            canonicalBytesToSign(params);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int cnt = 0; cnt < ITERATIONS; cnt++) {
+            legacyBytesToSign(params);
+        }
+        long legacyBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int cnt = 0; cnt < ITERATIONS; cnt++) {
+            canonicalBytesToSign(params);
+        }
+        long canonicalBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        assertTrue("legacy " + legacyBytes + " bytes, canonical " + canonicalBytes + " bytes",
+                canonicalBytes < legacyBytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnpairedSurrogate() {
+        StringBuilder out = new StringBuilder();
+        OstQueryCanonicalizer.escape("a\uD800b", out);
+    }
+
+    private static byte[] legacyBytesToSign(Map<String, Object> params) {
+        return (RESOURCE + "?" + LegacyQueryBuilder.build(params)).getBytes(UTF_8);
+    }
+
+    private static byte[] canonicalBytesToSign(Map<String, Object> params) {
+        return OstQueryCanonicalizer.canonicalize(RESOURCE, params, null).getBytesToSign();
+    }
+
+    static Map<String, Object> executeTransactionParams(int addressCount, int metaDetailLength) {
+        StringBuilder addresses = new StringBuilder();
+        StringBuilder amounts = new StringBuilder();
+        ArrayList<String> addressList = new ArrayList<>();
+        for (int cnt = 0; cnt < addressCount; cnt++) {
+            String address = String.format("0x%040x", cnt * 7919L + 1);
+            addresses.append(cnt > 0 ? "," : "").append('"').append(address).append('"');
+            amounts.append(cnt > 0 ? "," : "").append('"').append(cnt + 1).append("000000000000000000\"");
+            addressList.add(address);
+        }
+        StringBuilder details = new StringBuilder();
+        for (int cnt = 0; cnt < metaDetailLength; cnt++) {
+            details.append("Bet on match ").append(cnt).append(" *team A* vs team B; ");
+        }
+
+        Map<String, Object> metaProperty = new HashMap<>();
+        metaProperty.put("name", "bet");
+        metaProperty.put("type", "user_to_user");
+        metaProperty.put("details", details.toString());
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("api_key", "1.1409.0x4e94Ae2e5C1BFCe1E5A8C5eF5fD8E6b0c3c4D6E7.0x69af4Ff5Aa4e1b5a5D5E8F5eB1B8E3F8C4D6e7A8");
+        params.put("api_request_timestamp", "1554000000");
+        params.put("api_signature_kind", "OST1-PS");
+        params.put("to", "0xbcc9a5ee6a1d7b3b0f1b17d8e3e4b4c4f5a6b7c8");
+        params.put("raw_calldata", "{\"method\":\"directTransfers\",\"parameters\":[[" + addresses
+                + "],[" + amounts + "]]}");
+        params.put("nonce", "12");
+        params.put("calldata", "0x94ac7a3f" + String.format("%0512x", 1));
+        params.put("signature", "0x" + String.format("%0130x", 2));
+        params.put("signer", "0x7ecf6c9f2e4c1a5b9d8e3f2a1b4c5d6e7f8a9b0c");
+        params.put("meta_property", metaProperty);
+        params.put("recipients", addressList);
+        return params;
+    }
+
+    private static String randomString(Random random) {
+        String alphabet = "abcXYZ019 -_.*~!@#$%^&()[]{}=+/?\u00E9\u20AC\uD83D\uDE00";
+        StringBuilder randomString = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int cnt = 0; cnt < length; cnt++) {
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            if (Character.isHighSurrogate(c)) {
+                randomString.append("\uD83D\uDE00");
+            } else if (!Character.isLowSurrogate(c)) {
+                randomString.append(c);
+            }
+        }
+        return randomString.toString();
+    }
+}
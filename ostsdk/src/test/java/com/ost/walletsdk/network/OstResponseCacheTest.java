@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.base.Ticker;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OstResponseCacheTest {
+
+    private static final String KEY = "https://api.ost.com/testnet/v2/rules?api_key=1.2.3.4&";
+    private static final String BODY = "{\"success\":true,\"data\":{}}";
+
+    private static class FakeTicker extends Ticker {
+        private long mNanos;
+
+        @Override
+        public long read() {
+            return mNanos;
+        }
+
+        void advance(long duration, TimeUnit timeUnit) {
+            mNanos += timeUnit.toNanos(duration);
+        }
+    }
+
+    @Test
+    public void testPolicies() {
+        assertTrue(OstResponseCache.getTtlNanos("/tokens/") > 0);
+        assertTrue(OstResponseCache.getTtlNanos("/rules") > 0);
+        assertTrue(OstResponseCache.getTtlNanos("/chains/1409/price-points") > 0);
+        //Block height must be current.
+        assertEquals(0, OstResponseCache.getTtlNanos("/chains/1409"));
+        assertEquals(0, OstResponseCache.getTtlNanos("/users/123/transactions/456"));
+        assertEquals(0, OstResponseCache.getTtlNanos("/users/123/sessions/0x1"));
+    }
+
+    @Test
+    public void testFreshUntilTtl() {
+        FakeTicker ticker = new FakeTicker();
+        OstResponseCache cache = new OstResponseCache(ticker);
+        long ttlNanos = OstResponseCache.getTtlNanos("/rules");
+
+        assertNull(cache.getFresh(KEY));
+        cache.put(KEY, "/rules", BODY, null, ttlNanos);
+        assertEquals(BODY, cache.getFresh(KEY).getBody());
+
+        ticker.advance(ttlNanos, TimeUnit.NANOSECONDS);
+        assertNull(cache.getFresh(KEY));
+        assertNull(cache.getRevalidatable(KEY));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testRevalidation() {
+        FakeTicker ticker = new FakeTicker();
+        OstResponseCache cache = new OstResponseCache(ticker);
+        long ttlNanos = OstResponseCache.getTtlNanos("/chains/1409/price-points");
+
+        cache.put(KEY, "/chains/1409/price-points", BODY, "\"etag-1\"", ttlNanos);
+        ticker.advance(ttlNanos, TimeUnit.NANOSECONDS);
+        assertNull(cache.getFresh(KEY));
+
+        OstResponseCache.Entry entry = cache.getRevalidatable(KEY);
+        assertNotNull(entry);
+        assertEquals("\"etag-1\"", entry.getETag());
+        assertEquals(BODY, cache.onNotModified(entry));
+        assertNotNull(cache.getFresh(KEY));
+        assertEquals(1, cache.getRevalidatedCount());
+    }
+
+    @Test
+    public void testInvalidate() {
+        OstResponseCache cache = new OstResponseCache(new FakeTicker());
+        String tokenKey = "https://api.ost.com/testnet/v2/tokens/?api_key=1.2.3.4&";
+        cache.put(KEY, "/rules", BODY, null, OstResponseCache.getTtlNanos("/rules"));
+        cache.put(tokenKey, "/tokens/", BODY, null, OstResponseCache.getTtlNanos("/tokens/"));
+
+        cache.invalidate("/rules");
+        assertNull(cache.getFresh(KEY));
+        assertNotNull(cache.getFresh(tokenKey));
+
+        cache.invalidateAll();
+        assertNull(cache.getFresh(tokenKey));
+    }
+}
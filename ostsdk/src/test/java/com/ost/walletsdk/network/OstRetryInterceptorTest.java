@@ -0,0 +1,298 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.base.Ticker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Retry and circuit breaker state machine against a fault injecting local server.
+ */
+public class OstRetryInterceptorTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MILLIS = 30000;
+
+    private MockWebServer mServer;
+    private FakeTicker mTicker;
+    private AtomicInteger mAttempts;
+
+    private static class FakeTicker extends Ticker {
+        private long mNanos;
+
+        @Override
+        public long read() {
+            return mNanos;
+        }
+
+        void advance(long duration, TimeUnit timeUnit) {
+            mNanos += timeUnit.toNanos(duration);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+        mTicker = new FakeTicker();
+        mAttempts = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testGetRetriedOnServerErrors() throws IOException {
+        OkHttpClient client = newClient(newInterceptor(10, 0.2));
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        mServer.enqueue(new MockResponse().setResponseCode(502));
+        mServer.enqueue(new MockResponse().setBody("{}"));
+
+        assertEquals(200, execute(client, get()));
+        assertEquals(3, mServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetRetriedOnDisconnect() throws IOException {
+        OkHttpClient client = newClient(newInterceptor(10, 0.2));
+        mServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        mServer.enqueue(new MockResponse().setBody("{}"));
+
+        assertEquals(200, execute(client, get()));
+        assertEquals(2, mAttempts.get());
+    }
+
+    @Test
+    public void testGetGivesUpAfterMaxAttempts() throws IOException {
+        OkHttpClient client = newClient(newInterceptor(10, 0.2));
+        for (int cnt = 0; cnt < MAX_ATTEMPTS + 1; cnt++) {
+            mServer.enqueue(new MockResponse().setResponseCode(504));
+        }
+
+        assertEquals(504, execute(client, get()));
+        assertEquals(MAX_ATTEMPTS, mServer.getRequestCount());
+    }
+
+    @Test
+    public void testPostNotRetriedOnServerError() throws IOException {
+        OkHttpClient client = newClient(newInterceptor(10, 0.2));
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        mServer.enqueue(new MockResponse().setBody("{}"));
+
+        assertEquals(503, execute(client, post(false)));
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void testPostNotRetriedAfterDisconnect() throws IOException {
+        OkHttpClient client = newClient(newInterceptor(10, 0.2));
+        mServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+        mServer.enqueue(new MockResponse().setBody("{}"));
+
+        try {
+            execute(client, post(false));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals(1, mAttempts.get());
+        }
+    }
+
+    @Test
+    public void testPostWithIdempotencyKeyRetried() throws IOException {
+        OkHttpClient client = newClient(newInterceptor(10, 0.2));
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        mServer.enqueue(new MockResponse().setBody("{}"));
+
+        assertEquals(200, execute(client, post(true)));
+        assertEquals(2, mServer.getRequestCount());
+    }
+
+    @Test
+    public void testPostRetriedOnConnectFailure() throws IOException {
+        OkHttpClient client = newClient(newInterceptor(10, 0.2));
+        HttpUrl url = mServer.url("/users/123/transactions");
+        mServer.shutdown();
+
+        try {
+            execute(client, new Request.Builder().url(url)
+                    .post(new FormBody.Builder().add("a", "1").build()).build());
+            fail("ConnectException expected");
+        } catch (ConnectException e) {
+            assertEquals(MAX_ATTEMPTS, mAttempts.get());
+        }
+    }
+
+    @Test
+    public void testRetryBudgetLimitsRetries() throws IOException {
+        OkHttpClient client = newClient(newInterceptor(1, 0));
+        for (int cnt = 0; cnt < 4; cnt++) {
+            mServer.enqueue(new MockResponse().setResponseCode(503));
+        }
+        mServer.enqueue(new MockResponse().setBody("{}"));
+
+        //Budget allows a single retry, the second request is not retried at all.
+        assertEquals(503, execute(client, get()));
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(503, execute(client, get()));
+        assertEquals(3, mServer.getRequestCount());
+    }
+
+    @Test
+    public void testCircuitOpensAndFailsFast() throws IOException {
+        OstRetryInterceptor retryInterceptor = newInterceptor(0, 0);
+        OkHttpClient client = newClient(retryInterceptor);
+        for (int cnt = 0; cnt < FAILURE_THRESHOLD; cnt++) {
+            mServer.enqueue(new MockResponse().setResponseCode(503));
+            assertEquals(503, execute(client, get()));
+        }
+        assertEquals(OstRetryInterceptor.State.OPEN, getState(retryInterceptor));
+
+        try {
+            execute(client, get());
+            fail("CircuitOpenException expected");
+        } catch (OstRetryInterceptor.CircuitOpenException e) {
+            assertEquals(FAILURE_THRESHOLD, mServer.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testHalfOpenProbeSuccessClosesCircuit() throws IOException {
+        OstRetryInterceptor retryInterceptor = newInterceptor(0, 0);
+        OkHttpClient client = newClient(retryInterceptor);
+        openCircuit(client);
+
+        mTicker.advance(OPEN_MILLIS, TimeUnit.MILLISECONDS);
+        mServer.enqueue(new MockResponse().setBody("{}"));
+        assertEquals(200, execute(client, get()));
+        assertEquals(OstRetryInterceptor.State.CLOSED, getState(retryInterceptor));
+    }
+
+    @Test
+    public void testHalfOpenProbeFailureReopensCircuit() throws IOException {
+        OstRetryInterceptor retryInterceptor = newInterceptor(0, 0);
+        OkHttpClient client = newClient(retryInterceptor);
+        openCircuit(client);
+
+        mTicker.advance(OPEN_MILLIS, TimeUnit.MILLISECONDS);
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        assertEquals(503, execute(client, get()));
+        assertEquals(OstRetryInterceptor.State.OPEN, getState(retryInterceptor));
+
+        try {
+            execute(client, get());
+            fail("CircuitOpenException expected");
+        } catch (OstRetryInterceptor.CircuitOpenException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void testHalfOpenAllowsSingleProbe() throws IOException {
+        OstRetryInterceptor retryInterceptor = newInterceptor(0, 0);
+        OkHttpClient client = newClient(retryInterceptor);
+        openCircuit(client);
+        mTicker.advance(OPEN_MILLIS, TimeUnit.MILLISECONDS);
+
+        OstRetryInterceptor.CircuitBreaker circuitBreaker = retryInterceptor.getCircuitBreaker(mServer.getHostName());
+        assertEquals(true, circuitBreaker.allowRequest());
+        assertEquals(OstRetryInterceptor.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals(false, circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void testClientErrorDoesNotOpenCircuit() throws IOException {
+        OstRetryInterceptor retryInterceptor = newInterceptor(0, 0);
+        OkHttpClient client = newClient(retryInterceptor);
+        for (int cnt = 0; cnt < FAILURE_THRESHOLD + 1; cnt++) {
+            mServer.enqueue(new MockResponse().setResponseCode(401));
+            assertEquals(401, execute(client, get()));
+        }
+        assertEquals(OstRetryInterceptor.State.CLOSED, getState(retryInterceptor));
+        assertEquals(FAILURE_THRESHOLD + 1, mServer.getRequestCount());
+    }
+
+    private void openCircuit(OkHttpClient client) throws IOException {
+        for (int cnt = 0; cnt < FAILURE_THRESHOLD; cnt++) {
+            mServer.enqueue(new MockResponse().setResponseCode(503));
+            execute(client, get());
+        }
+    }
+
+    private OstRetryInterceptor.State getState(OstRetryInterceptor retryInterceptor) {
+        return retryInterceptor.getCircuitBreaker(mServer.getHostName()).getState();
+    }
+
+    private OstRetryInterceptor newInterceptor(double maxRetryTokens, double retryRatio) {
+        return new OstRetryInterceptor(MAX_ATTEMPTS, 1, 5, FAILURE_THRESHOLD, OPEN_MILLIS,
+                maxRetryTokens, retryRatio, mTicker);
+    }
+
+    private OkHttpClient newClient(OstRetryInterceptor retryInterceptor) {
+        return new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .addInterceptor(retryInterceptor)
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        mAttempts.incrementAndGet();
+                        return chain.proceed(chain.request());
+                    }
+                })
+                .build();
+    }
+
+    private Request get() {
+        return new Request.Builder().url(mServer.url("/users/123")).build();
+    }
+
+    private Request post(boolean withIdempotencyKey) {
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(mServer.url("/users/123/transactions"))
+                .post(new FormBody.Builder().add("a", "1").build());
+        if (withIdempotencyKey) {
+            requestBuilder.header(OstRetryInterceptor.IDEMPOTENCY_KEY, "e2a8f0d4");
+        }
+        return requestBuilder.build();
+    }
+
+    private static int execute(OkHttpClient client, Request request) throws IOException {
+        Response response = client.newCall(request).execute();
+        try {
+            return response.code();
+        } finally {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OstSingleFlightTest {
+
+    private static final String USER_KEY = "https://api.ost.com/testnet/v2/users/123?api_key=1.123.0x1.0x2&";
+
+    private static class FakeCall implements Supplier<ListenableFuture<JSONObject>> {
+        private final AtomicInteger mStartCount = new AtomicInteger();
+        private final SettableFuture<JSONObject> mResponse = SettableFuture.create();
+
+        @Override
+        public ListenableFuture<JSONObject> get() {
+            mStartCount.incrementAndGet();
+            return mResponse;
+        }
+    }
+
+    @Test
+    public void testConcurrentGetsShareOneCall() throws Exception {
+        OstSingleFlight singleFlight = new OstSingleFlight();
+        FakeCall call = new FakeCall();
+
+        ListenableFuture<JSONObject> syncWaiter = singleFlight.execute(USER_KEY, call);
+        ListenableFuture<JSONObject> workflowWaiter = singleFlight.execute(USER_KEY, call);
+        ListenableFuture<JSONObject> pollingWaiter = singleFlight.execute(USER_KEY, call);
+
+        JSONObject response = new JSONObject();
+        call.mResponse.set(response);
+
+        assertEquals(1, call.mStartCount.get());
+        assertSame(response, syncWaiter.get());
+        assertSame(response, workflowWaiter.get());
+        assertSame(response, pollingWaiter.get());
+        assertEquals(1, singleFlight.getCallCount());
+        assertEquals(2, singleFlight.getSavedCallCount());
+    }
+
+    @Test
+    public void testCompletedFlightIsNotReused() {
+        OstSingleFlight singleFlight = new OstSingleFlight();
+        FakeCall firstCall = new FakeCall();
+        singleFlight.execute(USER_KEY, firstCall);
+        firstCall.mResponse.set(new JSONObject());
+
+        FakeCall secondCall = new FakeCall();
+        singleFlight.execute(USER_KEY, secondCall);
+
+        assertEquals(1, secondCall.mStartCount.get());
+        assertEquals(0, singleFlight.getSavedCallCount());
+    }
+
+    @Test
+    public void testDifferentKeysAreNotCoalesced() {
+        OstSingleFlight singleFlight = new OstSingleFlight();
+        FakeCall userCall = new FakeCall();
+        FakeCall deviceCall = new FakeCall();
+
+        singleFlight.execute(USER_KEY, userCall);
+        singleFlight.execute(USER_KEY.replace("/users/123", "/users/123/devices/0x1"), deviceCall);
+
+        assertEquals(1, userCall.mStartCount.get());
+        assertEquals(1, deviceCall.mStartCount.get());
+    }
+
+    @Test
+    public void testCancelledWaiterDoesNotCancelOthers() throws Exception {
+        OstSingleFlight singleFlight = new OstSingleFlight();
+        FakeCall call = new FakeCall();
+
+        ListenableFuture<JSONObject> cancelledWaiter = singleFlight.execute(USER_KEY, call);
+        ListenableFuture<JSONObject> waiter = singleFlight.execute(USER_KEY, call);
+        cancelledWaiter.cancel(true);
+
+        assertFalse(call.mResponse.isCancelled());
+        JSONObject response = new JSONObject();
+        call.mResponse.set(response);
+        assertSame(response, waiter.get());
+    }
+
+    @Test
+    public void testCallCancelledWithLastWaiter() {
+        OstSingleFlight singleFlight = new OstSingleFlight();
+        FakeCall call = new FakeCall();
+
+        ListenableFuture<JSONObject> firstWaiter = singleFlight.execute(USER_KEY, call);
+        ListenableFuture<JSONObject> secondWaiter = singleFlight.execute(USER_KEY, call);
+        firstWaiter.cancel(true);
+        secondWaiter.cancel(true);
+
+        assertTrue(call.mResponse.isCancelled());
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+/**
+ * Connectivity driven by tests of other packages, the network stands in as a plain object.
+ */
+public final class OstTestConnectivity {
+
+    private final OstConnectivity mConnectivity = new OstConnectivity();
+    private final Object mNetwork = new Object();
+
+    public OstConnectivity getConnectivity() {
+        return mConnectivity;
+    }
+
+    public void setConnected(boolean isConnected) {
+        mConnectivity.onNetworkAvailable(mNetwork, false);
+        if (!isConnected) {
+            mConnectivity.onNetworkLost(mNetwork);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+
+package com.ost.walletsdk.workflows;
+
+import com.ost.walletsdk.utils.AsyncStatus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Workflows of a user run one at a time in order, users run in parallel and steps beyond the queue limits
+ * are turned away.
+ */
+public class OstWorkflowSchedulerTest {
+
+    private static final String USER_ID = "6c6ea645-d86d-41ba-8a8f-b4b6ab0a1a1c";
+    private static final String OTHER_USER_ID = "0b7f3f8e-3a2c-4d36-9a0e-2b1d5c7e9f10";
+    private static final long WAIT_SECONDS = 5;
+    private static final Object WORKFLOW = new Object();
+    private static final Object OTHER_WORKFLOW = new Object();
+
+    private ExecutorService mExecutor;
+    private OstWorkflowScheduler mScheduler;
+    private AtomicInteger mRejections;
+    private OstWorkflowScheduler.RejectionCallback mRejectionCallback;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(2);
+        mScheduler = new OstWorkflowScheduler(mExecutor, 3, 2);
+        mRejections = new AtomicInteger();
+        mRejectionCallback = new OstWorkflowScheduler.RejectionCallback() {
+            @Override
+            public void onRejected(String userId) {
+                mRejections.incrementAndGet();
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testStepsOfUserRunInOrder() throws Exception {
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<AsyncStatus>> futures = new ArrayList<>();
+        for (int cnt = 0; cnt < 5; cnt++) {
+            final int step = cnt;
+            futures.add(mScheduler.submit(USER_ID, WORKFLOW, new Callable<AsyncStatus>() {
+                @Override
+                public AsyncStatus call() throws Exception {
+                    int current = running.incrementAndGet();
+                    maxRunning.set(Math.max(maxRunning.get(), current));
+                    Thread.sleep(10);
+                    order.add(step);
+                    running.decrementAndGet();
+                    return new AsyncStatus(true);
+                }
+            }, null));
+        }
+
+        for (Future<AsyncStatus> future : futures) {
+            assertTrue(future.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), order);
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void testWorkflowsOfUserRunOneAtATime() throws Exception {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<AsyncStatus> firstStep = mScheduler.submit(USER_ID, WORKFLOW,
+                record(order, "a1", signalAndWait(started, release)), null);
+        assertTrue(started.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        //Another workflow of the user starts while the first one is in its first step.
+        Future<AsyncStatus> otherStep = mScheduler.submit(USER_ID, OTHER_WORKFLOW, record(order, "b1", succeed()), null);
+        release.countDown();
+        assertTrue(firstStep.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        //The first workflow keeps the lane between its steps, eg: while waiting on the app.
+        Future<AsyncStatus> secondStep = mScheduler.submit(USER_ID, WORKFLOW, record(order, "a2", succeed()), null);
+        assertTrue(secondStep.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+
+        //Releasing a workflow not holding the lane does nothing.
+        mScheduler.release(USER_ID, OTHER_WORKFLOW);
+        Thread.sleep(50);
+        assertFalse(otherStep.isDone());
+        assertEquals(1, mScheduler.getQueueDepth(USER_ID));
+
+        mScheduler.release(USER_ID, WORKFLOW);
+        assertTrue(otherStep.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertEquals(Arrays.asList("a1", "a2", "b1"), order);
+    }
+
+    @Test
+    public void testWaitingWorkflowsAdmittedInOrder() throws Exception {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch release = new CountDownLatch(1);
+        Object thirdWorkflow = new Object();
+        Future<AsyncStatus> blocked = mScheduler.submit(USER_ID, WORKFLOW,
+                releasing(USER_ID, WORKFLOW, waitFor(release)), null);
+        Future<AsyncStatus> second = mScheduler.submit(USER_ID, OTHER_WORKFLOW,
+                releasing(USER_ID, OTHER_WORKFLOW, record(order, "b1", succeed())), null);
+        Future<AsyncStatus> third = mScheduler.submit(USER_ID, thirdWorkflow,
+                releasing(USER_ID, thirdWorkflow, record(order, "c1", succeed())), null);
+        //Step of a waiting workflow goes along with it, not ahead of the workflows before.
+        Future<AsyncStatus> secondAgain = mScheduler.submit(USER_ID, OTHER_WORKFLOW, record(order, "b2", succeed()), null);
+
+        release.countDown();
+        for (Future<AsyncStatus> future : Arrays.asList(blocked, second, third, secondAgain)) {
+            assertTrue(future.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        }
+        assertEquals(Arrays.asList("b1", "b2", "c1"), order);
+        assertEquals(0, mScheduler.getQueueDepth(USER_ID));
+    }
+
+    @Test
+    public void testUsersRunInParallel() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<AsyncStatus> blocked = mScheduler.submit(USER_ID, WORKFLOW, waitFor(release), mRejectionCallback);
+
+        Future<AsyncStatus> other = mScheduler.submit(OTHER_USER_ID, OTHER_WORKFLOW, succeed(), mRejectionCallback);
+
+        assertTrue(other.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertFalse(blocked.isDone());
+        release.countDown();
+        assertTrue(blocked.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+    }
+
+    @Test
+    public void testStepsBeyondLimitsRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<AsyncStatus> running = mScheduler.submit(USER_ID, WORKFLOW, signalAndWait(started, release), mRejectionCallback);
+        assertTrue(started.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        Object secondWorkflow = new Object();
+        Object thirdWorkflow = new Object();
+        Future<AsyncStatus> second = mScheduler.submit(USER_ID, secondWorkflow,
+                releasing(USER_ID, secondWorkflow, succeed()), mRejectionCallback);
+        Future<AsyncStatus> third = mScheduler.submit(USER_ID, thirdWorkflow,
+                releasing(USER_ID, thirdWorkflow, succeed()), mRejectionCallback);
+
+        //Lane of the user is full.
+        Future<AsyncStatus> rejected = mScheduler.submit(USER_ID, new Object(), succeed(), mRejectionCallback);
+        assertFalse(rejected.get().isSuccess());
+        assertEquals(1, mRejections.get());
+        assertEquals(2, mScheduler.getQueueDepth(USER_ID));
+
+        //Steps of admitted workflows are always queued.
+        Future<AsyncStatus> resumed = mScheduler.submit(USER_ID, WORKFLOW, releasing(USER_ID, WORKFLOW, succeed()), null);
+        assertEquals(3, mScheduler.getQueueDepth(USER_ID));
+
+        //All lanes together are full.
+        assertFalse(mScheduler.submit(OTHER_USER_ID, OTHER_WORKFLOW, succeed(), mRejectionCallback).get().isSuccess());
+        assertEquals(2, mRejections.get());
+
+        release.countDown();
+        for (Future<AsyncStatus> future : Arrays.asList(running, resumed, second, third)) {
+            assertTrue(future.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        }
+        assertEquals(0, mScheduler.getQueueDepth(USER_ID));
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        //Counts steps handed back to the pool, once the scheduler is done with them.
+        final CountDownLatch finished = new CountDownLatch(2);
+        mScheduler = new OstWorkflowScheduler(new Executor() {
+            @Override
+            public void execute(final Runnable step) {
+                mExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        step.run();
+                        finished.countDown();
+                    }
+                });
+            }
+        }, 3, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<AsyncStatus> blocked = mScheduler.submit(USER_ID, WORKFLOW,
+                releasing(USER_ID, WORKFLOW, signalAndWait(started, release)), mRejectionCallback);
+        assertTrue(started.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        mScheduler.submit(USER_ID, OTHER_WORKFLOW, succeed(), mRejectionCallback);
+        long queuedAt = System.nanoTime();
+
+        OstWorkflowScheduler.Stats stats = mScheduler.getStats();
+        assertEquals(2, stats.getSubmittedCount());
+        assertEquals(1, stats.getQueueDepth());
+        assertEquals(1, stats.getRunningCount());
+
+        long releasedAt = System.nanoTime();
+        release.countDown();
+        assertTrue(blocked.get(WAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertTrue(finished.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        stats = mScheduler.getStats();
+        assertEquals(2, stats.getStartedCount());
+        assertEquals(2, stats.getCompletedCount());
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(0, stats.getRunningCount());
+        //The queued step waited at least till the blocked one was released.
+        assertTrue(stats.getMaxWaitMillis() >= TimeUnit.NANOSECONDS.toMillis(releasedAt - queuedAt));
+        assertTrue(stats.getAverageWaitMillis() <= stats.getMaxWaitMillis());
+
+        mScheduler.resetStats();
+        assertEquals(0, mScheduler.getStats().getSubmittedCount());
+    }
+
+    private static Callable<AsyncStatus> succeed() {
+        return new Callable<AsyncStatus>() {
+            @Override
+            public AsyncStatus call() {
+                return new AsyncStatus(true);
+            }
+        };
+    }
+
+    private static Callable<AsyncStatus> record(final List<String> order, final String name,
+                                                final Callable<AsyncStatus> callable) {
+        return new Callable<AsyncStatus>() {
+            @Override
+            public AsyncStatus call() throws Exception {
+                order.add(name);
+                return callable.call();
+            }
+        };
+    }
+
+    /**
+     * Releases the workflow once the step returned, as a workflow finishing in its step does.
+     */
+    private Callable<AsyncStatus> releasing(final String userId, final Object workflow,
+                                            final Callable<AsyncStatus> callable) {
+        return new Callable<AsyncStatus>() {
+            @Override
+            public AsyncStatus call() throws Exception {
+                try {
+                    return callable.call();
+                } finally {
+                    mScheduler.release(userId, workflow);
+                }
+            }
+        };
+    }
+
+    private static Callable<AsyncStatus> waitFor(CountDownLatch release) {
+        return signalAndWait(new CountDownLatch(1), release);
+    }
+
+    private static Callable<AsyncStatus> signalAndWait(final CountDownLatch started, final CountDownLatch release) {
+        return new Callable<AsyncStatus>() {
+            @Override
+            public AsyncStatus call() throws Exception {
+                started.countDown();
+                return new AsyncStatus(release.await(WAIT_SECONDS, TimeUnit.SECONDS));
+            }
+        };
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+
+package com.ost.walletsdk.workflows.services;
+
+import android.os.Bundle;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.OstPendingOperationModel;
+import com.ost.walletsdk.models.entities.OstPendingOperation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tracked operations stay stored till the entity reaches a status or the deadline passes.
+ */
+public class OstPendingOperationsTest {
+
+    private static final String USER_ID = "6c6ea645-d86d-41ba-8a8f-b4b6ab0a1a1c";
+    private static final String TX_ID = "a8a7a03d-1d43-4bf6-8e8a-6e2a8b1dc3b5";
+    private static final String OPERATION_ID = OstPendingOperation.getId(OstSdk.TRANSACTION, TX_ID);
+    private static final long TRACKING_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private TestModel mModel;
+    private TestPoller mPoller;
+    private TestListener mListener;
+    private OstPendingOperations mPendingOperations;
+
+    @Before
+    public void setUp() {
+        mModel = new TestModel();
+        mPoller = new TestPoller();
+        mListener = new TestListener();
+        mPendingOperations = new OstPendingOperations(mModel, mPoller, MoreExecutors.directExecutor());
+        mPendingOperations.addListener(mListener);
+    }
+
+    @Test
+    public void testTrackTillSuccess() throws Exception {
+        ListenableFuture<Bundle> result = track();
+
+        assertEquals(1, mModel.mOperations.size());
+        assertEquals(1, mPendingOperations.getPendingOperations(USER_ID).size());
+        assertEquals(0, mPendingOperations.getPendingOperations("other-user").size());
+        assertEquals(1, mListener.mStarted.size());
+        assertEquals(1, mPoller.mIntervals.size());
+        assertEquals(0L, (long) mPoller.mIntervals.get(0));
+
+        Bundle update = mPoller.updateBundle(false);
+        mPoller.complete(update);
+
+        assertTrue(result.isDone());
+        assertTrue(update == result.get());
+        assertTrue(mModel.mOperations.isEmpty());
+        assertTrue(mPendingOperations.getPendingOperations(USER_ID).isEmpty());
+        assertEquals(1, mListener.mFinished.size());
+        assertTrue(update == mListener.mResults.get(0));
+    }
+
+    @Test
+    public void testRepollsAfterTimeoutBeforeDeadline() throws Exception {
+        ListenableFuture<Bundle> result = track();
+
+        mPoller.complete(mPoller.updateBundle(true));
+
+        assertFalse(result.isDone());
+        assertEquals(1, mModel.mOperations.size());
+        assertEquals(2, mPoller.mIntervals.size());
+        long interval = mPoller.mIntervals.get(1);
+        assertTrue(interval > 0);
+        assertTrue(mPoller.mTimeouts.get(1) <= TRACKING_MILLIS);
+        assertEquals(0, mListener.mFinished.size());
+
+        mPoller.complete(mPoller.updateBundle(true));
+
+        assertFalse(result.isDone());
+        assertEquals(3, mPoller.mIntervals.size());
+        assertEquals(interval, (long) mPoller.mIntervals.get(2));
+
+        mPoller.complete(mPoller.updateBundle(false));
+
+        assertTrue(result.isDone());
+        assertTrue(mModel.mOperations.isEmpty());
+    }
+
+    @Test
+    public void testFailedPollKeepsOperation() throws Exception {
+        ListenableFuture<Bundle> result = track();
+
+        mPoller.fail(new IOException("Network unreachable"));
+
+        assertFalse(result.isDone());
+        assertEquals(1, mModel.mOperations.size());
+        assertEquals(2, mPoller.mIntervals.size());
+        assertTrue(mPoller.mIntervals.get(1) > 0);
+        assertEquals(0, mListener.mFinished.size());
+    }
+
+    @Test
+    public void testResumeFinishesExpiredOperation() {
+        long now = System.currentTimeMillis();
+        mModel.insertPendingOperation(new OstPendingOperation(OPERATION_ID, USER_ID, OstSdk.TRANSACTION, TX_ID,
+                "SUCCESS", "FAILED", now - 1, now - TRACKING_MILLIS));
+
+        mPendingOperations.resume();
+
+        assertTrue(mPoller.mIntervals.isEmpty());
+        assertTrue(mModel.mOperations.isEmpty());
+        assertEquals(0, mListener.mStarted.size());
+        assertEquals(1, mListener.mFinished.size());
+    }
+
+    @Test
+    public void testResumeStartsLiveOperation() {
+        long now = System.currentTimeMillis();
+        mModel.insertPendingOperation(new OstPendingOperation(OPERATION_ID, USER_ID, OstSdk.TRANSACTION, TX_ID,
+                "SUCCESS", "FAILED", now + TRACKING_MILLIS, now));
+
+        mPendingOperations.resume();
+
+        assertEquals(1, mPoller.mIntervals.size());
+        assertEquals(1, mListener.mStarted.size());
+
+        mPoller.complete(mPoller.updateBundle(false));
+
+        assertTrue(mModel.mOperations.isEmpty());
+        assertEquals(1, mListener.mFinished.size());
+    }
+
+    @Test
+    public void testTrackingTwiceSharesPolling() {
+        ListenableFuture<Bundle> first = track();
+        ListenableFuture<Bundle> second = track();
+
+        assertTrue(first == second);
+        assertEquals(1, mPoller.mIntervals.size());
+        assertEquals(1, mListener.mStarted.size());
+    }
+
+    private ListenableFuture<Bundle> track() {
+        return mPendingOperations.track(USER_ID, OstSdk.TRANSACTION, TX_ID, "SUCCESS", "FAILED", TRACKING_MILLIS);
+    }
+
+    private static class TestPoller implements OstPendingOperations.Poller {
+        private final List<Long> mIntervals = new ArrayList<>();
+        private final List<Long> mTimeouts = new ArrayList<>();
+        private final Set<Bundle> mTimeoutBundles = new HashSet<>();
+        private SettableFuture<Bundle> mFuture;
+
+        @Override
+        public ListenableFuture<Bundle> startPolling(OstPendingOperation operation, long intervalMillis,
+                                                     long timeoutMillis) {
+            mIntervals.add(intervalMillis);
+            mTimeouts.add(timeoutMillis);
+            mFuture = SettableFuture.create();
+            return mFuture;
+        }
+
+        @Override
+        public boolean isPollingTimeout(Bundle bundle) {
+            return mTimeoutBundles.contains(bundle);
+        }
+
+        Bundle updateBundle(boolean isPollingTimeout) {
+            Bundle bundle = new Bundle();
+            if (isPollingTimeout) {
+                mTimeoutBundles.add(bundle);
+            }
+            return bundle;
+        }
+
+        void complete(Bundle bundle) {
+            mFuture.set(bundle);
+        }
+
+        void fail(Throwable th) {
+            mFuture.setException(th);
+        }
+    }
+
+    private static class TestModel implements OstPendingOperationModel {
+        private final Map<String, OstPendingOperation> mOperations = new LinkedHashMap<>();
+
+        @Override
+        public void insertPendingOperation(OstPendingOperation ostPendingOperation) {
+            mOperations.put(ostPendingOperation.getId(), ostPendingOperation);
+        }
+
+        @Override
+        public void deletePendingOperation(String id) {
+            mOperations.remove(id);
+        }
+
+        @Override
+        public OstPendingOperation[] getAllPendingOperations() {
+            return mOperations.values().toArray(new OstPendingOperation[0]);
+        }
+
+        @Override
+        public OstPendingOperation[] getPendingOperationsOfUser(String userId) {
+            List<OstPendingOperation> operations = new ArrayList<>();
+            for (OstPendingOperation operation : mOperations.values()) {
+                if (userId.equals(operation.getUserId())) {
+                    operations.add(operation);
+                }
+            }
+            return operations.toArray(new OstPendingOperation[0]);
+        }
+    }
+
+    private static class TestListener implements OstPendingOperations.Listener {
+        private final List<OstPendingOperation> mStarted = new ArrayList<>();
+        private final List<OstPendingOperation> mFinished = new ArrayList<>();
+        private final List<Bundle> mResults = new ArrayList<>();
+
+        @Override
+        public void onOperationStarted(OstPendingOperation operation) {
+            mStarted.add(operation);
+        }
+
+        @Override
+        public void onOperationFinished(OstPendingOperation operation, Bundle result) {
+            mFinished.add(operation);
+            mResults.add(result);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import com.ost.walletsdk.network.OstCallMetrics;
+import com.ost.walletsdk.network.OstMetricsSink;
+import com.ost.walletsdk.network.OstNetworkMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Intervals of the polling policy, before and after it learns status timings.
+ */
+public class OstPollingPolicyTest {
+
+    private static final long BLOCK_TIME = 3000;
+    private static final String TRANSACTION = "transaction";
+
+    private OstPollingPolicy mPolicy;
+
+    @Before
+    public void setUp() {
+        mPolicy = new OstPollingPolicy(BLOCK_TIME);
+    }
+
+    @Test
+    public void testFixedIntervalsTillLearned() {
+        mPolicy.onStatus(TRANSACTION, "success", 9000);
+        mPolicy.onStatus(TRANSACTION, "success", 9000);
+
+        assertEquals(6 * BLOCK_TIME, mPolicy.getInitialDelay(TRANSACTION, "success"));
+        assertEquals(BLOCK_TIME, mPolicy.getNextDelay(TRANSACTION, "success", 15 * BLOCK_TIME));
+        assertEquals(16 * BLOCK_TIME, mPolicy.getTimeout(TRANSACTION, "success"));
+    }
+
+    @Test
+    public void testPollsAroundExpectedTime() {
+        learn(TRANSACTION, "success", 8000, 10000, 12000);
+
+        long initialDelay = mPolicy.getInitialDelay(TRANSACTION, "success");
+        assertTrue(initialDelay > BLOCK_TIME && initialDelay < 10000);
+        assertEquals(BLOCK_TIME, mPolicy.getNextDelay(TRANSACTION, "success", 12000));
+    }
+
+    @Test
+    public void testBacksOffExponentiallyAfterExpectedTime() {
+        learn(TRANSACTION, "success", 9000, 9000, 9000);
+        long expectedEnd = 9000 + BLOCK_TIME;
+
+        assertEquals(BLOCK_TIME, mPolicy.getNextDelay(TRANSACTION, "success", expectedEnd + 1000));
+        assertEquals(4 * BLOCK_TIME, mPolicy.getNextDelay(TRANSACTION, "success", expectedEnd + 4 * BLOCK_TIME));
+        assertEquals(16 * BLOCK_TIME, mPolicy.getNextDelay(TRANSACTION, "success", expectedEnd + 100 * BLOCK_TIME));
+    }
+
+    @Test
+    public void testLongerTimeoutForSlowChains() {
+        learn(TRANSACTION, "success", 60000, 60000, 60000);
+
+        assertEquals(2 * (60000 + BLOCK_TIME), mPolicy.getTimeout(TRANSACTION, "success"));
+    }
+
+    @Test
+    public void testFollowsChainBlockTime() {
+        mPolicy.onBlockTime(1);
+        assertEquals(6000, mPolicy.getInitialDelay(TRANSACTION, "success"));
+
+        mPolicy.onBlockTime(0);
+        assertEquals(1000, mPolicy.getBlockTimeMillis());
+    }
+
+    @Test
+    public void testDistributionsPerEntityAndStatus() {
+        learn(TRANSACTION, "mined", 4000, 6000);
+        learn("session", "AUTHORIZED", 20000);
+
+        OstPollingPolicy.Distribution mined = mPolicy.getDistributions().get("transaction:mined");
+        assertEquals(2, mined.getCount());
+        assertEquals(5000, mined.getMeanMillis(), 0.001);
+        assertEquals(1000, mined.getDeviationMillis(), 0.001);
+        assertEquals(1, mPolicy.getDistributions().get("session:authorized").getCount());
+    }
+
+    @Test
+    public void testDistributionsPublishedToMetricsSinks() {
+        final List<String> received = new ArrayList<>();
+        OstMetricsSink sink = new OstMetricsSink() {
+            @Override
+            public void onCallMetrics(OstCallMetrics callMetrics) {
+            }
+
+            @Override
+            public void onPollingDistribution(String key, OstPollingPolicy.Distribution distribution) {
+                received.add(String.format("%s %d", key, distribution.getCount()));
+            }
+        };
+        OstNetworkMetrics.getInstance().addSink(sink);
+        try {
+            learn(TRANSACTION, "MINED", 4000, 6000);
+        } finally {
+            OstNetworkMetrics.getInstance().removeSink(sink);
+        }
+
+        assertEquals(Arrays.asList("transaction:mined 1", "transaction:mined 2"), received);
+    }
+
+    private void learn(String entityType, String status, long... samples) {
+        for (long sample : samples) {
+            mPolicy.onStatus(entityType, status, sample);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import android.os.Bundle;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+import com.ost.walletsdk.models.entities.OstTransaction;
+import com.ost.walletsdk.network.OstTestConnectivity;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Polls run on a scheduler of the test, with a short block time, till the entity reaches a status.
+ */
+public class OstPollingServiceTest {
+
+    private static final long BLOCK_TIME = 25;
+    private static final long WAIT_SECONDS = 5;
+    private static final String USER_ID = "6c6ea645-d86d-41ba-8a8f-b4b6ab0a1a1c";
+    private static final String TRANSACTION_ID = "f4a1c7cc-4b2a-4a8b-9d6e-3c1d0e6f9a21";
+
+    private ScheduledExecutorService mScheduler;
+    private OstPollingPolicy mPolicy;
+    private OstTestConnectivity mConnectivity;
+    private OstStatusChannels mStatusChannels;
+
+    @Before
+    public void setUp() {
+        mScheduler = Executors.newSingleThreadScheduledExecutor();
+        mPolicy = new OstPollingPolicy(BLOCK_TIME);
+        mConnectivity = new OstTestConnectivity();
+        mStatusChannels = new OstStatusChannels(MoreExecutors.directExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        mScheduler.shutdownNow();
+    }
+
+    @Test
+    public void testSuccessStatus() throws Exception {
+        TestPollingService pollingService = new TestPollingService("SUBMITTED", "MINED", "SUCCESS");
+
+        pollingService.getUpdateAsync().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertFalse(pollingService.mIsPollingTimeout);
+        assertTrue(pollingService.mIsValidResponse);
+        assertEquals(3, pollingService.mPolls.get());
+        assertEquals(1, mPolicy.getDistributions().get(OstSdk.TRANSACTION + ":success").getCount());
+    }
+
+    @Test
+    public void testFailedStatus() throws Exception {
+        TestPollingService pollingService = new TestPollingService("SUBMITTED", "FAILED");
+
+        pollingService.getUpdateAsync().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertFalse(pollingService.mIsPollingTimeout);
+        assertFalse(pollingService.mIsValidResponse);
+        assertEquals(2, pollingService.mPolls.get());
+    }
+
+    @Test
+    public void testFailedStatusOnlyAfterLeavingIt() throws Exception {
+        TestPollingService pollingService = new TestPollingService("FAILED", "SUBMITTED", "FAILED") {
+            @Override
+            boolean isFailed(String failedStatus, Set<String> seenStatuses) {
+                return seenStatuses.contains("submitted");
+            }
+        };
+
+        pollingService.getUpdateAsync().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertFalse(pollingService.mIsPollingTimeout);
+        assertFalse(pollingService.mIsValidResponse);
+        assertEquals(3, pollingService.mPolls.get());
+    }
+
+    @Test
+    public void testFixedInterval() throws Exception {
+        TestPollingService pollingService = new TestPollingService("SUBMITTED");
+        long start = System.currentTimeMillis();
+
+        pollingService.getUpdateAsync(4 * BLOCK_TIME, 14 * BLOCK_TIME).get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(pollingService.mIsPollingTimeout);
+        assertTrue(System.currentTimeMillis() - start >= 14 * BLOCK_TIME);
+        //Polls at 4, 8 and 12 block times, then at the timeout.
+        assertEquals(4, pollingService.mPolls.get());
+        assertTrue(mPolicy.getDistributions().isEmpty());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        TestPollingService pollingService = new TestPollingService("SUBMITTED");
+        long start = System.currentTimeMillis();
+
+        pollingService.getUpdateAsync().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(pollingService.mIsPollingTimeout);
+        assertTrue(System.currentTimeMillis() - start >= mPolicy.getTimeout(OstSdk.TRANSACTION, "SUCCESS"));
+        assertTrue(pollingService.mPolls.get() > 1);
+    }
+
+    @Test
+    public void testOfflineWaitsForNetwork() throws Exception {
+        mConnectivity.setConnected(false);
+        TestPollingService pollingService = new TestPollingService("SUCCESS");
+
+        ListenableFuture<Bundle> update = pollingService.getUpdateAsync();
+        try {
+            //Past the first poll, while offline.
+            update.get(10 * BLOCK_TIME, TimeUnit.MILLISECONDS);
+            fail("Polling finished while offline");
+        } catch (TimeoutException e) {
+            assertEquals(0, pollingService.mPolls.get());
+        }
+
+        mConnectivity.setConnected(true);
+        update.get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertFalse(pollingService.mIsPollingTimeout);
+        assertTrue(pollingService.mIsValidResponse);
+        assertEquals(1, pollingService.mPolls.get());
+    }
+
+    @Test
+    public void testPollsWhileChannelNeverPushes() throws Exception {
+        mStatusChannels.addChannel(new OstLocalStatusChannel());
+        TestPollingService pollingService = new TestPollingService("SUBMITTED", "MINED", "SUCCESS");
+
+        pollingService.getUpdateAsync().get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertFalse(pollingService.mIsPollingTimeout);
+        assertTrue(pollingService.mIsValidResponse);
+        assertEquals(3, pollingService.mPolls.get());
+    }
+
+    @Test
+    public void testPushedUpdatePolledRightAway() throws Exception {
+        OstLocalStatusChannel channel = new OstLocalStatusChannel();
+        mStatusChannels.addChannel(channel);
+        TestPollingService pollingService = new TestPollingService("SUCCESS");
+        ListenableFuture<Bundle> update = pollingService.getUpdateAsync();
+
+        //Only the id of the pushed json is used, the entity comes from the poll.
+        channel.publish(USER_ID, OstSdk.TRANSACTION, new JSONObject()
+                .put(OstTransaction.ID, TRANSACTION_ID)
+                .put(OstTransaction.STATUS, OstTransaction.CONST_STATUS.FAILED));
+
+        //Well before the first scheduled poll.
+        update.get(3 * BLOCK_TIME, TimeUnit.MILLISECONDS);
+        assertTrue(pollingService.mIsValidResponse);
+        assertEquals(1, pollingService.mPolls.get());
+    }
+
+    /**
+     * Transaction poller answering polls with the given statuses, the last one repeats.
+     */
+    private class TestPollingService extends OstPollingService {
+        private final String[] mStatuses;
+        private final AtomicInteger mPolls = new AtomicInteger();
+        private volatile boolean mIsPollingTimeout;
+        private volatile boolean mIsValidResponse;
+
+        TestPollingService(String... statuses) {
+            super(USER_ID, TRANSACTION_ID, OstTransaction.CONST_STATUS.SUCCESS, OstTransaction.CONST_STATUS.FAILED,
+                    mScheduler, mPolicy, mConnectivity.getConnectivity(), mStatusChannels);
+            mStatuses = statuses;
+        }
+
+        @Override
+        boolean isValidUserId(String userId) {
+            return true;
+        }
+
+        @Override
+        Bundle sendUpdateMessage(String userId, String entityId, boolean pollingTimeout, boolean validResponse) {
+            mIsPollingTimeout = pollingTimeout;
+            mIsValidResponse = validResponse;
+            return super.sendUpdateMessage(userId, entityId, pollingTimeout, validResponse);
+        }
+
+        @Override
+        protected OstBaseEntity parseEntity(JSONObject entityObject) throws JSONException {
+            return new OstTransaction(entityObject);
+        }
+
+        @Override
+        protected String getEntityName() {
+            return OstSdk.TRANSACTION;
+        }
+
+        @Override
+        protected ListenableFuture<JSONObject> pollAsync(String userId, String entityId) {
+            int poll = mPolls.getAndIncrement();
+            String status = mStatuses[Math.min(poll, mStatuses.length - 1)];
+            try {
+                JSONObject transaction = new JSONObject()
+                        .put(OstTransaction.ID, entityId)
+                        .put(OstTransaction.STATUS, status)
+                        .put(OstTransaction.TRANSACTION_HASH, JSONObject.NULL)
+                        .put(OstTransaction.GAS_PRICE, "1000000000")
+                        .put(OstTransaction.GAS_USED, JSONObject.NULL)
+                        .put(OstTransaction.TRANSACTION_FEE, JSONObject.NULL)
+                        .put(OstTransaction.BLOCK_TIMESTAMP, JSONObject.NULL)
+                        .put(OstTransaction.BLOCK_NUMBER, JSONObject.NULL)
+                        .put(OstTransaction.RULE_NAME, "Direct Transfer")
+                        .put(OstTransaction.TRANSFERS, new JSONArray())
+                        .put(OstTransaction.UPDATED_TIMESTAMP, System.currentTimeMillis() / 1000);
+                return Futures.immediateFuture(entityResponse(OstSdk.TRANSACTION, transaction));
+            } catch (JSONException e) {
+                return Futures.immediateFailedFuture(e);
+            }
+        }
+
+        @Override
+        protected boolean validateParams(String entityId, String successStatus, String failedStatus) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import com.ost.walletsdk.OstSdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pushed updates of a local channel reach the pollers waiting on the entity.
+ */
+public class OstStatusChannelsTest {
+
+    private static final String USER_ID = "6c6ea645-d86d-41ba-8a8f-b4b6ab0a1a1c";
+    private static final String SESSION = "0x4444444444444444444444444444444444444444";
+
+    private OstStatusChannels mStatusChannels;
+    private OstLocalStatusChannel mChannel;
+    private List<String> mPushes;
+    private OstStatusChannels.Subscriber mSubscriber;
+
+    @Before
+    public void setUp() {
+        mStatusChannels = new OstStatusChannels(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        mChannel = new OstLocalStatusChannel();
+        mPushes = new ArrayList<>();
+        mSubscriber = new OstStatusChannels.Subscriber() {
+            @Override
+            public void onPushedUpdate() {
+                mPushes.add("pushed");
+            }
+        };
+        mStatusChannels.addChannel(mChannel);
+    }
+
+    @Test
+    public void testUpdateNotifiesSubscribers() throws JSONException {
+        OstStatusChannels.Subscriber other = new OstStatusChannels.Subscriber() {
+            @Override
+            public void onPushedUpdate() {
+                mPushes.add("other");
+            }
+        };
+        mStatusChannels.subscribe(OstSdk.TRANSACTION, "1", mSubscriber);
+        mStatusChannels.subscribe(OstSdk.TRANSACTION, "1", other);
+
+        assertTrue(mChannel.publish(USER_ID, OstSdk.TRANSACTION, transaction("1", "success")));
+
+        assertEquals(Arrays.asList("pushed", "other"), mPushes);
+    }
+
+    @Test
+    public void testOnlySubscribersOfTheEntity() throws JSONException {
+        mStatusChannels.subscribe(OstSdk.TRANSACTION, "1", mSubscriber);
+
+        mChannel.publish(USER_ID, OstSdk.TRANSACTION, transaction("2", "success"));
+        mChannel.publish(USER_ID, OstSdk.SESSION, new JSONObject().put("address", "0x1").put("status", "AUTHORIZED"));
+
+        assertEquals(0, mPushes.size());
+    }
+
+    @Test
+    public void testAddressesMatchIgnoringCase() throws JSONException {
+        mStatusChannels.subscribe(OstSdk.SESSION, SESSION.toUpperCase().replace("0X", "0x"), mSubscriber);
+
+        mChannel.publish(USER_ID, OstSdk.SESSION, new JSONObject().put("address", SESSION).put("status", "AUTHORIZED"));
+
+        assertEquals(1, mPushes.size());
+    }
+
+    @Test
+    public void testUpdatesWithoutIdDropped() throws JSONException {
+        mStatusChannels.subscribe(OstSdk.TRANSACTION, "1", mSubscriber);
+
+        mChannel.publish(USER_ID, OstSdk.TRANSACTION, new JSONObject().put("status", "success"));
+        mChannel.publish(USER_ID, "unknown", transaction("1", "success"));
+
+        assertEquals(0, mPushes.size());
+    }
+
+    @Test
+    public void testUnsubscribeAndRemoveChannel() throws JSONException {
+        mStatusChannels.subscribe(OstSdk.TRANSACTION, "1", mSubscriber);
+        mStatusChannels.unsubscribe(OstSdk.TRANSACTION, "1", mSubscriber);
+        mChannel.publish(USER_ID, OstSdk.TRANSACTION, transaction("1", "success"));
+        assertEquals(0, mPushes.size());
+
+        assertTrue(mStatusChannels.hasChannels());
+        mStatusChannels.removeChannel(mChannel);
+        assertFalse(mStatusChannels.hasChannels());
+        assertFalse(mChannel.publish(USER_ID, OstSdk.TRANSACTION, transaction("1", "success")));
+    }
+
+    private static JSONObject transaction(String id, String status) throws JSONException {
+        return new JSONObject().put("id", id).put("status", status);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 OST.com Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.services;
+
+import android.os.Bundle;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.ost.walletsdk.OstConstants;
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.models.entities.OstTransaction;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Polls of pending transactions of a user share list calls, with per transaction calls as fallback.
+ */
+public class OstTransactionPollBatchTest {
+
+    private static final long BLOCK_TIME = 40;
+    private static final long WAIT_SECONDS = 5;
+    private static final String USER_ID = "6c6ea645-d86d-41ba-8a8f-b4b6ab0a1a1c";
+
+    private ScheduledExecutorService mScheduler;
+    private TestApi mApi;
+    private OstTransactionPollBatch mPollBatch;
+
+    @Before
+    public void setUp() {
+        mScheduler = Executors.newSingleThreadScheduledExecutor();
+        mApi = new TestApi();
+        mPollBatch = new OstTransactionPollBatch(mScheduler, new OstPollingPolicy(BLOCK_TIME), mApi);
+    }
+
+    @After
+    public void tearDown() {
+        mScheduler.shutdownNow();
+    }
+
+    @Test
+    public void testPollsOfPendingTransactionsShareOneListCall() throws Exception {
+        mApi.mListed = Arrays.asList("1", "2", "3");
+        track("1", "2", "3");
+
+        List<ListenableFuture<JSONObject>> polls = poll("1", "2", "3");
+
+        assertEquals(Arrays.asList("1", "2", "3"), transactionIds(polls));
+        assertEquals(1, mApi.mListCalls.get());
+        assertEquals(Collections.emptyList(), mApi.mFetched);
+    }
+
+    @Test
+    public void testStragglersFetchedOneByOne() throws Exception {
+        mApi.mListed = Collections.singletonList("2");
+        track("1", "2", "3");
+
+        List<ListenableFuture<JSONObject>> polls = poll("1", "2", "3");
+
+        assertEquals(Arrays.asList("1", "2", "3"), transactionIds(polls));
+        assertEquals(1, mApi.mListCalls.get());
+        assertEquals(Arrays.asList("1", "3"), mApi.mFetched);
+    }
+
+    @Test
+    public void testListFailureFallsBackToEachTransaction() throws Exception {
+        mApi.mIsListFailing = true;
+        track("1", "2");
+
+        List<ListenableFuture<JSONObject>> polls = poll("1", "2");
+
+        assertEquals(Arrays.asList("1", "2"), transactionIds(polls));
+        assertEquals(1, mApi.mListCalls.get());
+        assertEquals(Arrays.asList("1", "2"), mApi.mFetched);
+    }
+
+    @Test
+    public void testOnlyPendingTransactionSkipsWindow() throws Exception {
+        track("1");
+
+        ListenableFuture<JSONObject> poll = mPollBatch.poll(USER_ID, "1");
+
+        //Fetched on the calling thread, without waiting for a batch window.
+        assertTrue(poll.isDone());
+        assertEquals(Collections.singletonList("1"), mApi.mFetched);
+        assertEquals(0, mApi.mListCalls.get());
+    }
+
+    @Test
+    public void testFinishedTransactionsNoLongerPending() throws Exception {
+        SettableFuture<Bundle> firstUpdate = SettableFuture.create();
+        mPollBatch.track(USER_ID, "1", firstUpdate);
+        track("2");
+        firstUpdate.set(new Bundle());
+
+        assertTrue(mPollBatch.poll(USER_ID, "2").isDone());
+        assertEquals(0, mApi.mListCalls.get());
+    }
+
+    private void track(String... transactionIds) {
+        for (String transactionId : transactionIds) {
+            mPollBatch.track(USER_ID, transactionId, SettableFuture.<Bundle>create());
+        }
+    }
+
+    private List<ListenableFuture<JSONObject>> poll(String... transactionIds) {
+        List<ListenableFuture<JSONObject>> polls = new ArrayList<>();
+        for (String transactionId : transactionIds) {
+            polls.add(mPollBatch.poll(USER_ID, transactionId));
+        }
+        return polls;
+    }
+
+    private static List<String> transactionIds(List<ListenableFuture<JSONObject>> polls) throws Exception {
+        List<String> transactionIds = new ArrayList<>();
+        for (ListenableFuture<JSONObject> poll : polls) {
+            JSONObject response = poll.get(WAIT_SECONDS, TimeUnit.SECONDS);
+            transactionIds.add(response.getJSONObject(OstConstants.RESPONSE_DATA)
+                    .getJSONObject(OstSdk.TRANSACTION).getString(OstTransaction.getIdentifier()));
+        }
+        return transactionIds;
+    }
+
+    private static JSONObject transaction(String transactionId) {
+        try {
+            return new JSONObject()
+                    .put(OstTransaction.getIdentifier(), transactionId)
+                    .put(OstTransaction.STATUS, OstTransaction.CONST_STATUS.SUBMITTED);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Answers list calls with the listed transactions and fetches with the transaction asked for.
+     */
+    private static class TestApi implements OstTransactionPollBatch.Api {
+        private final AtomicInteger mListCalls = new AtomicInteger();
+        private final List<String> mFetched = Collections.synchronizedList(new ArrayList<String>());
+        private volatile List<String> mListed = Collections.emptyList();
+        private volatile boolean mIsListFailing;
+
+        @Override
+        public ListenableFuture<JSONObject> getLatestTransactions(String userId, int limit) {
+            mListCalls.incrementAndGet();
+            if (mIsListFailing) {
+                return Futures.immediateFailedFuture(new IOException("List call failed"));
+            }
+            try {
+                JSONArray transactions = new JSONArray();
+                for (String transactionId : mListed) {
+                    transactions.put(transaction(transactionId));
+                }
+                JSONObject jsonData = new JSONObject()
+                        .put(OstConstants.RESULT_TYPE, OstSdk.TRANSACTIONS)
+                        .put(OstSdk.TRANSACTIONS, transactions);
+                return Futures.immediateFuture(new JSONObject()
+                        .put(OstConstants.RESPONSE_SUCCESS, true)
+                        .put(OstConstants.RESPONSE_DATA, jsonData));
+            } catch (JSONException e) {
+                return Futures.immediateFailedFuture(e);
+            }
+        }
+
+        @Override
+        public ListenableFuture<JSONObject> getTransaction(String userId, String transactionId) {
+            mFetched.add(transactionId);
+            return Futures.immediateFuture(OstPollingService.entityResponse(OstSdk.TRANSACTION, transaction(transactionId)));
+        }
+    }
+}